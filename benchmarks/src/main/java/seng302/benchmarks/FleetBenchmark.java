@@ -0,0 +1,77 @@
+package seng302.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import seng302.controllers.CollisionManager;
+import seng302.controllers.RaceUpdater;
+import seng302.controllers.RoundingMechanics;
+import seng302.models.Boat;
+import seng302.models.Coordinate;
+import seng302.models.Course;
+import seng302.models.Race;
+import seng302.models.RaceLine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per boat work of a tick across a whole fleet lined up behind the start line, so the results for
+ * each fleet size show how the work scales. The race is built again for each iteration, as collisions damage the
+ * boats until they drop out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FleetBenchmark {
+
+    @Param({"2", "6", "20", "50"})
+    public int boats;
+
+    private Race race;
+    private Course course;
+    private List<Boat> competitors;
+    private CollisionManager collisionManager;
+    private RaceLine startLine;
+    private Coordinate behindStartLine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        RaceUpdater updater = RaceFixture.startedRace(boats);
+        race = updater.getRace();
+        course = race.getCourse();
+        competitors = race.getCompetitors();
+        collisionManager = updater.getCollisionManager();
+        startLine = course.getStartLine();
+        behindStartLine = new Coordinate(competitors.get(0).getCurrentLat(), competitors.get(0).getCurrentLon());
+    }
+
+    @Benchmark
+    public double updateBoatSpeed() {
+        double total = 0;
+        for (int i = 0; i < competitors.size(); i++) {
+            total += competitors.get(i).updateBoatSpeed(course);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int boatPassedThroughStartLine() {
+        int passed = 0;
+        for (int i = 0; i < competitors.size(); i++) {
+            if (RoundingMechanics.boatPassedThroughCompoundMark(competitors.get(i), startLine, behindStartLine, true)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    @Benchmark
+    public int checkForCollisions() {
+        collisionManager.checkForCollisions(race);
+        int collisions = collisionManager.getCollisions().size();
+        RaceFixture.clearCollisions(collisionManager);
+        return collisions;
+    }
+}
@@ -0,0 +1,81 @@
+package seng302.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import seng302.models.Coordinate;
+import seng302.utilities.Geodesy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the great circle calculations every boat makes on every tick, between two points a typical leg apart,
+ * against the cached point and flat plane versions of them
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeodesyBenchmark {
+
+    private Coordinate from;
+    private Coordinate to;
+    private double distance;
+    private double bearing;
+    private Coordinate result;
+    private Geodesy.Point fromPoint;
+    private Geodesy.Point toPoint;
+    private Geodesy.TangentPlane plane;
+
+    @Setup
+    public void setUp() {
+        from = new Coordinate(32.296577, -64.854304);
+        to = new Coordinate(32.309730, -64.835000);
+        distance = from.greaterCircleDistance(to);
+        bearing = from.headingToCoordinate(to);
+        result = new Coordinate(0, 0);
+        fromPoint = new Geodesy.Point(from.getLat(), from.getLon());
+        toPoint = new Geodesy.Point(to.getLat(), to.getLon());
+        plane = new Geodesy.TangentPlane(from.getLat(), from.getLon());
+    }
+
+    @Benchmark
+    public double greaterCircleDistance() {
+        return from.greaterCircleDistance(to);
+    }
+
+    @Benchmark
+    public double headingToCoordinate() {
+        return from.headingToCoordinate(to);
+    }
+
+    @Benchmark
+    public Coordinate coordAt() {
+        return from.coordAt(distance, bearing);
+    }
+
+    @Benchmark
+    public Coordinate coordAtIntoResult() {
+        return from.coordAt(distance, bearing, result);
+    }
+
+    @Benchmark
+    public double pointDistance() {
+        return fromPoint.distanceTo(toPoint);
+    }
+
+    @Benchmark
+    public double pointHeading() {
+        return fromPoint.headingTo(toPoint);
+    }
+
+    @Benchmark
+    public double planeDistanceSquared() {
+        return plane.distanceSquared(from.getLat(), from.getLon(), to.getLat(), to.getLon());
+    }
+
+    @Benchmark
+    public double planeHeading() {
+        return plane.heading(from.getLat(), from.getLon(), to.getLat(), to.getLon());
+    }
+}
@@ -0,0 +1,51 @@
+package seng302.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import seng302.controllers.RaceUpdater;
+import seng302.models.Course;
+import seng302.models.Polar;
+import seng302.models.PolarPerformanceGrid;
+import seng302.models.PolarTable;
+import seng302.utilities.PolarReader;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a boat's polar table, both by searching the polars for the optimum tack and gybe and from the
+ * precomputed performance grid, and building the grid itself
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolarTableBenchmark {
+
+    private ArrayList<Polar> polars;
+    private PolarPerformanceGrid grid;
+    private Course course;
+
+    @Setup
+    public void setUp() {
+        polars = PolarReader.getPolarsForAC35Yachts();
+        grid = PolarReader.getPerformanceGridForAC35Yachts();
+        course = new RaceUpdater(RaceFixture.COURSE).getRace().getCourse();
+    }
+
+    @Benchmark
+    public PolarTable fromPolars() {
+        return new PolarTable(polars, course);
+    }
+
+    @Benchmark
+    public PolarTable fromPerformanceGrid() {
+        return new PolarTable(grid, course);
+    }
+
+    @Benchmark
+    public PolarPerformanceGrid performanceGrid() {
+        return new PolarPerformanceGrid(polars);
+    }
+}
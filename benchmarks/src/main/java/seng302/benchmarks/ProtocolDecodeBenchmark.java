@@ -0,0 +1,104 @@
+package seng302.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import seng302.controllers.RaceUpdater;
+import seng302.controllers.listeners.ClientListener;
+import seng302.controllers.listeners.Listener;
+import seng302.models.Race;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading the fields of packets, checking their CRCs and the client parsing a recorded stream of race
+ * ticks from the first byte to the updated race. Run with -prof gc to see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolDecodeBenchmark {
+
+    private static final int HEADER_LENGTH = 15;
+    private static final int CRC_LENGTH = 4;
+
+    @Param({"6"})
+    public int boats;
+
+    @Param({"100"})
+    public int ticks;
+
+    private byte[] packet;
+    private byte[] header;
+    private byte[] body;
+    private byte[] crc;
+    private byte[] recordedTicks;
+    private CrcChecker crcChecker;
+    private ClientListener clientListener;
+
+    @Setup
+    public void setUp() throws IOException {
+        RaceUpdater updater = RaceFixture.startedRace(boats);
+        Race race = updater.getRace();
+        recordedTicks = RaceFixture.recordTicks(updater, ticks);
+        packet = RaceFixture.firstPacket(recordedTicks);
+        header = Arrays.copyOfRange(packet, 0, HEADER_LENGTH);
+        body = Arrays.copyOfRange(packet, HEADER_LENGTH, packet.length - CRC_LENGTH);
+        crc = Arrays.copyOfRange(packet, packet.length - CRC_LENGTH, packet.length);
+        crcChecker = new CrcChecker();
+
+        clientListener = new ClientListener("localhost", 0);
+        byte[] xmlMessages = RaceFixture.recordXmlMessages(race);
+        clientListener.parseMessages(Channels.newChannel(new ByteArrayInputStream(xmlMessages)));
+        if (clientListener.getRace() == null || !clientListener.getRace().isInitialized()) {
+            throw new IllegalStateException("The client did not set up the race from the XML messages");
+        }
+    }
+
+    @Benchmark
+    public int byteArrayRangeToInt() {
+        return Listener.byteArrayRangeToInt(packet, 9, 13);
+    }
+
+    @Benchmark
+    public long byteArrayRangeToLong() {
+        return Listener.byteArrayRangeToLong(packet, 3, 9);
+    }
+
+    @Benchmark
+    public boolean checkCrc() {
+        return crcChecker.check(header, body, crc);
+    }
+
+    @Benchmark
+    public Race clientParseRecordedTicks() throws IOException {
+        clientListener.parseMessages(Channels.newChannel(new ByteArrayInputStream(recordedTicks)));
+        return clientListener.getRace();
+    }
+
+    /**
+     * Exposes the CRC check every listener runs on received messages
+     */
+    private static class CrcChecker extends Listener {
+
+        boolean check(byte[] header, byte[] body, byte[] crc) {
+            return checkCRC(header, body, crc);
+        }
+
+        @Override
+        public void run() {}
+
+        @Override
+        public Race getRace() {
+            return null;
+        }
+
+        @Override
+        public void disconnectClient() {}
+    }
+}
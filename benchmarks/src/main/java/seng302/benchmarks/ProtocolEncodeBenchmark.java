@@ -0,0 +1,86 @@
+package seng302.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import seng302.controllers.RaceUpdater;
+import seng302.data.AC35StreamXMLMessage;
+import seng302.data.ServerPacketBuilder;
+import seng302.models.Boat;
+import seng302.models.Race;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the packets the server sends every tick and when clients join, both as new arrays and
+ * written into a reused buffer. Run with -prof gc to see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolEncodeBenchmark {
+
+    @Param({"6"})
+    public int boats;
+
+    private ServerPacketBuilder builder;
+    private Race race;
+    private Boat boat;
+    private ByteBuffer buffer;
+    private byte[] boatLocationPacket;
+    private int sequenceNumber;
+
+    @Setup
+    public void setUp() {
+        RaceUpdater updater = RaceFixture.startedRace(boats);
+        race = updater.getRace();
+        boat = race.getCompetitors().get(0);
+        builder = new ServerPacketBuilder();
+        buffer = ByteBuffer.allocate(64 * 1024);
+        boatLocationPacket = builder.createBoatLocationMessage(boat, race, 0);
+    }
+
+    @Benchmark
+    public byte[] boatLocationMessage() {
+        return builder.createBoatLocationMessage(boat, race, sequenceNumber++);
+    }
+
+    @Benchmark
+    public ByteBuffer boatLocationMessageIntoBuffer() {
+        buffer.clear();
+        builder.createBoatLocationMessage(boat, race, sequenceNumber++, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public byte[] raceUpdateMessage() throws Exception {
+        return builder.createRaceUpdateMessage(race);
+    }
+
+    @Benchmark
+    public ByteBuffer raceUpdateMessageIntoBuffer() {
+        buffer.clear();
+        builder.createRaceUpdateMessage(race, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public byte[] raceXmlMessage() {
+        return builder.buildXmlMessage(AC35StreamXMLMessage.RACE_XML_MESSAGE, RaceFixture.COURSE, 0, race, RaceFixture.COURSE);
+    }
+
+    @Benchmark
+    public ByteBuffer raceXmlMessageIntoBuffer() throws IOException {
+        buffer.clear();
+        builder.buildXmlMessage(AC35StreamXMLMessage.RACE_XML_MESSAGE, RaceFixture.COURSE, 0, race, RaceFixture.COURSE, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public byte[] wrapPacket() {
+        return builder.wrapPacket(boatLocationPacket);
+    }
+}
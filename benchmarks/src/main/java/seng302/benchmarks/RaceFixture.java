@@ -0,0 +1,154 @@
+package seng302.benchmarks;
+
+import seng302.controllers.CollisionManager;
+import seng302.controllers.RaceUpdater;
+import seng302.data.AC35StreamXMLMessage;
+import seng302.data.BoatStatus;
+import seng302.data.ServerPacketBuilder;
+import seng302.models.Boat;
+import seng302.models.Collision;
+import seng302.models.Coordinate;
+import seng302.models.Race;
+import seng302.models.RaceLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Builds races and recorded race streams for the benchmarks to run against
+ */
+final class RaceFixture {
+
+    static final String COURSE = "AC35-course.xml";
+    private static final int WARM_UP_TICKS = 50;
+    private static final int FIRST_EXTRA_BOAT_ID = 1000;
+    private static final int BOATS_PER_ROW = 6;
+    private static final double BOAT_SPACING = 0.05;
+
+    private RaceFixture() {}
+
+    /**
+     * Creates a started race on the AC35 course, run for a few ticks so the boats are moving
+     * @param boats the number of boats in the race
+     * @return the race's updater
+     */
+    static RaceUpdater startedRace(int boats) {
+        return startedRace(COURSE, boats);
+    }
+
+    /**
+     * Creates a started race with the boats lined up behind the start line, run for a few ticks so they are
+     * moving. Boat.xml only holds enough boats for small fleets, so boats past those are made up.
+     * @param course the course file
+     * @param boats the number of boats in the race
+     * @return the race's updater
+     */
+    static RaceUpdater startedRace(String course, int boats) {
+        RaceUpdater updater = new RaceUpdater(course);
+        Race race = updater.getRace();
+        for (int i = 0; i < boats; i++) {
+            if (updater.addCompetitor() == -1) {
+                race.addCompetitor(new Boat(FIRST_EXTRA_BOAT_ID + i, "Boat " + i, "B" + i, 0));
+            }
+        }
+        updater.skipPrerace();
+        updater.start();
+        lineUp(race);
+        for (int i = 0; i < WARM_UP_TICKS; i++) {
+            updater.tick();
+        }
+        return updater;
+    }
+
+    /**
+     * Puts the boats back in rows behind the start line, far enough apart not to collide, heading for the middle
+     * of the line with their sails out. Boats count as spawned long ago, so collisions are checked for them
+     * straight away.
+     * @param race the race
+     */
+    static void lineUp(Race race) {
+        RaceLine startLine = race.getCourse().getStartLine();
+        Coordinate middle = startLine.getPosition();
+        double alongLine = startLine.getMark1().getPosition().headingToCoordinate(startLine.getMark2().getPosition());
+        Coordinate firstMark = race.getCourse().getCourseOrder().get(1).getPosition();
+        double awayFromCourse = firstMark.headingToCoordinate(middle);
+        int boatIndex = 0;
+        for (Boat boat : race.getCompetitors()) {
+            int row = boatIndex / BOATS_PER_ROW;
+            double column = boatIndex % BOATS_PER_ROW - (BOATS_PER_ROW - 1) / 2.0;
+            Coordinate onLine = middle.coordAt(BOAT_SPACING * column, alongLine);
+            boat.setPosition(onLine.coordAt(BOAT_SPACING * (row + 1), awayFromCourse));
+            boat.setHeading(boat.getCurrentPosition().headingToCoordinate(middle));
+            boat.setTargetHeading(boat.getHeading());
+            boat.setCurrentSpeed(0);
+            boat.setSailsIn(false);
+            boat.setLastRoundedMarkIndex(-1);
+            boat.setStatus(BoatStatus.RACING);
+            boat.setSpawnTime(0);
+            boatIndex++;
+        }
+    }
+
+    /**
+     * Drops the collisions found so far, as the server does once it has sent them to clients
+     * @param collisionManager the race's collision manager
+     */
+    static void clearCollisions(CollisionManager collisionManager) {
+        if (!collisionManager.getCollisions().isEmpty()) {
+            for (Collision collision : new ArrayList<>(collisionManager.getCollisions())) {
+                collisionManager.removeCollision(collision);
+            }
+        }
+    }
+
+    /**
+     * Records the XML messages a client receives when it joins the race
+     * @param race the race
+     * @return the messages, one after another
+     */
+    static byte[] recordXmlMessages(Race race) throws IOException {
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(builder.buildXmlMessage(AC35StreamXMLMessage.RACE_XML_MESSAGE, COURSE, 0, race, COURSE));
+        stream.write(builder.buildXmlMessage(AC35StreamXMLMessage.BOAT_XML_MESSAGE, "Boat.xml", 0, race, COURSE));
+        stream.write(builder.buildXmlMessage(AC35StreamXMLMessage.REGATTA_XML_MESSAGE, "Regatta.xml", 0, race, COURSE));
+        return stream.toByteArray();
+    }
+
+    /**
+     * Runs the race and records the race status and boat location messages sent on each tick, as the server's
+     * broadcast writes them
+     * @param updater the race's updater
+     * @param ticks the number of ticks to record
+     * @return the messages, one after another
+     */
+    static byte[] recordTicks(RaceUpdater updater, int ticks) {
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        Race race = updater.getRace();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int sequenceNumber = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            updater.tick();
+            buffer.clear();
+            builder.createRaceUpdateMessage(race, buffer);
+            for (Boat boat : race.getCompetitors()) {
+                builder.createBoatLocationMessage(boat, race, sequenceNumber++, buffer);
+            }
+            stream.write(buffer.array(), 0, buffer.position());
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * @param stream messages one after another
+     * @return the first message in the stream
+     */
+    static byte[] firstPacket(byte[] stream) {
+        int bodyLength = (stream[13] & 0xFF) | (stream[14] & 0xFF) << 8;
+        return Arrays.copyOf(stream, 15 + bodyLength + 4);
+    }
+}
@@ -0,0 +1,58 @@
+package seng302.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import seng302.controllers.CollisionManager;
+import seng302.controllers.RaceUpdater;
+import seng302.models.Race;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one full tick of the race on each shipped course for a range of fleet sizes. Collisions are dropped
+ * after every tick as the server does when it sends them, and the boats are lined up behind the start line again
+ * every minute of race time so they stay on the course. The boats are updated on the race's own thread unless more
+ * threads are given, as in -p threads=1,16.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RaceTickBenchmark {
+
+    private static final int TICKS_BEFORE_LINE_UP = 3000;
+
+    @Param({"AC33-course.xml", "AC35-course.xml", "LakeTaupo-course.xml", "LakeTekapo-course.xml"})
+    public String course;
+
+    @Param({"2", "6", "20", "50"})
+    public int boats;
+
+    @Param({"1"})
+    public int threads;
+
+    private RaceUpdater updater;
+    private Race race;
+    private CollisionManager collisionManager;
+    private int ticks;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        updater = RaceFixture.startedRace(course, boats);
+        updater.setUpdateThreads(threads);
+        race = updater.getRace();
+        collisionManager = updater.getCollisionManager();
+        ticks = 0;
+    }
+
+    @Benchmark
+    public Race tick() {
+        if (++ticks % TICKS_BEFORE_LINE_UP == 0) {
+            RaceFixture.lineUp(race);
+        }
+        updater.tick();
+        RaceFixture.clearCollisions(collisionManager);
+        return race;
+    }
+}
@@ -0,0 +1,149 @@
+package seng302.loadtest;
+
+import seng302.data.registration.RegistrationType;
+import seng302.utilities.ConnectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens many player and spectator connections to a game server or race host and reports the latency from a
+ * player's command to the boat location update showing it, the data received and the connections the server
+ * drops. Clients are opened at a steady rate so the point where the server stops keeping up can be seen in the
+ * reports printed as the test runs. The server closes every connection when a race ends, so those closes are
+ * counted as disconnects too.
+ *
+ * Usage: LoadGenerator [-h host] [-p port] [-n players] [-v spectators] [-w webSocketPercent] [-c rooms]
+ * [-a actionsPerSecond] [-r clientsPerSecond] [-t seconds] [-l locationDeltaPercent] [-i trackingPercent]
+ */
+public class LoadGenerator {
+
+    private static final int REPORT_SECONDS = 5;
+
+    private String host = "localhost";
+    private int port = ConnectionUtils.DEFAULT_GAME_PORT;
+    private int players = 6;
+    private int spectators = 0;
+    private int webSocketPercent = 0;
+    private int locationDeltaPercent = 0;
+    private int trackingPercent = 0;
+    private int rooms = 1;
+    private int actionsPerSecond = 10;
+    private int clientsPerSecond = 50;
+    private int seconds = 60;
+
+    private final LoadStats stats = new LoadStats();
+    private final List<SimulatedClient> clients = new ArrayList<>();
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        try {
+            generator.parseArguments(args);
+        } catch (IllegalArgumentException iae) {
+            System.out.print("Invalid load test arguments. ");
+            System.out.println(iae.getMessage());
+            return;
+        }
+        generator.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(String.format("Missing value for argument \"%s\"", args[i]));
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-h":
+                    host = value;
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                case "-n":
+                    players = Integer.parseInt(value);
+                    break;
+                case "-v":
+                    spectators = Integer.parseInt(value);
+                    break;
+                case "-w":
+                    webSocketPercent = Integer.parseInt(value);
+                    break;
+                case "-c":
+                    rooms = Integer.parseInt(value);
+                    break;
+                case "-a":
+                    actionsPerSecond = Integer.parseInt(value);
+                    break;
+                case "-r":
+                    clientsPerSecond = Integer.parseInt(value);
+                    break;
+                case "-t":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "-l":
+                    locationDeltaPercent = Integer.parseInt(value);
+                    break;
+                case "-i":
+                    trackingPercent = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unknown argument \"%s\"", args[i]));
+            }
+        }
+        if (rooms < 1 || actionsPerSecond < 1 || clientsPerSecond < 1) {
+            throw new IllegalArgumentException("Rooms, actions per second and clients per second must be at least 1");
+        }
+    }
+
+    /**
+     * Opens the clients over the ramp up, runs the test for its duration, then closes every client and prints
+     * the final report
+     */
+    private void run() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "Load Scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        long actionPeriodMicros = TimeUnit.SECONDS.toMicros(1) / actionsPerSecond;
+        long openPeriodMicros = TimeUnit.SECONDS.toMicros(1) / clientsPerSecond;
+        System.out.printf("Load test: %d players and %d spectators in %d rooms on %s:%d, %d%% over WebSocket, %d%% with location deltas, %d%% tracking a boat%n",
+                players, spectators, rooms, host, port, webSocketPercent, locationDeltaPercent, trackingPercent);
+        for (int i = 0; i < players + spectators; i++) {
+            int clientNumber = i;
+            boolean isPlayer = i < players;
+            SimulatedClient client = new SimulatedClient(host, port,
+                    isPlayer ? RegistrationType.PLAYER : RegistrationType.SPECTATOR, i % rooms,
+                    (i + 1) * webSocketPercent / 100 != i * webSocketPercent / 100,
+                    (i + 1) * locationDeltaPercent / 100 != i * locationDeltaPercent / 100,
+                    (i + 1) * trackingPercent / 100 != i * trackingPercent / 100, stats, i);
+            clients.add(client);
+            scheduler.schedule(() -> {
+                Thread thread = new Thread(client, "Load Client " + clientNumber);
+                thread.setDaemon(true);
+                thread.start();
+            }, i * openPeriodMicros, TimeUnit.MICROSECONDS);
+            if (isPlayer) {
+                scheduler.scheduleAtFixedRate(client::act, i * openPeriodMicros, actionPeriodMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        long start = System.nanoTime();
+        long lastBytes = 0;
+        for (int elapsed = REPORT_SECONDS; elapsed <= seconds; elapsed += REPORT_SECONDS) {
+            TimeUnit.NANOSECONDS.sleep(start + TimeUnit.SECONDS.toNanos(elapsed) - System.nanoTime());
+            long bytes = stats.getBytesReceived();
+            System.out.printf("%ds: %s, %d bytes/s%n", elapsed, stats.summary(), (bytes - lastBytes) / REPORT_SECONDS);
+            lastBytes = bytes;
+        }
+        System.out.println("Load test finished: " + stats.summary());
+        scheduler.shutdownNow();
+        for (SimulatedClient client : clients) {
+            client.stop();
+        }
+    }
+}
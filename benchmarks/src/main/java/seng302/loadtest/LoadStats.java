@@ -0,0 +1,85 @@
+package seng302.loadtest;
+
+import seng302.utilities.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counts shared by all the simulated clients of a load test. Everything can be updated from any client's
+ * thread without locking.
+ */
+class LoadStats {
+
+    private final LatencyHistogram commandLatency = new LatencyHistogram();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder registrationsRejected = new LongAdder();
+    private final LongAdder serverDisconnects = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder commandsSent = new LongAdder();
+    private final LongAdder probesLost = new LongAdder();
+
+    void recordCommandLatency(long nanos) {
+        commandLatency.record(nanos);
+    }
+
+    void connectionOpened() {
+        connected.incrementAndGet();
+    }
+
+    void connectionClosed(boolean byServer) {
+        connected.decrementAndGet();
+        if (byServer) {
+            serverDisconnects.increment();
+        }
+    }
+
+    void connectFailed() {
+        connectFailures.increment();
+    }
+
+    void registrationRejected() {
+        registrationsRejected.increment();
+    }
+
+    void bytesReceived(int bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    void messageReceived() {
+        messagesReceived.increment();
+    }
+
+    void commandSent() {
+        commandsSent.increment();
+    }
+
+    void probeLost() {
+        probesLost.increment();
+    }
+
+    long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * @return one line giving every count, with the latencies in milliseconds. The percentiles are the upper
+     * bounds of the histogram buckets they fall in.
+     */
+    String summary() {
+        return String.format("connected %d, connect failures %d, rejected %d, server disconnects %d, " +
+                        "received %d messages %d bytes, commands %d, latency p50 %.1f ms p99 %.1f ms max %.1f ms " +
+                        "(%d measured, %d lost)",
+                connected.get(), connectFailures.sum(), registrationsRejected.sum(), serverDisconnects.sum(),
+                messagesReceived.sum(), bytesReceived.sum(), commandsSent.sum(),
+                toMillis(commandLatency.getPercentileNanos(0.5)), toMillis(commandLatency.getPercentileNanos(0.99)),
+                toMillis(commandLatency.getMaxNanos()), commandLatency.getCount(), probesLost.sum());
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
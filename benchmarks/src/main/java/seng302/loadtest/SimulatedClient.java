@@ -0,0 +1,353 @@
+package seng302.loadtest;
+
+import seng302.controllers.listeners.Listener;
+import seng302.data.AC35StreamMessage;
+import seng302.data.BoatAction;
+import seng302.data.BoatLocationDeltaDecoder;
+import seng302.data.ClientInterest;
+import seng302.data.ClientPacketBuilder;
+import seng302.data.FrameDecoder;
+import seng302.data.registration.RegistrationResponseStatus;
+import seng302.data.registration.RegistrationType;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static seng302.data.AC35StreamField.*;
+
+/**
+ * A player or spectator connected to a game server over TCP or WebSocket. The client reads everything the server
+ * sends on its own thread, and a player sends a boat action each time act is called. Every few actions a player
+ * toggles its sails and times how long it takes for the server to show the change: by the sail state in a boat
+ * location message over TCP, or by the boat speeding up or slowing down in a web client update over WebSocket.
+ * The server only sends web client updates in party mode, so WebSocket players are only timed in party mode.
+ * A client can also declare a small view that tracks its own boat, or the first boat it hears of if it is a
+ * spectator, so that the server sends it the other boats less often.
+ */
+class SimulatedClient implements Runnable {
+
+    private static final long PROBE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int ACTIONS_PER_PROBE = 8;
+    private static final int MAX_HELD_ACTIONS = 6;
+    private static final int BOAT_DEVICE_TYPE = 1;
+    private static final int WEB_SOCKET_BINARY_FRAME = 0x82;
+    private static final double VIEW_RADIUS_DEGREES = 0.002;
+    private static final byte[] HANDSHAKE_END = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final String host;
+    private final int port;
+    private final RegistrationType registrationType;
+    private final int roomId;
+    private final boolean webSocket;
+    private final boolean locationDeltas;
+    private final boolean tracksBoat;
+    private final LoadStats stats;
+    private final Random random;
+    private final ClientPacketBuilder packetBuilder = new ClientPacketBuilder();
+    private final BoatLocationDeltaDecoder deltaDecoder = new BoatLocationDeltaDecoder();
+
+    private volatile SocketChannel channel;
+    private volatile int boatId = -1;
+    private volatile boolean stopping = false;
+    private boolean interestSent = false;
+
+    private boolean sailsObserved = false;
+    private boolean sailsIn = true;
+    private int lastSpeed;
+    private long probeSentNanos = -1;
+    private int actionsUntilProbe = ACTIONS_PER_PROBE;
+    private BoatAction heldAction;
+    private int heldActionsRemaining = 0;
+
+    SimulatedClient(String host, int port, RegistrationType registrationType, int roomId, boolean webSocket,
+                    boolean locationDeltas, boolean tracksBoat, LoadStats stats, long seed) {
+        this.host = host;
+        this.port = port;
+        this.registrationType = registrationType;
+        this.roomId = roomId;
+        this.webSocket = webSocket;
+        this.locationDeltas = locationDeltas;
+        this.tracksBoat = tracksBoat;
+        this.stats = stats;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Connects, registers and reads messages until the server closes the connection or the client is stopped
+     */
+    @Override
+    public void run() {
+        try {
+            channel = SocketChannel.open(new InetSocketAddress(host, port));
+        } catch (IOException e) {
+            stats.connectFailed();
+            return;
+        }
+        stats.connectionOpened();
+        boolean closedByServer = false;
+        try {
+            ReadableByteChannel input = countingChannel(channel);
+            if (webSocket) {
+                openWebSocket(input);
+                input = new WebSocketFrameChannel(input);
+            }
+            send(packetBuilder.createRegistrationRequestPacket(registrationType, roomId, locationDeltas));
+            FrameDecoder decoder = new FrameDecoder(input);
+            while (!stopping) {
+                decoder.nextMessage();
+                stats.messageReceived();
+                handleMessage(decoder.getMessageType(), decoder.getBody());
+            }
+        } catch (IOException e) {
+            closedByServer = !stopping;
+        } finally {
+            stopping = true;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            stats.connectionClosed(closedByServer);
+        }
+    }
+
+    /**
+     * Closes the connection, which ends the client's thread
+     */
+    void stop() {
+        stopping = true;
+        SocketChannel currentChannel = channel;
+        if (currentChannel != null) {
+            try {
+                currentChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Sends the player's next boat action, which is a sail change to time if one is due and none is waiting for
+     * an answer. Does nothing until the player has been given a boat.
+     */
+    void act() {
+        if (boatId == -1 || stopping) {
+            return;
+        }
+        BoatAction action;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (probeSentNanos != -1 && now - probeSentNanos > PROBE_TIMEOUT_NANOS) {
+                stats.probeLost();
+                probeSentNanos = -1;
+            }
+            if (probeSentNanos == -1 && sailsObserved && --actionsUntilProbe <= 0) {
+                action = sailsIn ? BoatAction.SAILS_OUT : BoatAction.SAILS_IN;
+                probeSentNanos = now;
+                actionsUntilProbe = ACTIONS_PER_PROBE;
+                if (webSocket) {
+                    sailsIn = !sailsIn;
+                }
+            } else {
+                action = nextSteeringAction();
+            }
+        }
+        try {
+            send(packetBuilder.createBoatCommandPacket(action.getType(), boatId));
+            stats.commandSent();
+        } catch (IOException e) {
+            stop();
+        }
+    }
+
+    /**
+     * Steers mostly by holding the rotate keys for a few actions, with the occasional upwind, downwind, VMG and
+     * tack or gybe
+     */
+    private BoatAction nextSteeringAction() {
+        if (heldActionsRemaining > 0) {
+            heldActionsRemaining--;
+            return heldAction;
+        }
+        int roll = random.nextInt(100);
+        if (roll < 70) {
+            heldAction = random.nextBoolean() ? BoatAction.CLOCKWISE : BoatAction.ANTI_CLOCKWISE;
+            heldActionsRemaining = random.nextInt(MAX_HELD_ACTIONS);
+            return heldAction;
+        } else if (roll < 80) {
+            return BoatAction.UPWIND;
+        } else if (roll < 90) {
+            return BoatAction.DOWNWIND;
+        } else if (roll < 95) {
+            return BoatAction.BOAT_VMG;
+        } else {
+            return BoatAction.TACK_GYBE;
+        }
+    }
+
+    private void handleMessage(int messageType, ByteBuffer body) throws IOException {
+        if (messageType == AC35StreamMessage.REGISTRATION_RESPONSE.getValue()) {
+            RegistrationResponseStatus status = RegistrationResponseStatus.getStatusFromByte(
+                    body.get(REGISTRATION_RESPONSE_STATUS.getStartIndex()));
+            if (status == RegistrationResponseStatus.PLAYER_SUCCESS) {
+                boatId = Listener.bufferRangeToInt(body, REGISTRATION_SOURCE_ID.getStartIndex(), REGISTRATION_SOURCE_ID.getEndIndex());
+            } else if (status != RegistrationResponseStatus.SPECTATOR_SUCCESS) {
+                stats.registrationRejected();
+                stop();
+            }
+        } else if (messageType == AC35StreamMessage.BOAT_LOCATION_MESSAGE.getValue()) {
+            deltaDecoder.keyframe(body);
+            handleBoatLocation(body);
+        } else if (messageType == AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE.getValue()) {
+            ByteBuffer location = deltaDecoder.decode(body);
+            if (location != null) {
+                handleBoatLocation(location);
+            }
+        } else if (messageType == AC35StreamMessage.WEB_CLIENT_UPDATE.getValue() && boatId != -1) {
+            int id = Listener.bufferRangeToInt(body, WEB_CLIENT_ID.getStartIndex(), WEB_CLIENT_ID.getEndIndex());
+            if (id == boatId) {
+                updateSpeed(Listener.bufferRangeToInt(body, WEB_CLIENT_SPEED.getStartIndex(), WEB_CLIENT_SPEED.getEndIndex()));
+            }
+        }
+    }
+
+    private void handleBoatLocation(ByteBuffer body) throws IOException {
+        int sourceId = Listener.bufferRangeToInt(body, BOAT_SOURCE_ID.getStartIndex(), BOAT_SOURCE_ID.getEndIndex());
+        if (tracksBoat && !interestSent && !webSocket) {
+            int trackedBoat = boatId != -1 ? boatId : sourceId;
+            send(packetBuilder.createClientInterestPacket(new ClientInterest(trackedBoat, -VIEW_RADIUS_DEGREES,
+                    -VIEW_RADIUS_DEGREES, VIEW_RADIUS_DEGREES, VIEW_RADIUS_DEGREES), boatId));
+            interestSent = true;
+        }
+        if (boatId != -1) {
+            int deviceType = Listener.bufferRangeToInt(body, DEVICE_TYPE.getStartIndex(), DEVICE_TYPE.getEndIndex());
+            if (sourceId == boatId && deviceType == BOAT_DEVICE_TYPE) {
+                int sailState = Listener.bufferRangeToInt(body, SAIL_STATE.getStartIndex(), SAIL_STATE.getEndIndex());
+                updateSails(sailState == 0);
+            }
+        }
+    }
+
+    /**
+     * Records the sail state of the player's boat, timing the sail change waiting for an answer if this shows it
+     */
+    private synchronized void updateSails(boolean locationSailsIn) {
+        if (probeSentNanos != -1 && locationSailsIn != sailsIn) {
+            stats.recordCommandLatency(System.nanoTime() - probeSentNanos);
+            probeSentNanos = -1;
+        }
+        sailsIn = locationSailsIn;
+        sailsObserved = true;
+    }
+
+    /**
+     * Records the speed of the player's boat, timing the sail change waiting for an answer if the boat has slowed
+     * down after taking its sails in or sped up after letting them out. A web client is not sent its sail state,
+     * so the sails are taken to have changed when the change was sent.
+     */
+    private synchronized void updateSpeed(int speed) {
+        if (probeSentNanos != -1 && sailsObserved && (sailsIn ? speed < lastSpeed : speed > lastSpeed)) {
+            stats.recordCommandLatency(System.nanoTime() - probeSentNanos);
+            probeSentNanos = -1;
+        }
+        lastSpeed = speed;
+        sailsObserved = true;
+    }
+
+    /**
+     * Sends a packet, in a masked binary frame if the client uses WebSocket
+     */
+    private void send(byte[] packet) throws IOException {
+        ByteBuffer data = webSocket ? ByteBuffer.wrap(maskedFrame(packet)) : ByteBuffer.wrap(packet);
+        synchronized (packetBuilder) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    private byte[] maskedFrame(byte[] packet) {
+        int lengthFieldSize = packet.length > 125 ? 2 : 0;
+        byte[] frame = new byte[2 + lengthFieldSize + 4 + packet.length];
+        frame[0] = (byte) WEB_SOCKET_BINARY_FRAME;
+        if (lengthFieldSize == 0) {
+            frame[1] = (byte) (0x80 | packet.length);
+        } else {
+            frame[1] = (byte) (0x80 | 126);
+            frame[2] = (byte) (packet.length >>> 8);
+            frame[3] = (byte) packet.length;
+        }
+        int keyStart = 2 + lengthFieldSize;
+        byte[] key = new byte[4];
+        random.nextBytes(key);
+        System.arraycopy(key, 0, frame, keyStart, key.length);
+        for (int i = 0; i < packet.length; i++) {
+            frame[keyStart + 4 + i] = (byte) (packet[i] ^ key[i & 3]);
+        }
+        return frame;
+    }
+
+    /**
+     * Sends the HTTP request that opens a WebSocket and reads the response up to the first frame
+     */
+    private void openWebSocket(ReadableByteChannel input) throws IOException {
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        String request = "GET / HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + Base64.getEncoder().encodeToString(key) + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+        ByteBuffer data = ByteBuffer.wrap(request.getBytes(StandardCharsets.UTF_8));
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        StringBuilder response = new StringBuilder();
+        ByteBuffer next = ByteBuffer.allocate(1);
+        int matched = 0;
+        while (matched < HANDSHAKE_END.length) {
+            next.clear();
+            if (input.read(next) == -1) {
+                throw new IOException("The server closed the connection during the WebSocket handshake");
+            }
+            byte b = next.get(0);
+            response.append((char) b);
+            matched = b == HANDSHAKE_END[matched] ? matched + 1 : (b == HANDSHAKE_END[0] ? 1 : 0);
+        }
+        if (!response.toString().startsWith("HTTP/1.1 101")) {
+            throw new IOException("The server refused the WebSocket handshake");
+        }
+    }
+
+    /**
+     * @return a channel reading from the given channel that adds the bytes read to the received bytes
+     */
+    private ReadableByteChannel countingChannel(ReadableByteChannel input) {
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer destination) throws IOException {
+                int bytesRead = input.read(destination);
+                if (bytesRead > 0) {
+                    stats.bytesReceived(bytesRead);
+                }
+                return bytesRead;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return input.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                input.close();
+            }
+        };
+    }
+}
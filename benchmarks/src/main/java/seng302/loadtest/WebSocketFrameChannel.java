@@ -0,0 +1,91 @@
+package seng302.loadtest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads the payloads of the binary WebSocket frames the server sends, one after another, so the AC35 stream
+ * they carry can be decoded as if it came straight from a socket. The server never masks its frames or sends
+ * control frames other than close, which ends the channel.
+ */
+class WebSocketFrameChannel implements ReadableByteChannel {
+
+    private static final int CLOSE_OPCODE = 8;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+    private long payloadRemaining = 0;
+    private boolean closed = false;
+
+    WebSocketFrameChannel(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        while (payloadRemaining == 0) {
+            if (closed || !readFrameHeader()) {
+                closed = true;
+                return -1;
+            }
+        }
+        int limit = destination.limit();
+        if (destination.remaining() > payloadRemaining) {
+            destination.limit(destination.position() + (int) payloadRemaining);
+        }
+        int bytesRead = channel.read(destination);
+        destination.limit(limit);
+        if (bytesRead > 0) {
+            payloadRemaining -= bytesRead;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Reads the header of the next frame and sets the length of its payload
+     * @return false if the frame closes the connection
+     */
+    private boolean readFrameHeader() throws IOException {
+        readFully(2);
+        int opcode = header.get(0) & 0x0F;
+        if ((header.get(1) & 0x80) != 0) {
+            throw new IOException("The server sent a masked frame");
+        }
+        int length = header.get(1) & 0x7F;
+        if (length == 126 || length == 127) {
+            readFully(length == 126 ? 2 : 8);
+            long extendedLength = 0;
+            for (int i = 0; i < header.limit(); i++) {
+                extendedLength = (extendedLength << 8) | (header.get(i) & 0xFF);
+            }
+            payloadRemaining = extendedLength;
+        } else {
+            payloadRemaining = length;
+        }
+        return opcode != CLOSE_OPCODE;
+    }
+
+    private void readFully(int bytes) throws IOException {
+        header.clear();
+        header.limit(bytes);
+        while (header.hasRemaining()) {
+            if (channel.read(header) == -1) {
+                throw new EOFException();
+            }
+        }
+        header.flip();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+}
@@ -1,13 +1,14 @@
 package seng302.controllers;
 
-import javafx.scene.shape.Polygon;
 import seng302.data.BoatStatus;
 import seng302.data.RaceStatus;
 import seng302.data.RaceVisionXMLParser;
 import seng302.models.*;
+import seng302.utilities.Geodesy;
 import seng302.utilities.MathUtils;
 import seng302.utilities.TimeUtils;
 
+import java.time.Clock;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -22,12 +23,42 @@ public class CollisionManager {
     private static final Double AT_FAULT_DELTA = 30.0;
     private static final Double COLLISION_DELTA = 60.0;
     private static final int SPAWN_IMMUNITY_SECONDS = 30;
-    private Penalties penalties = new Penalties();
-    private Polygon boundary = null;
+    private static final Double CELL_SIZE = 0.05; //Larger than both sensitivities so colliding objects are in neighbouring cells
+    private final Penalties penalties;
+    private BoundaryPolygon boundary = null;
+    private Geodesy.TangentPlane plane = null;
+
+    private SpatialHash<Boat> boatGrid = new SpatialHash<>(CELL_SIZE);
+    private SpatialHash<Mark> markGrid = new SpatialHash<>(CELL_SIZE);
+    private Map<Boat, Integer> boatIndices = new IdentityHashMap<>();
+    private List<Boat> nearbyBoats = new ArrayList<>();
+    private List<Mark> nearbyMarks = new ArrayList<>();
 
     private Set<Collision> currentCollisions = new CopyOnWriteArraySet<>();
 
-    public CollisionManager() {}
+    private final boolean isPractice;
+    private final boolean checksBoundary;
+
+    public CollisionManager() {
+        this(RaceVisionXMLParser.courseFile);
+    }
+
+    /**
+     * @param courseFile the course being raced, as the practice and tutorial courses have no boundary penalties
+     */
+    public CollisionManager(String courseFile) {
+        this(courseFile, Clock.systemUTC());
+    }
+
+    /**
+     * @param courseFile the course being raced, as the practice and tutorial courses have no boundary penalties
+     * @param clock the clock the time between penalties is measured by
+     */
+    public CollisionManager(String courseFile, Clock clock) {
+        penalties = new Penalties(clock);
+        isPractice = courseFile.equals("PracticeStart-course.xml");
+        checksBoundary = !isPractice && !courseFile.equals("GuidedPractice-course.xml");
+    }
 
 
     /**
@@ -35,41 +66,37 @@ public class CollisionManager {
      * @param boundaryCoordinates the coordinates of the boundary
      * @return the polygon
      */
-    public Polygon createCourseBoundary(List<Coordinate> boundaryCoordinates){
-        Polygon boundary = new Polygon();
-        for(Coordinate coord : boundaryCoordinates){
-            boundary.getPoints().add(coord.getLat());
-            boundary.getPoints().add(coord.getLon());
-        }
-        return boundary;
+    public BoundaryPolygon createCourseBoundary(List<Coordinate> boundaryCoordinates){
+        return new BoundaryPolygon(boundaryCoordinates);
     }
 
     /**
      * Checks all boats in the race to see if they are colliding with each other or course marks
+     * Only boats and marks in neighbouring grid cells are close enough to be checked.
      * Adds any collisions to a set.
      * @param race current race
      */
     public void checkForCollisions(Race race){
         if(boundary == null) boundary = createCourseBoundary(race.getCourse().getBoundary());
-        boolean isPractice = RaceVisionXMLParser.courseFile.equals("PracticeStart-course.xml");
-        boolean isTutorial = RaceVisionXMLParser.courseFile.equals("GuidedPractice-course.xml");
-        List<Boat> boats = new ArrayList<>();
-        boats.addAll(race.getCompetitors());
+        if(plane == null) plane = createCoursePlane(race.getCourse());
+        List<Boat> boats = race.getCompetitors();
+        updateGrids(boats, race.getCourse().getAllMarks().values());
         for (int i = 0; i < boats.size(); i++) {
             Boat boat = boats.get(i);
             if (race.getCurrentTimeInEpochMs() - boat.getSpawnTime() < TimeUtils.secondsToMilliseconds(SPAWN_IMMUNITY_SECONDS)) {
                 continue;
             }
             if(boat.getStatus() != BoatStatus.DNF && !boat.isFinished() && boat.getStatus() != BoatStatus.DISQUALIFIED) {
-                for (int j = i + 1; j < boats.size(); j++) {
-                    Boat otherBoat = boats.get(j);
-                    if (otherBoat.getStatus() != BoatStatus.DNF && !otherBoat.isFinished()) {
+                boatGrid.findNearby(boat.getCurrentPosition(), nearbyBoats);
+                for (Boat otherBoat : nearbyBoats) {
+                    if (boatIndices.get(otherBoat) > i && otherBoat.getStatus() != BoatStatus.DNF && !otherBoat.isFinished()) {
                         checkForCollisionBetweenBoats(boat, otherBoat);
                     }
                 }
             }
-            if(!isPractice && !isTutorial) checkForOutOfBounds(boat, race.getRaceStatus());
-            for (Mark mark : race.getCourse().getAllMarks().values()) {
+            if(checksBoundary) checkForOutOfBounds(boat, race.getRaceStatus());
+            markGrid.findNearby(boat.getCurrentPosition(), nearbyMarks);
+            for (Mark mark : nearbyMarks) {
                 if (!isPractice || mark.getSourceID() == 1 || mark.getSourceID() == 2) {
                     checkForCollisionBetweenBoatAndMark(boat, mark);
                 }
@@ -77,6 +104,42 @@ public class CollisionManager {
         }
     }
 
+    /**
+     * Creates the flat projection of the water used for collision distances, centred on the first mark of the
+     * course. Collisions are only checked over the fraction of a mile around a boat, where the projection matches
+     * the great circle distances closely.
+     * @param course the course being raced
+     * @return the projection
+     */
+    private Geodesy.TangentPlane createCoursePlane(Course course) {
+        Coordinate origin = course.getCourseOrder().get(0).getPosition();
+        return new Geodesy.TangentPlane(origin.getLat(), origin.getLon());
+    }
+
+    /**
+     * Moves the boats and marks into the grid cells of their current positions, dropping any boats or marks
+     * that have left the race since the last check
+     * @param boats the boats in the race, in race order
+     * @param marks the marks on the course
+     */
+    private void updateGrids(List<Boat> boats, Collection<Mark> marks) {
+        boatIndices.clear();
+        for (int i = 0; i < boats.size(); i++) {
+            Boat boat = boats.get(i);
+            boatIndices.put(boat, i);
+            boatGrid.update(boat, boat.getCurrentPosition());
+        }
+        if (boatGrid.size() != boats.size()) {
+            boatGrid.retainAll(boatIndices.keySet());
+        }
+        for (Mark mark : marks) {
+            markGrid.update(mark, mark.getPosition());
+        }
+        if (markGrid.size() != marks.size()) {
+            markGrid.retainAll(marks);
+        }
+    }
+
     /**
      * Check whether a boat is colliding with a mark and create a Collision if necessary
      * @param boat the boat to check
@@ -141,7 +204,7 @@ public class CollisionManager {
      * @param coordinate the coordinate to check if we boat1 is heading towards
      */
     private boolean boatHeadingTowardsCoordinate(Boat boat1, Coordinate coordinate, Double delta) {
-        double boat1To2Heading = boat1.getCurrentPosition().headingToCoordinate(coordinate);
+        double boat1To2Heading = plane.heading(boat1.getCurrentLat(), boat1.getCurrentLon(), coordinate.getLat(), coordinate.getLon());
         return MathUtils.pointBetweenTwoAngle(boat1To2Heading, delta, boat1.getHeading());
     }
 
@@ -152,8 +215,9 @@ public class CollisionManager {
      * @return boolean of collision
      */
     private boolean collisionOfBounds(Coordinate object1LatLon, Coordinate object2LatLon, double sensitivity){
-        double distance = object1LatLon.greaterCircleDistance(object2LatLon);
-        return distance < sensitivity;
+        double distanceSquared = plane.distanceSquared(object1LatLon.getLat(), object1LatLon.getLon(),
+                object2LatLon.getLat(), object2LatLon.getLon());
+        return distanceSquared < sensitivity * sensitivity;
     }
 
     /**
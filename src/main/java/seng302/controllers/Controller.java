@@ -31,6 +31,7 @@ import seng302.data.BoatStatus;
 import seng302.utilities.*;
 import seng302.utilities.TimeUtils;
 import seng302.views.BoatDisplay;
+import seng302.views.BoatProperties;
 import seng302.views.HeadsupDisplay;
 
 
@@ -1022,10 +1023,10 @@ public class Controller implements Initializable, Observer {
      * sets up the rv table when the board is toggled
      */
     private void setUpTable(){
-        columnName.setCellValueFactory(cellData -> cellData.getValue().getNameProperty());
-        columnPosition.setCellValueFactory(cellData -> cellData.getValue().getCurrPlacingProperty().asObject());
-        columnSpeed.setCellValueFactory(cellData -> Bindings.format("%.2f kn", cellData.getValue().getSpeedProperty()));
-        columnStatus.setCellValueFactory(cellData -> cellData.getValue().getStatusProperty());
+        columnName.setCellValueFactory(cellData -> BoatProperties.of(cellData.getValue()).nameProperty());
+        columnPosition.setCellValueFactory(cellData -> BoatProperties.of(cellData.getValue()).placingProperty().asObject());
+        columnSpeed.setCellValueFactory(cellData -> Bindings.format("%.2f kn", BoatProperties.of(cellData.getValue()).speedProperty()));
+        columnStatus.setCellValueFactory(cellData -> BoatProperties.of(cellData.getValue()).statusProperty());
 
         refreshTable();
         tblPlacingsRV.getSortOrder().add(columnPosition);
@@ -1053,14 +1054,14 @@ public class Controller implements Initializable, Observer {
      * order of boats is updated based on placings
      */
     public void refreshTable(){
-        Callback<Boat, javafx.beans.Observable[]> cb =(Boat boat) -> new javafx.beans.Observable[]{boat.getCurrPlacingProperty()};
+        Callback<Boat, javafx.beans.Observable[]> cb =(Boat boat) -> new javafx.beans.Observable[]{BoatProperties.of(boat).placingProperty()};
         ObservableList<Boat> observableList = FXCollections.observableArrayList(cb);
-        observableList.addAll(race.getObservableCompetitors());
+        observableList.addAll(race.getAddedCompetitors());
         SortedList<Boat> sortedList = new SortedList<>( observableList,
                 (Boat boat1, Boat boat2) -> {
-                    if( boat1.getCurrPlacingProperty().get() < boat2.getCurrPlacingProperty().get() ) {
+                    if( boat1.getCurrPlacing() < boat2.getCurrPlacing() ) {
                         return -1;
-                    } else if( boat1.getCurrPlacingProperty().get() > boat2.getCurrPlacingProperty().get() ) {
+                    } else if( boat1.getCurrPlacing() > boat2.getCurrPlacing() ) {
                         return 1;
                     } else {
                         return 0;
@@ -27,6 +27,9 @@ public class GameClient extends Client{
     private static List<Integer> tutorialKeys = new ArrayList<Integer>();
     private static Runnable tutorialFunction = null;
     private static Integer roomCode = 1111;
+    private static final long INTEREST_INTERVAL_MS = 500;
+    private ClientInterest lastInterest;
+    private long lastInterestSentMs = 0;
 
 
     public GameClient(ClientOptions options) throws NoConnectionToServerException, ServerRegistrationException {
@@ -39,7 +42,7 @@ public class GameClient extends Client{
         RegistrationType regoType = options.isParticipant() ? RegistrationType.PLAYER : RegistrationType.SPECTATOR;
         System.out.println("Client: Connected to Server");
         this.sender = new ClientSender(clientListener.getSocket());
-        sender.sendToServer(this.packetBuilder.createRegistrationRequestPacket(regoType));
+        sender.sendToServer(this.packetBuilder.createRegistrationRequestPacket(regoType, 0, options.requestsLocationDeltas()));
         System.out.println("Client: Sent Registration Request");
         manageServerResponse();
     }
@@ -120,6 +123,20 @@ public class GameClient extends Client{
 
     }
 
+    /**
+     * Tells the server which part of the course is being viewed, if it has changed since it was last sent and it
+     * has not already been sent in the last INTEREST_INTERVAL_MS
+     * @param interest the current view
+     */
+    public void sendInterest(ClientInterest interest) {
+        long now = System.currentTimeMillis();
+        if (!interest.equals(lastInterest) && now - lastInterestSentMs >= INTEREST_INTERVAL_MS) {
+            sender.sendToServer(packetBuilder.createClientInterestPacket(interest, clientID));
+            lastInterest = interest;
+            lastInterestSentMs = now;
+        }
+    }
+
     public void setInputControllers(KeyInputController keyInputController, TouchInputController touchInputController) {
         this.keyInputController = keyInputController;
         this.touchInputController = touchInputController;
@@ -133,7 +150,7 @@ public class GameClient extends Client{
 
     public static void setTutorialActions(List<KeyCode> keys, Runnable callbackFunction){
         for(KeyCode key : keys){
-            tutorialKeys.add(BoatAction.getTypeFromKeyCode(key));
+            tutorialKeys.add(KeyInputController.getTypeFromKeyCode(key));
         }
         tutorialFunction = callbackFunction;
     }
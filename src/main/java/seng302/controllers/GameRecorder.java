@@ -1,7 +1,7 @@
 package seng302.controllers;
 
 import seng302.controllers.listeners.AbstractServerListener;
-import seng302.controllers.listeners.ServerListener;
+import seng302.data.ClientConnection;
 import seng302.data.ConnectionManager;
 import seng302.data.CourseName;
 import seng302.data.ServerPacketBuilder;
@@ -10,9 +10,7 @@ import seng302.utilities.ConnectionUtils;
 import seng302.utilities.MathUtils;
 import seng302.views.AvailableRace;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.Socket;
 import java.util.*;
 
 import static seng302.data.registration.RegistrationType.REQUEST_RUNNING_GAMES;
@@ -29,7 +27,6 @@ public class GameRecorder implements Observer {
     private final ConnectionManager connectionManager;
     private ArrayList<AvailableRace> availableRaces = new ArrayList<>();
     private int nextHostID = 0;
-    private Thread serverListenerThread = null;
     private HashMap<Integer, AvailableRace> availablePartyGames = new HashMap<>();
 
     public GameRecorder() throws IOException {
@@ -45,15 +42,8 @@ public class GameRecorder implements Observer {
     @Override
     public void update(Observable observable, Object arg) {
         if (observable.equals(connectionManager)) {
-            if (arg instanceof Socket) {
-                Socket socket = (Socket) arg;
-                try {
-                    AbstractServerListener serverListener = ServerListener.createServerListener(socket);
-                    startServerListener(serverListener);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-
+            if (arg instanceof AbstractServerListener) {
+                startServerListener((AbstractServerListener) arg);
             }
         } else if(observable instanceof AbstractServerListener){
             System.out.println("received update");
@@ -61,47 +51,47 @@ public class GameRecorder implements Observer {
 
             if (arg instanceof RegistrationType) {
                 if (arg.equals(REQUEST_RUNNING_GAMES)) {
-                    respondToRequestForGames(serverListener.getSocket());
+                    respondToRequestForGames(serverListener.getConnection());
                 }
             } else if (arg instanceof AvailableRace) {
-                updateAvailableRace(((AvailableRace) arg), serverListener.getSocket());
+                updateAvailableRace(((AvailableRace) arg), serverListener.getConnection());
             } else if(arg instanceof Integer){
                 Integer roomCode = (Integer) arg;
                 if(availablePartyGames.containsKey(roomCode)){
-                    respondToRequestPartyGame(availablePartyGames.get(roomCode), serverListener.getSocket());
+                    respondToRequestPartyGame(availablePartyGames.get(roomCode), serverListener.getConnection());
                 } else{
-                    sendIncorrectRoomCodeResponse(serverListener.getSocket());
+                    sendIncorrectRoomCodeResponse(serverListener.getConnection());
                 }
             }
         }
     }
 
-    private void sendIncorrectRoomCodeResponse(Socket socket) {
+    private void sendIncorrectRoomCodeResponse(ClientConnection connection) {
         byte[] packet =  packetBuilder.createGameRegistrationPacket(0d, 0, 0,  "0.0.0.0", 0, 0, false);
         packet = packetBuilder.wrapPacket(packet);
-        connectionManager.sendToSocket(socket, packet);
+        connectionManager.sendToConnection(connection, packet);
     }
 
-    private void respondToRequestPartyGame(AvailableRace availableRace, Socket socket) {
+    private void respondToRequestPartyGame(AvailableRace availableRace, ClientConnection connection) {
         //-1 for unknown/unused values
         byte[] packet =  packetBuilder.createGameRegistrationPacket(-1.0, 0, availableRace.getPort(),
                 availableRace.getIpAddress(), -1, availableRace.getNumBoats(), availableRace.isPartyGame());
         packet = packetBuilder.wrapPacket(packet);
-        connectionManager.sendToSocket(socket, packet);
+        connectionManager.sendToConnection(connection, packet);
     }
 
     /**
      * Runs through the entire list of available races, updating the ones that have had changes
      * @param newRace the new available race
-     * @param socket the socket to respond to
+     * @param connection the connection to respond to
      */
-    private void updateAvailableRace(AvailableRace newRace, Socket socket){
+    private void updateAvailableRace(AvailableRace newRace, ClientConnection connection){
         if (newRace.isDeleted()) {
             removeAvailableRace(newRace);
             return;
         }
         if (newRace.isPartyGame()) {
-            updatePartyGame(newRace, socket);
+            updatePartyGame(newRace, connection);
         } else {
             updateNormalRace(newRace);
         }
@@ -110,9 +100,9 @@ public class GameRecorder implements Observer {
     /**
      * Adds or updates a party game to the availablePartyGames hashmap
      * @param newRace the race to add or update
-     * @param socket the socket to send the response to
+     * @param connection the connection to send the response to
      */
-    private void updatePartyGame(AvailableRace newRace, Socket socket) {
+    private void updatePartyGame(AvailableRace newRace, ClientConnection connection) {
         boolean updatedRace = updateRaceIfExists(newRace, availablePartyGames.values());
         if (!updatedRace) {
             Integer code = MathUtils.generateFourDigitPartyCode();
@@ -121,13 +111,13 @@ public class GameRecorder implements Observer {
             }
             newRace.setCode(code);
             availablePartyGames.put(code, newRace);
-            sendRoomCodeResponse(socket, code);
+            sendRoomCodeResponse(connection, code);
         }
     }
 
-    private void sendRoomCodeResponse(Socket socket, Integer code) {
+    private void sendRoomCodeResponse(ClientConnection connection, Integer code) {
         byte[] packet = packetBuilder.createPartyModeRoomCodeMessage(code);
-        connectionManager.sendToSocket(socket, packet);
+        connectionManager.sendToConnection(connection, packet);
     }
 
     /**
@@ -200,23 +190,20 @@ public class GameRecorder implements Observer {
 
     /**
      * Respond to a request for running games
-     * @param socket the clients socket
+     * @param connection the clients connection
      */
-    private void respondToRequestForGames(Socket socket) {
+    private void respondToRequestForGames(ClientConnection connection) {
         for(AvailableRace race : availableRaces) {
             byte[] racePacket = packetBuilder.createGameRegistrationPacket(race.getPacket());
-            connectionManager.sendToSocket(socket, racePacket);
+            connectionManager.sendToConnection(connection, racePacket);
         }
     }
 
     /**
-     * Starts a new server listener on new thread for which listens to a client
-     * @param serverListener the serverListener for the client socket
+     * Starts listening to the messages from a client. The messages are parsed on the connection manager's thread.
+     * @param serverListener the serverListener for the client connection
      */
-    protected void startServerListener(AbstractServerListener serverListener) throws IOException {
-        serverListenerThread = new Thread(serverListener);
-        serverListenerThread.setName("Game Recorder Listener");
-        serverListenerThread.start();
+    protected void startServerListener(AbstractServerListener serverListener) {
         serverListener.addObserver(this);
     }
 }
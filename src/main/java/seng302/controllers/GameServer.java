@@ -1,26 +1,39 @@
 package seng302.controllers;
 
-import javafx.scene.paint.Color;
 import seng302.controllers.listeners.AbstractServerListener;
 import seng302.controllers.listeners.ServerListener;
-import seng302.controllers.listeners.WebSocketServerListener;
 import seng302.data.*;
 import seng302.data.registration.RegistrationResponseStatus;
 import seng302.data.registration.RegistrationType;
 import seng302.models.*;
+import seng302.utilities.BoatColours;
 import seng302.utilities.ConnectionUtils;
-import seng302.utilities.DisplayUtils;
+import seng302.utilities.FixedTimestepClock;
+import seng302.utilities.SteppedClock;
+import seng302.utilities.metrics.LatencyHistogram;
+import seng302.utilities.metrics.MetricsRegistry;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
-
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static seng302.data.AC35StreamMessage.*;
 import static seng302.data.AC35StreamXMLMessage.BOAT_XML_MESSAGE;
 import static seng302.data.AC35StreamXMLMessage.RACE_XML_MESSAGE;
 import static seng302.data.AC35StreamXMLMessage.REGATTA_XML_MESSAGE;
@@ -35,27 +48,76 @@ import static seng302.data.registration.RegistrationResponseStatus.SPECTATOR_SUC
 public class GameServer implements Runnable, Observer {
     private final double SECONDS_PER_UPDATE = 0.2;
     private final int MAX_SPECTATORS = 100; //mostly because our boats sourceIDs start at 101
+    private static final int INITIAL_TICK_BUFFER_SIZE = 8192;
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final LatencyHistogram BROADCAST_TIME = METRICS.histogram("race_tick_phase_seconds", "phase", "broadcast");
+    private static final LongAdder TICK_OVERRUNS = METRICS.counter("race_tick_overruns_total");
+    private static final LongAdder TICK_OVERRUNS_DURING_GC = METRICS.counter("race_tick_overruns_during_gc_total");
+    /** The time deterministic races are run from, 2017-07-01T00:00:00Z */
+    private static final long DETERMINISTIC_START_MILLIS = 1498867200000L;
+    private static final long RECORDING_INDEX_INTERVAL_MILLIS = 5000;
+    private static final AtomicInteger RECORDINGS = new AtomicInteger();
+    private static final LongAdder DROPPED_STEPS = METRICS.counter("race_tick_dropped_steps_total");
 
     private Map<AC35StreamXMLMessage, Integer> xmlSequenceNumber = new HashMap<>();
     private Map<Boat, Integer> boatSequenceNumbers = new HashMap<>();
     private Map<Boat, Integer> lastMarkRoundingSent = new HashMap<>();
     private int nextViewerID = 0;
     private ConnectionManager connectionManager;
+    private ClientGroup clients;
+    private final boolean hosted;
     private ServerPacketBuilder packetBuilder;
     private ServerOptions options;
     private RaceUpdater raceUpdater;
-    private Thread raceUpdaterThread;
+    private ScheduledFuture<?> tickTask;
+    private FixedTimestepClock clock;
+    private long stepNanos;
+    private long broadcastIntervalNanos;
+    private long unbroadcastNanos;
+    private long lastGcMillis;
+    private boolean raceUpdaterStarted = false;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private int timesRun = 0;
+    private boolean disconnected = false;
     private CollisionManager collisionManager;
+    private InterestManager interestManager;
     private ClientSender gameRecorderConnection;
     private Integer roomCode;
     private Socket gameRecorderSocket;
     private double speedScale = 15;
+    private ByteBuffer tickBuffer = ByteBuffer.allocate(INITIAL_TICK_BUFFER_SIZE);
+    private SteppedClock simulationClock;
+    private Random raceRandom;
+    private RaceRecorder recorder;
 
     public GameServer(ServerOptions options) throws IOException {
+        this(options, new ConnectionManager(options.getPort(), true), false);
+    }
+
+    /**
+     * Creates a server for a room of a RaceHost, which serves its clients through the host's connection manager
+     * @param options the options for the room's races
+     * @param connectionManager the host's connection manager
+     */
+    GameServer(ServerOptions options, ConnectionManager connectionManager) throws IOException {
+        this(options, connectionManager, true);
+    }
+
+    private GameServer(ServerOptions options, ConnectionManager connectionManager, boolean hosted) throws IOException {
         this.options = options;
+        this.hosted = hosted;
         packetBuilder = new ServerPacketBuilder();
-        connectionManager = new ConnectionManager(options.getPort(), true);
-        connectionManager.addObserver(this);
+        if (options.isDeterministic()) {
+            simulationClock = new SteppedClock(DETERMINISTIC_START_MILLIS);
+            raceRandom = new Random(options.getSeed());
+            packetBuilder.setClock(simulationClock);
+        }
+        this.connectionManager = connectionManager;
+        clients = connectionManager.createClientGroup();
+        clients.addObserver(this);
+        if (!hosted) {
+            connectionManager.addObserver(this);
+        }
         if (options.isOnline()) {
             connectToGameRecorder();
         }
@@ -99,26 +161,30 @@ public class GameServer implements Runnable, Observer {
     }
 
     /**
-     * Initializes a new raceUpdater with settings provided in options
+     * Initializes a new raceUpdater with settings provided in options. In deterministic mode every race shares the
+     * server's stepped clock and seeded random, so a run of races replays the same way from the same seed.
      * @param options for the race
      */
-    private void setupNewRaceUpdater(ServerOptions options) {
-        raceUpdater = new RaceUpdater(options.getRaceXML());
+    private synchronized void setupNewRaceUpdater(ServerOptions options) {
+        if (options.isDeterministic()) {
+            raceUpdater = new RaceUpdater(options.getRaceXML(), simulationClock, raceRandom);
+        } else {
+            raceUpdater = new RaceUpdater(options.getRaceXML());
+        }
         if(options.isTutorial()) raceUpdater.skipPrerace();
         raceUpdater.setScaleFactor(options.getSpeedScale());
+        raceUpdater.setUpdateThreads(options.getUpdateThreads());
         if(options.getAIDifficulty() != AIDifficulty.NO_AI) raceUpdater.addAICompetitor(options.getAIDifficulty());
 
-        raceUpdaterThread = new Thread(raceUpdater);
-        raceUpdaterThread.setName("Race Updater");
+        raceUpdaterStarted = false;
         collisionManager = raceUpdater.getCollisionManager();
+        interestManager = new InterestManager();
     }
 
     /**
      * Initializes the sequence numbers for the boats and xml messages
-     * @throws IOException throws this
-     * @throws NullPointerException also throws this
      */
-    private void initialize() throws IOException, NullPointerException  {
+    private void initialize() {
         xmlSequenceNumber.put(REGATTA_XML_MESSAGE, 0);
         xmlSequenceNumber.put(RACE_XML_MESSAGE, 0);
         xmlSequenceNumber.put(BOAT_XML_MESSAGE, 0);
@@ -129,43 +195,179 @@ public class GameServer implements Runnable, Observer {
     }
 
     /**
-     * Sends all the data to the socket while the boats have not all finished.
+     * Runs the server on its own connection manager and scheduler until it has run all of its races.
      */
     @Override
-    public void run() throws NullPointerException {
-        Integer timesRun = 0;
-        while (options.alwaysRerun() || timesRun < options.getNumRacesToRun()) {
-            setupNewRaceUpdater(options);
-            System.out.println("Server: Ready to Run New Race");
-            try {
-                initialize();
-                sendInitialRaceMessages();
-                Thread managerThread = new Thread(connectionManager);
-                managerThread.setName("Connection Manager");
-                managerThread.start();
-                while (!raceUpdater.raceHasEnded()) {
-                    if (!raceUpdater.getRace().getCompetitors().isEmpty() || isPartyMode()) {
-                        sendRaceUpdates();
-                        if (isPartyMode()) sendWebClientUpdates();
-                    }
-                    Thread.sleep((long) (SECONDS_PER_UPDATE * 1000 / speedScale));
-                }
-                sendRaceUpdates(); //send one last message block with ending data
-                connectionManager.closeClientConnections();
-            } catch (IOException | InterruptedException e) {
-                e.printStackTrace();
-            }
-            timesRun++;
+    public void run() {
+        ScheduledExecutorService scheduler = RaceHost.createTickScheduler(1);
+        start(scheduler);
+        Thread managerThread = new Thread(connectionManager);
+        managerThread.setName("Connection Manager");
+        managerThread.start();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+        scheduler.shutdown();
         System.out.println("Server: Shutting Down");
         initiateServerDisconnect();
     }
 
+    /**
+     * Starts running races on a scheduler which may be shared with other servers.
+     * The race updates and the updates sent to clients run in one task, timed by a fixed timestep clock, so the
+     * race keeps to real time and the updates sent to clients are always of a whole race step.
+     * @param scheduler the scheduler to run the task on
+     */
+    void start(ScheduledExecutorService scheduler) {
+        if (!options.alwaysRerun() && options.getNumRacesToRun() <= 0) {
+            finished.countDown();
+            return;
+        }
+        setupNewRace();
+        long millisPerStep = raceUpdater.getMillisPerUpdate();
+        stepNanos = TimeUnit.MILLISECONDS.toNanos(millisPerStep);
+        broadcastIntervalNanos = Math.max(1, (long) (SECONDS_PER_UPDATE * TimeUnit.SECONDS.toNanos(1) / speedScale));
+        unbroadcastNanos = 0;
+        int maxCatchUpSteps = options.isDeterministic() ? Integer.MAX_VALUE : RaceUpdater.MAX_CATCH_UP_STEPS;
+        clock = new FixedTimestepClock(stepNanos, maxCatchUpSteps, System.nanoTime());
+        lastGcMillis = METRICS.getTotalGcMillis();
+        tickTask = scheduler.scheduleAtFixedRate(this::tick, millisPerStep, millisPerStep, TimeUnit.MILLISECONDS);
+    }
+
+    private void setupNewRace() {
+        setupNewRaceUpdater(options);
+        startRecording();
+        System.out.println("Server: Ready to Run New Race");
+        initialize();
+        sendInitialRaceMessages();
+    }
+
+    /**
+     * Runs the race steps that are due by the clock, then sends updates to the clients if a broadcast is due.
+     * Broadcasts are due every SECONDS_PER_UPDATE / speedScale of race time, with the part of an interval left
+     * over carried to the next, so clients are sent updates at the same rate however long a step is. At most one
+     * broadcast is sent per tick, as a second would only repeat the same race state.
+     */
+    private void tick() {
+        try {
+            long droppedBefore = clock.getDroppedSteps();
+            int steps = clock.advance(System.nanoTime());
+            long gcMillis = METRICS.getTotalGcMillis();
+            if (clock.getDroppedSteps() != droppedBefore) {
+                recordOverrun(clock.getDroppedSteps() - droppedBefore, gcMillis - lastGcMillis);
+            }
+            lastGcMillis = gcMillis;
+            for (int i = 0; i < steps; i++) {
+                updateRace();
+            }
+            unbroadcastNanos += steps * stepNanos;
+            if (unbroadcastNanos >= broadcastIntervalNanos) {
+                unbroadcastNanos = (unbroadcastNanos - broadcastIntervalNanos) % broadcastIntervalNanos;
+                long broadcastStart = System.nanoTime();
+                sendUpdates();
+                BROADCAST_TIME.recordSince(broadcastStart);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Counts a tick that fell too far behind to catch up, and whether the garbage collector ran since the last tick
+     * @param droppedSteps the number of steps dropped
+     * @param gcMillis the time spent in garbage collection since the last tick
+     */
+    private void recordOverrun(long droppedSteps, long gcMillis) {
+        TICK_OVERRUNS.increment();
+        DROPPED_STEPS.add(droppedSteps);
+        if (gcMillis > 0) {
+            TICK_OVERRUNS_DURING_GC.increment();
+        }
+        System.out.printf("Server: Race tick overran, dropped %d steps with %d ms in GC since the last tick\n",
+                droppedSteps, gcMillis);
+    }
+
+    /**
+     * Sends the updates for the current race to the clients, or finishes the race once it has ended and starts the
+     * next one if there are more to run
+     */
+    private void sendUpdates() throws IOException {
+        if (!raceUpdater.raceHasEnded()) {
+            if (!raceUpdater.getRace().getCompetitors().isEmpty() || isPartyMode()) {
+                clients.startBatch();
+                try {
+                    sendRaceUpdates();
+                    if (isPartyMode()) sendWebClientUpdates();
+                } finally {
+                    clients.sendBatch();
+                }
+            }
+        } else {
+            finishRace();
+        }
+    }
+
+    private void finishRace() throws IOException {
+        clients.startBatch();
+        sendRaceUpdates(); //send one last message block with ending data
+        clients.sendBatch();
+        stopRecording();
+        clients.closeClientConnections();
+        if (!hosted) {
+            connectionManager.closeClientConnections();
+        }
+        timesRun++;
+        if (options.alwaysRerun() || timesRun < options.getNumRacesToRun()) {
+            setupNewRace();
+        } else {
+            tickTask.cancel(false);
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Starts updating the race once enough competitors have joined
+     */
+    private synchronized void startRaceUpdater() {
+        if (!raceUpdaterStarted) {
+            raceUpdater.start();
+            raceUpdaterStarted = true;
+        }
+    }
+
+    /**
+     * Runs one step of the race, if it has started and not ended
+     */
+    private synchronized void updateRace() {
+        if (raceUpdaterStarted && raceUpdater.isRunning()) {
+            if (simulationClock != null) {
+                simulationClock.advance(raceUpdater.getMillisPerUpdate());
+            }
+            raceUpdater.tick();
+        }
+    }
+
+    /**
+     * @return true if the race has started being updated and has not ended
+     */
+    private synchronized boolean raceIsRunning() {
+        return raceUpdaterStarted && raceUpdater.isRunning();
+    }
+
+    /**
+     * @return true once the server has run all of its races or been disconnected
+     */
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
     private void sendWebClientUpdates() {
         for (Boat boat : raceUpdater.getRace().getCompetitors()) {
             int totalCompetitors = raceUpdater.getRace().getCompetitors().size();
             byte[] packet = packetBuilder.createWebClientUpdatePacket(boat.getId(), boat.getCurrentSpeed(), boat.getCurrPlacing(), totalCompetitors, (int) boat.getBoatHealth());
-            connectionManager.sendToClient(boat.getId(), packet);
+            clients.sendToClient(boat.getId(), packet);
         }
     }
 
@@ -201,17 +403,52 @@ public class GameServer implements Runnable, Observer {
 
     /**
      * Sends Race Status, Boat Location and Mark Rounding messages that are currently necessary
+     * The messages are written one after another into the tick buffer and sent to the clients together.
      * @throws IOException
      */
     private void sendRaceUpdates() throws IOException {
         try {
-            byte[] raceUpdateMessage = packetBuilder.createRaceUpdateMessage(raceUpdater.getRace());
-            sendPacketToNonWebClients(raceUpdateMessage);
+            Race race = raceUpdater.getRace();
+            packetBuilder.createRaceUpdateMessage(race, tickBufferFor(packetBuilder.getRaceUpdateMessageLength(race)));
         } catch (Exception e) {
             e.printStackTrace();
         }
         sendBoatMessagesForAllBoats();
         sendYachtEventMessages();
+        sendTickBuffer();
+    }
+
+    /**
+     * Makes sure the tick buffer has room for another packet, growing it if it does not
+     * @param packetLength the length of the packet to be written
+     * @return the tick buffer
+     */
+    private ByteBuffer tickBufferFor(int packetLength) {
+        if (tickBuffer.remaining() < packetLength) {
+            ByteBuffer largerBuffer = ByteBuffer.allocate(Math.max(tickBuffer.capacity() * 2, tickBuffer.position() + packetLength));
+            tickBuffer.flip();
+            largerBuffer.put(tickBuffer);
+            tickBuffer = largerBuffer;
+        }
+        return tickBuffer;
+    }
+
+    private ByteBuffer tickBufferFor(AC35StreamMessage type) {
+        return tickBufferFor(PacketWriter.packetLength(type.getLength()));
+    }
+
+    /**
+     * Sends everything written into the tick buffer to all non-web clients as a single packet and empties it.
+     * Clients that have said which part of the course they are viewing are only sent the locations of distant
+     * boats on some ticks, as decided by the interest manager.
+     */
+    private void sendTickBuffer() {
+        if (tickBuffer.position() > 0) {
+            byte[] packet = Arrays.copyOf(tickBuffer.array(), tickBuffer.position());
+            clients.sendToClients(packet, interestManager.selectBoats(raceUpdater.getRace(), clients.getInterests()));
+            record(packet);
+            tickBuffer.clear();
+        }
     }
 
     /**
@@ -233,7 +470,7 @@ public class GameServer implements Runnable, Observer {
                         sendYachtEventMessage(boat, raceUpdater.getRace(), collision.getIncidentId(), YachtEventCode.COLLISION_MARK);
                     }
                 }
-                sendBoatStateMessage(boat);
+                packetBuilder.createBoatStateMessagePacket(boat, tickBufferFor(BOAT_STATE_MESSAGE));
             }
             collisionManager.removeCollision(collision);
         }
@@ -254,23 +491,23 @@ public class GameServer implements Runnable, Observer {
         Integer currentSequenceNumber = boatSequenceNumbers.get(boat);
         if (currentSequenceNumber != null) {
             boatSequenceNumbers.put(boat, currentSequenceNumber + 1);
-            sendPacketToNonWebClients(packetBuilder.createBoatLocationMessage(boat, raceUpdater.getRace(), currentSequenceNumber));
+            packetBuilder.createBoatLocationMessage(boat, raceUpdater.getRace(), currentSequenceNumber, tickBufferFor(BOAT_LOCATION_MESSAGE));
             if (lastMarkRoundingSent.get(boat) != boat.getLastRoundedMarkIndex()) {
                 raceUpdater.getRace().updateRaceOrder();
                 lastMarkRoundingSent.put(boat, boat.getLastRoundedMarkIndex());
-                sendPacketToNonWebClients(packetBuilder.createMarkRoundingMessage(boat, raceUpdater.getRace()));
+                packetBuilder.createMarkRoundingMessage(boat, raceUpdater.getRace(), tickBufferFor(MARK_ROUNDING_MESSAGE));
             }
         }
     }
 
     /**
-     * sends a Yacht Event message
+     * Writes a Yacht Event message into the tick buffer
      * @param boat a boat
      * @param race a race
      * @throws IOException needed for sending a packet that fails
      */
     private void sendYachtEventMessage(Boat boat, Race race, int incidentID, YachtEventCode eventCode) throws IOException {
-        sendPacketToNonWebClients(packetBuilder.createYachtEventMessage(boat, race, incidentID, eventCode));
+        packetBuilder.createYachtEventMessage(boat, race, incidentID, eventCode, tickBufferFor(YACHT_EVENT_CODE));
     }
 
     /**
@@ -282,7 +519,42 @@ public class GameServer implements Runnable, Observer {
         int sequenceNo = xmlSequenceNumber.get(type) + 1;
         xmlSequenceNumber.put(type, sequenceNo);
         byte[] packet = packetBuilder.buildXmlMessage(type, fileName, sequenceNo, raceUpdater.getRace(), options.getRaceXML());
-        connectionManager.setXmlMessage(type, packet);
+        clients.setXmlMessage(type, packet);
+        record(packet);
+    }
+
+    /**
+     * Starts recording the race stream into a new file if the options give a recording directory
+     */
+    private synchronized void startRecording() {
+        stopRecording();
+        if (options.getRecordingDirectory() != null) {
+            String name = String.format("race-%d-%d", System.currentTimeMillis(), RECORDINGS.incrementAndGet());
+            try {
+                recorder = new RaceRecorder(Paths.get(options.getRecordingDirectory()), name,
+                        RECORDING_INDEX_INTERVAL_MILLIS);
+                System.out.println("Server: Recording race to " + name);
+            } catch (IOException e) {
+                System.out.println("Server: Unable to record race, " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void stopRecording() {
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    /**
+     * Adds a packet sent to the clients to the race recording, if the race is being recorded
+     * @param packet the packet sent
+     */
+    private synchronized void record(byte[] packet) {
+        if (recorder != null) {
+            recorder.record(packet);
+        }
     }
 
 
@@ -304,24 +576,22 @@ public class GameServer implements Runnable, Observer {
             boatSequenceNumbers.put(boat, newId);
             lastMarkRoundingSent.put(boat, -1);
             packet = packetBuilder.createRegistrationResponsePacket(newId, RegistrationResponseStatus.PLAYER_SUCCESS);
-            if (!raceUpdaterThread.isAlive()){
-                if (numCompetitors >= options.getMinParticipants()) {
-                    raceUpdaterThread.start();
-                }
+            if (numCompetitors >= options.getMinParticipants()) {
+                startRaceUpdater();
             }
         } else {
             packet = packetBuilder.createRegistrationResponsePacket(newId, RegistrationResponseStatus.OUT_OF_SLOTS);
         }
-        connectionManager.addConnection(newId, serverListener);
+        clients.addConnection(newId, serverListener);
         serverListener.setClientId(newId);
-        connectionManager.sendToClient(newId, packet);
+        clients.sendToClient(newId, packet);
         if(success){
             if (options.isPartyMode()) {
                 Boat boat = raceUpdater.getRace().getBoatById(newId);
-                Color color = DisplayUtils.getBoatColor(newId);
+                int colour = BoatColours.getBoatColour(newId);
                 String boatName = boat.getName()+ " (" + boat.getNickName() + ")";
-                byte[] initPacket = packetBuilder.createWebClientInitPacket(newId, boatName, color);
-                connectionManager.sendToClient(newId, initPacket);
+                byte[] initPacket = packetBuilder.createWebClientInitPacket(newId, boatName, colour);
+                clients.sendToClient(newId, initPacket);
             }
             createPacketForGameRecorder();
             sendXmlMessage(RACE_XML_MESSAGE, options.getRaceXML());
@@ -368,26 +638,21 @@ public class GameServer implements Runnable, Observer {
 
     /**
      * Method that gets called when Server is notified as an observer
-     * If the observable is a ConnectionManager then a new client has connected and a server listener
-     * is started for the client
+     * If the observable is a ConnectionManager then a new client has connected and its server listener
+     * is started
      * If the observable is a AbstractServerListener then a registration message is received
      * @param observable The observable either a ConnectionManager or AbstractServerListener
-     * @param arg A Socket or Boat ID if observable is a ConnectionManager else it is the registration type of the client
+     * @param arg A server listener or Boat ID if observable is a ConnectionManager else it is the registration type of the client
      */
     @Override
     public void update(Observable observable, Object arg) {
         if (observable.equals(connectionManager)) {
-            if(arg instanceof Socket){
-                try {
-                    AbstractServerListener serverListener = ServerListener.createServerListener((Socket) arg);
-                    startServerListener(serverListener);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                setBoatToDNF((int) arg);
-                createPacketForGameRecorder();
+            if(arg instanceof AbstractServerListener){
+                startServerListener((AbstractServerListener) arg);
             }
+        } else if (observable.equals(clients)) {
+            setBoatToDNF((int) arg);
+            createPacketForGameRecorder();
         } else if(observable instanceof AbstractServerListener){
             if(arg instanceof RegistrationType){
                 System.out.println("Server: Adding player to game");
@@ -399,14 +664,11 @@ public class GameServer implements Runnable, Observer {
     }
 
     /**
-     * Starts a new server listener on new thread for which listens to a client
-     * @param serverListener the serverListener for the client socket
+     * Starts listening to the messages from a client. The messages are parsed on the connection manager's thread.
+     * @param serverListener the serverListener for the client connection
      */
-    private void startServerListener(AbstractServerListener serverListener) throws IOException {
+    void startServerListener(AbstractServerListener serverListener) {
         serverListener.setRace(raceUpdater.getRace());
-        Thread serverListenerThread = new Thread(serverListener);
-        serverListenerThread.setName("Server Listener");
-        serverListenerThread.start();
         serverListener.addObserver(this);
     }
 
@@ -440,35 +702,52 @@ public class GameServer implements Runnable, Observer {
     private void addSpectatorToRace(AbstractServerListener serverListener) {
         RegistrationResponseStatus response = SPECTATOR_SUCCESS;
         if(!options.isPartyMode()){
-            if (!raceUpdaterThread.isAlive() || !options.isMultiplayer()) {
+            if (!raceIsRunning() || !options.isMultiplayer()) {
                 response = RACE_UNAVAILABLE;
             } else if (nextViewerID >= MAX_SPECTATORS) {
                 response = OUT_OF_SLOTS;
             }
         }
         byte[] packet = packetBuilder.createRegistrationResponsePacket(0, response);
-        connectionManager.addConnection(nextViewerID, serverListener);
-        connectionManager.sendToClient(nextViewerID, packet);
+        clients.addConnection(nextViewerID, serverListener);
+        clients.sendToClient(nextViewerID, packet);
         if (response.equals(SPECTATOR_SUCCESS)) {
             sendAllBoatStates();
             nextViewerID++;
         } else {
-            connectionManager.removeConnection(nextViewerID);
+            clients.removeConnection(nextViewerID);
         }
         if (options.isPartyMode()){
             byte[] roomCodePacket = packetBuilder.createPartyModeRoomCodeMessage(roomCode);
-            connectionManager.sendToClients(roomCodePacket);
+            clients.sendToClients(roomCodePacket);
         }
     }
 
-    public void initiateServerDisconnect() {
-        byte[] gameClosePacket = packetBuilder.createGameCancelPacket(options.getPort());
+    /**
+     * Tells the game recorder the game has closed, closes the connections to clients and stops the race.
+     * A room of a RaceHost only closes its own clients' connections.
+     */
+    public synchronized void initiateServerDisconnect() {
+        if (disconnected) {
+            return;
+        }
+        disconnected = true;
         if (gameRecorderConnection != null) {
+            byte[] gameClosePacket = packetBuilder.createGameCancelPacket(options.getPort());
             gameRecorderConnection.sendToServer(gameClosePacket);
             gameRecorderConnection.closeConnection();
         }
-        connectionManager.closeAllConnections();
+        if (tickTask != null) {
+            tickTask.cancel(false);
+        }
+        if (hosted) {
+            clients.closeClientConnections();
+        } else {
+            connectionManager.closeAllConnections();
+        }
         raceUpdater.stopRunning();
+        stopRecording();
+        finished.countDown();
     }
 
     private void setBoatToDNF(int arg){
@@ -487,6 +766,7 @@ public class GameServer implements Runnable, Observer {
      * @param packet the packet to send
      */
     private void sendPacketToNonWebClients(byte[] packet) {
-        connectionManager.sendToClients(packet);
+        clients.sendToClients(packet);
+        record(packet);
     }
 }
@@ -0,0 +1,160 @@
+package seng302.controllers;
+
+import seng302.models.GameMode;
+import seng302.models.ServerOptions;
+import seng302.utilities.ConnectionUtils;
+import seng302.utilities.metrics.MetricsEndpoint;
+import seng302.utilities.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Runs a dedicated game server or game recorder from the command line without starting JavaFX.
+ * This is the main class of the headless server jar, and is also used by Main when it is given the server command.
+ */
+public class HeadlessServer {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("replay")) {
+            ReplayServer.launch(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("server")) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        launch(args);
+    }
+
+    /**
+     * Parses the server arguments, which follow the server command, and starts the game recorder or a game server
+     * @param args the server arguments
+     */
+    static void launch(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("-g")) {
+                new GameRecorder();
+                System.out.println("Game recorder started");
+            } else {
+                String roomCount = findOption(args, "-c");
+                String metricsPort = findOption(args, "-e");
+                ServerOptions serverOptions = parseServerOptions(removeOption(removeOption(args, "-c"), "-e"));
+                int rooms = roomCount == null ? 1 : Integer.parseInt(roomCount);
+                if (rooms < 1) {
+                    throw new IllegalArgumentException("There must be at least one room");
+                }
+                MetricsRegistry.getInstance().registerMBean();
+                if (metricsPort != null) {
+                    new MetricsEndpoint(Integer.parseInt(metricsPort), MetricsRegistry.getInstance());
+                }
+                if (rooms > 1) {
+                    startRaceHost(serverOptions, rooms);
+                } else {
+                    startServer(serverOptions);
+                }
+                System.out.println("Headless server started.");
+            }
+        } catch (IllegalArgumentException iae) {
+            System.out.print("Invalid server arguments. ");
+            System.out.println(iae.getMessage());
+        } catch (IOException e) {
+            System.out.println("Failed to start headless server.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the value given for an option, or null if the option is not given
+     */
+    private static String findOption(String[] args, String option) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals(option)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the arguments without an option and its value
+     */
+    private static String[] removeOption(String[] args, String option) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals(option)) {
+                String[] remaining = new String[args.length - 2];
+                System.arraycopy(args, 0, remaining, 0, i);
+                System.arraycopy(args, i + 2, remaining, i, args.length - i - 2);
+                return remaining;
+            }
+        }
+        return args;
+    }
+
+    private static ServerOptions parseServerOptions(String[] args) {
+        ServerOptions serverOptions = new ServerOptions(GameMode.MULTIPLAYER);
+        serverOptions.setNumRacesToRun(-1);
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(String.format("Missing value for argument \"%s\"", args[i]));
+            }
+            switch (args[i]) {
+                case "-p":
+                    serverOptions.setPort(Integer.parseInt(args[i + 1]));
+                    break;
+                case "-n":
+                    serverOptions.setMinParticipants(Integer.parseInt(args[i + 1]));
+                    break;
+                case "-m":
+                    serverOptions.setRaceXML(args[i + 1]);
+                    break;
+                case "-s":
+                    serverOptions.setSpeedScale(Double.parseDouble(args[i + 1]));
+                    break;
+                case "-r":
+                    serverOptions.setNumRacesToRun(Integer.parseInt(args[i + 1]));
+                    break;
+                case "-u":
+                    serverOptions.setUpdateThreads(Integer.parseInt(args[i + 1]));
+                    break;
+                case "-o":
+                    serverOptions.setRecordingDirectory(args[i + 1]);
+                    break;
+                case "-d":
+                    serverOptions.setSeed(Long.parseLong(args[i + 1]));
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unknown argument \"%s\"", args[i]));
+            }
+        }
+        return serverOptions;
+    }
+
+    /**
+     * Starts a race host with rooms 0 to rooms - 1, each running races with the same options
+     * @param serverOptions the options for each room, and the port to host on
+     * @param rooms the number of rooms
+     * @return the started host
+     */
+    static RaceHost startRaceHost(ServerOptions serverOptions, int rooms) throws IOException {
+        RaceHost host = new RaceHost(serverOptions.getPort(), Runtime.getRuntime().availableProcessors());
+        for (int roomId = 0; roomId < rooms; roomId++) {
+            host.openRoom(roomId, serverOptions);
+        }
+        host.start();
+        return host;
+    }
+
+    /**
+     * Creates a Server object, puts it in it's own thread and starts the thread
+     * @param serverOptions the options for the server
+     * @return the started server
+     */
+    static GameServer startServer(ServerOptions serverOptions) throws IOException {
+        GameServer server = new GameServer(serverOptions);
+        ConnectionUtils.setServer(server);
+        Thread serverThread = new Thread(server);
+        serverThread.setName("Server");
+        serverThread.start();
+        return server;
+    }
+}
@@ -0,0 +1,88 @@
+package seng302.controllers;
+
+import seng302.data.ClientInterest;
+import seng302.models.Boat;
+import seng302.models.Coordinate;
+import seng302.models.Race;
+import seng302.models.SpatialHash;
+
+import java.util.*;
+
+/**
+ * Decides which boats each client is sent the location of in a broadcast.
+ * A client that has said which part of the course it is viewing is sent the boats in its view, its own boat and the
+ * boat it is tracking every broadcast, and every other boat only every DISTANT_BOAT_INTERVAL broadcasts.
+ * The boats in view are found with a spatial hash over the boat positions, so the cost of a client grows with the
+ * number of boats it can see rather than the size of the fleet. Clients that have not said what they are viewing
+ * are sent every boat.
+ */
+public class InterestManager {
+
+    static final int DISTANT_BOAT_INTERVAL = 5;
+    private static final double CELL_SIZE = 0.1; //nautical miles, small enough that few boats outside a view are included
+
+    private final SpatialHash<Boat> boatGrid = new SpatialHash<>(CELL_SIZE);
+    private final List<Boat> boatsInView = new ArrayList<>();
+    private long broadcasts = 0;
+
+    /**
+     * Works out the boats each client that has declared an interest is sent in the next broadcast
+     * @param race the race, with its boats at their current positions
+     * @param interests the interest of each client that has declared one, by client id
+     * @return the source ids of the boats each of those clients is sent, by client id. Clients with the same view
+     * are given the same set. It is empty on broadcasts where every client is sent every boat.
+     */
+    public Map<Integer, Set<Integer>> selectBoats(Race race, Map<Integer, ClientInterest> interests) {
+        boolean distantBoatsDue = broadcasts++ % DISTANT_BOAT_INTERVAL == 0;
+        if (distantBoatsDue || interests.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        updateBoatGrid(race.getCompetitors());
+        Map<ClientInterest, Set<Integer>> boatsByView = new HashMap<>();
+        Map<Integer, Set<Integer>> selected = new HashMap<>();
+        for (Map.Entry<Integer, ClientInterest> entry : interests.entrySet()) {
+            Set<Integer> boats = boatsByView.computeIfAbsent(entry.getValue(), interest -> findBoatsInView(race, interest));
+            if (race.getBoatById(entry.getKey()) != null && !boats.contains(entry.getKey())) {
+                boats = new HashSet<>(boats);
+                boats.add(entry.getKey());
+            }
+            selected.put(entry.getKey(), boats);
+        }
+        return selected;
+    }
+
+    private void updateBoatGrid(List<Boat> boats) {
+        for (Boat boat : boats) {
+            boatGrid.update(boat, boat.getCurrentPosition());
+        }
+        if (boatGrid.size() != boats.size()) {
+            boatGrid.retainAll(new HashSet<>(boats));
+        }
+    }
+
+    /**
+     * Finds the boats in a client's view, centring it on the boat it is tracking if it is tracking one
+     * @param race the race
+     * @param interest the client's view
+     * @return the source ids of the boats in view
+     */
+    private Set<Integer> findBoatsInView(Race race, ClientInterest interest) {
+        Boat trackedBoat = interest.isTrackingBoat() ? race.getBoatById(interest.getTrackedBoatId()) : null;
+        if (trackedBoat != null) {
+            Coordinate centre = trackedBoat.getCurrentPosition();
+            boatGrid.findWithin(centre.getLat() - interest.getHalfHeight(), centre.getLon() - interest.getHalfWidth(),
+                    centre.getLat() + interest.getHalfHeight(), centre.getLon() + interest.getHalfWidth(), boatsInView);
+        } else {
+            boatGrid.findWithin(interest.getMinLat(), interest.getMinLon(), interest.getMaxLat(), interest.getMaxLon(),
+                    boatsInView);
+        }
+        Set<Integer> boats = new HashSet<>();
+        for (Boat boat : boatsInView) {
+            boats.add(boat.getId());
+        }
+        if (trackedBoat != null) {
+            boats.add(trackedBoat.getId());
+        }
+        return boats;
+    }
+}
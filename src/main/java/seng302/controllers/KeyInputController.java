@@ -11,10 +11,7 @@ import seng302.models.PolarTable;
 import seng302.models.Race;
 import seng302.utilities.PolarReader;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Observable;
-import java.util.Set;
+import java.util.*;
 
 import static javafx.scene.input.KeyCode.*;
 
@@ -31,6 +28,17 @@ public class KeyInputController extends Observable {
     private Controller controller;
     private PolarTable polarTable;
     private final Set<KeyCode> cosumedKeyCodes = new HashSet<>(Arrays.asList(KeyCode.SPACE, KeyCode.UP, KeyCode.DOWN));
+    private static final Map<KeyCode, BoatAction> KEY_ACTIONS = new EnumMap<>(KeyCode.class);
+
+    static {
+        KEY_ACTIONS.put(SPACE, BoatAction.BOAT_VMG);
+        KEY_ACTIONS.put(SHIFT, BoatAction.SAILS_OUT);
+        KEY_ACTIONS.put(ENTER, BoatAction.TACK_GYBE);
+        KEY_ACTIONS.put(PAGE_UP, BoatAction.UPWIND);
+        KEY_ACTIONS.put(UP, BoatAction.UPWIND);
+        KEY_ACTIONS.put(PAGE_DOWN, BoatAction.DOWNWIND);
+        KEY_ACTIONS.put(DOWN, BoatAction.DOWNWIND);
+    }
 
     /**
      * Sets up user key press handler.
@@ -44,6 +52,15 @@ public class KeyInputController extends Observable {
         keyEventListener();
     }
 
+    /**
+     * @param code the key that has been pressed
+     * @return the type of the boat action for the key, or -1 if the key has no action
+     */
+    public static int getTypeFromKeyCode(KeyCode code){
+        BoatAction action = KEY_ACTIONS.get(code);
+        return action == null ? -1 : action.getType();
+    }
+
     private void keyEventListener() {
         scene.addEventFilter(KeyEvent.KEY_PRESSED, key -> {
             checkKeyPressed(key.getCode());
@@ -58,7 +75,7 @@ public class KeyInputController extends Observable {
      * @param key the key that has been pressed
      */
     private void checkKeyPressed(KeyCode key){
-        commandInt = BoatAction.getTypeFromKeyCode(key);
+        commandInt = getTypeFromKeyCode(key);
         if (commandInt != -1) {
             if(key.equals(KeyCode.ENTER)){
                 generateUserFeedback();
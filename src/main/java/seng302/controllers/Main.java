@@ -24,12 +24,12 @@ import seng302.utilities.DisplaySwitcher;
 import seng302.utilities.NoConnectionToServerException;
 import java.io.IOException;
 import java.net.BindException;
+import java.util.Arrays;
 
 
 public class Main extends Application {
     private static GameClient client;
     private GameServer server;
-    private GameRecorder gameRecorder;
     private Stage primaryStage;
     private DisplaySwitcher displaySwitcher;
 
@@ -74,46 +74,9 @@ public class Main extends Application {
      */
     private void launchWithArguments(String[] args) {
         if (args[0].equals("server")){
-            try {
-                if (args.length > 1 && args[1].equals("-g")) {
-                    gameRecorder = new GameRecorder();
-                    System.out.println("Game recorder started");
-                } else {
-                    ServerOptions serverOptions = new ServerOptions(GameMode.MULTIPLAYER);
-                    serverOptions.setNumRacesToRun(-1);
-                    for (int i = 1; i < args.length; i += 2) {
-                        switch (args[i]) {
-                            case "-p":
-                                serverOptions.setPort(Integer.parseInt(args[i + 1]));
-                                break;
-                            case "-n":
-                                serverOptions.setMinParticipants(Integer.parseInt(args[i + 1]));
-                                break;
-                            case "-m":
-                                serverOptions.setRaceXML(args[i + 1]);
-                                break;
-                            case "-s":
-                                serverOptions.setSpeedScale(Double.parseDouble(args[i + 1]));
-                                break;
-                            case "-r":
-                                serverOptions.setNumRacesToRun(Integer.parseInt(args[i + 1]));
-                                break;
-                            default:
-                                throw new IllegalArgumentException(String.format("Unknown argument \"%s\"", args[i]));
-                        }
-                    }
-                    setupServer(serverOptions);
-                    System.out.println("Headless server started.");
-                }
-            } catch (IllegalArgumentException iae) {
-                System.out.print("Invalid server arguments. ");
-                System.out.println(iae.getMessage());
-                Platform.exit();
-            } catch (IOException e) {
-                System.out.println("Failed to start headless server.");
-                e.printStackTrace();
-                Platform.exit();
-            }
+            HeadlessServer.launch(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args[0].equals("replay")) {
+            ReplayServer.launch(Arrays.copyOfRange(args, 1, args.length));
         }
     }
 
@@ -121,11 +84,7 @@ public class Main extends Application {
      * Creates a Server object, puts it in it's own thread and starts the thread
      */
     private void setupServer(ServerOptions serverOptions) throws IOException {
-        server = new GameServer(serverOptions);
-        ConnectionUtils.setServer(server);
-        Thread serverThread = new Thread(server);
-        serverThread.setName("Server");
-        serverThread.start();
+        server = HeadlessServer.startServer(serverOptions);
     }
 
     public static GameClient getClient() {
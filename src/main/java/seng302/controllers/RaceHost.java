@@ -0,0 +1,138 @@
+package seng302.controllers;
+
+import seng302.controllers.listeners.AbstractServerListener;
+import seng302.controllers.listeners.WebSocketServerListener;
+import seng302.data.ConnectionManager;
+import seng302.data.ServerPacketBuilder;
+import seng302.data.registration.RegistrationType;
+import seng302.models.ServerOptions;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static seng302.data.registration.RegistrationResponseStatus.RACE_UNAVAILABLE;
+
+/**
+ * Hosts many races in one JVM. Every room is a GameServer running its own races, but the rooms share one port
+ * and I/O thread, and their ticks run on one shared scheduler. A client picks its room by the room id in its
+ * registration request. Web clients have no way to send a room id, so they always join room 0.
+ */
+public class RaceHost implements Observer {
+    private final ConnectionManager connectionManager;
+    private final ScheduledExecutorService scheduler;
+    private final ServerPacketBuilder packetBuilder = new ServerPacketBuilder();
+    private final Map<Integer, GameServer> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a host listening on a port
+     * @param port the port clients connect to
+     * @param tickThreads the number of threads to run the rooms' ticks on
+     * @throws IOException if the port cannot be bound
+     */
+    public RaceHost(int port, int tickThreads) throws IOException {
+        connectionManager = new ConnectionManager(port, true);
+        connectionManager.addObserver(this);
+        scheduler = createTickScheduler(tickThreads);
+    }
+
+    /**
+     * Creates a scheduler for running race ticks on daemon threads
+     * @param threads the number of threads in the scheduler
+     * @return the scheduler
+     */
+    static ScheduledExecutorService createTickScheduler(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Race Tick " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a room and starts running its races
+     * @param roomId the id clients register with to join the room
+     * @param options the options for the room's races. The port is ignored as all rooms share the host's port
+     * @return the room's server
+     * @throws IOException if the room fails to connect to the game recorder
+     */
+    public GameServer openRoom(int roomId, ServerOptions options) throws IOException {
+        if (rooms.containsKey(roomId)) {
+            throw new IllegalArgumentException(String.format("Room %d is already open", roomId));
+        }
+        GameServer room = new GameServer(options, connectionManager);
+        rooms.put(roomId, room);
+        room.start(scheduler);
+        System.out.printf("Server: Opened room %d\n", roomId);
+        return room;
+    }
+
+    /**
+     * Closes a room, disconnecting its clients
+     * @param roomId the id of the room
+     */
+    public void closeRoom(int roomId) {
+        GameServer room = rooms.remove(roomId);
+        if (room != null) {
+            room.initiateServerDisconnect();
+        }
+    }
+
+    /**
+     * Starts accepting clients on the host's I/O thread
+     */
+    public void start() {
+        Thread managerThread = new Thread(connectionManager);
+        managerThread.setName("Connection Manager");
+        managerThread.start();
+    }
+
+    /**
+     * Closes every room and the host's port
+     */
+    public void shutdown() {
+        for (Integer roomId : rooms.keySet()) {
+            closeRoom(roomId);
+        }
+        scheduler.shutdown();
+        connectionManager.closeAllConnections();
+    }
+
+    /**
+     * Listens to new clients until they register, then hands them to the room they asked for.
+     * Web clients are always handed to room 0, and are sent the rejection in a WebSocket frame if it is not open.
+     */
+    @Override
+    public void update(Observable observable, Object arg) {
+        if (observable.equals(connectionManager)) {
+            if (arg instanceof AbstractServerListener) {
+                ((AbstractServerListener) arg).addObserver(this);
+            }
+        } else if (observable instanceof AbstractServerListener && arg instanceof RegistrationType) {
+            AbstractServerListener listener = (AbstractServerListener) observable;
+            boolean isWebClient = listener instanceof WebSocketServerListener;
+            int roomId = isWebClient ? 0 : listener.getRequestedRoomId();
+            GameServer room = rooms.get(roomId);
+            if (room == null || room.isFinished()) {
+                System.out.printf("Server: Room %d is not available\n", roomId);
+                byte[] response = packetBuilder.createRegistrationResponsePacket(0, RACE_UNAVAILABLE);
+                if (isWebClient) {
+                    response = packetBuilder.wrapPacket(response);
+                }
+                connectionManager.sendToConnection(listener.getConnection(), response);
+                connectionManager.scheduleClose(listener.getConnection());
+                return;
+            }
+            listener.deleteObserver(this);
+            room.startServerListener(listener);
+            room.update(listener, arg);
+        }
+    }
+}
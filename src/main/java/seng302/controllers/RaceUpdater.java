@@ -5,14 +5,20 @@ import seng302.data.CourseName;
 import seng302.data.RaceStatus;
 import seng302.data.RaceVisionXMLParser;
 import seng302.models.*;
+import seng302.utilities.FixedTimestepClock;
 import seng302.utilities.MathUtils;
 import seng302.utilities.TimeUtils;
+import seng302.utilities.metrics.LatencyHistogram;
+import seng302.utilities.metrics.MetricsRegistry;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.time.Instant;
+import java.time.Clock;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import static seng302.data.RaceStatus.*;
 
 /**
@@ -23,6 +29,15 @@ import static seng302.data.RaceStatus.*;
 public class RaceUpdater implements Runnable {
 
     private final double SECONDS_PER_UPDATE = 0.02;
+    static final int MAX_CATCH_UP_STEPS = 5;
+    static final int BOATS_PER_UPDATE_TASK = 4;
+    private static final Map<Integer, ForkJoinPool> sharedUpdatePools = new HashMap<>();
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final LatencyHistogram TICK_TIME = METRICS.histogram("race_tick_seconds");
+    private static final LatencyHistogram WIND_TIME = METRICS.histogram("race_tick_phase_seconds", "phase", "wind");
+    private static final LatencyHistogram COLLISIONS_TIME = METRICS.histogram("race_tick_phase_seconds", "phase", "collisions");
+    private static final LatencyHistogram BOATS_TIME = METRICS.histogram("race_tick_phase_seconds", "phase", "boat_update");
+    private static final LatencyHistogram MARK_ROUNDING_TIME = METRICS.histogram("race_tick_phase_seconds", "phase", "mark_rounding");
     private double scaleFactor = 1;
     private final double WARNING_SIGNAL_TIME_IN_MS = (1000 * 60 * 3);
     private final double PREPARATORY_SIGNAL_TIME_IN_MS = (1000 * 60 * 2);
@@ -35,15 +50,36 @@ public class RaceUpdater implements Runnable {
     private Collection<Boat> potentialCompetitors;
     private CollisionManager collisionManager;
     private Coordinate startingPosition;
-    private boolean serverRunning;
+    private volatile boolean serverRunning;
+    private final String courseFile;
     private boolean isPractice;
     private long secondsElapsed;
     private double timeOfFirstFinisher, millisBeforeStart, raceSecondsPassed;
     private boolean oneBoatHasFinished, atLeastOneBoatNotFinished;
     private double timer;
+    private final LongAdder markRoundingNanos = new LongAdder();
+    private volatile boolean raceOrderChanged;
+    private ForkJoinPool updatePool;
+    private double[] aiTimers = new double[0];
+    private final Clock clock;
+    private final Random random;
 
     public RaceUpdater(String selectedCourse){
-        collisionManager = new CollisionManager();
+        this(selectedCourse, Clock.systemUTC(), new Random());
+    }
+
+    /**
+     * Creates a race that reads the time and wind from the given sources, so that a race given a stepped clock and
+     * a seeded random plays out the same way every time
+     * @param selectedCourse the course to race on
+     * @param clock the clock the race starts by and penalties are timed by
+     * @param random the source of the wind speed
+     */
+    public RaceUpdater(String selectedCourse, Clock clock, Random random){
+        this.clock = clock;
+        this.random = random;
+        courseFile = selectedCourse;
+        collisionManager = new CollisionManager(selectedCourse, clock);
         initialWindSpeedGenerator();
         RaceVisionXMLParser raceVisionXMLParser = new RaceVisionXMLParser();
         raceVisionXMLParser.setCourseFile(selectedCourse);
@@ -58,24 +94,28 @@ public class RaceUpdater implements Runnable {
     }
 
     public RaceUpdater(Race race) {
+        this.clock = Clock.systemUTC();
+        this.random = new Random();
         this.race = race;
+        this.courseFile = RaceVisionXMLParser.courseFile;
         initialize();
     }
 
     public void initialize(){
         //for now we assume all boats racing are AC35 class yachts such that we can use the polars we have for them
         race.updateRaceStatus(RaceStatus.PRESTART);
-        long currentTime = Instant.now().toEpochMilli();
+        long currentTime = clock.millis();
         race.setCurrentTimeInEpochMs(currentTime);
         race.setStartTimeInEpochMs(currentTime + (1000 * 60 * 3)); //3 minutes from now
     }
 
 
     /**
-     * Adds a competitor from the potential competitors collection into the race
+     * Adds a competitor from the potential competitors collection into the race.
+     * Adding a boat can grow the race's fleet, so it waits for any tick in progress to finish.
      * @return the id of the added competitor, or -1 if max number reached.
      */
-    public int addCompetitor() {
+    public synchronized int addCompetitor() {
         if (potentialCompetitors.iterator().hasNext()) {
             Boat newCompetitor = potentialCompetitors.iterator().next();
             potentialCompetitors.remove(newCompetitor);
@@ -88,10 +128,11 @@ public class RaceUpdater implements Runnable {
     }
 
     /**
-     * Adds a competitor from the potential competitors collection into the race, changes the competitor to AI
+     * Adds a competitor from the potential competitors collection into the race, changes the competitor to AI.
+     * Adding a boat can grow the race's fleet, so it waits for any tick in progress to finish.
      * @return the id of the added competitor, or -1 if max number reached.
      */
-    public int addAICompetitor(AIDifficulty AIDifficulty) {
+    public synchronized int addAICompetitor(AIDifficulty AIDifficulty) {
         if (potentialCompetitors.iterator().hasNext()) {
             Boat newCompetitor = potentialCompetitors.iterator().next();
             potentialCompetitors.remove(newCompetitor);
@@ -117,35 +158,81 @@ public class RaceUpdater implements Runnable {
     }
 
     /**
-     * the main loop of the race server
+     * the main loop of the race server. Runs as many updates as are due by the clock, then sleeps until the next is
+     * due, so race time keeps to real time however long the updates take.
      */
     @Override
     public void run() {
-        raceSecondsPassed = SECONDS_PER_UPDATE * scaleFactor;
-        isPractice = RaceVisionXMLParser.courseFile.equals("PracticeStart-course.xml");
-        if (isPractice) race.updateRaceStatus(PREPARATORY);
-        oneBoatHasFinished = false;
-        timeOfFirstFinisher = 0;
-        while (!race.getRaceStatus().isRaceEndedStatus() && serverRunning) {
-            atLeastOneBoatNotFinished = false;
-            updateRaceTimes();
-            updateRaceStartStatus();
-            generateWind();
-            if (race.hasStarted() || race.getRaceStatus().equals(RaceStatus.PREPARATORY)) {
-                collisionManager.checkForCollisions(race);
+        start();
+        FixedTimestepClock clock = new FixedTimestepClock(TimeUnit.MILLISECONDS.toNanos(getMillisPerUpdate()),
+                MAX_CATCH_UP_STEPS, System.nanoTime());
+        while (isRunning()) {
+            int steps = clock.advance(System.nanoTime());
+            for (int i = 0; i < steps && isRunning(); i++) {
+                tick();
             }
-            for (Boat boat : race.getCompetitors()) {
-                updateBoat(boat);
-            }
-            checkRaceTermination();
             try {
-                Thread.sleep((long) (SECONDS_PER_UPDATE * 1000));
+                TimeUnit.NANOSECONDS.sleep(clock.nanosUntilNextStep());
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    /**
+     * Prepares the race to be run, either by run() or by a scheduler calling tick()
+     */
+    public void start() {
+        raceSecondsPassed = SECONDS_PER_UPDATE * scaleFactor;
+        isPractice = courseFile.equals("PracticeStart-course.xml");
+        if (isPractice) race.updateRaceStatus(PREPARATORY);
+        oneBoatHasFinished = false;
+        timeOfFirstFinisher = 0;
+    }
+
+    /**
+     * Advances the race by one update: the race times and status, the wind, collisions and every boat.
+     * The time taken by each phase is recorded in the metrics registry, with mark rounding timed apart from the
+     * rest of the boat update. Competitors cannot be added while a tick runs, as the fleet's arrays may be replaced
+     * when a boat is added.
+     */
+    public synchronized void tick() {
+        long tickStart = System.nanoTime();
+        atLeastOneBoatNotFinished = false;
+        updateRaceTimes();
+        updateRaceStartStatus();
+        long phaseStart = System.nanoTime();
+        generateWind();
+        WIND_TIME.recordSince(phaseStart);
+        if (race.hasStarted() || race.getRaceStatus().equals(RaceStatus.PREPARATORY)) {
+            phaseStart = System.nanoTime();
+            collisionManager.checkForCollisions(race);
+            COLLISIONS_TIME.recordSince(phaseStart);
+        }
+        markRoundingNanos.reset();
+        phaseStart = System.nanoTime();
+        updateBoats(race.getCompetitors());
+        long roundingNanos = markRoundingNanos.sum();
+        BOATS_TIME.record(System.nanoTime() - phaseStart - roundingNanos);
+        MARK_ROUNDING_TIME.record(roundingNanos);
+        checkRaceTermination();
+        TICK_TIME.recordSince(tickStart);
+    }
+
+    /**
+     * @return true until the race has ended or the updater has been stopped
+     */
+    public boolean isRunning() {
+        return !race.getRaceStatus().isRaceEndedStatus() && serverRunning;
+    }
+
+    /**
+     * @return the real time between updates
+     */
+    public long getMillisPerUpdate() {
+        return (long) (SECONDS_PER_UPDATE * 1000);
+    }
+
     /**
      * Updates the variables for the race times
      */
@@ -199,11 +286,64 @@ public class RaceUpdater implements Runnable {
         }
     }
 
+    /**
+     * Updates every boat for the tick. Each boat's own update only changes that boat, so with an update pool the
+     * boats are split across the pool's threads. The AI start timer shared by the boats is worked out for each boat
+     * beforehand in race order, and the boat statuses and race order are updated afterwards in race order, so a
+     * tick gives the same result whether or not it runs in parallel.
+     * @param competitors the boats in the race
+     */
+    private void updateBoats(List<Boat> competitors) {
+        int boatCount = competitors.size();
+        if (aiTimers.length < boatCount) {
+            aiTimers = new double[boatCount];
+        }
+        raceOrderChanged = false;
+        if (updatePool == null || boatCount <= BOATS_PER_UPDATE_TASK) {
+            for (int i = 0; i < boatCount; i++) {
+                Boat boat = competitors.get(i);
+                updateBoat(boat, nextAITimer(boat));
+            }
+        } else {
+            for (int i = 0; i < boatCount; i++) {
+                aiTimers[i] = nextAITimer(competitors.get(i));
+            }
+            updatePool.invoke(new BoatUpdateTask(competitors, 0, boatCount));
+        }
+        for (int i = 0; i < boatCount; i++) {
+            checkBoatStatus(competitors.get(i));
+        }
+        if (raceOrderChanged) {
+            race.updateRaceOrder();
+        }
+    }
+
+    /**
+     * Advances the timer the AI boats wait on before letting their sails out at the start. The timer is restarted
+     * by any AI boat in a collision and advanced by every AI boat that is moving, one after another in race order.
+     * @param boat the boat about to be updated
+     * @return the timer as the boat sees it
+     */
+    private double nextAITimer(Boat boat) {
+        if (boat instanceof AIBoat && (race.hasStarted() || race.getRaceStatus().equals(RaceStatus.PREPARATORY))) {
+            if (collisionManager.boatIsInCollision(boat) && !boat.isFinished()) {
+                timer = 0;
+            }
+            double boatTimer = timer;
+            if (millisBeforeStart < AIBoat.START_MOVING_TIME_MS) {
+                timer += raceSecondsPassed;
+            }
+            return boatTimer;
+        }
+        return timer;
+    }
+
     /**
      * Updates the boat's location, speed and heading in the race.
      * @param boat The boat to be updated.
+     * @param aiTimer the AI start timer as the boat sees it
      */
-    private void updateBoat(Boat boat){
+    private void updateBoat(Boat boat, double aiTimer){
         if(race.hasStarted() || race.getRaceStatus().equals(RaceStatus.PREPARATORY)){
             if (collisionManager.boatIsInCollision(boat) && !boat.isFinished()) {
                 //revert the last location update as it was a collision
@@ -212,7 +352,6 @@ public class RaceUpdater implements Runnable {
                 if (boat instanceof AIBoat){
                     boat.setSailsIn(true);
                     boat.setCurrentSpeed(0);
-                    timer = 0;
                 }
             }
             if(boat.isFinished()) {
@@ -222,22 +361,53 @@ public class RaceUpdater implements Runnable {
             if(boat instanceof AIBoat){
                 if(millisBeforeStart < AIBoat.START_MOVING_TIME_MS){
                     AIBoat aiBoat = (AIBoat) boat;
-                    if (!(collisionManager.boatIsInCollision(boat)) && timer > 5) {
+                    if (!(collisionManager.boatIsInCollision(boat)) && aiTimer > 5) {
                         aiBoat.setSailsIn(false);
                     }
-                    timer += raceSecondsPassed;
                     aiBoat.move(raceSecondsPassed, race.getCourse());
                 }
             } else {
                 boat.move(raceSecondsPassed, race.getCourse());
                 Course course = race.getCourse();
                 if (race.getCourse().getCourseOrder().size() > 0 && race.getRaceStatus().equals(STARTED) && !boat.isFinished()) {
+                    long roundingStart = System.nanoTime();
                     checkMarkRounding(boat, course);
+                    markRoundingNanos.add(System.nanoTime() - roundingStart);
                 }
             }
             calculateTimeAtNextMark(boat);
         }
-        checkBoatStatus(boat);
+    }
+
+    /**
+     * Updates a range of the boats in the race, splitting it in half across the pool until it is a few boats long.
+     * Boats are split by their place in the race so that each thread works on neighbouring slots of the fleet.
+     */
+    private class BoatUpdateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Boat> competitors;
+        private final int start;
+        private final int end;
+
+        BoatUpdateTask(List<Boat> competitors, int start, int end) {
+            this.competitors = competitors;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= BOATS_PER_UPDATE_TASK) {
+                for (int i = start; i < end; i++) {
+                    updateBoat(competitors.get(i), aiTimers[i]);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new BoatUpdateTask(competitors, start, middle), new BoatUpdateTask(competitors, middle, end));
+            }
+        }
     }
 
 
@@ -306,7 +476,7 @@ public class RaceUpdater implements Runnable {
                 boat.setLastRoundedMarkIndex(boat.getLastRoundedMarkIndex() + 1);
                 boat.setSailsIn(true);
                 boat.setStatus(BoatStatus.FINISHED);
-                race.updateRaceOrder();
+                raceOrderChanged = true;
             }
         } else if (!currentMark.hasTwoMarks()){
             RoundingMechanics.boatHeadingToMark(boat, currentMark, previousMark, nextMark);
@@ -395,7 +565,7 @@ public class RaceUpdater implements Runnable {
         double range = 0.05;
         double maxSpeed = race.getCourse().getTrueWindSpeed() + range;
         double minSpeed = race.getCourse().getTrueWindSpeed() - range;
-        double speed = ThreadLocalRandom.current().nextDouble(minSpeed, maxSpeed);
+        double speed = minSpeed + (maxSpeed - minSpeed) * random.nextDouble();
 
         if(speed > MIN_WIND_SPEED && speed < MAX_WIND_SPEED) {
             race.getCourse().setTrueWindSpeed(speed);
@@ -417,6 +587,31 @@ public class RaceUpdater implements Runnable {
         this.scaleFactor = scaleFactor;
     }
 
+    /**
+     * Sets how many threads update the boats each tick. With more than one thread, the boats of a race big enough
+     * to split are updated in parallel on a fork/join pool shared by every race in the process that asks for the
+     * same number of threads.
+     * @param threads the number of threads, or 1 to update the boats on the race's own thread
+     */
+    public void setUpdateThreads(int threads) {
+        updatePool = threads > 1 ? sharedUpdatePool(threads) : null;
+    }
+
+    /**
+     * @return the number of threads that update the boats each tick
+     */
+    int getUpdateThreads() {
+        return updatePool == null ? 1 : updatePool.getParallelism();
+    }
+
+    /**
+     * @param threads the number of threads in the pool
+     * @return the pool of that many threads shared by every race updating its boats in parallel on that many threads
+     */
+    private static synchronized ForkJoinPool sharedUpdatePool(int threads) {
+        return sharedUpdatePools.computeIfAbsent(threads, ForkJoinPool::new);
+    }
+
     public void setRace(Race race) {
         this.race = race;
     }
@@ -432,7 +627,6 @@ public class RaceUpdater implements Runnable {
      * Randomly generates an initial wind speed between race regulations of 6-24 knots
      */
     private void initialWindSpeedGenerator(){
-        Random random = new Random();
         initialWindSpeed = MIN_WIND_SPEED + (MAX_WIND_SPEED - MIN_WIND_SPEED) * random.nextDouble();
     }
 
@@ -25,6 +25,7 @@ import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Scale;
 import javafx.util.Duration;
 import seng302.data.BoatStatus;
+import seng302.data.ClientInterest;
 import seng302.data.RaceStatus;
 import seng302.data.StartTimingStatus;
 import seng302.utilities.*;
@@ -245,6 +246,7 @@ public class RaceViewController extends AnimationTimer implements Observer {
     private void run(){
         if (drawDistanceLine) redrawDistanceLines();
         selectionController.zoomTracking();
+        updateInterest();
         for (BoatDisplay displayBoat: displayBoats) {
             moveBoatDisplay(displayBoat);
             manageBoatInformationFeatures(displayBoat);
@@ -275,6 +277,29 @@ public class RaceViewController extends AnimationTimer implements Observer {
 
 
 
+/**
+     * Tells the server which part of the course is in view, so that boats outside of it can be sent less often.
+     * When a boat is tracked the view moves with it, so only its size is sent, made large enough to cover the view
+     * at any rotation.
+     */
+    private void updateInterest() {
+        GameClient client = Main.getClient();
+        if (client == null || DisplayUtils.max == null) {
+            return;
+        }
+        Coordinate[] area = DisplayUtils.getVisibleArea();
+        BoatDisplay trackedBoat = selectionController.isTrackingPoint() ? selectionController.getTrackingBoat() : null;
+        ClientInterest interest;
+        if (trackedBoat != null) {
+            double radius = Math.hypot(area[1].getLat() - area[0].getLat(), area[1].getLon() - area[0].getLon()) / 2;
+            interest = new ClientInterest(trackedBoat.getBoat().getId(), -radius, -radius, radius, radius);
+        } else {
+            interest = new ClientInterest(ClientInterest.NO_TRACKED_BOAT, area[0].getLat(), area[0].getLon(),
+                    area[1].getLat(), area[1].getLon());
+        }
+        client.sendInterest(interest);
+    }
+
 /**
      * Manages highlight of next mark or the arrow to next mark if zoomed
      */
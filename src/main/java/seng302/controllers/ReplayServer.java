@@ -0,0 +1,229 @@
+package seng302.controllers;
+
+import seng302.controllers.listeners.AbstractServerListener;
+import seng302.controllers.listeners.WebSocketServerListener;
+import seng302.data.AC35StreamMessage;
+import seng302.data.AC35StreamXMLMessage;
+import seng302.data.ClientGroup;
+import seng302.data.ConnectionManager;
+import seng302.data.RaceRecording;
+import seng302.data.ServerPacketBuilder;
+import seng302.data.registration.RegistrationType;
+import seng302.utilities.ConnectionUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static seng302.data.registration.RegistrationResponseStatus.RACE_UNAVAILABLE;
+import static seng302.data.registration.RegistrationResponseStatus.SPECTATOR_SUCCESS;
+
+/**
+ * Serves a recorded race to spectators as if it were being run live, without running the race again.
+ * The recording is memory-mapped and its frames are sent to the clients as slices of the mapped file, paced by
+ * their header timestamps and sped up by a replay speed. Every spectator watches the same replay, and a spectator
+ * joining part way through is sent the latest XML messages first. When the recording ends the spectators are
+ * disconnected and the replay starts again from where it was started.
+ * The replay server is started with the replay command, which takes the stream file of a recording and the options
+ * -p [PORT], -x [SPEED] and -t [SECONDS] to start that far into the recording.
+ */
+public class ReplayServer implements Observer {
+
+    private static final long TICK_MILLIS = 50;
+
+    private final RaceRecording recording;
+    private final double speed;
+    private final ConnectionManager connectionManager;
+    private final ClientGroup clients;
+    private final ServerPacketBuilder packetBuilder = new ServerPacketBuilder();
+    private final ScheduledExecutorService scheduler = RaceHost.createTickScheduler(1);
+    private long startTime;
+    private long replayTime;
+    private double unplayedMillis;
+    private int position;
+    private int nextViewerId = 0;
+
+    /**
+     * Creates a replay server on a port, which starts serving once start is called
+     * @param recording the recording to replay
+     * @param port the port spectators connect to
+     * @param speed how many times faster than the race the recording is played
+     * @throws IOException if the port cannot be bound
+     */
+    public ReplayServer(RaceRecording recording, int port, double speed) throws IOException {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("Replay speed must be greater than 0");
+        }
+        this.recording = recording;
+        this.speed = speed;
+        connectionManager = new ConnectionManager(port, true);
+        connectionManager.addObserver(this);
+        clients = connectionManager.createClientGroup();
+        seek(recording.getStartTime());
+    }
+
+    /**
+     * Parses the replay arguments, which follow the replay command, and starts a replay server
+     * @param args the replay arguments
+     */
+    static void launch(String[] args) {
+        try {
+            if (args.length == 0) {
+                throw new IllegalArgumentException("Missing recording file");
+            }
+            int port = ConnectionUtils.DEFAULT_GAME_PORT;
+            double speed = 1;
+            double seconds = 0;
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(String.format("Missing value for argument \"%s\"", args[i]));
+                }
+                switch (args[i]) {
+                    case "-p":
+                        port = Integer.parseInt(args[i + 1]);
+                        break;
+                    case "-x":
+                        speed = Double.parseDouble(args[i + 1]);
+                        break;
+                    case "-t":
+                        seconds = Double.parseDouble(args[i + 1]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown argument \"%s\"", args[i]));
+                }
+            }
+            RaceRecording recording = RaceRecording.open(Paths.get(args[0]));
+            ReplayServer server = new ReplayServer(recording, port, speed);
+            server.seek(recording.getStartTime() + (long) (seconds * 1000));
+            server.start();
+            System.out.printf("Server: Replaying %s at %sx on port %d\n", args[0], speed, port);
+        } catch (IllegalArgumentException iae) {
+            System.out.print("Invalid replay arguments. ");
+            System.out.println(iae.getMessage());
+        } catch (IOException e) {
+            System.out.println("Failed to start replay server.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts accepting spectators and playing the recording
+     */
+    public void start() {
+        Thread managerThread = new Thread(connectionManager);
+        managerThread.setName("Connection Manager");
+        managerThread.start();
+        scheduler.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the replay and disconnects the spectators
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        connectionManager.closeAllConnections();
+    }
+
+    /**
+     * Moves the replay to a time in the recording. The latest XML message of each type sent before that time is
+     * sent to the spectators, and kept for those who join later, so they can show the race from there.
+     * @param timeMillis the time in epoch milliseconds, by the header timestamps of the recording
+     */
+    public synchronized void seek(long timeMillis) {
+        int target = recording.offsetAt(timeMillis);
+        for (int offset : recording.latestXmlFramesBefore(target)) {
+            sendXmlMessage(offset);
+        }
+        startTime = timeMillis;
+        replayTime = timeMillis;
+        unplayedMillis = 0;
+        position = target;
+    }
+
+    /**
+     * Sends the spectators every frame up to the replay time, which moves on by one tick at the replay speed.
+     * Runs of frames are sent as one slice of the recording, and XML messages are also kept for new spectators.
+     */
+    private synchronized void tick() {
+        try {
+            unplayedMillis += TICK_MILLIS * speed;
+            replayTime += (long) unplayedMillis;
+            unplayedMillis -= (long) unplayedMillis;
+            int runStart = position;
+            clients.startBatch();
+            try {
+                while (position < recording.getEnd() && recording.getTime(position) <= replayTime) {
+                    if (recording.getType(position) == AC35StreamMessage.XML_MESSAGE.getValue()) {
+                        sendFrames(runStart, position);
+                        sendXmlMessage(position);
+                        runStart = recording.nextFrame(position);
+                    }
+                    position = recording.nextFrame(position);
+                }
+                sendFrames(runStart, position);
+            } finally {
+                clients.sendBatch();
+            }
+            if (position >= recording.getEnd()) {
+                System.out.println("Server: Replay finished, restarting");
+                clients.closeClientConnections();
+                seek(startTime);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void sendFrames(int from, int to) {
+        if (to > from) {
+            clients.sendToClients(recording.slice(from, to));
+        }
+    }
+
+    private void sendXmlMessage(int offset) {
+        AC35StreamXMLMessage type = recording.getXmlType(offset);
+        if (type != null) {
+            clients.setXmlMessage(type, recording.copyFrame(offset));
+        }
+    }
+
+    /**
+     * Listens to new clients until they register. Spectators are added to the replay, and anyone trying to race
+     * is told there is no race to join.
+     */
+    @Override
+    public void update(Observable observable, Object arg) {
+        if (observable.equals(connectionManager)) {
+            if (arg instanceof AbstractServerListener) {
+                ((AbstractServerListener) arg).addObserver(this);
+            }
+        } else if (observable instanceof AbstractServerListener && arg instanceof RegistrationType) {
+            AbstractServerListener listener = (AbstractServerListener) observable;
+            listener.deleteObserver(this);
+            addSpectator(listener, arg == RegistrationType.SPECTATOR);
+        }
+    }
+
+    /**
+     * Adds a spectator to the replay. Anyone else is sent the rejection on its own and disconnected, without being
+     * sent the race XML messages that are sent to new spectators.
+     */
+    private synchronized void addSpectator(AbstractServerListener listener, boolean isSpectator) {
+        if (!isSpectator) {
+            byte[] response = packetBuilder.createRegistrationResponsePacket(0, RACE_UNAVAILABLE);
+            if (listener instanceof WebSocketServerListener) {
+                response = packetBuilder.wrapPacket(response);
+            }
+            connectionManager.sendToConnection(listener.getConnection(), response);
+            connectionManager.scheduleClose(listener.getConnection());
+            return;
+        }
+        int viewerId = nextViewerId++;
+        System.out.println("Server: Adding spectator to replay");
+        clients.addConnection(viewerId, listener);
+        clients.sendToClient(viewerId, packetBuilder.createRegistrationResponsePacket(0, SPECTATOR_SUCCESS));
+    }
+}
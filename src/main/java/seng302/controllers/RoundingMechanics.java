@@ -2,6 +2,7 @@ package seng302.controllers;
 
 import seng302.data.RoundingSide;
 import seng302.models.*;
+import seng302.utilities.Geodesy;
 
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
@@ -27,23 +28,33 @@ public class RoundingMechanics {
      * @return boolean of whether or not the boat has crossed the compound mark line
      */
     public static boolean boatPassedThroughCompoundMark(Boat boat, CompoundMark compoundMark, Coordinate previousMarkCoordinate, Boolean forward) {
-        Coordinate boatPrevious = boat.getPreviousPosition();
-        Coordinate boatCurrent = boat.getCurrentPosition();
         Coordinate lineMark1 = compoundMark.getMark1().getPosition();
         Coordinate lineMark2 = compoundMark.getMark2().getPosition();
+        return boatPassedThroughLine(boat, lineMark1.getLat(), lineMark1.getLon(), lineMark2.getLat(), lineMark2.getLon(),
+                previousMarkCoordinate, forward);
+    }
 
-        //Creates two lines using the boats current and previous positions, plus the passed in compound mark's two marks.
-        Line2D markLine = new Line2D.Double(lineMark1.getLon(), lineMark1.getLat(), lineMark2.getLon(), lineMark2.getLat());
-        Line2D boatLine = new Line2D.Double(boatPrevious.getLon(), boatPrevious.getLat(), boatCurrent.getLon(), boatCurrent.getLat());
+    /**
+     * Checking that a boat has crossed the line between two points this tick, working on the lines' end points
+     * so nothing is made for the check
+     * @param boat current boat
+     * @param previousMarkCoordinate last feature the boat passed
+     * @param forward true if the boat must cross from the side of the previous feature, false if from the other side
+     * @return boolean of whether or not the boat has crossed the line
+     */
+    private static boolean boatPassedThroughLine(Boat boat, double lat1, double lon1, double lat2, double lon2,
+                                                 Coordinate previousMarkCoordinate, boolean forward) {
+        Coordinate boatPrevious = boat.getPreviousPosition();
+        Coordinate boatCurrent = boat.getCurrentPosition();
 
-        Integer markPreviousDir = markLine.relativeCCW(previousMarkCoordinate.getLon(), previousMarkCoordinate.getLat());
-        Integer boatPreviousDir = markLine.relativeCCW(boatPrevious.getLon(), boatPrevious.getLat());
+        //Uses two lines, the boats current and previous positions and the two points given.
+        boolean crossed = Line2D.linesIntersect(lon1, lat1, lon2, lat2,
+                boatPrevious.getLon(), boatPrevious.getLat(), boatCurrent.getLon(), boatCurrent.getLat());
 
-        if(forward){
-            return boatLine.intersectsLine(markLine) && markPreviousDir.equals(boatPreviousDir);
-        } else{
-            return boatLine.intersectsLine(markLine) && !markPreviousDir.equals(boatPreviousDir);
-        }
+        int markPreviousDir = Line2D.relativeCCW(lon1, lat1, lon2, lat2, previousMarkCoordinate.getLon(), previousMarkCoordinate.getLat());
+        int boatPreviousDir = Line2D.relativeCCW(lon1, lat1, lon2, lat2, boatPrevious.getLon(), boatPrevious.getLat());
+
+        return crossed && (markPreviousDir == boatPreviousDir) == forward;
     }
 
     /**
@@ -57,25 +68,30 @@ public class RoundingMechanics {
     public static boolean boatPassedMark(Boat boat, CompoundMark mark, Coordinate previousMarkCoordinate, Coordinate nextMarkCoordinate) {
         Coordinate boatPrevious = boat.getPreviousPosition();
         Coordinate boatCurrent = boat.getCurrentPosition();
-        Line2D boatLine = new Line2D.Double(boatPrevious.getLon(), boatPrevious.getLat(), boatCurrent.getLon(), boatCurrent.getLat());
-
-        Double angle2 = mark.getPosition().headingToCoordinate(nextMarkCoordinate);
-        Double angle1 = mark.getPosition().headingToCoordinate(previousMarkCoordinate);
-        Double midway1 = (angle1 + angle2) / 2;
-        Double midway2 = (midway1 + 180) % 360;
-        Double midway = midway1;
+        Coordinate markPosition = mark.getPosition();
+        double markLat = markPosition.getLat();
+        double markLon = markPosition.getLon();
+
+        double angle2 = markPosition.headingToCoordinate(nextMarkCoordinate);
+        double angle1 = markPosition.headingToCoordinate(previousMarkCoordinate);
+        double midway1 = (angle1 + angle2) / 2;
+        double midway2 = (midway1 + 180) % 360;
+        double midway = midway1;
         if(Math.abs(midway2 - angle1) > Math.abs(midway1 - angle1)){
             midway = midway2;
         }
-        Coordinate otherPoint = mark.getPosition().coordAt(DUMMY_MARK_DISTANCE, midway, SPHERE_RADIUS);
-        Coordinate otherPoint1 = otherPoint.coordAt(DUMMY_MARK_DISTANCE * 2, (midway+180) % 360, SPHERE_RADIUS);
-
-        Line2D testingDirLine = new Line2D.Double(otherPoint.getLon(), otherPoint.getLat(), otherPoint1.getLon(), otherPoint1.getLat());
-        Line2D testingCrossingLine = new Line2D.Double(mark.getPosition().getLon(), mark.getPosition().getLat(), otherPoint.getLon(), otherPoint.getLat());
-
-        Integer markPreviousDir = testingDirLine.relativeCCW(previousMarkCoordinate.getLon(), previousMarkCoordinate.getLat());
-        Integer boatPreviousDir = testingDirLine.relativeCCW(boatPrevious.getLon(), boatPrevious.getLat());
-        return boatLine.intersectsLine(testingCrossingLine) && markPreviousDir.equals(boatPreviousDir);
+        double otherLat = Geodesy.destinationLat(markLat, DUMMY_MARK_DISTANCE, midway, SPHERE_RADIUS);
+        double otherLon = Geodesy.destinationLon(markLat, markLon, otherLat, DUMMY_MARK_DISTANCE, midway, SPHERE_RADIUS);
+        double oppositeBearing = (midway + 180) % 360;
+        double other1Lat = Geodesy.destinationLat(otherLat, DUMMY_MARK_DISTANCE * 2, oppositeBearing, SPHERE_RADIUS);
+        double other1Lon = Geodesy.destinationLon(otherLat, otherLon, other1Lat, DUMMY_MARK_DISTANCE * 2, oppositeBearing, SPHERE_RADIUS);
+
+        int markPreviousDir = Line2D.relativeCCW(otherLon, otherLat, other1Lon, other1Lat,
+                previousMarkCoordinate.getLon(), previousMarkCoordinate.getLat());
+        int boatPreviousDir = Line2D.relativeCCW(otherLon, otherLat, other1Lon, other1Lat,
+                boatPrevious.getLon(), boatPrevious.getLat());
+        return Line2D.linesIntersect(boatPrevious.getLon(), boatPrevious.getLat(), boatCurrent.getLon(), boatCurrent.getLat(),
+                markLon, markLat, otherLon, otherLat) && markPreviousDir == boatPreviousDir;
     }
 
     /**
@@ -86,23 +102,20 @@ public class RoundingMechanics {
      * @return boolean, true if the boat passes the external lines of the compound mark going the correct way.
      */
     public static boolean boatPassedThroughExternalGate(Boat boat, CompoundMark gate, Coordinate previousMarkCoordinate) {
-        Double angle = gate.getMark1().getPosition().headingToCoordinate(gate.getMark2().getPosition());
-
-        Coordinate gateExteriorCoordinate1 = gate.getMark1().getPosition().coordAt(DUMMY_MARK_DISTANCE, (angle + 180) % 360, SPHERE_RADIUS);
-        Coordinate gateExteriorCoordinate2 = gate.getMark2().getPosition().coordAt(DUMMY_MARK_DISTANCE, angle, SPHERE_RADIUS);
-
-        CompoundMark getExteriorCompoundMark1 = buildDummyCompoundMark(gate.getMark1().getPosition(), gateExteriorCoordinate1);
-        CompoundMark getExteriorCompoundMark2 = buildDummyCompoundMark(gate.getMark2().getPosition(), gateExteriorCoordinate2);
-
-        return boatPassedThroughCompoundMark(boat, getExteriorCompoundMark1, previousMarkCoordinate, false) ||
-                boatPassedThroughCompoundMark(boat, getExteriorCompoundMark2, previousMarkCoordinate, false);
-    }
-
-    private static CompoundMark buildDummyCompoundMark(Coordinate markCoordinate1, Coordinate markCoordinate2){
-        Mark mark1 = new Mark(-1, "Dummy Mark", markCoordinate1);
-        Mark mark2 = new Mark(-1, "Dummy Mark", markCoordinate2);
-
-        return new CompoundMark(-1, "Dummy Compound Mark", mark1, mark2);
+        Coordinate gateMark1 = gate.getMark1().getPosition();
+        Coordinate gateMark2 = gate.getMark2().getPosition();
+        double angle = gateMark1.headingToCoordinate(gateMark2);
+        double oppositeAngle = (angle + 180) % 360;
+
+        double exterior1Lat = Geodesy.destinationLat(gateMark1.getLat(), DUMMY_MARK_DISTANCE, oppositeAngle, SPHERE_RADIUS);
+        double exterior1Lon = Geodesy.destinationLon(gateMark1.getLat(), gateMark1.getLon(), exterior1Lat,
+                DUMMY_MARK_DISTANCE, oppositeAngle, SPHERE_RADIUS);
+        double exterior2Lat = Geodesy.destinationLat(gateMark2.getLat(), DUMMY_MARK_DISTANCE, angle, SPHERE_RADIUS);
+        double exterior2Lon = Geodesy.destinationLon(gateMark2.getLat(), gateMark2.getLon(), exterior2Lat,
+                DUMMY_MARK_DISTANCE, angle, SPHERE_RADIUS);
+
+        return boatPassedThroughLine(boat, gateMark1.getLat(), gateMark1.getLon(), exterior1Lat, exterior1Lon, previousMarkCoordinate, false) ||
+                boatPassedThroughLine(boat, gateMark2.getLat(), gateMark2.getLon(), exterior2Lat, exterior2Lon, previousMarkCoordinate, false);
     }
 
     /**
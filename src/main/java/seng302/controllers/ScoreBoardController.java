@@ -30,6 +30,7 @@ import seng302.utilities.DisplaySwitcher;
 import seng302.utilities.DisplayUtils;
 import seng302.utilities.GameSounds;
 import seng302.views.BoatDisplay;
+import seng302.views.BoatProperties;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart.Series;
 import seng302.models.Race;
@@ -176,10 +177,10 @@ public class ScoreBoardController {
      * initialises the table with boat data
      */
     private void setUpTable(){
-        columnName.setCellValueFactory(cellData -> cellData.getValue().getNameProperty());
-        columnPosition.setCellValueFactory(cellData -> cellData.getValue().getCurrPlacingProperty().asObject());
-        columnSpeed.setCellValueFactory(cellData -> Bindings.format("%.2f kn", cellData.getValue().getSpeedProperty()));
-        columnStatus.setCellValueFactory(cellData -> cellData.getValue().getStatusProperty());
+        columnName.setCellValueFactory(cellData -> BoatProperties.of(cellData.getValue()).nameProperty());
+        columnPosition.setCellValueFactory(cellData -> BoatProperties.of(cellData.getValue()).placingProperty().asObject());
+        columnSpeed.setCellValueFactory(cellData -> Bindings.format("%.2f kn", BoatProperties.of(cellData.getValue()).speedProperty()));
+        columnStatus.setCellValueFactory(cellData -> BoatProperties.of(cellData.getValue()).statusProperty());
 
         refreshTable();
         tblPlacings.getSortOrder().add(columnPosition);
@@ -191,7 +192,7 @@ public class ScoreBoardController {
     }
 
     private void setUpProgressBar(){
-        raceViewController.getCurrentUserBoatDisplay().getBoat().getHealthProperty().addListener((obs, oldStatus, newStatus) ->
+        BoatProperties.of(raceViewController.getCurrentUserBoatDisplay().getBoat()).healthProperty().addListener((obs, oldStatus, newStatus) ->
                 Platform.runLater(() -> updateHealth((Double)newStatus)));
     }
 
@@ -338,16 +339,16 @@ public class ScoreBoardController {
      * updates the scorebaord table when a new competitor is added
      */
     public void refreshTable(){
-        Callback<Boat, Observable[]> cb =(Boat boat) -> new Observable[]{boat.getCurrPlacingProperty()};
+        Callback<Boat, Observable[]> cb =(Boat boat) -> new Observable[]{BoatProperties.of(boat).placingProperty()};
 
         ObservableList<Boat> observableList = FXCollections.observableArrayList(cb);
-        observableList.addAll(race.getObservableCompetitors());
+        observableList.addAll(race.getAddedCompetitors());
 
         SortedList<Boat> sortedList = new SortedList<>( observableList,
                 (Boat boat1, Boat boat2) -> {
-                    if( boat1.getCurrPlacingProperty().get() < boat2.getCurrPlacingProperty().get() ) {
+                    if( boat1.getCurrPlacing() < boat2.getCurrPlacing() ) {
                         return -1;
-                    } else if( boat1.getCurrPlacingProperty().get() > boat2.getCurrPlacingProperty().get() ) {
+                    } else if( boat1.getCurrPlacing() > boat2.getCurrPlacing() ) {
                         return 1;
                     } else {
                         return 0;
@@ -7,8 +7,8 @@ import seng302.models.PolarTable;
 import seng302.models.Race;
 import seng302.utilities.PolarReader;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static seng302.data.AC35StreamField.*;
 import static seng302.data.registration.RegistrationType.REQUEST_RUNNING_GAMES;
@@ -21,7 +21,11 @@ public abstract class AbstractServerListener extends Listener implements Runnabl
 
     protected Race race;
     protected Integer clientId;
-    protected boolean clientConnected = true;
+    protected ClientConnection connection;
+    protected volatile boolean clientConnected = true;
+    protected int requestedRoomId = 0;
+    protected int registrationFlags = 0;
+    protected volatile ClientInterest interest;
     protected final Integer CRC_LENGTH = 4;
     protected static final int SYNC_BYTE_1 = 71;
     protected static final int SYNC_BYTE_2 = 131;
@@ -35,11 +39,55 @@ public abstract class AbstractServerListener extends Listener implements Runnabl
     public abstract void run();
 
     /**
-     * parses body of the a registration request message by extracting request type and notifying
+     * Parses every whole message in the data received from the client. Called by the ConnectionManager's I/O
+     * thread whenever more data arrives. Any partial message at the end is left in the buffer to be completed by
+     * the next read.
+     * @param data the received data, positioned at the first unparsed byte
+     */
+    public abstract void processReceivedData(ByteBuffer data);
+
+    /**
+     * Passes a single message from the client, once its CRC has been checked, to this listener's handler for its type
+     * @param messageType the message type from the message header
+     * @param sourceId the source id from the message header
+     * @param body the body of the message
+     * @return true if the message was handled, false if this listener has no handler for its type
+     * @throws IOException if the handler fails to handle the message
+     */
+    protected abstract boolean dispatchMessage(int messageType, int sourceId, byte[] body) throws IOException;
+
+    /**
+     * Checks the CRC of a message and passes it on to be handled
+     * @param header the header of the message
+     * @param body the body of the message
+     * @param crc the CRC sent with the message
+     */
+    protected void processPacket(byte[] header, byte[] body, byte[] crc) {
+        if (checkCRC(header, body, crc)) {
+            int messageTypeValue = byteArrayRangeToInt(header, MESSAGE_TYPE.getStartIndex(), MESSAGE_TYPE.getEndIndex());
+            int sourceId = byteArrayRangeToInt(header, HEADER_SOURCE_ID.getStartIndex(), HEADER_SOURCE_ID.getEndIndex());
+            try {
+                dispatchMessage(messageTypeValue, sourceId, body);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            System.out.println("Incorrect CRC");
+        }
+    }
+
+    /**
+     * parses body of the a registration request message by extracting request type and room id and notifying
      * @param body the body of a RegistrationRequest message
      */
     protected void parseRegistrationRequestMessage(byte[] body) {
         byte registrationByte = body[REGISTRATION_REQUEST_TYPE.getStartIndex()];
+        requestedRoomId = body.length >= REGISTRATION_ROOM_ID.getEndIndex()
+                ? byteArrayRangeToInt(body, REGISTRATION_ROOM_ID.getStartIndex(), REGISTRATION_ROOM_ID.getEndIndex())
+                : 0;
+        registrationFlags = body.length >= REGISTRATION_FLAGS.getEndIndex()
+                ? byteArrayRangeToInt(body, REGISTRATION_FLAGS.getStartIndex(), REGISTRATION_FLAGS.getEndIndex())
+                : 0;
         if (registrationByte != REQUEST_RUNNING_GAMES.value()){
             System.out.println("Server: Received Registration Request");
         }
@@ -59,7 +107,7 @@ public abstract class AbstractServerListener extends Listener implements Runnabl
         }
         int action = byteArrayRangeToInt(body, BOAT_ACTION_BODY.getStartIndex(), BOAT_ACTION_BODY.getEndIndex());
         Boat boat = race.getBoatById(sourceId);
-        PolarTable polarTable = new PolarTable(PolarReader.getPolarsForAC35Yachts(), race.getCourse());
+        PolarTable polarTable = new PolarTable(PolarReader.getPerformanceGridForAC35Yachts(), race.getCourse());
         BoatAction boatAction = BoatAction.getBoatActionFromInt(action);
         switch (boatAction){
             case BOAT_VMG:
@@ -93,6 +141,24 @@ public abstract class AbstractServerListener extends Listener implements Runnabl
         }
     }
 
+    /**
+     * parses body of a client interest message, which replaces the part of the course the client last said it was
+     * viewing
+     * @param body the body of a client interest message
+     */
+    protected void parseClientInterestMessage(byte[] body) {
+        if (body.length < AC35StreamMessage.CLIENT_INTEREST_MESSAGE.getLength()) {
+            return;
+        }
+        int trackedBoatId = byteArrayRangeToInt(body, INTEREST_TRACKED_BOAT.getStartIndex(), INTEREST_TRACKED_BOAT.getEndIndex());
+        int minLat = byteArrayRangeToInt(body, INTEREST_MIN_LATITUDE.getStartIndex(), INTEREST_MIN_LATITUDE.getEndIndex());
+        int minLon = byteArrayRangeToInt(body, INTEREST_MIN_LONGITUDE.getStartIndex(), INTEREST_MIN_LONGITUDE.getEndIndex());
+        int maxLat = byteArrayRangeToInt(body, INTEREST_MAX_LATITUDE.getStartIndex(), INTEREST_MAX_LATITUDE.getEndIndex());
+        int maxLon = byteArrayRangeToInt(body, INTEREST_MAX_LONGITUDE.getStartIndex(), INTEREST_MAX_LONGITUDE.getEndIndex());
+        interest = new ClientInterest(trackedBoatId, ClientListener.intToLatLon(minLat), ClientListener.intToLatLon(minLon),
+                ClientListener.intToLatLon(maxLat), ClientListener.intToLatLon(maxLon));
+    }
+
     @Override
     public Race getRace() {
         return null;
@@ -100,6 +166,15 @@ public abstract class AbstractServerListener extends Listener implements Runnabl
 
     @Override
     public void disconnectClient() {
+        clientConnected = false;
+    }
+
+    public boolean isClientConnected() {
+        return clientConnected;
+    }
+
+    public ClientConnection getConnection() {
+        return connection;
     }
 
     public void setRace(Race race) {
@@ -114,25 +189,40 @@ public abstract class AbstractServerListener extends Listener implements Runnabl
      * Creates a server listener based on what type of connection it is. If the first two bytes meets the expected
      * sync bytes of the AC35 protocol, then a normal socket is assumed, otherwise assumes it is a WebSocket and
      * the corresponding server listener is created.
-     * @param socket The connection socket
-     * @return The corresponding server listener for the socket type
+     * @param connection The client connection
+     * @param receivedData The data received from the client so far, containing at least two bytes. It is not consumed.
+     * @param isGameServer true if the connection is to a game server, false if it is to the game recorder
+     * @return The corresponding server listener for the connection type
      */
-    public static AbstractServerListener createServerListener(Socket socket){
-        BufferedInputStream socketData;
-        try{
-            socketData = new BufferedInputStream(socket.getInputStream());
-            socketData.mark(10);
-            int sync1 = socketData.read();
-            int sync2 = socketData.read();
-            socketData.reset();
-            if (sync1 != SYNC_BYTE_1 || sync2 != SYNC_BYTE_2) {
-                return new WebSocketServerListener(socket, socketData);
-            } else {
-                return new ServerListener(socket, socketData);
-            }
-        } catch(IOException e){
-            e.printStackTrace();
+    public static AbstractServerListener createServerListener(ClientConnection connection, ByteBuffer receivedData,
+                                                              boolean isGameServer){
+        int sync1 = receivedData.get(receivedData.position()) & 0xFF;
+        int sync2 = receivedData.get(receivedData.position() + 1) & 0xFF;
+        if (sync1 != SYNC_BYTE_1 || sync2 != SYNC_BYTE_2) {
+            return new WebSocketServerListener(connection);
+        } else {
+            return new ServerListener(connection, isGameServer);
         }
-        return null;
+    }
+
+    /**
+     * @return the id of the room asked for in the client's last registration request, 0 being the default room
+     */
+    public int getRequestedRoomId() {
+        return requestedRoomId;
+    }
+
+    /**
+     * @return true if the client asked to be sent boat location deltas when it registered
+     */
+    public boolean acceptsLocationDeltas() {
+        return (registrationFlags & BoatLocationDeltaEncoder.REGISTRATION_FLAG) != 0;
+    }
+
+    /**
+     * @return the part of the course the client last said it was viewing, or null if it has not said
+     */
+    public ClientInterest getInterest() {
+        return interest;
     }
 }
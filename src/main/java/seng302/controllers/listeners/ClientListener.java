@@ -10,10 +10,13 @@ import seng302.utilities.TimeUtils;
 
 import java.io.*;
 import java.net.Socket;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import static seng302.data.AC35StreamField.*;
 import static seng302.data.AC35StreamXMLMessage.*;
@@ -22,10 +25,27 @@ import static seng302.data.AC35StreamXMLMessage.*;
  * Created on 13/04/17.
  */
 public class ClientListener extends Listener implements Runnable{
+
+    /**
+     * XML messages are always handled as they set up the race, the others only once the race is initialized
+     */
+    private static final MessageDispatcher<ClientListener, ByteBuffer> MESSAGES = new MessageDispatcher<ClientListener, ByteBuffer>()
+            .register(AC35StreamMessage.XML_MESSAGE, (listener, sourceId, body) -> listener.convertXMLMessage(body))
+            .register(AC35StreamMessage.BOAT_LOCATION_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseBoatLocationKeyframe(body)))
+            .register(AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseBoatLocationDelta(body)))
+            .register(AC35StreamMessage.RACE_STATUS_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseRaceStatusMessage(body)))
+            .register(AC35StreamMessage.MARK_ROUNDING_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseMarkRoundingMessage(body)))
+            .register(AC35StreamMessage.YACHT_EVENT_CODE, whenRaceInitialized((listener, body) -> listener.parseYachtEventMessage(body)))
+            .register(AC35StreamMessage.REGISTRATION_RESPONSE, whenRaceInitialized((listener, body) -> listener.parseRegistrationResponseMessage(body)))
+            .register(AC35StreamMessage.BOAT_STATE_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseBoatStateMessage(body)))
+            .register(AC35StreamMessage.HOST_GAME_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseHostedGameMessage(toByteArray(body))))
+            .register(AC35StreamMessage.PARTY_MODE_CODE_MESSAGE, whenRaceInitialized((listener, body) -> listener.parseRoomCodeMessage(toByteArray(body))));
+
     private String sourceAddress;
     private int sourcePort;
     private Race race;
     private Map<AC35StreamXMLMessage, Integer> xmlSequenceNumbers = new HashMap<>();
+    private BoatLocationDeltaDecoder locationDeltas = new BoatLocationDeltaDecoder();
 
 
     public ClientListener(String sourceAddress, int sourcePort){
@@ -80,15 +100,18 @@ public class ClientListener extends Listener implements Runnable{
 
     /**
      * Reads in a XML Message, parses the header and saves the XML payload to the corresponding file
-     * @param body The byte array containing the XML Message (header + payload)
+     * @param body The buffer containing the XML Message (header + payload)
      */
-    private void convertXMLMessage(byte[] body) throws IOException {
-        int xmlSubtypeValue = byteArrayRangeToInt(body, XML_SUBTYPE.getStartIndex(), XML_SUBTYPE.getEndIndex());
+    private void convertXMLMessage(ByteBuffer body) throws IOException {
+        int xmlSubtypeValue = bufferRangeToInt(body, XML_SUBTYPE.getStartIndex(), XML_SUBTYPE.getEndIndex());
         AC35StreamXMLMessage xmlSubtype = AC35StreamXMLMessage.fromInteger(xmlSubtypeValue);
-        int xmlSequenceNumber = byteArrayRangeToInt(body, XML_SEQUENCE.getStartIndex(), XML_SEQUENCE.getEndIndex());
-        int xmlLength = byteArrayRangeToInt(body, XML_LENGTH.getStartIndex(), XML_LENGTH.getEndIndex());
+        int xmlSequenceNumber = bufferRangeToInt(body, XML_SEQUENCE.getStartIndex(), XML_SEQUENCE.getEndIndex());
+        int xmlLength = bufferRangeToInt(body, XML_LENGTH.getStartIndex(), XML_LENGTH.getEndIndex());
 
-        String xmlBody = new String(Arrays.copyOfRange(body, XML_BODY.getStartIndex(), XML_BODY.getStartIndex()+xmlLength));
+        byte[] xmlBytes = new byte[Math.min(xmlLength, body.limit() - XML_BODY.getStartIndex())];
+        body.position(XML_BODY.getStartIndex());
+        body.get(xmlBytes);
+        String xmlBody = new String(xmlBytes);
         xmlBody = xmlBody.trim();
         InputStream xmlInputStream = new ByteArrayInputStream(xmlBody.getBytes());
         RaceVisionXMLParser raceVisionXMLParser = new RaceVisionXMLParser();
@@ -116,21 +139,41 @@ public class ClientListener extends Listener implements Runnable{
         }
     }
 
+    /**
+     * Keeps a boat location message for decoding the deltas that follow it, and parses it
+     * @param body the buffer containing the boat location message
+     */
+    private void parseBoatLocationKeyframe(ByteBuffer body) {
+        locationDeltas.keyframe(body);
+        parseBoatLocationMessage(body);
+    }
+
+    /**
+     * Parses a boat location delta, if the keyframe it was encoded against has been received
+     * @param body the buffer containing the boat location delta message
+     */
+    private void parseBoatLocationDelta(ByteBuffer body) {
+        ByteBuffer location = locationDeltas.decode(body);
+        if (location != null) {
+            parseBoatLocationMessage(location);
+        }
+    }
+
     /**
      * Parses portions of the boat location message byte array to their corresponding values.
-     * @param body the byte array containing the boat location message
+     * @param body the buffer containing the boat location message
      */
-    private void parseBoatLocationMessage(byte[] body) {
-        int sourceID = byteArrayRangeToInt(body, BOAT_SOURCE_ID.getStartIndex(), BOAT_SOURCE_ID.getEndIndex());
-        int latScaled = byteArrayRangeToInt(body, LATITUDE.getStartIndex(), LATITUDE.getEndIndex());
-        int lonScaled = byteArrayRangeToInt(body, LONGITUDE.getStartIndex(), LONGITUDE.getEndIndex());
-        int headingScaled = byteArrayRangeToInt(body, HEADING.getStartIndex(), HEADING.getEndIndex());
-        int boatSpeed = byteArrayRangeToInt(body, SPEED_OVER_GROUND.getStartIndex(), SPEED_OVER_GROUND.getEndIndex());
-
-        int deviceType = byteArrayRangeToInt(body, DEVICE_TYPE.getStartIndex(), DEVICE_TYPE.getEndIndex());
-        int trueWindDirectionScaled = byteArrayRangeToInt(body, TRUE_WIND_DIRECTION.getStartIndex(), TRUE_WIND_DIRECTION.getEndIndex());
-        int trueWindAngleScaled = byteArrayRangeToInt(body, TRUE_WIND_ANGLE.getStartIndex(), TRUE_WIND_ANGLE.getEndIndex());
-        int sailState = byteArrayRangeToInt(body, SAIL_STATE.getStartIndex(), SAIL_STATE.getEndIndex());
+    private void parseBoatLocationMessage(ByteBuffer body) {
+        int sourceID = bufferRangeToInt(body, BOAT_SOURCE_ID.getStartIndex(), BOAT_SOURCE_ID.getEndIndex());
+        int latScaled = bufferRangeToInt(body, LATITUDE.getStartIndex(), LATITUDE.getEndIndex());
+        int lonScaled = bufferRangeToInt(body, LONGITUDE.getStartIndex(), LONGITUDE.getEndIndex());
+        int headingScaled = bufferRangeToInt(body, HEADING.getStartIndex(), HEADING.getEndIndex());
+        int boatSpeed = bufferRangeToInt(body, SPEED_OVER_GROUND.getStartIndex(), SPEED_OVER_GROUND.getEndIndex());
+
+        int deviceType = bufferRangeToInt(body, DEVICE_TYPE.getStartIndex(), DEVICE_TYPE.getEndIndex());
+        int trueWindDirectionScaled = bufferRangeToInt(body, TRUE_WIND_DIRECTION.getStartIndex(), TRUE_WIND_DIRECTION.getEndIndex());
+        int trueWindAngleScaled = bufferRangeToInt(body, TRUE_WIND_ANGLE.getStartIndex(), TRUE_WIND_ANGLE.getEndIndex());
+        int sailState = bufferRangeToInt(body, SAIL_STATE.getStartIndex(), SAIL_STATE.getEndIndex());
 
         double trueWindAngle = intToTrueWindAngle(trueWindAngleScaled);
         //unused as we believe this is always sent as 0 from the AC35 feed
@@ -158,61 +201,16 @@ public class ClientListener extends Listener implements Runnable{
 
 
     /**
-     * Keeps reading in from the data stream and parses each message header and hands off the payload to the
-     * corresponding method. Ignores the message if the message type is not needed.
+     * Keeps reading in messages from the data stream and hands off the body of each to the corresponding method.
+     * Ignores the message if the message type is not needed.
      */
     private void readData(){
-        DataInput dataInput = new DataInputStream(getDataStream());
+        FrameDecoder decoder = new FrameDecoder(Channels.newChannel(getDataStream()));
         Boolean serverRunning = true;
         while(serverRunning) {
             try {
-                byte[] header = new byte[HEADER_LENGTH];
-                dataInput.readFully(header);
-                int messageLength = byteArrayRangeToInt(header, MESSAGE_LENGTH.getStartIndex(), MESSAGE_LENGTH.getEndIndex());
-                int messageTypeValue = byteArrayRangeToInt(header, MESSAGE_TYPE.getStartIndex(), MESSAGE_TYPE.getEndIndex());
-                AC35StreamMessage messageType = AC35StreamMessage.fromInteger(messageTypeValue);
-                int sourceID = byteArrayRangeToInt(header, HEADER_SOURCE_ID.getStartIndex(), HEADER_SOURCE_ID.getEndIndex());
-                byte[] body = new byte[messageLength];
-                dataInput.readFully(body);
-                byte[] crc = new byte[CRC_LENGTH];
-                dataInput.readFully(crc);
-                if (checkCRC(header, body, crc)) {
-                    switch (messageType) {
-                        case XML_MESSAGE:
-                            convertXMLMessage(body);
-                            break;
-                        default:
-                            if (race != null && race.isInitialized()) {
-                                switch (messageType) {
-                                    case BOAT_LOCATION_MESSAGE:
-                                        parseBoatLocationMessage(body);
-                                        break;
-                                    case RACE_STATUS_MESSAGE:
-                                        parseRaceStatusMessage(body);
-                                        break;
-                                    case MARK_ROUNDING_MESSAGE:
-                                        parseMarkRoundingMessage(body);
-                                        break;
-                                    case YACHT_EVENT_CODE:
-                                        parseYachtEventMessage(body);
-                                        break;
-                                    case REGISTRATION_RESPONSE:
-                                        parseRegistrationResponseMessage(body);
-                                        break;
-                                    case BOAT_STATE_MESSAGE:
-                                        parseBoatStateMessage(body);
-                                        break;
-                                    case HOST_GAME_MESSAGE:
-                                        parseHostedGameMessage(body);
-                                        break;
-                                    case PARTY_MODE_CODE_MESSAGE:
-                                        parseRoomCodeMessage(body);
-                                }
-                            }
-                    }
-                } else {
-                    System.err.println("Incorrect CRC. Message Ignored.");
-                }
+                decoder.nextMessage();
+                MESSAGES.dispatch(this, decoder.getMessageType(), decoder.getSourceId(), decoder.getBody());
             } catch (IOException e) {
                 if(race != null){
                     if(!race.isTerminated()){
@@ -220,18 +218,54 @@ public class ClientListener extends Listener implements Runnable{
                         race.setAbruptEnd(true);
                     }
                 }
+                serverRunning = false;
                 Socket socket = getSocket();
                 if (!socket.isClosed()){
-                    serverRunning = false;
                     System.out.println("Client: disconnected from Server");
                 }
             }
         }
     }
 
-    private void parseBoatStateMessage(byte[] body) {
-        Integer boatID = byteArrayRangeToInt(body, BOAT_STATE_SOURCE_ID.getStartIndex(), BOAT_STATE_SOURCE_ID.getEndIndex());
-        Integer boatHealth = byteArrayRangeToInt(body, BOAT_HEALTH.getStartIndex(), BOAT_HEALTH.getEndIndex());
+    /**
+     * Parses every message in a stream of messages, such as a recorded race, until the stream ends
+     * @param channel the stream of messages
+     * @throws IOException if the stream cannot be read
+     */
+    public void parseMessages(ReadableByteChannel channel) throws IOException {
+        FrameDecoder decoder = new FrameDecoder(channel);
+        try {
+            while (true) {
+                decoder.nextMessage();
+                MESSAGES.dispatch(this, decoder.getMessageType(), decoder.getSourceId(), decoder.getBody());
+            }
+        } catch (EOFException e) {
+            // the whole stream has been parsed
+        }
+    }
+
+    /**
+     * Wraps a message parser so that it is only called once the race has been initialized from the XML messages
+     * @param parser the parser for the message body
+     * @return the handler for the message
+     */
+    private static MessageHandler<ClientListener, ByteBuffer> whenRaceInitialized(BiConsumer<ClientListener, ByteBuffer> parser) {
+        return (listener, sourceId, body) -> {
+            if (listener.race != null && listener.race.isInitialized()) {
+                parser.accept(listener, body);
+            }
+        };
+    }
+
+    private static byte[] toByteArray(ByteBuffer body) {
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return bytes;
+    }
+
+    private void parseBoatStateMessage(ByteBuffer body) {
+        Integer boatID = bufferRangeToInt(body, BOAT_STATE_SOURCE_ID.getStartIndex(), BOAT_STATE_SOURCE_ID.getEndIndex());
+        Integer boatHealth = bufferRangeToInt(body, BOAT_HEALTH.getStartIndex(), BOAT_HEALTH.getEndIndex());
         race.setBoatHealth(boatID, boatHealth);
     }
 
@@ -239,10 +273,10 @@ public class ClientListener extends Listener implements Runnable{
      * Parses a registration response message by extracting the Id and the status
      * @param body the body of a RegistrationResponse message
      */
-    private void parseRegistrationResponseMessage(byte[] body) {
-        byte statusByte = body[REGISTRATION_RESPONSE_STATUS.getStartIndex()];
+    private void parseRegistrationResponseMessage(ByteBuffer body) {
+        byte statusByte = body.get(REGISTRATION_RESPONSE_STATUS.getStartIndex());
         RegistrationResponseStatus status = RegistrationResponseStatus.getStatusFromByte(statusByte);
-        Integer id = byteArrayRangeToInt(body, REGISTRATION_SOURCE_ID.getStartIndex(), REGISTRATION_SOURCE_ID.getEndIndex());
+        Integer id = bufferRangeToInt(body, REGISTRATION_SOURCE_ID.getStartIndex(), REGISTRATION_SOURCE_ID.getEndIndex());
         RegistrationResponse response = new RegistrationResponse(id, status);
         setChanged();
         notifyObservers(response);
@@ -254,26 +288,20 @@ public class ClientListener extends Listener implements Runnable{
      * based on values received
      * @param body the body of the race status message
      */
-    private void parseRaceStatusMessage(byte[] body) {
-        int raceStatus = byteArrayRangeToInt(body, RACE_STATUS.getStartIndex(), RACE_STATUS.getEndIndex());
-        int raceCourseWindDirection = byteArrayRangeToInt(body, WIND_DIRECTION.getStartIndex(), WIND_DIRECTION.getEndIndex());
-        long currentTime = byteArrayRangeToLong(body, CURRENT_TIME.getStartIndex(), CURRENT_TIME.getEndIndex());
-        long expectedStartTime = byteArrayRangeToLong(body, START_TIME.getStartIndex(), START_TIME.getEndIndex());
-        long windSpeed = byteArrayRangeToInt(body, WIND_SPEED.getStartIndex(), WIND_SPEED.getEndIndex());
+    private void parseRaceStatusMessage(ByteBuffer body) {
+        int raceStatus = bufferRangeToInt(body, RACE_STATUS.getStartIndex(), RACE_STATUS.getEndIndex());
+        int raceCourseWindDirection = bufferRangeToInt(body, WIND_DIRECTION.getStartIndex(), WIND_DIRECTION.getEndIndex());
+        long currentTime = bufferRangeToLong(body, CURRENT_TIME.getStartIndex(), CURRENT_TIME.getEndIndex());
+        long expectedStartTime = bufferRangeToLong(body, START_TIME.getStartIndex(), START_TIME.getEndIndex());
+        long windSpeed = bufferRangeToInt(body, WIND_SPEED.getStartIndex(), WIND_SPEED.getEndIndex());
 
         double windDirectionInDegrees = intToHeading(raceCourseWindDirection);
 
-        byte[] boatStatuses = new byte[body.length - 24];
-
-        for(int i = 24; i < body.length; i++){
-            boatStatuses[i - 24] = body[i];
-        }
-
-        for  (int k = 0; k < boatStatuses.length; k += 20) {
-            int boatID = byteArrayRangeToInt(boatStatuses, 0 + k, 4 + k);
-            int boatStatus = byteArrayRangeToInt(boatStatuses, 4 + k, 5 + k);
-            long estimatedTimeAtMark = byteArrayRangeToLong(boatStatuses, 8 + k, 14 + k);
-            int legNumber = byteArrayRangeToInt(boatStatuses, 5 + k, 6 + k);
+        for  (int k = 24; k + 20 <= body.limit(); k += 20) {
+            int boatID = bufferRangeToInt(body, 0 + k, 4 + k);
+            int boatStatus = bufferRangeToInt(body, 4 + k, 5 + k);
+            long estimatedTimeAtMark = bufferRangeToLong(body, 8 + k, 14 + k);
+            int legNumber = bufferRangeToInt(body, 5 + k, 6 + k);
             int legOffset = 0;
             if(race.getCourse().hasEntryMark()) legOffset += 1;
             Boat boat = race.getBoatById(boatID);
@@ -305,9 +333,9 @@ public class ClientListener extends Listener implements Runnable{
      * strips yacht event data from a given body of a packet and updates a boat
      * @param body the body of a packet containing the data
      */
-    private void parseYachtEventMessage(byte[] body) {
-        int eventID = byteArrayRangeToInt(body, EVENT_ID.getStartIndex(), EVENT_ID.getEndIndex());
-        int boatID = byteArrayRangeToInt(body, DESTINATION_SOURCE_ID.getStartIndex(), DESTINATION_SOURCE_ID.getEndIndex());
+    private void parseYachtEventMessage(ByteBuffer body) {
+        int eventID = bufferRangeToInt(body, EVENT_ID.getStartIndex(), EVENT_ID.getEndIndex());
+        int boatID = bufferRangeToInt(body, DESTINATION_SOURCE_ID.getStartIndex(), DESTINATION_SOURCE_ID.getEndIndex());
         if(eventID == YachtEventCode.OUT_OF_BOUNDS.code()){
             Boat boat = race.getBoatById(boatID);
             boat.setOutOfBounds(true);
@@ -330,14 +358,14 @@ public class ClientListener extends Listener implements Runnable{
      * Parses the body of Mark Rounding message, and updates the race based on values received
      * @param body the body of the mark rounding message
      */
-    private void parseMarkRoundingMessage(byte[] body) {
+    private void parseMarkRoundingMessage(ByteBuffer body) {
         int passedEntryLimitLine = 100;
         int passedEntryLine = 101;
         int passedStartLineId = 102;
         int passedFinishLineId = 103;
-        long time = byteArrayRangeToLong(body, ROUNDING_TIME.getStartIndex(), ROUNDING_TIME.getEndIndex());
-        int sourceID = byteArrayRangeToInt(body, ROUNDING_SOURCE_ID.getStartIndex(), ROUNDING_SOURCE_ID.getEndIndex());
-        int markIndex = byteArrayRangeToInt(body, ROUNDING_MARK_ID.getStartIndex(), ROUNDING_MARK_ID.getEndIndex());
+        long time = bufferRangeToLong(body, ROUNDING_TIME.getStartIndex(), ROUNDING_TIME.getEndIndex());
+        int sourceID = bufferRangeToInt(body, ROUNDING_SOURCE_ID.getStartIndex(), ROUNDING_SOURCE_ID.getEndIndex());
+        int markIndex = bufferRangeToInt(body, ROUNDING_MARK_ID.getStartIndex(), ROUNDING_MARK_ID.getEndIndex());
 
         if(markIndex == passedStartLineId || markIndex == passedEntryLimitLine ||markIndex == passedEntryLine){
             markIndex = 0;
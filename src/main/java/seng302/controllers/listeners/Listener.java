@@ -8,6 +8,7 @@ import seng302.views.AvailableRace;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.Observable;
 import java.util.zip.CRC32;
 
@@ -72,6 +73,42 @@ public abstract class Listener extends Observable implements Runnable{
         return total;
     }
 
+    /**
+     * Converts a range of bytes in a buffer from beginIndex to endIndex - 1 to an integer in little endian order.
+     * Indices are absolute within the buffer, matching byteArrayRangeToInt for a buffer sliced to a message body.
+     * @param buffer The buffer containing the bytes to be converted
+     * @param beginIndex The starting index of range of bytes to be converted
+     * @param endIndex The ending index (exclusive) of the range of bytes to be converted
+     * @return The integer converted from the range of bytes in little endian order
+     */
+    public static int bufferRangeToInt(ByteBuffer buffer, int beginIndex, int endIndex){
+        int length = endIndex - beginIndex;
+        if(length <= 0 || length > 4){
+            throw new IllegalArgumentException("The length of the range must be between 1 and 4 inclusive");
+        }
+        return (int) bufferRangeToLong(buffer, beginIndex, endIndex);
+    }
+
+    /**
+     * Converts a range of bytes in a buffer from beginIndex to endIndex - 1 to a long in little endian order.
+     * @param buffer The buffer containing the bytes to be converted
+     * @param beginIndex The starting index of range of bytes to be converted
+     * @param endIndex The ending index (exclusive) of the range of bytes to be converted
+     * @return The long converted from the range of bytes in little endian order
+     */
+    public static long bufferRangeToLong(ByteBuffer buffer, int beginIndex, int endIndex){
+        int length = endIndex - beginIndex;
+        if(length <= 0 || length > 8){
+            throw new IllegalArgumentException("The length of the range must be between 1 and 8 inclusive");
+        }
+
+        long total = 0;
+        for(int i = endIndex - 1; i >= beginIndex; i--){
+            total = (total << 8) + (buffer.get(i) & 0xFF);
+        }
+        return total;
+    }
+
     /**
      * Calculates the CRC from header + body and checks if it is equal to the value from the expected CRC byte array
      * @param header The header of the message
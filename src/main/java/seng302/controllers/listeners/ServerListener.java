@@ -2,7 +2,9 @@ package seng302.controllers.listeners;
 
 
 import seng302.data.AC35StreamMessage;
+import seng302.data.ClientConnection;
 import seng302.data.CourseName;
+import seng302.data.MessageDispatcher;
 import seng302.utilities.ConnectionUtils;
 import seng302.views.AvailableRace;
 
@@ -12,6 +14,7 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 
 import static seng302.data.AC35StreamField.*;
 import static seng302.data.AC35StreamField.HOST_GAME_CURRENT_PLAYERS;
@@ -21,11 +24,49 @@ import static seng302.data.AC35StreamField.HOST_GAME_CURRENT_PLAYERS;
  */
 public class ServerListener extends AbstractServerListener {
 
+    /**
+     * Messages handled for a client of a game server, or for a game server reading its room code from the game recorder
+     */
+    private static final MessageDispatcher<ServerListener, byte[]> GAME_SERVER_MESSAGES = new MessageDispatcher<ServerListener, byte[]>()
+            .register(AC35StreamMessage.REGISTRATION_REQUEST, (listener, sourceId, body) -> listener.parseRegistrationRequestMessage(body))
+            .register(AC35StreamMessage.BOAT_ACTION_MESSAGE, (listener, sourceId, body) -> {
+                if (sourceId != -1) {
+                    listener.parseBoatActionMessage(body);
+                }
+            })
+            .register(AC35StreamMessage.CLIENT_INTEREST_MESSAGE, (listener, sourceId, body) -> listener.parseClientInterestMessage(body))
+            .register(AC35StreamMessage.PARTY_MODE_CODE_MESSAGE, (listener, sourceId, body) -> {
+                listener.parseRoomCodeMessage(body);
+                listener.receivedCode = true;
+            });
+
+    /**
+     * Messages handled for a client of the game recorder, which are game servers and clients looking for games
+     */
+    private static final MessageDispatcher<ServerListener, byte[]> GAME_RECORDER_MESSAGES = new MessageDispatcher<ServerListener, byte[]>()
+            .register(AC35StreamMessage.HOST_GAME_MESSAGE, (listener, sourceId, body) -> listener.recordHostGameMessage(body))
+            .register(AC35StreamMessage.GAME_CANCEL, (listener, sourceId, body) -> listener.removeHostedGame(body))
+            .register(AC35StreamMessage.REGISTRATION_REQUEST, (listener, sourceId, body) -> listener.parseRegistrationRequestMessage(body));
+
+    private final MessageDispatcher<ServerListener, byte[]> messages;
     private DataInput dataInput;
+    private boolean receivedCode = false;
 
     public ServerListener(Socket socket, BufferedInputStream socketData) throws IOException {
         setSocket(socket);
         dataInput = new DataInputStream(socketData);
+        messages = GAME_SERVER_MESSAGES;
+    }
+
+    /**
+     * Creates a listener for a non-blocking client connection. Data is passed to it by the connection's
+     * ConnectionManager rather than read by run().
+     * @param connection the client connection
+     * @param isGameServer true if the client is connected to a game server, false if to the game recorder
+     */
+    public ServerListener(ClientConnection connection, boolean isGameServer) {
+        this.connection = connection;
+        messages = isGameServer ? GAME_SERVER_MESSAGES : GAME_RECORDER_MESSAGES;
     }
 
     /**
@@ -34,46 +75,17 @@ public class ServerListener extends AbstractServerListener {
      */
     @Override
     public void run() {
-        boolean receivedCode = false;
         while(clientConnected && !receivedCode){
             try {
                 byte[] header = new byte[HEADER_LENGTH];
                 dataInput.readFully(header);
 
                 int messageLength = byteArrayRangeToInt(header, MESSAGE_LENGTH.getStartIndex(), MESSAGE_LENGTH.getEndIndex());
-                int messageTypeValue = byteArrayRangeToInt(header, MESSAGE_TYPE.getStartIndex(), MESSAGE_TYPE.getEndIndex());
-                int sourceId = byteArrayRangeToInt(header, HEADER_SOURCE_ID.getStartIndex(), HEADER_SOURCE_ID.getEndIndex());
-                AC35StreamMessage messageType = AC35StreamMessage.fromInteger(messageTypeValue);
                 byte[] body = new byte[messageLength];
                 dataInput.readFully(body);
                 byte[] crc = new byte[CRC_LENGTH];
                 dataInput.readFully(crc);
-                if (checkCRC(header, body, crc)) {
-                    switch (messageType) {
-                        case HOST_GAME_MESSAGE:
-                            recordHostGameMessage(body);
-                            break;
-                        case GAME_CANCEL:
-                            removeHostedGame(body);
-                            break;
-                        case REGISTRATION_REQUEST:
-                            parseRegistrationRequestMessage(body);
-                            break;
-                        case BOAT_ACTION_MESSAGE:
-                            if (sourceId != -1) {
-                                parseBoatActionMessage(body);
-                            }
-                            break;
-                        case PARTY_MODE_CODE_MESSAGE:
-                            parseRoomCodeMessage(body);
-                            receivedCode = true;
-                            break;
-                        default:
-                            System.out.println("Unknown");
-                    }
-                } else{
-                    System.out.println("Incorrect CRC");
-                }
+                processPacket(header, body, crc);
             } catch (SocketException e) {
                 break;
             }catch (IOException e) {
@@ -84,6 +96,55 @@ public class ServerListener extends AbstractServerListener {
         System.out.println("ServerListener Stopped");
     }
 
+    /**
+     * Parses every whole message in the received data. Bytes before the next pair of sync bytes are skipped so
+     * that a corrupted message does not stop the following ones from being read.
+     * @param data the received data, positioned at the first unparsed byte
+     */
+    @Override
+    public void processReceivedData(ByteBuffer data) {
+        while (clientConnected && skipToSyncBytes(data) && data.remaining() >= HEADER_LENGTH) {
+            int start = data.position();
+            int messageLength = (data.get(start + MESSAGE_LENGTH.getStartIndex()) & 0xFF)
+                    | (data.get(start + MESSAGE_LENGTH.getStartIndex() + 1) & 0xFF) << 8;
+            if (data.remaining() < HEADER_LENGTH + messageLength + CRC_LENGTH) {
+                return;
+            }
+            byte[] header = new byte[HEADER_LENGTH];
+            data.get(header);
+            byte[] body = new byte[messageLength];
+            data.get(body);
+            byte[] crc = new byte[CRC_LENGTH];
+            data.get(crc);
+            processPacket(header, body, crc);
+        }
+    }
+
+    /**
+     * Moves the buffer position forward to the next pair of sync bytes
+     * @param data the received data
+     * @return true if the buffer is positioned at sync bytes, false if more data is needed
+     */
+    private boolean skipToSyncBytes(ByteBuffer data) {
+        while (data.remaining() >= 2) {
+            int position = data.position();
+            if ((data.get(position) & 0xFF) == SYNC_BYTE_1 && (data.get(position + 1) & 0xFF) == SYNC_BYTE_2) {
+                return true;
+            }
+            data.position(position + 1);
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean dispatchMessage(int messageType, int sourceId, byte[] body) throws IOException {
+        if (!messages.dispatch(this, messageType, sourceId, body)) {
+            System.out.println("Unknown");
+            return false;
+        }
+        return true;
+    }
+
     private void recordHostGameMessage(byte[] body){
         AvailableRace race = createAvailableRace(body);
         race.setPacket(body);
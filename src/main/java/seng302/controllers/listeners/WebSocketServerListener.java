@@ -1,14 +1,15 @@
 package seng302.controllers.listeners;
 
 import seng302.data.AC35StreamMessage;
+import seng302.data.ClientConnection;
+import seng302.data.MessageDispatcher;
+
 import javax.xml.bind.DatatypeConverter;
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.net.Socket;
-import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,57 +21,64 @@ import static seng302.data.AC35StreamField.*;
  */
 public class WebSocketServerListener extends AbstractServerListener {
 
-    private BufferedInputStream socketData;
+    private static final int CLOSE_OPCODE = 8;
+    private static final byte[] HANDSHAKE_END = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final MessageDispatcher<WebSocketServerListener, byte[]> MESSAGES = new MessageDispatcher<WebSocketServerListener, byte[]>()
+            .register(AC35StreamMessage.REGISTRATION_REQUEST, (listener, sourceId, body) -> listener.parseRegistrationRequestMessage(body))
+            .register(AC35StreamMessage.BOAT_ACTION_MESSAGE, (listener, sourceId, body) -> {
+                if (sourceId != -1) {
+                    listener.parseBoatActionMessage(body);
+                }
+                listener.parseRequestRacesMessage(body);
+            })
+            .register(AC35StreamMessage.REQUEST_AVAILABLE_RACES, (listener, sourceId, body) -> listener.parseRequestRacesMessage(body));
 
-    WebSocketServerListener(Socket socket, BufferedInputStream socketData) throws IOException {
-        setSocket(socket);
-        this.socketData = socketData;
-        sendWebSocketResponse();
+    private boolean handshakeComplete = false;
+
+    WebSocketServerListener(ClientConnection connection) {
+        this.connection = connection;
     }
 
     /**
-     * Currently only prints out what is received for testing, need to parse the packet in the future.
+     * Messages are passed to this listener by the ConnectionManager as they arrive, so there is nothing to run.
      */
     @Override
     public void run() {
-        while(clientConnected){
+    }
+
+    /**
+     * Completes the WebSocket handshake once the whole HTTP request has arrived, then decodes every whole frame
+     * received and parses the packet it carries.
+     * @param data the received data, positioned at the first unparsed byte
+     */
+    @Override
+    public void processReceivedData(ByteBuffer data) {
+        if (!handshakeComplete) {
+            if (!readHandshake(data)) {
+                return;
+            }
+            handshakeComplete = true;
+        }
+        while (clientConnected) {
+            byte[] packet = readPacket(data);
+            if (packet == null) {
+                return;
+            }
             try {
-                byte[] packet = readPacket();
                 byte[] header = extractHeader(packet);
-
                 int messageLength = byteArrayRangeToInt(header, MESSAGE_LENGTH.getStartIndex(), MESSAGE_LENGTH.getEndIndex());
-                int messageTypeValue = byteArrayRangeToInt(header, MESSAGE_TYPE.getStartIndex(), MESSAGE_TYPE.getEndIndex());
-                int sourceId = byteArrayRangeToInt(header, HEADER_SOURCE_ID.getStartIndex(), HEADER_SOURCE_ID.getEndIndex());
-
-                AC35StreamMessage messageType = AC35StreamMessage.fromInteger(messageTypeValue);
-
-                byte[] body = extractBody(packet, messageLength);
-                byte[] crc = extractCRC(packet);
-                if (checkCRC(header, body, crc)) {
-                    switch (messageType) {
-                        case REGISTRATION_REQUEST:
-                            parseRegistrationRequestMessage(body);
-                            break;
-                        case BOAT_ACTION_MESSAGE:
-                            if (sourceId != -1) {
-                                parseBoatActionMessage(body);
-                            }
-                        case REQUEST_AVAILABLE_RACES:
-                            parseRequestRacesMessage(body);
-                            break;
-                    }
-                } else{
-                    System.out.println("Incorrect CRC");
-                }
+                processPacket(header, extractBody(packet, messageLength), extractCRC(packet));
             } catch (IndexOutOfBoundsException e) {
                 clientConnected = false;
                 System.out.println("WebSocket has disconnected itself.");
-            } catch (IOException e) {
-                clientConnected = false;
-                e.printStackTrace();
             }
         }
-        System.out.println("Web Socket Server Listener Terminated");
+    }
+
+    @Override
+    protected boolean dispatchMessage(int messageType, int sourceId, byte[] body) throws IOException {
+        return MESSAGES.dispatch(this, messageType, sourceId, body);
     }
 
     private void parseRequestRacesMessage(byte[] body) {
@@ -99,21 +107,40 @@ public class WebSocketServerListener extends AbstractServerListener {
     }
 
     /**
-     * Sends the required WebSocket HTTP response to establish the handshake.
+     * Reads the HTTP request that opens the connection and sends the required WebSocket HTTP response to
+     * establish the handshake.
      * Code sourced from https://developer.mozilla.org/en-US/docs/Web/API/WebSockets_API/Writing_a_WebSocket_server_in_Java
+     * @param data the received data
+     * @return true if the whole request has been read, false if more data is needed
      */
-    private void sendWebSocketResponse() {
-        try{
-            String data = new Scanner(socketData, "UTF-8").useDelimiter("\\r\\n\\r\\n").next();
-            Matcher get = Pattern.compile("^GET").matcher(data);
-            System.out.println("Server: Accepted websocket Connection");
-            if (get.find()) {
-                byte[] response = generateResponseText(data);
-                socket.getOutputStream().write(response, 0, response.length);
+    private boolean readHandshake(ByteBuffer data) {
+        int requestEnd = indexOf(data, HANDSHAKE_END);
+        if (requestEnd == -1) {
+            return false;
+        }
+        byte[] request = new byte[requestEnd - data.position()];
+        data.get(request);
+        data.position(data.position() + HANDSHAKE_END.length);
+        String requestText = new String(request, StandardCharsets.UTF_8);
+        Matcher get = Pattern.compile("^GET").matcher(requestText);
+        System.out.println("Server: Accepted websocket Connection");
+        if (get.find()) {
+            connection.send(generateResponseText(requestText));
+        }
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer data, byte[] target) {
+        for (int i = data.position(); i <= data.limit() - target.length; i++) {
+            int j = 0;
+            while (j < target.length && data.get(i + j) == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return -1;
     }
 
     /**
@@ -144,54 +171,56 @@ public class WebSocketServerListener extends AbstractServerListener {
     }
 
     /**
-     * Reads a whole packet in, parsing the WebSocket header and decoding the bytes in the process.
-     * Assumes the first byte read is the first byte of the packet. (Is not out of sync).
-     * @return The payload of the packet
-     * @throws IOException If there is an issue with the connection/reading in data
+     * Reads a whole frame in, parsing the WebSocket header and decoding the bytes in the process.
+     * Assumes the first byte is the first byte of the frame. (Is not out of sync).
+     * @param data the received data
+     * @return The payload of the frame, or null if the whole frame has not arrived yet or the client closed the
+     * connection
      */
-    private byte[] readPacket() throws IOException{
-        byte[] key = new byte[4];
-        int opcode = socketData.read();
-        if(opcode == -1){
-            throw new IOException("Bad WebSocket Frame Opcode: " + opcode);
+    private byte[] readPacket(ByteBuffer data) {
+        int start = data.position();
+        if (data.remaining() < 2) {
+            return null;
         }
-        int length = readPacketLength();
-        for(int i = 0; i < 4; i++){
-            key[i] = (byte)socketData.read();
+        int opcode = data.get(start) & 0x0F;
+        int length = data.get(start + 1) & 0x7F;
+        int lengthFieldSize = 0;
+        if (length == 126) {
+            lengthFieldSize = 2;
+        } else if (length == 127) {
+            lengthFieldSize = 8;
         }
-        byte[] encodedPacket = new byte[length];
-        for(int i = 0; i < length; i++){
-            encodedPacket[i] = (byte)socketData.read();
+        int keyStart = start + 2 + lengthFieldSize;
+        if (data.limit() < keyStart) {
+            return null;
         }
-        return decodePacket(encodedPacket, key);
-    }
-
-    /**
-     * Parses the packet length as it is reading it in from the socket. Dealing with multiple cases
-     * as part of the WebSocket protocol.
-     * Assumes length will fit in a 32 bit signed integer (Integer.MAX_VALUE), otherwise
-     * we'll be creating a byte array far too large anyways
-     * @return The length of the packet.
-     * @throws IOException If there is an issue with the connection/reading in data
-     */
-    private int readPacketLength() throws IOException {
-        int length = socketData.read() - 128;
-        if(length < 125) {
-            return length;
-        } else {
-            int fieldLength = length == 126 ? 2 : 8;
-            byte[] packetLength = new byte[fieldLength];
-            for (int i = 0; i < fieldLength; i++) {
-                packetLength[i] = (byte) socketData.read();
+        if (lengthFieldSize > 0) {
+            long lengthValue = 0;
+            for (int i = start + 2; i < keyStart; i++) {
+                lengthValue = (lengthValue << 8) | (data.get(i) & 0xFF);
             }
-            long lengthValue = byteArrayRangeToLong(packetLength, 0, fieldLength);
-            if (lengthValue > Integer.MAX_VALUE){
+            if (lengthValue > Integer.MAX_VALUE) {
                 //Safety check, we should not receive a packet length this large
-                throw new IllegalArgumentException("Packet length is too large");
-            } else{
-                return (int) lengthValue;
+                System.out.println("WebSocket packet length is too large");
+                clientConnected = false;
+                return null;
             }
+            length = (int) lengthValue;
         }
+        if (data.limit() - keyStart < 4 + (long) length) {
+            return null;
+        }
+        byte[] key = new byte[4];
+        byte[] encodedPacket = new byte[length];
+        data.position(keyStart);
+        data.get(key);
+        data.get(encodedPacket);
+        if (opcode == CLOSE_OPCODE) {
+            clientConnected = false;
+            System.out.println("WebSocket has disconnected itself.");
+            return null;
+        }
+        return decodePacket(encodedPacket, key);
     }
 
     /**
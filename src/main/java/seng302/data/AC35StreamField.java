@@ -6,6 +6,13 @@ public enum AC35StreamField {
     //boat Location
     BOAT_TIMESTAMP(1, 7), BOAT_SOURCE_ID(7, 11), BOAT_SEQUENCE_NUM(11, 15), DEVICE_TYPE(15, 16), LATITUDE(16, 20), LONGITUDE(20, 24), HEADING(28, 30),
     SPEED_OVER_GROUND(38, 40), TRUE_WIND_DIRECTION(48, 50), TRUE_WIND_ANGLE(50, 52), SAIL_STATE(52, 54),
+    //boat location delta
+    DELTA_SOURCE_ID(0, 4), DELTA_KEYFRAME(4, 5), DELTA_TIME(5, 7), DELTA_LATITUDE(7, 9), DELTA_LONGITUDE(9, 11),
+    DELTA_HEADING(11, 13), DELTA_SPEED(13, 15), DELTA_TRUE_WIND_DIRECTION(15, 17), DELTA_TRUE_WIND_ANGLE(17, 19),
+    DELTA_SAIL_STATE(19, 20),
+    //client interest
+    INTEREST_TRACKED_BOAT(0, 4), INTEREST_MIN_LATITUDE(4, 8), INTEREST_MIN_LONGITUDE(8, 12),
+    INTEREST_MAX_LATITUDE(12, 16), INTEREST_MAX_LONGITUDE(16, 20),
 
     RACE_STATUS(11, 12), WIND_DIRECTION(18, 20), WIND_SPEED(20, 22), BOAT_ID(25, 28), EST_TIME_TO_MARK(33, 38), CURRENT_TIME(1, 7), START_TIME(12, 18),
     ROUNDING_TIME(1, 7), ROUNDING_SOURCE_ID(13, 17), ROUNDING_MARK_ID(20, 21), ROUNDING_MARK_TYPE(19, 20),
@@ -17,7 +24,7 @@ public enum AC35StreamField {
     BOAT_ACTION_BODY(4, 5), BOAT_ACTION_SOURCE_ID(0, 4),
     NUMBER_PENALTIES_SERVED(7,8), ESTIMATED_TIME_AT_NEXT_MARK(8,14), ESTIMATED_TIME_AT_FINISH(14,20),
 
-    REGISTRATION_REQUEST_TYPE(0, 1), REGISTRATION_SOURCE_ID(0, 4), REGISTRATION_RESPONSE_STATUS(4, 5),
+    REGISTRATION_REQUEST_TYPE(0, 1), REGISTRATION_ROOM_ID(1, 3), REGISTRATION_FLAGS(3, 4), REGISTRATION_SOURCE_ID(0, 4), REGISTRATION_RESPONSE_STATUS(4, 5),
 
     EVENT_MESSAGE_VERSION_NUMBER(0,1), EVENT_TIME(1, 7), EVENT_ACK_NUM(7, 9), RACE_ID(9, 13), DESTINATION_SOURCE_ID(13, 17),
     INCIDENT_ID(17, 21), EVENT_ID(21, 22), BOAT_HEALTH(4, 5), BOAT_STATE_SOURCE_ID(0, 4),
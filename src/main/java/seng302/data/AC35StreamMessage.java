@@ -8,7 +8,16 @@ public enum AC35StreamMessage {
     REGISTRATION_REQUEST(55, 4), REGISTRATION_RESPONSE(56, 5), XML_MESSAGE(26), BOAT_LOCATION_MESSAGE(37, 56),
     MARK_ROUNDING_MESSAGE(38, 21), RACE_STATUS_MESSAGE(12), UNKNOWN(0),
     BOAT_ACTION_MESSAGE(100, 5), YACHT_EVENT_CODE(29, 22), BOAT_STATE_MESSAGE(103, 5), HOST_GAME_MESSAGE(108, 14),
-    GAME_CANCEL(109, 8), REQUEST_AVAILABLE_RACES(114, 2), PARTY_MODE_CODE_MESSAGE(122, 2), WEB_CLIENT_INIT(120, 37), WEB_CLIENT_UPDATE(121, 9);
+    GAME_CANCEL(109, 8), REQUEST_AVAILABLE_RACES(114, 2), PARTY_MODE_CODE_MESSAGE(122, 2), WEB_CLIENT_INIT(120, 37), WEB_CLIENT_UPDATE(121, 9),
+    BOAT_LOCATION_DELTA_MESSAGE(123, 20), CLIENT_INTEREST_MESSAGE(124, 20);
+
+    private static final AC35StreamMessage[] MESSAGE_TYPES_BY_VALUE = new AC35StreamMessage[256];
+
+    static {
+        for (AC35StreamMessage messageType : values()) {
+            MESSAGE_TYPES_BY_VALUE[messageType.type] = messageType;
+        }
+    }
 
     private final int type, length;
 
@@ -30,12 +39,14 @@ public enum AC35StreamMessage {
         return this.length;
     }
 
+    /**
+     * @param messageTypeValue the message type byte
+     * @return the message type with that value, or null if there is none
+     */
     public static AC35StreamMessage fromInteger(int messageTypeValue) {
-        for(AC35StreamMessage messageType: AC35StreamMessage.values()){
-            if(messageType.getValue() == messageTypeValue){
-                return messageType;
-            }
+        if (messageTypeValue < 0 || messageTypeValue >= MESSAGE_TYPES_BY_VALUE.length) {
+            return null;
         }
-        return null;
+        return MESSAGE_TYPES_BY_VALUE[messageTypeValue];
     }
 }
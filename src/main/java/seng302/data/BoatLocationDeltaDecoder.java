@@ -0,0 +1,71 @@
+package seng302.data;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static seng302.data.AC35StreamField.*;
+
+/**
+ * Turns the boat location deltas made by a BoatLocationDeltaEncoder back into boat location messages, using the
+ * last keyframe received for each boat. A delta for a boat with no keyframe, or a different one to the keyframe it
+ * was encoded against, cannot be decoded and is dropped until the next keyframe arrives.
+ */
+public class BoatLocationDeltaDecoder {
+
+    private static final int BOAT_LOCATION_LENGTH = AC35StreamMessage.BOAT_LOCATION_MESSAGE.getLength();
+
+    private final Map<Integer, byte[]> keyframes = new HashMap<>();
+
+    /**
+     * Keeps a boat location message as the keyframe of its boat
+     * @param body the body of the boat location message
+     */
+    public void keyframe(ByteBuffer body) {
+        byte[] keyframe = new byte[BOAT_LOCATION_LENGTH];
+        for (int i = 0; i < keyframe.length && i < body.limit(); i++) {
+            keyframe[i] = body.get(i);
+        }
+        keyframes.put((int) read(keyframe, BOAT_SOURCE_ID), keyframe);
+    }
+
+    /**
+     * Rebuilds a boat location message from a delta
+     * @param delta the body of the boat location delta message
+     * @return the body of the boat location message, or null if the delta's keyframe has not been received
+     */
+    public ByteBuffer decode(ByteBuffer delta) {
+        byte[] keyframe = keyframes.get((int) read(delta, DELTA_SOURCE_ID));
+        if (keyframe == null || (read(keyframe, BOAT_SEQUENCE_NUM) & 0xFF) != read(delta, DELTA_KEYFRAME)) {
+            return null;
+        }
+        byte[] body = keyframe.clone();
+        put(body, BOAT_TIMESTAMP, read(keyframe, BOAT_TIMESTAMP) + read(delta, DELTA_TIME));
+        put(body, LATITUDE, (int) read(keyframe, LATITUDE) + (short) read(delta, DELTA_LATITUDE));
+        put(body, LONGITUDE, (int) read(keyframe, LONGITUDE) + (short) read(delta, DELTA_LONGITUDE));
+        put(body, HEADING, read(delta, DELTA_HEADING));
+        put(body, SPEED_OVER_GROUND, read(delta, DELTA_SPEED));
+        put(body, TRUE_WIND_DIRECTION, read(delta, DELTA_TRUE_WIND_DIRECTION));
+        put(body, TRUE_WIND_ANGLE, read(delta, DELTA_TRUE_WIND_ANGLE));
+        put(body, SAIL_STATE, read(delta, DELTA_SAIL_STATE));
+        return ByteBuffer.wrap(body);
+    }
+
+    private static long read(byte[] array, AC35StreamField field) {
+        return read(ByteBuffer.wrap(array), field);
+    }
+
+    private static long read(ByteBuffer buffer, AC35StreamField field) {
+        long total = 0;
+        for (int i = field.getEndIndex() - 1; i >= field.getStartIndex(); i--) {
+            total = (total << 8) + (buffer.get(i) & 0xFF);
+        }
+        return total;
+    }
+
+    private static void put(byte[] array, AC35StreamField field, long value) {
+        for (int i = 0; i < field.getLength(); i++) {
+            array[field.getStartIndex() + i] = (byte) (value >> i * 8);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package seng302.data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static seng302.data.AC35StreamField.*;
+import static seng302.data.AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE;
+import static seng302.data.AC35StreamMessage.BOAT_LOCATION_MESSAGE;
+import static seng302.data.PacketWriter.HEADER_LENGTH;
+
+/**
+ * Rewrites the packets sent to clients that asked for boat location deltas when they registered.
+ * Each boat location message is either passed on whole as a keyframe, or replaced by a much shorter delta message
+ * holding the change in latitude, longitude and time since the boat's last keyframe, along with its other fields,
+ * which are already 16 bits or less. A boat gets a keyframe every KEYFRAME_INTERVAL messages, or sooner if it has
+ * moved too far for a delta. A boat that has not changed since its last message, such as one that has finished,
+ * is not sent anything between keyframes.
+ * Every delta client of a group is sent the same stream, so a delta always refers to a keyframe that went before
+ * it on the same connection. Clients that join later are sent new keyframes by calling forceKeyframes.
+ */
+public class BoatLocationDeltaEncoder {
+
+    /** The bit a client sets in the registration flags to be sent boat location deltas */
+    public static final int REGISTRATION_FLAG = 1;
+    static final int KEYFRAME_INTERVAL = 10;
+
+    private final Map<Integer, BoatLocation> boats = new HashMap<>();
+    private final PacketWriter writer = new PacketWriter();
+
+    /**
+     * Makes the next message of every boat a keyframe
+     */
+    public synchronized void forceKeyframes() {
+        boats.clear();
+    }
+
+    /**
+     * Replaces the boat location messages in some packets with deltas where it can
+     * @param packets one or more whole packets
+     * @return the packets with boat locations encoded, or the same array if there were no boat locations in it
+     */
+    public synchronized byte[] encode(byte[] packets) {
+        if (!containsBoatLocation(packets)) {
+            return packets;
+        }
+        ByteBuffer output = ByteBuffer.allocate(packets.length);
+        int offset = 0;
+        while (offset < packets.length) {
+            int next = nextFrame(packets, offset);
+            if (next > packets.length) {
+                output.put(packets, offset, packets.length - offset);
+                break;
+            }
+            if ((packets[offset + MESSAGE_TYPE.getStartIndex()] & 0xFF) == BOAT_LOCATION_MESSAGE.getValue()) {
+                encodeBoatLocation(packets, offset, next, output);
+            } else {
+                output.put(packets, offset, next - offset);
+            }
+            offset = next;
+        }
+        return Arrays.copyOf(output.array(), output.position());
+    }
+
+    private void encodeBoatLocation(byte[] packets, int offset, int next, ByteBuffer output) {
+        int body = offset + HEADER_LENGTH;
+        int sourceId = (int) read(packets, body, BOAT_SOURCE_ID);
+        long time = read(packets, body, BOAT_TIMESTAMP);
+        int lat = (int) read(packets, body, LATITUDE);
+        int lon = (int) read(packets, body, LONGITUDE);
+        BoatLocation boat = boats.get(sourceId);
+        if (boat == null || boat.sinceKeyframe + 1 >= KEYFRAME_INTERVAL || !boat.fitsDelta(time, lat, lon)) {
+            boat = new BoatLocation(read(packets, body, BOAT_SEQUENCE_NUM), time, lat, lon);
+            boat.update(packets, body);
+            boats.put(sourceId, boat);
+            output.put(packets, offset, next - offset);
+            return;
+        }
+        boat.sinceKeyframe++;
+        if (!boat.update(packets, body)) {
+            return;
+        }
+        long headerTime = read(packets, offset, HEADER_TIMESTAMP);
+        int headerSourceId = (int) read(packets, offset, HEADER_SOURCE_ID);
+        writer.begin(output, BOAT_LOCATION_DELTA_MESSAGE, headerSourceId, BOAT_LOCATION_DELTA_MESSAGE.getLength(), headerTime);
+        writer.putField(DELTA_SOURCE_ID, sourceId);
+        writer.putField(DELTA_KEYFRAME, boat.keyframeSequence);
+        writer.putField(DELTA_TIME, time - boat.keyframeTime);
+        writer.putField(DELTA_LATITUDE, lat - boat.keyframeLat);
+        writer.putField(DELTA_LONGITUDE, lon - boat.keyframeLon);
+        writer.putField(DELTA_HEADING, boat.heading);
+        writer.putField(DELTA_SPEED, boat.speed);
+        writer.putField(DELTA_TRUE_WIND_DIRECTION, boat.trueWindDirection);
+        writer.putField(DELTA_TRUE_WIND_ANGLE, boat.trueWindAngle);
+        writer.putField(DELTA_SAIL_STATE, boat.sailState);
+        writer.finish();
+    }
+
+    private static boolean containsBoatLocation(byte[] packets) {
+        for (int offset = 0; offset + HEADER_LENGTH <= packets.length; offset = nextFrame(packets, offset)) {
+            if ((packets[offset + MESSAGE_TYPE.getStartIndex()] & 0xFF) == BOAT_LOCATION_MESSAGE.getValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int nextFrame(byte[] packets, int offset) {
+        if (offset + HEADER_LENGTH > packets.length) {
+            return Integer.MAX_VALUE;
+        }
+        return offset + PacketWriter.packetLength((int) read(packets, offset, MESSAGE_LENGTH));
+    }
+
+    static long read(byte[] array, int base, AC35StreamField field) {
+        long total = 0;
+        for (int i = base + field.getEndIndex() - 1; i >= base + field.getStartIndex(); i--) {
+            total = (total << 8) + (array[i] & 0xFF);
+        }
+        return total;
+    }
+
+    /**
+     * The last keyframe of a boat, and the fields of the last message sent for it
+     */
+    private static final class BoatLocation {
+        private final long keyframeSequence;
+        private final long keyframeTime;
+        private final int keyframeLat;
+        private final int keyframeLon;
+        private int sinceKeyframe = 0;
+        private int lat;
+        private int lon;
+        private long heading;
+        private long speed;
+        private long trueWindDirection;
+        private long trueWindAngle;
+        private long sailState;
+
+        private BoatLocation(long keyframeSequence, long keyframeTime, int keyframeLat, int keyframeLon) {
+            this.keyframeSequence = keyframeSequence & 0xFF;
+            this.keyframeTime = keyframeTime;
+            this.keyframeLat = keyframeLat;
+            this.keyframeLon = keyframeLon;
+        }
+
+        private boolean fitsDelta(long time, int lat, int lon) {
+            long elapsed = time - keyframeTime;
+            return elapsed >= 0 && elapsed <= 0xFFFF
+                    && (long) lat - keyframeLat == (short) (lat - keyframeLat)
+                    && (long) lon - keyframeLon == (short) (lon - keyframeLon);
+        }
+
+        /**
+         * Takes the fields of a boat location message
+         * @return true if any of them changed
+         */
+        private boolean update(byte[] packets, int body) {
+            int newLat = (int) read(packets, body, LATITUDE);
+            int newLon = (int) read(packets, body, LONGITUDE);
+            long newHeading = read(packets, body, HEADING);
+            long newSpeed = read(packets, body, SPEED_OVER_GROUND);
+            long newTrueWindDirection = read(packets, body, TRUE_WIND_DIRECTION);
+            long newTrueWindAngle = read(packets, body, TRUE_WIND_ANGLE);
+            long newSailState = read(packets, body, SAIL_STATE);
+            boolean changed = newLat != lat || newLon != lon || newHeading != heading || newSpeed != speed
+                    || newTrueWindDirection != trueWindDirection || newTrueWindAngle != trueWindAngle
+                    || newSailState != sailState;
+            lat = newLat;
+            lon = newLon;
+            heading = newHeading;
+            speed = newSpeed;
+            trueWindDirection = newTrueWindDirection;
+            trueWindAngle = newTrueWindAngle;
+            sailState = newSailState;
+            return changed;
+        }
+    }
+}
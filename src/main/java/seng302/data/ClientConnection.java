@@ -0,0 +1,195 @@
+package seng302.data;
+
+import seng302.controllers.listeners.AbstractServerListener;
+import seng302.utilities.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A non-blocking connection to a single client of a ConnectionManager.
+ * Holds the data received from the client until its listener can parse whole messages out of it, and a queue of
+ * packets waiting to be written to the client. Packets can be queued from any thread, but are only ever written
+ * by the ConnectionManager's I/O thread.
+ */
+public class ClientConnection {
+
+    private static final int INITIAL_RECEIVE_BUFFER_SIZE = 4096;
+    private static final int MAX_RECEIVE_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_GATHERED_PACKETS = 256;
+    private static final LongAdder BYTES_WRITTEN = MetricsRegistry.getInstance().counter("server_bytes_written_total");
+
+    private final SocketChannel channel;
+    private final String remoteAddress;
+    private final ConnectionManager connectionManager;
+    private final Queue<ByteBuffer> outboundQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final ByteBuffer[] gatheredPackets = new ByteBuffer[MAX_GATHERED_PACKETS];
+    private ByteBuffer receiveBuffer = ByteBuffer.allocate(INITIAL_RECEIVE_BUFFER_SIZE);
+    private AbstractServerListener listener;
+    private volatile Integer id;
+    private volatile ClientGroup group;
+
+    ClientConnection(SocketChannel channel, ConnectionManager connectionManager) {
+        this.channel = channel;
+        this.connectionManager = connectionManager;
+        this.remoteAddress = String.valueOf(channel.socket().getRemoteSocketAddress());
+    }
+
+    /**
+     * Queues a packet to be sent to the client
+     * @param packet the packet to send
+     */
+    public void send(byte[] packet) {
+        connectionManager.sendToConnection(this, packet);
+    }
+
+    /**
+     * Adds a packet to the end of the outbound queue
+     * @param packet the packet to queue
+     * @return true if the connection needs to be scheduled for writing, false if it is already scheduled
+     */
+    boolean enqueue(ByteBuffer packet) {
+        queuedBytes.addAndGet(packet.remaining());
+        outboundQueue.add(packet);
+        return writeScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Writes as much of the outbound queue to the channel as it will accept without blocking.
+     * Queued packets are written together with a single gathering write rather than one write each.
+     * @return true if the whole queue was written, false if the channel is full
+     * @throws IOException if the client can no longer be written to
+     */
+    boolean flush() throws IOException {
+        while (true) {
+            while (!outboundQueue.isEmpty()) {
+                int count = 0;
+                for (ByteBuffer packet : outboundQueue) {
+                    gatheredPackets[count++] = packet;
+                    if (count == gatheredPackets.length) {
+                        break;
+                    }
+                }
+                long written = channel.write(gatheredPackets, 0, count);
+                queuedBytes.addAndGet((int) -written);
+                BYTES_WRITTEN.add(written);
+                boolean allWritten = true;
+                for (int i = 0; i < count; i++) {
+                    if (allWritten && !gatheredPackets[i].hasRemaining()) {
+                        outboundQueue.poll();
+                    } else {
+                        allWritten = false;
+                    }
+                    gatheredPackets[i] = null;
+                }
+                if (!allWritten) {
+                    return false;
+                }
+            }
+            writeScheduled.set(false);
+            // A packet queued after the queue was emptied saw the flag still set, so it is our job to write it
+            if (outboundQueue.isEmpty() || !writeScheduled.compareAndSet(false, true)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads whatever data is available from the channel into the receive buffer, growing the buffer if it is full
+     * @return the number of bytes read, or -1 if the client has closed the connection
+     * @throws IOException if the client can no longer be read from
+     */
+    int receive() throws IOException {
+        if (!receiveBuffer.hasRemaining()) {
+            if (receiveBuffer.capacity() >= MAX_RECEIVE_BUFFER_SIZE) {
+                throw new IOException("Message from client is too large");
+            }
+            ByteBuffer largerBuffer = ByteBuffer.allocate(receiveBuffer.capacity() * 2);
+            receiveBuffer.flip();
+            largerBuffer.put(receiveBuffer);
+            receiveBuffer = largerBuffer;
+        }
+        return channel.read(receiveBuffer);
+    }
+
+    /**
+     * @return the received data that has not been parsed yet, ready to be read. Must be followed by a call to
+     * compactReceivedData once parsing is done.
+     */
+    ByteBuffer getReceivedData() {
+        receiveBuffer.flip();
+        return receiveBuffer;
+    }
+
+    /**
+     * Discards the received data that has been parsed, keeping any partial message for the next read
+     */
+    void compactReceivedData() {
+        receiveBuffer.compact();
+    }
+
+    /**
+     * Closes the underlying channel
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    int getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * @return the address of the client, as a label for its metrics
+     */
+    String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public AbstractServerListener getListener() {
+        return listener;
+    }
+
+    void setListener(AbstractServerListener listener) {
+        this.listener = listener;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the group the client is registered in, or null if it has not registered
+     */
+    public ClientGroup getGroup() {
+        return group;
+    }
+
+    void setGroup(ClientGroup group) {
+        this.group = group;
+    }
+}
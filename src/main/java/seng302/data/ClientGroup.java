@@ -0,0 +1,308 @@
+package seng302.data;
+
+import seng302.controllers.listeners.AbstractServerListener;
+import seng302.controllers.listeners.WebSocketServerListener;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The registered clients of one race, such as a room of a RaceHost, on a ConnectionManager shared with other races.
+ * Client ids only need to be unique within a group, and packets sent to the group only go to its own clients.
+ * Observers are notified with the id of a registered client when its connection closes.
+ * Clients that asked for boat location deltas when they registered are sent the packets of the group with their
+ * boat location messages encoded by one BoatLocationDeltaEncoder shared by all of them.
+ * Clients that have said which part of the course they are viewing can be sent fewer boat locations, as decided
+ * by the GameServer each broadcast.
+ * Web clients are only sent the packets addressed to them, wrapped in a WebSocket frame. They are never sent
+ * broadcasts or the XML messages.
+ */
+public class ClientGroup extends Observable {
+
+    private final ConnectionManager connectionManager;
+    private final Map<Integer, ClientConnection> clients = new ConcurrentHashMap<>();
+    private final Map<Integer, ClientConnection> webClients = new ConcurrentHashMap<>();
+    private final Set<Integer> deltaClients = ConcurrentHashMap.newKeySet();
+    private final BoatLocationDeltaEncoder deltaEncoder = new BoatLocationDeltaEncoder();
+    private final Map<AC35StreamXMLMessage, byte[]> xmlMessages = new ConcurrentSkipListMap<>();
+    private final Queue<ClientConnection> batchedWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean batching = false;
+    private ServerPacketBuilder wrapper = new ServerPacketBuilder();
+
+    ClientGroup(ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * Sends byte array information to multiple players
+     * The packet is shared by every connection as a read-only buffer rather than copied for each of them.
+     * @param packet the information packet to be sent
+     */
+    public void sendToClients(byte[] packet) {
+        sendToClients(packet, Collections.emptyMap());
+    }
+
+    /**
+     * Sends a packet to multiple players, leaving out the boat location messages of boats some of them are not
+     * interested in. Clients given the same set of boats share one copy of the packet with the other boats removed.
+     * Keyframes are never removed from the packets of clients that are sent boat location deltas, so their deltas
+     * can always be decoded.
+     * @param packet the information packet to be sent
+     * @param boatsByClient the source ids of the boats each client is sent the locations of, by client id.
+     *                      Clients without an entry are sent every boat.
+     */
+    public void sendToClients(byte[] packet, Map<Integer, Set<Integer>> boatsByClient) {
+        if (deltaClients.isEmpty() && boatsByClient.isEmpty()) {
+            broadcast(clients.values(), ByteBuffer.wrap(packet));
+            return;
+        }
+        byte[] deltaPacket = deltaClients.isEmpty() ? packet : deltaEncoder.encode(packet);
+        ByteBuffer frame = ByteBuffer.wrap(packet).asReadOnlyBuffer();
+        ByteBuffer deltaFrame = ByteBuffer.wrap(deltaPacket).asReadOnlyBuffer();
+        Map<Set<Integer>, ByteBuffer> filteredFrames = new HashMap<>();
+        Map<Set<Integer>, ByteBuffer> filteredDeltaFrames = new HashMap<>();
+        Map<ByteBuffer, Integer> recipients = new IdentityHashMap<>();
+        for (ClientConnection connection : clients.values()) {
+            boolean acceptsDeltas = deltaClients.contains(connection.getId());
+            Set<Integer> boats = boatsByClient.get(connection.getId());
+            ByteBuffer clientFrame;
+            if (boats == null) {
+                clientFrame = acceptsDeltas ? deltaFrame : frame;
+            } else if (acceptsDeltas) {
+                clientFrame = filteredDeltaFrames.computeIfAbsent(boats, b -> filterBoatLocations(deltaPacket, b, true));
+            } else {
+                clientFrame = filteredFrames.computeIfAbsent(boats, b -> filterBoatLocations(packet, b, false));
+            }
+            if (sendToConnection(connection, clientFrame.duplicate())) {
+                recipients.merge(clientFrame, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<ByteBuffer, Integer> sent : recipients.entrySet()) {
+            ConnectionManager.countPackets(sent.getKey(), sent.getValue());
+        }
+    }
+
+    /**
+     * Copies the packets without the boat location messages of boats that are not in a set
+     * @param packets one or more whole packets
+     * @param boats the source ids of the boats to keep
+     * @param keepKeyframes true to keep every full boat location message, as they are the keyframes of a delta stream
+     * @return the remaining packets as a read-only buffer
+     */
+    private static ByteBuffer filterBoatLocations(byte[] packets, Set<Integer> boats, boolean keepKeyframes) {
+        ByteBuffer filtered = ByteBuffer.allocate(packets.length);
+        int offset = 0;
+        while (offset < packets.length) {
+            int next = Math.min(BoatLocationDeltaEncoder.nextFrame(packets, offset), packets.length);
+            if (!isOtherBoatLocation(packets, offset, next, boats, keepKeyframes)) {
+                filtered.put(packets, offset, next - offset);
+            }
+            offset = next;
+        }
+        filtered.flip();
+        return filtered.asReadOnlyBuffer();
+    }
+
+    private static boolean isOtherBoatLocation(byte[] packets, int offset, int next, Set<Integer> boats,
+                                               boolean keepKeyframes) {
+        if (next - offset < PacketWriter.HEADER_LENGTH) {
+            return false;
+        }
+        int type = packets[offset + AC35StreamField.MESSAGE_TYPE.getStartIndex()] & 0xFF;
+        int body = offset + PacketWriter.HEADER_LENGTH;
+        AC35StreamField sourceId;
+        if (type == AC35StreamMessage.BOAT_LOCATION_MESSAGE.getValue() && !keepKeyframes) {
+            sourceId = AC35StreamField.BOAT_SOURCE_ID;
+        } else if (type == AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE.getValue()) {
+            sourceId = AC35StreamField.DELTA_SOURCE_ID;
+        } else {
+            return false;
+        }
+        return body + sourceId.getEndIndex() <= next
+                && !boats.contains((int) BoatLocationDeltaEncoder.read(packets, body, sourceId));
+    }
+
+    /**
+     * Sends the remaining bytes of a buffer to multiple players, such as packets read straight from a file.
+     * Every connection is given its own read-only view of the buffer, so none of it is copied.
+     * @param packets one or more whole packets, from the position to the limit of the buffer
+     */
+    public void sendToClients(ByteBuffer packets) {
+        broadcast(clients.values(), packets);
+    }
+
+    private void broadcast(Collection<ClientConnection> recipients, ByteBuffer packet) {
+        ByteBuffer frame = packet.asReadOnlyBuffer();
+        int sent = 0;
+        for (ClientConnection connection : recipients) {
+            if (sendToConnection(connection, frame.duplicate())) {
+                sent++;
+            }
+        }
+        ConnectionManager.countPackets(frame, sent);
+    }
+
+    /**
+     * Send a packet to a single client.
+     * If the client is no longer connected it is removed from our map of players by the I/O thread
+     * @param id the id of the client to send to
+     * @param packet the packet to send
+     */
+    public void sendToClient(int id, byte[] packet) {
+        ClientConnection connection = clients.get(id);
+        if (connection == null) {
+            connection = webClients.get(id);
+            packet = wrapper.wrapPacket(packet);
+        }
+        if (connection != null) {
+            ByteBuffer frame = ByteBuffer.wrap(packet);
+            if (sendToConnection(connection, frame.duplicate())) {
+                ConnectionManager.countPackets(frame, 1);
+            }
+        }
+    }
+
+    /**
+     * Queues a packet for a connection, to be written now or with the batch. The packet is not counted in the
+     * sent packet metrics, which the caller does once for every connection it is sent to.
+     * @return true if the packet was queued, false if the connection is closed or has stalled
+     */
+    private boolean sendToConnection(ClientConnection connection, ByteBuffer packet) {
+        if (!connectionManager.canSendTo(connection)) {
+            return false;
+        }
+        if (connection.enqueue(packet)) {
+            if (batching) {
+                batchedWrites.add(connection);
+                if (!batching) {
+                    scheduleBatchedWrites();
+                }
+            } else {
+                connectionManager.scheduleWrite(connection);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts gathering the packets sent until sendBatch is called, so that everything produced in one server tick
+     * is written to each client together instead of as a separate write per packet
+     */
+    public void startBatch() {
+        batching = true;
+    }
+
+    /**
+     * Hands every packet gathered since startBatch to the I/O thread to be written
+     */
+    public void sendBatch() {
+        batching = false;
+        scheduleBatchedWrites();
+    }
+
+    private void scheduleBatchedWrites() {
+        connectionManager.scheduleWrites(batchedWrites);
+    }
+
+    /**
+     * @return the part of the course each client that has said what it is viewing is viewing, by client id
+     */
+    public Map<Integer, ClientInterest> getInterests() {
+        Map<Integer, ClientInterest> interests = new HashMap<>();
+        for (Map.Entry<Integer, ClientConnection> client : clients.entrySet()) {
+            AbstractServerListener listener = client.getValue().getListener();
+            ClientInterest interest = listener != null ? listener.getInterest() : null;
+            if (interest != null) {
+                interests.put(client.getKey(), interest);
+            }
+        }
+        return interests;
+    }
+
+    /**
+     * Sets the xml packets to be send directly after connection is made
+     * @param messageType the type of message
+     * @param xmlMessage the byte array to be sent
+     */
+    public void setXmlMessage(AC35StreamXMLMessage messageType, byte[] xmlMessage){
+        xmlMessages.put(messageType,xmlMessage);
+        sendToClients(xmlMessage);
+    }
+
+    public void addConnection(int newId, AbstractServerListener serverListener) {
+        ClientConnection connection = serverListener.getConnection();
+        connection.setId(newId);
+        connection.setGroup(this);
+        if (serverListener instanceof WebSocketServerListener) {
+            webClients.put(newId, connection);
+        } else {
+            if (serverListener.acceptsLocationDeltas()) {
+                deltaEncoder.forceKeyframes();
+                deltaClients.add(newId);
+            }
+            clients.put(newId, connection);
+            sendAllXMLsToClient(newId);
+        }
+    }
+
+    private void sendAllXMLsToClient(int id) {
+        for (byte[] xmlMessage : xmlMessages.values()) {
+            sendToClient(id, xmlMessage);
+        }
+    }
+
+    /**
+     * Closes and removes the given connection once the packets already queued for it have been sent
+     * @param connectionID
+     */
+    public void removeConnection(int connectionID) {
+        ClientConnection connection = clients.remove(connectionID);
+        deltaClients.remove(connectionID);
+        if (connection == null) {
+            connection = webClients.remove(connectionID);
+        }
+        if (connection != null) {
+            connectionManager.scheduleClose(connection);
+        }
+    }
+
+    /**
+     * Closes the connections of every client in the group once the packets already queued for them have been sent.
+     */
+    public void closeClientConnections() {
+        for (ClientConnection connection : clients.values()) {
+            connectionManager.scheduleClose(connection);
+        }
+        for (ClientConnection connection : webClients.values()) {
+            connectionManager.scheduleClose(connection);
+        }
+        clients.clear();
+        webClients.clear();
+        deltaClients.clear();
+    }
+
+    /**
+     * Called by the I/O thread when a connection in the group has closed. Observers are notified with the id of
+     * the client if it was still registered.
+     * @param connection the closed connection
+     */
+    void connectionClosed(ClientConnection connection) {
+        Integer id = connection.getId();
+        if (id != null && (clients.remove(id, connection) | webClients.remove(id, connection))) {
+            deltaClients.remove(id);
+            System.out.printf("Server: Client %d Disconnected\n", id);
+            setChanged();
+            notifyObservers(id);
+        }
+    }
+}
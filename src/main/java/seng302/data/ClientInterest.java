@@ -0,0 +1,93 @@
+package seng302.data;
+
+/**
+ * The part of the course a client is viewing, which it declares to the server so that boats outside of it can be
+ * sent less often. A client either views a fixed area, or tracks a boat with a view that moves with it, in which
+ * case the area is only used for its size and is centred on the tracked boat by the server.
+ */
+public final class ClientInterest {
+
+    /** The tracked boat of a client that is not tracking a boat */
+    public static final int NO_TRACKED_BOAT = 0;
+
+    private final int trackedBoatId;
+    private final double minLat;
+    private final double minLon;
+    private final double maxLat;
+    private final double maxLon;
+
+    /**
+     * @param trackedBoatId the source id of the boat the view moves with, or NO_TRACKED_BOAT
+     * @param minLat the latitude of the bottom edge of the view
+     * @param minLon the longitude of the left edge of the view
+     * @param maxLat the latitude of the top edge of the view
+     * @param maxLon the longitude of the right edge of the view
+     */
+    public ClientInterest(int trackedBoatId, double minLat, double minLon, double maxLat, double maxLon) {
+        this.trackedBoatId = trackedBoatId;
+        this.minLat = Math.min(minLat, maxLat);
+        this.minLon = Math.min(minLon, maxLon);
+        this.maxLat = Math.max(minLat, maxLat);
+        this.maxLon = Math.max(minLon, maxLon);
+    }
+
+    public boolean isTrackingBoat() {
+        return trackedBoatId != NO_TRACKED_BOAT;
+    }
+
+    public int getTrackedBoatId() {
+        return trackedBoatId;
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMinLon() {
+        return minLon;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    /**
+     * @return half the height of the view in degrees of latitude
+     */
+    public double getHalfHeight() {
+        return (maxLat - minLat) / 2;
+    }
+
+    /**
+     * @return half the width of the view in degrees of longitude
+     */
+    public double getHalfWidth() {
+        return (maxLon - minLon) / 2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClientInterest that = (ClientInterest) o;
+        return trackedBoatId == that.trackedBoatId
+                && Double.compare(that.minLat, minLat) == 0
+                && Double.compare(that.minLon, minLon) == 0
+                && Double.compare(that.maxLat, maxLat) == 0
+                && Double.compare(that.maxLon, maxLon) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = trackedBoatId;
+        result = 31 * result + Double.hashCode(minLat);
+        result = 31 * result + Double.hashCode(minLon);
+        result = 31 * result + Double.hashCode(maxLat);
+        result = 31 * result + Double.hashCode(maxLon);
+        return result;
+    }
+}
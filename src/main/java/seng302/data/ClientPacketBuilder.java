@@ -20,9 +20,33 @@ public class ClientPacketBuilder extends PacketBuilder {
      * @return the registration request byte array
      */
     public byte[] createRegistrationRequestPacket(RegistrationType regoType){
+        return createRegistrationRequestPacket(regoType, 0);
+    }
+
+    /**
+     * Builds a byte array for a registration request message to join a room of a server hosting many races
+     * @param regoType the registration type of the client
+     * @param roomId the id of the room to join
+     * @return the registration request byte array
+     */
+    public byte[] createRegistrationRequestPacket(RegistrationType regoType, int roomId){
+        return createRegistrationRequestPacket(regoType, roomId, false);
+    }
+
+    /**
+     * Builds a byte array for a registration request message, which can ask the server to send boat location
+     * deltas instead of full boat location messages
+     * @param regoType the registration type of the client
+     * @param roomId the id of the room to join
+     * @param locationDeltas true to be sent boat location deltas
+     * @return the registration request byte array
+     */
+    public byte[] createRegistrationRequestPacket(RegistrationType regoType, int roomId, boolean locationDeltas){
         byte[] header = createHeader(REGISTRATION_REQUEST);
         byte[] body = new byte[REGISTRATION_REQUEST.getLength()];
         addFieldToByteArray(body, REGISTRATION_REQUEST_TYPE, regoType.value());
+        addFieldToByteArray(body, REGISTRATION_ROOM_ID, roomId);
+        addFieldToByteArray(body, REGISTRATION_FLAGS, locationDeltas ? BoatLocationDeltaEncoder.REGISTRATION_FLAG : 0);
         return generatePacket(header, body);
     }
 
@@ -40,6 +64,30 @@ public class ClientPacketBuilder extends PacketBuilder {
         return generatePacket(header, body);
     }
 
+    /**
+     * Creates the packet that tells the server which part of the course the client is viewing
+     * @param interest the client's view
+     * @param clientId id of the client
+     * @return the full packet
+     */
+    public byte[] createClientInterestPacket(ClientInterest interest, int clientId) {
+        byte[] header = createHeader(CLIENT_INTEREST_MESSAGE, clientId);
+        byte[] body = new byte[CLIENT_INTEREST_MESSAGE.getLength()];
+        addFieldToByteArray(body, INTEREST_TRACKED_BOAT, interest.getTrackedBoatId());
+        addFieldToByteArray(body, INTEREST_MIN_LATITUDE, toCoordinateInt(interest.getMinLat()));
+        addFieldToByteArray(body, INTEREST_MIN_LONGITUDE, toCoordinateInt(interest.getMinLon()));
+        addFieldToByteArray(body, INTEREST_MAX_LATITUDE, toCoordinateInt(interest.getMaxLat()));
+        addFieldToByteArray(body, INTEREST_MAX_LONGITUDE, toCoordinateInt(interest.getMaxLon()));
+        return generatePacket(header, body);
+    }
+
+    /**
+     * Converts a latitude or longitude to the integer used by boat location messages
+     */
+    private static int toCoordinateInt(double degrees) {
+        return (int) Math.round(degrees * Math.pow(2, 31) / 180);
+    }
+
     /**
      * creates a header byte array which has 2 snyc bytes, a type, timestamp, source id which is an identifier for who
      * is sending the message
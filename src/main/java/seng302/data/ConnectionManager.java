@@ -1,171 +1,347 @@
 package seng302.data;
 
 import seng302.controllers.listeners.AbstractServerListener;
-import seng302.controllers.listeners.WebSocketServerListener;
+import seng302.utilities.metrics.MetricsRegistry;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Observable;
-import java.util.TreeMap;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Created by Gemma Lamont on 10/07/17.
  * Class to manage multiple players
+ * Registered players are kept in ClientGroups, one for each race served through the manager.
+ * All client connections are non-blocking and serviced by a single I/O thread running a selector. Packets sent to
+ * a client are queued on its connection and written by the I/O thread when the client can accept them, so a slow
+ * client never holds up the thread sending race updates.
  */
 public class ConnectionManager extends Observable implements Runnable {
 
-    private ServerSocket serverSocket;
-    private Map<Integer, Socket> clients =  new ConcurrentHashMap<>();
-    private Map<Integer, Socket> webClients = new ConcurrentHashMap<>();
-    private TreeMap<AC35StreamXMLMessage, byte[]> xmlMessages = new TreeMap<>();
-    private boolean running = true;
+    private static final int MAX_QUEUED_BYTES = 4 * 1024 * 1024;
+    private static final int HEADER_LENGTH = 15;
+    private static final int CRC_LENGTH = 4;
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final LongAdder BYTES_RECEIVED = METRICS.counter("server_bytes_received_total");
+    private static final LongAdder[] PACKETS_BY_TYPE = new LongAdder[256];
+    private static final LongAdder[] BYTES_BY_TYPE = new LongAdder[256];
+    private static final LongAdder WEB_SOCKET_FRAMES = METRICS.counter("server_packets_sent_total", "type", "web_socket");
+    private static final LongAdder WEB_SOCKET_BYTES = METRICS.counter("server_packet_bytes_sent_total", "type", "web_socket");
+
+    static {
+        for (int type = 0; type < PACKETS_BY_TYPE.length; type++) {
+            AC35StreamMessage message = AC35StreamMessage.fromInteger(type);
+            String label = message == null ? "unknown" : message.name().toLowerCase();
+            PACKETS_BY_TYPE[type] = METRICS.counter("server_packets_sent_total", "type", label);
+            BYTES_BY_TYPE[type] = METRICS.counter("server_packet_bytes_sent_total", "type", label);
+        }
+    }
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Queue<ClientConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientConnection> pendingCloses = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
     private boolean isGameServer;
-    private ServerPacketBuilder wrapper = new ServerPacketBuilder();
+    private final String portLabel;
 
 
     public ConnectionManager(int port, boolean isGameServer) throws IOException {
-        serverSocket = new ServerSocket(port);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
         this.isGameServer = isGameServer;
+        portLabel = Integer.toString(port);
+        METRICS.gauge("server_connections", connections::size, "port", portLabel);
     }
 
     /**
-     * Keeps listening for new client connections and send xml data on connection
+     * Runs the I/O thread. Accepts new client connections, reads data from clients into their listeners and
+     * writes queued packets out to clients until the manager is closed.
      */
     @Override
     public void run() {
         while (running) {
             try {
-                Socket socket = serverSocket.accept();
-                setChanged();
-                notifyObservers(socket);
-            } catch (IOException e) {
-                if (e instanceof SocketException) {
-                    System.out.println("Server: Disconnected");
+                selector.select();
+                processPendingWrites();
+                processPendingCloses();
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptConnection();
+                    } else {
+                        ClientConnection connection = (ClientConnection) key.attachment();
+                        if (key.isReadable()) {
+                            readFromConnection(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            writeToConnection(connection);
+                        }
+                    }
                 }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         }
+        processPendingCloses();
+        for (ClientConnection connection : connections) {
+            connection.close();
+            METRICS.remove("server_client_queued_bytes", "client", connection.getRemoteAddress());
+        }
+        METRICS.remove("server_connections", "port", portLabel);
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.out.println("Server: Disconnected");
     }
 
-    /**
-     * Sends byte array information to multiple players
-     * @param packet the information packet to be sent
-     */
-    public void sendToClients(byte[] packet) {
-        for(int id: clients.keySet()){
-            sendToClient(id, packet);
+    private void acceptConnection() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
         }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        ClientConnection connection = new ClientConnection(channel, this);
+        connections.add(connection);
+        METRICS.gauge("server_client_queued_bytes", connection::getQueuedBytes, "client", connection.getRemoteAddress());
+        channel.register(selector, SelectionKey.OP_READ, connection);
     }
 
     /**
-     * Send a packet to a single client.
-     * If the client is no longer connected, remove it from our map of players
-     * @param id the id of the client to send to
-     * @param packet the packet to send
+     * Reads the available data from a client and passes it to the client's listener. The listener is created from
+     * the first bytes the client sends, as they tell whether it is a normal or WebSocket client, and observers
+     * are notified of the new listener before it parses anything.
+     * @param connection the connection with data to read
      */
-    public void sendToClient(int id, byte[] packet) {
-        try{
-            Socket socket;
-            if (clients.keySet().contains(id)) {
-                socket = clients.get(id);
-            } else {
-                socket = webClients.get(id);
-                packet = wrapper.wrapPacket(packet);
-            }
-            if (socket != null) {
-                DataOutputStream clientOutput = new DataOutputStream(socket.getOutputStream());
-                clientOutput.write(packet);
+    private void readFromConnection(ClientConnection connection) {
+        int bytesRead;
+        try {
+            bytesRead = connection.receive();
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+        if (bytesRead == -1) {
+            disconnect(connection);
+            return;
+        }
+        BYTES_RECEIVED.add(bytesRead);
+        ByteBuffer receivedData = connection.getReceivedData();
+        try {
+            if (connection.getListener() == null) {
+                if (receivedData.remaining() < 2) {
+                    return;
+                }
+                AbstractServerListener listener = AbstractServerListener.createServerListener(connection, receivedData, isGameServer);
+                connection.setListener(listener);
+                setChanged();
+                notifyObservers(listener);
             }
-        } catch (java.net.SocketException e){
-            System.out.printf("Server: Client %d Disconnected\n", id);
-            setChanged();
-            notifyObservers(id);
-            if (clients.containsKey(id)) {
-                clients.remove(id);
-            } else if (webClients.containsKey(id)) {
-                webClients.remove(id);
+            connection.getListener().processReceivedData(receivedData);
+        } finally {
+            connection.compactReceivedData();
+        }
+        if (!connection.getListener().isClientConnected()) {
+            disconnect(connection);
+        }
+    }
+
+    private void writeToConnection(ClientConnection connection) {
+        SelectionKey key = connection.getChannel().keyFor(selector);
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        try {
+            if (connection.flush()) {
+                key.interestOps(SelectionKey.OP_READ);
+            } else {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
             }
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
+        } catch (IOException e) {
+            disconnect(connection);
+        }
+    }
+
+    private void processPendingWrites() {
+        ClientConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            writeToConnection(connection);
         }
     }
 
     /**
-     * Sets the xml packets to be send directly after connection is made
-     * @param messageType the type of message
-     * @param xmlMessage the byte array to be sent
+     * Closes connections that have been removed or have stalled, writing whatever is still queued for them first
      */
-    public void setXmlMessage(AC35StreamXMLMessage messageType, byte[] xmlMessage){
-        xmlMessages.put(messageType,xmlMessage);
-        sendToClients(xmlMessage);
+    private void processPendingCloses() {
+        ClientConnection connection;
+        while ((connection = pendingCloses.poll()) != null) {
+            try {
+                if (connection.isOpen()) {
+                    connection.flush();
+                }
+            } catch (IOException e) {
+                // The connection is being closed anyway
+            }
+            disconnect(connection);
+        }
     }
 
-    public void addConnection(int newId, AbstractServerListener serverListener) {
-        if (serverListener instanceof WebSocketServerListener) {
-            webClients.put(newId, serverListener.getSocket());
-        } else {
-            clients.put(newId, serverListener.getSocket());
-            sendAllXMLsToClient(newId);
+    /**
+     * Closes a connection on the I/O thread. If the client was registered, the observers of its group are notified
+     * with its id.
+     * @param connection the connection to close
+     */
+    private void disconnect(ClientConnection connection) {
+        connection.close();
+        if (connections.remove(connection)) {
+            METRICS.remove("server_client_queued_bytes", "client", connection.getRemoteAddress());
+        }
+        if (connection.getListener() != null) {
+            connection.getListener().disconnectClient();
+        }
+        if (connection.getGroup() != null) {
+            connection.getGroup().connectionClosed(connection);
         }
     }
 
     /**
-     * Closes the server socket and all client connections.
+     * Creates a group for the clients of one race served by this manager
+     * @return the new group
      */
-    public void closeAllConnections() {
-        running = false;
-        try {
-            serverSocket.close();
-            closeClientConnections();
-        } catch (IOException e) {
-            e.printStackTrace();
+    public ClientGroup createClientGroup() {
+        return new ClientGroup(this);
+    }
+
+    /**
+     * Queues a packet to be written to a connection by the I/O thread.
+     * A client that has fallen too far behind reading its packets is disconnected rather than buffered forever.
+     * @param connection the connection to send to
+     * @param packet the packet to send
+     */
+    public void sendToConnection(ClientConnection connection, byte[] packet) {
+        ByteBuffer buffer = ByteBuffer.wrap(packet);
+        if (canSendTo(connection)) {
+            countPackets(buffer, 1);
+            if (connection.enqueue(buffer)) {
+                scheduleWrite(connection);
+            }
         }
     }
 
     /**
-     * Closes all sockets connected to clients.
+     * Checks that a connection can be sent packets, closing it if it has stalled
+     * @param connection the connection to send to
+     * @return true unless the connection is closed or has stalled
      */
-    public void closeClientConnections() throws IOException {
-        for (Socket socket : clients.values()){
-            socket.close();
+    boolean canSendTo(ClientConnection connection) {
+        if (!connection.isOpen()) {
+            return false;
+        }
+        if (connection.getQueuedBytes() > MAX_QUEUED_BYTES) {
+            System.out.printf("Server: Client %d is not reading, disconnecting\n", connection.getId());
+            scheduleClose(connection);
+            return false;
         }
+        return true;
+    }
 
-        for (Socket socket : webClients.values()){
-            socket.close();
+    /**
+     * Counts the packets and bytes sent by message type. A buffer can hold many AC35 packets written one after
+     * another, which are walked by their headers; anything else is a WebSocket frame for a web client.
+     * A buffer shared by many clients is counted once for all of them, so its headers are only walked once.
+     * @param buffer the packets being sent
+     * @param recipients the number of clients the packets were queued for
+     */
+    static void countPackets(ByteBuffer buffer, int recipients) {
+        if (recipients == 0) {
+            return;
         }
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (limit - position >= HEADER_LENGTH
+                && (buffer.get(position) & 0xFF) == 0x47 && (buffer.get(position + 1) & 0xFF) == 0x83) {
+            int type = buffer.get(position + 2) & 0xFF;
+            int length = HEADER_LENGTH + ((buffer.get(position + 13) & 0xFF) | (buffer.get(position + 14) & 0xFF) << 8) + CRC_LENGTH;
+            PACKETS_BY_TYPE[type].add(recipients);
+            BYTES_BY_TYPE[type].add((long) length * recipients);
+            position += length;
+        }
+        if (position < limit && position == buffer.position()) {
+            WEB_SOCKET_FRAMES.add(recipients);
+            WEB_SOCKET_BYTES.add((long) (limit - position) * recipients);
+        }
+    }
+
+    /**
+     * Hands a connection with queued packets to the I/O thread to be written
+     * @param connection the connection to write
+     */
+    void scheduleWrite(ClientConnection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
     }
 
-    private void sendAllXMLsToClient(int id) {
-        for (byte[] xmlMessage : xmlMessages.values()) {
-            sendToClient(id, xmlMessage);
+    /**
+     * Hands every connection in a queue to the I/O thread to be written, waking it once for all of them
+     * @param connections the connections to write, which are removed from the queue
+     */
+    void scheduleWrites(Queue<ClientConnection> connections) {
+        boolean scheduled = false;
+        ClientConnection connection;
+        while ((connection = connections.poll()) != null) {
+            pendingWrites.add(connection);
+            scheduled = true;
         }
+        if (scheduled) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Closes a connection on the I/O thread once the packets already queued for it have been sent
+     * @param connection the connection to close
+     */
+    public void scheduleClose(ClientConnection connection) {
+        pendingCloses.add(connection);
+        selector.wakeup();
     }
 
     /**
-     * Closes and removes the given connection
-     * @param connectionID
+     * Closes the server socket and all client connections.
      */
-    public void removeConnection(int connectionID) {
+    public void closeAllConnections() {
+        running = false;
         try {
-            Socket socket = clients.get(connectionID);
-            socket.close();
-            clients.remove(connectionID);
+            serverChannel.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        closeClientConnections();
     }
 
-    public void sendToSocket(Socket socket, byte[] packet) {
-        try{
-            DataOutputStream clientOutput = new DataOutputStream(socket.getOutputStream());
-            clientOutput.write(packet);
-        } catch (IOException e){
-            e.printStackTrace();
-        }
+    /**
+     * Closes all sockets connected to clients once the packets already queued for them have been sent.
+     */
+    public void closeClientConnections() {
+        pendingCloses.addAll(connections);
+        selector.wakeup();
     }
 }
@@ -0,0 +1,154 @@
+package seng302.data;
+
+import seng302.models.Boat;
+import seng302.models.Course;
+import seng302.models.Race;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the parsed contents of the default course and boat files, so each file is read and parsed once however many
+ * races are set up from it. Every race, course and boat handed out is new, so races never share model objects.
+ * The bytes of the default XML files, and the race XML templates compiled from them, are also kept for building
+ * XML messages.
+ */
+public class CourseCache {
+
+    private static final String DEFAULT_FILE_PATH = "/defaultFiles/";
+
+    private static final Map<String, RaceTemplate> raceTemplates = new ConcurrentHashMap<>();
+    private static final Map<String, List<Boat>> starters = new ConcurrentHashMap<>();
+    private static final Map<String, byte[]> xmlFiles = new ConcurrentHashMap<>();
+    private static final Map<String, RaceXmlTemplate> raceXmlTemplates = new ConcurrentHashMap<>();
+
+    private CourseCache() {
+    }
+
+    /**
+     * Gets the template for a course file, parsing it the first time it is asked for
+     * @param courseFile the name of the course file, inside /defaultFiles/
+     * @return the template, or null if the file could not be read
+     */
+    public static RaceTemplate getRaceTemplate(String courseFile) {
+        RaceTemplate template = raceTemplates.get(courseFile);
+        if (template == null) {
+            try (InputStream inputStream = open(courseFile)) {
+                template = new RaceVisionXMLParser().importRaceTemplate(inputStream);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (template != null) {
+                raceTemplates.putIfAbsent(courseFile, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * @param courseFile the name of the course file, inside /defaultFiles/
+     * @return a new race on the course, or null if the file could not be read
+     */
+    public static Race createRace(String courseFile) {
+        RaceTemplate template = getRaceTemplate(courseFile);
+        return template == null ? null : template.createRace();
+    }
+
+    /**
+     * @param courseFile the name of the course file, inside /defaultFiles/
+     * @return a new course, or null if the file could not be read
+     */
+    public static Course createCourse(String courseFile) {
+        RaceTemplate template = getRaceTemplate(courseFile);
+        return template == null ? null : template.createCourse();
+    }
+
+    /**
+     * Gets new boats for the boats in a boat file, parsing it the first time it is asked for
+     * @param boatFile the name of the boat file, inside /defaultFiles/
+     * @return new boats, or null if the file could not be read
+     */
+    public static List<Boat> createStarters(String boatFile) {
+        List<Boat> boats = starters.get(boatFile);
+        if (boats == null) {
+            try (InputStream inputStream = open(boatFile)) {
+                boats = new RaceVisionXMLParser().importStarters(inputStream);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (boats == null) {
+                return null;
+            }
+            boats = Collections.unmodifiableList(boats);
+            starters.putIfAbsent(boatFile, boats);
+        }
+        List<Boat> copies = new ArrayList<>();
+        for (Boat boat : boats) {
+            copies.add(new Boat(boat.getId(), boat.getName(), boat.getNickName(), 0));
+        }
+        return copies;
+    }
+
+    /**
+     * Gets the bytes of an XML file, reading it the first time it is asked for. The array is shared, so it must
+     * not be changed.
+     * @param file the name of the file, inside /defaultFiles/
+     * @return the contents of the file
+     * @throws IOException if the file cannot be read
+     */
+    static byte[] getXmlFile(String file) throws IOException {
+        byte[] bytes = xmlFiles.get(file);
+        if (bytes == null) {
+            try (InputStream inputStream = open(file)) {
+                if (inputStream == null) {
+                    throw new FileNotFoundException(DEFAULT_FILE_PATH + file);
+                }
+                bytes = readAll(inputStream);
+            }
+            xmlFiles.putIfAbsent(file, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the template for the race XML messages of a course file, compiling it the first time it is asked for
+     * @param courseFile the name of the course file, inside /defaultFiles/
+     * @return the template
+     * @throws IOException if the file cannot be read
+     */
+    static RaceXmlTemplate getRaceXmlTemplate(String courseFile) throws IOException {
+        RaceXmlTemplate template = raceXmlTemplates.get(courseFile);
+        if (template == null) {
+            template = RaceXmlTemplate.compile(getXmlFile(courseFile));
+            raceXmlTemplates.putIfAbsent(courseFile, template);
+        }
+        return template;
+    }
+
+    /**
+     * Reads the rest of a stream
+     * @param inputStream the stream
+     * @return everything left in the stream
+     * @throws IOException if the stream cannot be read
+     */
+    static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static InputStream open(String file) {
+        return CourseCache.class.getResourceAsStream(DEFAULT_FILE_PATH + file);
+    }
+}
@@ -0,0 +1,180 @@
+package seng302.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+
+import static seng302.data.AC35StreamField.*;
+import static seng302.data.PacketWriter.CRC_LENGTH;
+import static seng302.data.PacketWriter.HEADER_LENGTH;
+
+/**
+ * Reads AC35 stream messages from a channel without copying them.
+ * Data is read into a single buffer that grows to fit the largest message seen, and only the unfinished message
+ * at the end of the buffer is moved back to the front before the next read. Messages are found by their sync
+ * bytes and their CRC is checked where they lie in the buffer. If a message is corrupt, by a bad CRC or a length
+ * that does not match its type, the decoder searches for the next sync bytes after the start of the bad message
+ * so the messages after it are still read.
+ */
+public class FrameDecoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final int SYNC_BYTE_1 = 0x47;
+    private static final int SYNC_BYTE_2 = 0x83;
+
+    private final ReadableByteChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer;
+    private ByteBuffer readOnlyBuffer;
+    private int messageType;
+    private int sourceId;
+    private int bodyStart;
+    private int bodyLength;
+    private int corruptMessages = 0;
+
+    public FrameDecoder(ReadableByteChannel channel) {
+        this.channel = channel;
+        setBuffer(ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+        buffer.flip();
+    }
+
+    /**
+     * Reads from the channel until the next whole and valid message is available
+     * @throws EOFException if the channel ends before another message is found
+     * @throws IOException if the channel cannot be read
+     */
+    public void nextMessage() throws IOException {
+        while (true) {
+            if (skipToSyncBytes() && buffer.remaining() >= HEADER_LENGTH) {
+                int start = buffer.position();
+                int type = buffer.get(start + MESSAGE_TYPE.getStartIndex()) & 0xFF;
+                int length = (int) readLittleEndian(start + MESSAGE_LENGTH.getStartIndex(), MESSAGE_LENGTH.getLength());
+                if (!hasExpectedLength(type, length)) {
+                    skipCorruptMessage(start);
+                    continue;
+                }
+                if (buffer.remaining() >= PacketWriter.packetLength(length)) {
+                    if (!crcMatches(start, length)) {
+                        System.err.println("Incorrect CRC. Message Ignored.");
+                        skipCorruptMessage(start);
+                        continue;
+                    }
+                    messageType = type;
+                    sourceId = (int) readLittleEndian(start + HEADER_SOURCE_ID.getStartIndex(), HEADER_SOURCE_ID.getLength());
+                    bodyStart = start + HEADER_LENGTH;
+                    bodyLength = length;
+                    buffer.position(start + PacketWriter.packetLength(length));
+                    return;
+                }
+            }
+            readMore();
+        }
+    }
+
+    /**
+     * @return the message type of the current message
+     */
+    public int getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * @return the source id in the header of the current message
+     */
+    public int getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * Gives a read-only view of the body of the current message, indexed from the start of the body.
+     * The view shares the decoder's buffer, so it is only valid until nextMessage is called again.
+     * @return the body of the current message
+     */
+    public ByteBuffer getBody() {
+        readOnlyBuffer.limit(bodyStart + bodyLength);
+        readOnlyBuffer.position(bodyStart);
+        return readOnlyBuffer.slice();
+    }
+
+    /**
+     * @return the number of corrupt messages that have been skipped
+     */
+    public int getCorruptMessages() {
+        return corruptMessages;
+    }
+
+    /**
+     * Moves the buffer position forward to the next pair of sync bytes
+     * @return true if the buffer is positioned at sync bytes, false if more data is needed
+     */
+    private boolean skipToSyncBytes() {
+        while (buffer.remaining() >= 2) {
+            int position = buffer.position();
+            if ((buffer.get(position) & 0xFF) == SYNC_BYTE_1 && (buffer.get(position + 1) & 0xFF) == SYNC_BYTE_2) {
+                return true;
+            }
+            buffer.position(position + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Message types with a fixed length must have that length, otherwise the header is corrupt
+     */
+    private boolean hasExpectedLength(int type, int length) {
+        AC35StreamMessage message = AC35StreamMessage.fromInteger(type);
+        return message == null || message.getLength() == -1 || message.getLength() == length;
+    }
+
+    private void skipCorruptMessage(int start) {
+        corruptMessages++;
+        buffer.position(start + 1);
+    }
+
+    private boolean crcMatches(int start, int length) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        int crcStart = start + HEADER_LENGTH + length;
+        buffer.limit(crcStart);
+        buffer.position(start);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limit);
+        buffer.position(position);
+        return crc.getValue() == readLittleEndian(crcStart, CRC_LENGTH);
+    }
+
+    private long readLittleEndian(int index, int numBytes) {
+        long total = 0;
+        for (int i = index + numBytes - 1; i >= index; i--) {
+            total = (total << 8) + (buffer.get(i) & 0xFF);
+        }
+        return total;
+    }
+
+    /**
+     * Moves the unread data to the front of the buffer, growing it if it is full, and reads more from the channel
+     * @throws EOFException if the channel has ended
+     */
+    private void readMore() throws IOException {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            ByteBuffer largerBuffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            largerBuffer.put(buffer);
+            setBuffer(largerBuffer);
+        }
+        int bytesRead = channel.read(buffer);
+        buffer.flip();
+        if (bytesRead == -1) {
+            throw new EOFException();
+        }
+    }
+
+    private void setBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        readOnlyBuffer = buffer.asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,51 @@
+package seng302.data;
+
+import java.io.IOException;
+
+/**
+ * Table of the handlers a type of listener has for each AC35 stream message type.
+ * Handlers are kept in an array indexed by the message type byte, so finding the handler for a message is a single
+ * array read. Each listener class builds its table once, and supporting a new message type only needs a handler
+ * registered in the tables of the listeners that receive it.
+ * @param <L> the type of listener the handlers are for
+ * @param <B> the type message bodies are given as
+ */
+public class MessageDispatcher<L, B> {
+
+    private static final int MESSAGE_TYPES = 256;
+
+    @SuppressWarnings("unchecked")
+    private final MessageHandler<L, B>[] handlers = new MessageHandler[MESSAGE_TYPES];
+
+    /**
+     * Sets the handler for a message type, replacing any existing handler
+     * @param type the message type
+     * @param handler the handler for messages of that type
+     * @return this dispatcher, so registrations can be chained
+     */
+    public MessageDispatcher<L, B> register(AC35StreamMessage type, MessageHandler<L, B> handler) {
+        handlers[type.getValue()] = handler;
+        return this;
+    }
+
+    /**
+     * Passes a message to the handler for its type
+     * @param listener the listener that received the message
+     * @param messageType the message type from the message header
+     * @param sourceId the source id from the message header
+     * @param body the body of the message
+     * @return true if the message was handled, false if there is no handler for its type
+     * @throws IOException if the handler fails to handle the message
+     */
+    public boolean dispatch(L listener, int messageType, int sourceId, B body) throws IOException {
+        if (messageType < 0 || messageType >= MESSAGE_TYPES) {
+            return false;
+        }
+        MessageHandler<L, B> handler = handlers[messageType];
+        if (handler == null) {
+            return false;
+        }
+        handler.handle(listener, sourceId, body);
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package seng302.data;
+
+import java.io.IOException;
+
+/**
+ * Handles one type of AC35 stream message for a listener
+ * @param <L> the type of listener that received the message
+ * @param <B> the type the message body is given as
+ */
+@FunctionalInterface
+public interface MessageHandler<L, B> {
+
+    /**
+     * @param listener the listener that received the message
+     * @param sourceId the source id from the message header
+     * @param body the body of the message
+     * @throws IOException if the message cannot be handled
+     */
+    void handle(L listener, int sourceId, B body) throws IOException;
+}
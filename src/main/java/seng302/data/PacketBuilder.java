@@ -2,10 +2,9 @@ package seng302.data;
 
 import seng302.utilities.ConnectionUtils;
 
-import java.time.Instant;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.time.Clock;
 import java.util.zip.CRC32;
-import java.util.zip.Checksum;
 
 import static seng302.data.AC35StreamField.*;
 import static seng302.data.AC35StreamMessage.HOST_GAME_MESSAGE;
@@ -16,9 +15,23 @@ import static seng302.data.AC35StreamMessage.HOST_GAME_MESSAGE;
  */
 public abstract class PacketBuilder {
 
+    private static final ThreadLocal<PacketWriter> WRITERS = ThreadLocal.withInitial(PacketWriter::new);
+
     private final int HEADER_LENGTH = 15;
 
     private int sourceID = -1;
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * @param clock the clock that message headers are timestamped by
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    protected Clock getClock() {
+        return clock;
+    }
 
     /**
      * Simplifier function for adding stream field to byte array
@@ -56,7 +69,7 @@ public abstract class PacketBuilder {
         header[0] = (byte) 0x47; //first sync byte
         header[1] = (byte) 0x83; //second sync byte
         addFieldToByteArray(header, MESSAGE_TYPE, type.getValue());
-        addFieldToByteArray(header, HEADER_TIMESTAMP, Instant.now().toEpochMilli());
+        addFieldToByteArray(header, HEADER_TIMESTAMP, clock.millis());
         addFieldToByteArray(header, HEADER_SOURCE_ID, this.sourceID);
         if (type.getLength() != -1) {
             addFieldToByteArray(header, MESSAGE_LENGTH, type.getLength());
@@ -66,30 +79,6 @@ public abstract class PacketBuilder {
 
 
 
-    /**
-     * Computes and sends the CRC checksum to the socket
-     * @param header The header byte array used to compute the CRC
-     * @param body the body byte array used to compute the CRC
-     */
-    private byte[] generateCRC(byte[] header, byte[] body){
-        final int CRC_LENGTH = 4;
-        Checksum crc = new CRC32();
-        byte[] toCRC = new byte[header.length + body.length];
-        for (int i = 0; i < toCRC.length; i ++){
-            if (i < HEADER_LENGTH) {
-                toCRC[i] = header[i];
-            } else {
-                toCRC[i] = body[i - HEADER_LENGTH];
-            }
-        }
-        crc.update(toCRC, 0, toCRC.length);
-
-        byte[] crcArray = new byte[CRC_LENGTH];
-        addIntIntoByteArray(crcArray, 0, (int) crc.getValue(), CRC_LENGTH);
-        return crcArray;
-
-    }
-
     /**
      * Generates the packet that is to be sent by calculating the crc and combining the messages together
      * @param header the message header
@@ -97,34 +86,52 @@ public abstract class PacketBuilder {
      * @return the combined messages with calculated crc
      */
     public byte[] generatePacket(byte[] header, byte[] body){
-        byte[] crc = generateCRC(header,body);
-        return combineMessageParts(header,body,crc);
+        final int CRC_LENGTH = 4;
+        byte[] packet = new byte[header.length + body.length + CRC_LENGTH];
+        System.arraycopy(header, 0, packet, 0, header.length);
+        System.arraycopy(body, 0, packet, header.length, body.length);
+        CRC32 crc = new CRC32();
+        crc.update(packet, 0, header.length + body.length);
+        addIntIntoByteArray(packet, header.length + body.length, crc.getValue(), CRC_LENGTH);
+        return packet;
     }
 
     /**
-     * Combines the header, body and crc byte arrays together
-     * @param header the message header
-     * @param body the message body
-     * @param crc the computed crc to be sent
-     * @return the combined message consisting of all three parts
+     * Starts writing a message into a buffer with the writer for the current thread
+     * @param buffer the buffer to write into, from its current position
+     * @param type the type of message
+     * @param bodyLength the length of the message body
+     * @return the writer to set the body fields with, which must then be finished
      */
-    private byte[] combineMessageParts(byte[] header, byte[] body, byte[] crc){
-        byte[] combined = new byte[header.length + body.length + crc.length];
-        for(int i = 0; i < header.length; i++){
-            combined[i] = header[i];
-        }
-        for(int i = 0; i < body.length; i++){
-            combined[i+header.length] = body[i];
-        }
-        for(int i = 0; i < crc.length; i++){
-            combined[i+header.length + body.length] = crc[i];
-        }
-        return combined;
+    protected PacketWriter startPacket(ByteBuffer buffer, AC35StreamMessage type, int bodyLength) {
+        PacketWriter writer = WRITERS.get();
+        writer.begin(buffer, type, sourceID, bodyLength, clock.millis());
+        return writer;
+    }
+
+    /**
+     * @param bodyLength the length of a message body
+     * @return a buffer over a new array that exactly fits a message with the given body length
+     */
+    protected static ByteBuffer allocatePacket(int bodyLength) {
+        return ByteBuffer.wrap(new byte[PacketWriter.packetLength(bodyLength)]);
     }
 
     public byte[] createGameRegistrationPacket(byte[] payload){
-        byte[] header = createHeader(HOST_GAME_MESSAGE);
-        return generatePacket(header, payload);
+        ByteBuffer packet = allocatePacket(payload.length);
+        createGameRegistrationPacket(payload, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a game registration packet with a body that has already been built into a buffer
+     * @param payload the body of the packet
+     * @param buffer the buffer to write the packet into
+     */
+    public void createGameRegistrationPacket(byte[] payload, ByteBuffer buffer){
+        PacketWriter writer = startPacket(buffer, HOST_GAME_MESSAGE, payload.length);
+        writer.putBytes(0, payload, payload.length);
+        writer.finish();
     }
 
     /**
@@ -137,18 +144,28 @@ public abstract class PacketBuilder {
      * @return a packet to be sent
      */
     public byte[] createGameRegistrationPacket(Double speedScale, Integer minParticipants, Integer serverPort, String publicIp, int currentCourseIndex, int currentPlayers, boolean isPartyMode) {
-        byte[] header = createHeader(HOST_GAME_MESSAGE);
-        byte[] body = new byte[HOST_GAME_MESSAGE.getLength()];
+        ByteBuffer packet = allocatePacket(HOST_GAME_MESSAGE.getLength());
+        createGameRegistrationPacket(speedScale, minParticipants, serverPort, publicIp, currentCourseIndex, currentPlayers, isPartyMode, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a game registeration packet to be sent to the VM into a buffer
+     * @param buffer the buffer to write the packet into
+     * @see #createGameRegistrationPacket(Double, Integer, Integer, String, int, int, boolean)
+     */
+    public void createGameRegistrationPacket(Double speedScale, Integer minParticipants, Integer serverPort, String publicIp, int currentCourseIndex, int currentPlayers, boolean isPartyMode, ByteBuffer buffer) {
+        PacketWriter writer = startPacket(buffer, HOST_GAME_MESSAGE, HOST_GAME_MESSAGE.getLength());
         long ip = ConnectionUtils.ipStringToLong(publicIp);
-        addFieldToByteArray(body, HOST_GAME_IP, ip);
-        addFieldToByteArray(body, HOST_GAME_PORT, serverPort);
-        addFieldToByteArray(body, HOST_GAME_MAP, currentCourseIndex);
-        addFieldToByteArray(body, HOST_GAME_SPEED, speedScale.longValue());
-        addFieldToByteArray(body, HOST_GAME_STATUS, 1);
-        addFieldToByteArray(body, HOST_GAME_REQUIRED_PLAYERS, minParticipants);
-        addFieldToByteArray(body, HOST_GAME_CURRENT_PLAYERS, currentPlayers);
-        addFieldToByteArray(body, HOST_GAME_IS_PARTY_MODE, isPartyMode ? 1 : 0);
-        return generatePacket(header, body);
+        writer.putField(HOST_GAME_IP, ip);
+        writer.putField(HOST_GAME_PORT, serverPort);
+        writer.putField(HOST_GAME_MAP, currentCourseIndex);
+        writer.putField(HOST_GAME_SPEED, speedScale.longValue());
+        writer.putField(HOST_GAME_STATUS, 1);
+        writer.putField(HOST_GAME_REQUIRED_PLAYERS, minParticipants);
+        writer.putField(HOST_GAME_CURRENT_PLAYERS, currentPlayers);
+        writer.putField(HOST_GAME_IS_PARTY_MODE, isPartyMode ? 1 : 0);
+        writer.finish();
     }
 
 }
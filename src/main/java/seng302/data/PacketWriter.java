@@ -0,0 +1,144 @@
+package seng302.data;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import static seng302.data.AC35StreamField.*;
+
+/**
+ * Encodes AC35 stream messages straight into a ByteBuffer.
+ * A message is written by calling begin, setting its body fields, then calling finish, which fills in the CRC
+ * and moves the buffer position past the message. The header, body and CRC are written in place, so no
+ * intermediate arrays are created and many messages can be written one after another into the same buffer.
+ * A writer holds the message being written, so each thread needs its own.
+ */
+public class PacketWriter {
+
+    public static final int HEADER_LENGTH = 15;
+    public static final int CRC_LENGTH = 4;
+
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer;
+    private int packetStart;
+    private int bodyStart;
+    private int bodyLength;
+
+    /**
+     * @param bodyLength the length of a message body
+     * @return the length of the whole message including its header and CRC
+     */
+    public static int packetLength(int bodyLength) {
+        return HEADER_LENGTH + bodyLength + CRC_LENGTH;
+    }
+
+    /**
+     * Starts a message at the current position of the buffer by writing its header and clearing its body
+     * @param buffer the buffer to write into
+     * @param type the type of message
+     * @param sourceId the source id for the header
+     * @param bodyLength the length of the message body
+     * @param timestamp the time for the header, in epoch milliseconds
+     * @throws BufferOverflowException if the whole message will not fit in the buffer, in which case nothing
+     * is written
+     */
+    public void begin(ByteBuffer buffer, AC35StreamMessage type, int sourceId, int bodyLength, long timestamp) {
+        if (buffer.remaining() < packetLength(bodyLength)) {
+            throw new BufferOverflowException();
+        }
+        this.buffer = buffer;
+        this.bodyLength = bodyLength;
+        packetStart = buffer.position();
+        bodyStart = packetStart + HEADER_LENGTH;
+
+        buffer.put(packetStart, (byte) 0x47); //first sync byte
+        buffer.put(packetStart + 1, (byte) 0x83); //second sync byte
+        putBytes(packetStart, MESSAGE_TYPE, type.getValue());
+        putBytes(packetStart, HEADER_TIMESTAMP, timestamp);
+        putBytes(packetStart, HEADER_SOURCE_ID, sourceId);
+        putBytes(packetStart, MESSAGE_LENGTH, bodyLength);
+        for (int i = bodyStart; i < bodyStart + bodyLength; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Sets a field of the message body
+     * @param field the field, indexed from the start of the body
+     * @param value the value of the field, written in little endian order
+     */
+    public void putField(AC35StreamField field, long value) {
+        putBytes(bodyStart, field, value);
+    }
+
+    /**
+     * Sets a field of a block repeated within the message body, such as a boat in a race status message
+     * @param blockOffset the offset of the block from the start of the body
+     * @param field the field, indexed from the start of the block
+     * @param value the value of the field, written in little endian order
+     */
+    public void putField(int blockOffset, AC35StreamField field, long value) {
+        putBytes(bodyStart + blockOffset, field, value);
+    }
+
+    /**
+     * Sets a single byte of the message body
+     * @param offset the offset from the start of the body
+     * @param value the byte value
+     */
+    public void putByte(int offset, int value) {
+        buffer.put(bodyStart + offset, (byte) value);
+    }
+
+    /**
+     * Copies bytes into the message body
+     * @param offset the offset from the start of the body to copy to
+     * @param bytes the bytes to copy
+     * @param maxLength the most bytes to copy
+     */
+    public void putBytes(int offset, byte[] bytes, int maxLength) {
+        int length = Math.min(bytes.length, maxLength);
+        int position = buffer.position();
+        buffer.position(bodyStart + offset);
+        buffer.put(bytes, 0, length);
+        buffer.position(position);
+    }
+
+    /**
+     * Moves the buffer to an offset in the message body, so the rest of the body can be written into it with
+     * relative puts. Whatever position the body is written up to, finish leaves the buffer after the message.
+     * @param offset the offset from the start of the body
+     * @return the buffer the message is being written into
+     */
+    public ByteBuffer bodyAt(int offset) {
+        buffer.position(bodyStart + offset);
+        return buffer;
+    }
+
+    /**
+     * Finishes the message by calculating the CRC over its header and body and writing it after the body.
+     * The buffer is left positioned after the message.
+     */
+    public void finish() {
+        int bodyEnd = bodyStart + bodyLength;
+        int limit = buffer.limit();
+        buffer.limit(bodyEnd);
+        buffer.position(packetStart);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limit);
+        putBytes(bodyEnd, 0, crc.getValue(), CRC_LENGTH);
+        buffer.position(bodyEnd + CRC_LENGTH);
+        buffer = null;
+    }
+
+    private void putBytes(int base, AC35StreamField field, long value) {
+        putBytes(base, field.getStartIndex(), value, field.getLength());
+    }
+
+    private void putBytes(int base, int start, long value, int numBytes) {
+        for (int i = 0; i < numBytes; i++) {
+            buffer.put(base + start + i, (byte) (value >> i * 8));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package seng302.data;
+
+import seng302.utilities.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static seng302.data.AC35StreamField.HEADER_TIMESTAMP;
+
+/**
+ * Records the stream a server sends to its clients so that a race can be analysed or replayed afterwards.
+ * Every frame recorded is appended as it was sent to a stream file, which can be read back with a FrameDecoder, and
+ * a sparse index of times to offsets in the stream file is kept beside it. See RaceRecordingIndex for the index.
+ * Frames are handed to a writer thread of the recorder's own, so recording never waits on the disk. If the writer
+ * falls so far behind that its queue is full, frames are dropped from the recording rather than holding up the
+ * server.
+ */
+public class RaceRecorder {
+
+    public static final String STREAM_EXTENSION = ".ac35";
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int MAX_FRAMES_PER_WRITE = 256;
+    private static final long POLL_MILLIS = 100;
+    private static final int SYNC_BYTE_1 = 0x47;
+    private static final int SYNC_BYTE_2 = 0x83;
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final LongAdder RECORDED_FRAMES = METRICS.counter("race_recording_frames_total");
+    private static final LongAdder RECORDED_BYTES = METRICS.counter("race_recording_bytes_total");
+    private static final LongAdder DROPPED_FRAMES = METRICS.counter("race_recording_dropped_frames_total");
+
+    private final FileChannel stream;
+    private final FileChannel index;
+    private final long indexIntervalMillis;
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<byte[]> batch = new ArrayList<>(MAX_FRAMES_PER_WRITE);
+    private final ByteBuffer[] writeBuffers = new ByteBuffer[MAX_FRAMES_PER_WRITE];
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(MAX_FRAMES_PER_WRITE * RaceRecordingIndex.ENTRY_LENGTH);
+    private final Thread writer;
+    private volatile boolean closed = false;
+    private long streamOffset = 0;
+    private long nextIndexTime = Long.MIN_VALUE;
+
+    /**
+     * Starts a recording, creating its stream and index files
+     * @param directory the directory to record into
+     * @param name the name of the recording, which the files are named after
+     * @param indexIntervalMillis the time between index entries, by the timestamps in the frame headers
+     * @throws IOException if the files cannot be created
+     */
+    public RaceRecorder(Path directory, String name, long indexIntervalMillis) throws IOException {
+        this.indexIntervalMillis = indexIntervalMillis;
+        stream = FileChannel.open(directory.resolve(name + STREAM_EXTENSION),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            index = FileChannel.open(directory.resolve(name + INDEX_EXTENSION),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        writer = new Thread(this::writeFrames);
+        writer.setName("Race Recorder " + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues frames to be appended to the recording. The array is written as it is when the writer reaches it, so
+     * it must not be changed after it is recorded.
+     * @param frames one or more whole frames, as sent to the clients
+     */
+    public void record(byte[] frames) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(frames)) {
+            DROPPED_FRAMES.increment();
+        }
+    }
+
+    /**
+     * Ends the recording. Frames already recorded are still written, after which the files are closed by the
+     * writer thread.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Waits for the writer to finish the recording after it has been closed
+     */
+    public void awaitClose() throws InterruptedException {
+        writer.join();
+    }
+
+    private void writeFrames() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                byte[] first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_FRAMES_PER_WRITE - 1);
+                    writeBatch();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Server: Race recording failed, " + e.getMessage());
+            closed = true;
+            queue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeFiles();
+        }
+    }
+
+    /**
+     * Appends the frames in the batch to the stream file in one gathering write, then adds their index entries.
+     * Index entries are written after the frames, so the index never points past the end of the stream.
+     */
+    private void writeBatch() throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] frames = batch.get(i);
+            indexFrames(frames, streamOffset + bytes);
+            writeBuffers[i] = ByteBuffer.wrap(frames);
+            bytes += frames.length;
+        }
+        long written = 0;
+        while (written < bytes) {
+            written += stream.write(writeBuffers, 0, batch.size());
+        }
+        streamOffset += bytes;
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) {
+            index.write(indexBuffer);
+        }
+        indexBuffer.clear();
+        RECORDED_FRAMES.add(batch.size());
+        RECORDED_BYTES.add(bytes);
+    }
+
+    /**
+     * Adds an index entry for frames at an offset if an interval has passed since the last entry
+     */
+    private void indexFrames(byte[] frames, long offset) {
+        if (frames.length < PacketWriter.HEADER_LENGTH
+                || (frames[0] & 0xFF) != SYNC_BYTE_1 || (frames[1] & 0xFF) != SYNC_BYTE_2) {
+            return;
+        }
+        long timestamp = readLittleEndian(frames, HEADER_TIMESTAMP.getStartIndex(), HEADER_TIMESTAMP.getLength());
+        if (timestamp >= nextIndexTime) {
+            indexBuffer.putLong(timestamp);
+            indexBuffer.putLong(offset);
+            nextIndexTime = timestamp + indexIntervalMillis;
+        }
+    }
+
+    private long readLittleEndian(byte[] array, int index, int numBytes) {
+        long total = 0;
+        for (int i = index + numBytes - 1; i >= index; i--) {
+            total = (total << 8) + (array[i] & 0xFF);
+        }
+        return total;
+    }
+
+    private void closeFiles() {
+        closeFile(stream);
+        closeFile(index);
+    }
+
+    private void closeFile(FileChannel file) {
+        try (FileChannel closing = file) {
+            closing.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package seng302.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static seng302.data.AC35StreamField.*;
+import static seng302.data.PacketWriter.HEADER_LENGTH;
+
+/**
+ * A race stream recorded by a RaceRecorder, memory-mapped for reading. Frames are found by their offsets in the
+ * stream and can be handed out as read-only slices of the mapped file, so they are sent on without being copied or
+ * encoded again. The recording is read up to the end of its last whole frame, so one cut short by a server that
+ * was still writing it can be read.
+ * The offsets of the XML messages are noted when the recording is opened, so the XML messages in force at any point
+ * can be found without reading the recording up to it.
+ */
+public class RaceRecording {
+
+    private static final int SYNC_BYTE_1 = 0x47;
+    private static final int SYNC_BYTE_2 = 0x83;
+
+    private final MappedByteBuffer stream;
+    private final RaceRecordingIndex index;
+    private final Map<AC35StreamXMLMessage, int[]> xmlFrames = new EnumMap<>(AC35StreamXMLMessage.class);
+    private int end = 0;
+    private int lastFrame = 0;
+
+    RaceRecording(MappedByteBuffer stream, RaceRecordingIndex index) {
+        this.stream = stream;
+        this.index = index;
+        Map<AC35StreamXMLMessage, List<Integer>> xmlOffsets = new EnumMap<>(AC35StreamXMLMessage.class);
+        while (isFrame(end)) {
+            lastFrame = end;
+            if (getType(end) == AC35StreamMessage.XML_MESSAGE.getValue() && getXmlType(end) != null) {
+                xmlOffsets.computeIfAbsent(getXmlType(end), type -> new ArrayList<>()).add(end);
+            }
+            end = nextFrame(end);
+        }
+        for (Map.Entry<AC35StreamXMLMessage, List<Integer>> offsets : xmlOffsets.entrySet()) {
+            xmlFrames.put(offsets.getKey(), offsets.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Maps a recording, with the index beside it if there is one
+     * @param streamFile the stream file of the recording
+     * @return the recording
+     * @throws IOException if the file cannot be read, or is too large to map in one piece
+     */
+    public static RaceRecording open(Path streamFile) throws IOException {
+        MappedByteBuffer stream;
+        try (FileChannel channel = FileChannel.open(streamFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Recording is too large to replay");
+            }
+            stream = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        String name = streamFile.getFileName().toString();
+        if (name.endsWith(RaceRecorder.STREAM_EXTENSION)) {
+            name = name.substring(0, name.length() - RaceRecorder.STREAM_EXTENSION.length());
+        }
+        Path indexFile = streamFile.resolveSibling(name + RaceRecorder.INDEX_EXTENSION);
+        RaceRecordingIndex index = Files.exists(indexFile) ? RaceRecordingIndex.read(indexFile) : null;
+        return new RaceRecording(stream, index);
+    }
+
+    /**
+     * @return the offset just past the last whole frame, where there are no more frames to read
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the timestamp of the first frame, or 0 if there are no frames
+     */
+    public long getStartTime() {
+        return end == 0 ? 0 : getTime(0);
+    }
+
+    /**
+     * @return the timestamp of the last frame, or 0 if there are no frames
+     */
+    public long getEndTime() {
+        return end == 0 ? 0 : getTime(lastFrame);
+    }
+
+    /**
+     * @param offset the offset of a frame
+     * @return the offset of the frame after it
+     */
+    public int nextFrame(int offset) {
+        int bodyLength = (int) read(offset + MESSAGE_LENGTH.getStartIndex(), MESSAGE_LENGTH.getLength());
+        return offset + PacketWriter.packetLength(bodyLength);
+    }
+
+    /**
+     * @param offset the offset of a frame
+     * @return the header timestamp of the frame, in epoch milliseconds
+     */
+    public long getTime(int offset) {
+        return read(offset + HEADER_TIMESTAMP.getStartIndex(), HEADER_TIMESTAMP.getLength());
+    }
+
+    /**
+     * @param offset the offset of a frame
+     * @return the message type of the frame
+     */
+    public int getType(int offset) {
+        return stream.get(offset + MESSAGE_TYPE.getStartIndex()) & 0xFF;
+    }
+
+    /**
+     * @param offset the offset of a frame that is an XML message
+     * @return the subtype of the XML message, or null if it is not one the server sends
+     */
+    public AC35StreamXMLMessage getXmlType(int offset) {
+        return AC35StreamXMLMessage.fromInteger(stream.get(offset + HEADER_LENGTH + XML_SUBTYPE.getStartIndex()) & 0xFF);
+    }
+
+    /**
+     * Gives a read-only view of part of the recording, without copying it
+     * @param from the offset of the first frame
+     * @param to the offset just past the last frame
+     * @return the frames between the offsets
+     */
+    public ByteBuffer slice(int from, int to) {
+        ByteBuffer frames = stream.asReadOnlyBuffer();
+        frames.limit(to);
+        frames.position(from);
+        return frames.slice();
+    }
+
+    /**
+     * @param offset the offset of a frame
+     * @return a copy of the frame
+     */
+    public byte[] copyFrame(int offset) {
+        int next = nextFrame(offset);
+        byte[] frame = new byte[next - offset];
+        slice(offset, next).get(frame);
+        return frame;
+    }
+
+    /**
+     * Finds the first frame at or after a time, jumping most of the way with the index if the recording has one
+     * @param timeMillis the time in epoch milliseconds
+     * @return the offset of the frame, or the end if every frame is before the time
+     */
+    public int offsetAt(long timeMillis) {
+        int offset = 0;
+        if (index != null) {
+            offset = (int) Math.min(index.offsetAt(timeMillis), end);
+        }
+        while (offset < end && getTime(offset) < timeMillis) {
+            offset = nextFrame(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the latest XML message of each type before a frame, which are the ones a client needs to show the race
+     * from that frame on
+     * @param offset the offset of the frame
+     * @return the offsets of the XML messages, in the order they were recorded
+     */
+    public int[] latestXmlFramesBefore(int offset) {
+        int[] latest = new int[xmlFrames.size()];
+        int count = 0;
+        for (int[] offsets : xmlFrames.values()) {
+            int found = Arrays.binarySearch(offsets, offset);
+            int before = (found >= 0 ? found : -found - 1) - 1;
+            if (before >= 0) {
+                latest[count++] = offsets[before];
+            }
+        }
+        latest = Arrays.copyOf(latest, count);
+        Arrays.sort(latest);
+        return latest;
+    }
+
+    private boolean isFrame(int offset) {
+        return stream.limit() - offset >= HEADER_LENGTH
+                && (stream.get(offset) & 0xFF) == SYNC_BYTE_1 && (stream.get(offset + 1) & 0xFF) == SYNC_BYTE_2
+                && nextFrame(offset) <= stream.limit();
+    }
+
+    private long read(int index, int numBytes) {
+        long total = 0;
+        for (int i = index + numBytes - 1; i >= index; i--) {
+            total = (total << 8) + (stream.get(i) & 0xFF);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,85 @@
+package seng302.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The index of a race recording, for seeking to a time in its stream file.
+ * The index file is a list of entries in time order, each a big-endian long of a frame header timestamp in epoch
+ * milliseconds followed by a big-endian long of the offset of that frame in the stream file. The first frame
+ * recorded always has an entry, and after that there is an entry for the first frame at least an interval after the
+ * last entry.
+ */
+public class RaceRecordingIndex {
+
+    public static final int ENTRY_LENGTH = 2 * Long.BYTES;
+
+    private final long[] times;
+    private final long[] offsets;
+
+    RaceRecordingIndex(long[] times, long[] offsets) {
+        this.times = times;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Reads an index file. An entry cut short at the end of the file, by a recording that is still being written,
+     * is left out.
+     * @param indexFile the index file
+     * @return the index
+     * @throws IOException if the file cannot be read
+     */
+    public static RaceRecordingIndex read(Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            int entries = (int) (channel.size() / ENTRY_LENGTH);
+            ByteBuffer buffer = ByteBuffer.allocate(entries * ENTRY_LENGTH);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            }
+            buffer.flip();
+            entries = buffer.remaining() / ENTRY_LENGTH;
+            long[] times = new long[entries];
+            long[] offsets = new long[entries];
+            for (int i = 0; i < entries; i++) {
+                times[i] = buffer.getLong();
+                offsets[i] = buffer.getLong();
+            }
+            return new RaceRecordingIndex(times, offsets);
+        }
+    }
+
+    /**
+     * @return the number of entries in the index
+     */
+    public int size() {
+        return times.length;
+    }
+
+    public long getTime(int entry) {
+        return times[entry];
+    }
+
+    public long getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    /**
+     * Finds where to start reading the stream to see everything from a time onwards
+     * @param timeMillis the time in epoch milliseconds
+     * @return the offset of the last indexed frame at or before the time, or 0 if the time is before the first
+     */
+    public long offsetAt(long timeMillis) {
+        int entry = Arrays.binarySearch(times, timeMillis);
+        if (entry < 0) {
+            entry = -entry - 2;
+        } else {
+            while (entry > 0 && times[entry - 1] == timeMillis) {
+                entry--;
+            }
+        }
+        return entry < 0 ? 0 : offsets[entry];
+    }
+}
@@ -0,0 +1,192 @@
+package seng302.data;
+
+import seng302.models.*;
+
+import java.util.*;
+
+/**
+ * The contents of a race XML file, parsed once and kept without any of the mutable model objects.
+ * A template is immutable, so one can be shared by every race on its course, and each race gets its own Course
+ * and Race built from it without reading or parsing the XML again.
+ */
+public final class RaceTemplate {
+
+    private final String raceId;
+    private final long startTimeEpochMs;
+    private final Set<Integer> competitorIds;
+    private final List<CompoundMarkTemplate> compoundMarks;
+    private final List<CornerTemplate> corners;
+    private final double[] boundaryLats;
+    private final double[] boundaryLons;
+    private final Double windDirection;
+
+    RaceTemplate(String raceId, long startTimeEpochMs, Set<Integer> competitorIds,
+                 List<CompoundMarkTemplate> compoundMarks, List<CornerTemplate> corners,
+                 List<Coordinate> boundary, Double windDirection) {
+        this.raceId = raceId;
+        this.startTimeEpochMs = startTimeEpochMs;
+        this.competitorIds = Collections.unmodifiableSet(new HashSet<>(competitorIds));
+        this.compoundMarks = Collections.unmodifiableList(new ArrayList<>(compoundMarks));
+        this.corners = Collections.unmodifiableList(new ArrayList<>(corners));
+        this.boundaryLats = new double[boundary.size()];
+        this.boundaryLons = new double[boundary.size()];
+        for (int i = 0; i < boundary.size(); i++) {
+            boundaryLats[i] = boundary.get(i).getLat();
+            boundaryLons[i] = boundary.get(i).getLon();
+        }
+        this.windDirection = windDirection;
+    }
+
+    public String getRaceId() {
+        return raceId;
+    }
+
+    public long getStartTimeInEpochMs() {
+        return startTimeEpochMs;
+    }
+
+    public Set<Integer> getCompetitorIds() {
+        return competitorIds;
+    }
+
+    /**
+     * Builds a new race from the template, with its own course
+     * @return the race
+     */
+    public Race createRace() {
+        Race race = new Race();
+        race.setCourse(createCourse());
+        race.setId(raceId);
+        race.setStartTimeInEpochMs(startTimeEpochMs);
+        race.setCompetitorIds(new HashSet<>(competitorIds));
+        return race;
+    }
+
+    /**
+     * Builds a new course from the template. Marks with the same source id are the same Mark in every compound
+     * mark they are part of, and the first and last marks in the course order are made into the start and finish
+     * lines.
+     * @return the course
+     * @throws InputMismatchException if the course has no legs or its finish line does not have two marks
+     */
+    public Course createCourse() {
+        Course course = new Course();
+        Map<Integer, Mark> marks = new HashMap<>();
+        for (CompoundMarkTemplate template : compoundMarks) {
+            course.addNewCompoundMark(template.create(marks));
+        }
+        for (CornerTemplate corner : corners) {
+            if (corner.isFirst) {
+                CompoundMark mark = course.getCompoundMarkByID(corner.compoundMarkId);
+                if (!mark.hasTwoMarks()) {
+                    throw new RuntimeException("Race xml file has a incorrectly formatted Start Line");
+                }
+            }
+            course.addMarkInOrder(corner.compoundMarkId, corner.roundingSide);
+        }
+        if (windDirection != null) {
+            course.setWindDirection(windDirection);
+        }
+        for (int i = 0; i < boundaryLats.length; i++) {
+            course.addToBoundary(new Coordinate(boundaryLats[i], boundaryLons[i]));
+        }
+        if (course.getCourseOrder().size() < 2) {
+            throw new InputMismatchException("There must be at least one leg in the course.");
+        }
+        setRaceLines(course);
+        return course;
+    }
+
+    /**
+     * Sets the first and final marks in course order to race lines.
+     * @param course The course that the raceLines will be changed
+     */
+    private static void setRaceLines(Course course) {
+        CompoundMark startLine;
+        int startLinePos = 0;
+        if(course.getCourseOrder().get(0).hasTwoMarks()){
+            startLine = course.getCourseOrder().get(0);
+        }else {
+            startLine = course.getCourseOrder().get(1);
+            course.setHasEntryMark(true);
+            startLinePos = 1;
+        }
+        course.removeCompoundMark(startLine);
+        RaceLine startRaceLine = CompoundMark.convertToRaceLine(startLine, CompoundMark.MarkType.START);
+        course.setStartLine(startRaceLine);
+        course.getCourseOrder().set(startLinePos, startRaceLine);
+        course.addNewCompoundMark(startRaceLine);
+
+        int lastMarkIndex = course.getCourseOrder().size() - 1;
+        CompoundMark finishLine = course.getCourseOrder().get(lastMarkIndex);
+        if(finishLine.hasTwoMarks()){
+            course.removeCompoundMark(finishLine);
+            RaceLine finishRaceLine = CompoundMark.convertToRaceLine(finishLine, CompoundMark.MarkType.FINISH);
+            course.setFinishLine(finishRaceLine);
+            course.getCourseOrder().set(lastMarkIndex, finishRaceLine);
+            course.addNewCompoundMark(finishRaceLine);
+        } else{
+            throw new InputMismatchException("The finish line must have 2 marks.");
+        }
+    }
+
+    /**
+     * A single mark of a compound mark
+     */
+    static final class MarkTemplate {
+        private final int sourceId;
+        private final String name;
+        private final double lat;
+        private final double lon;
+
+        MarkTemplate(int sourceId, String name, double lat, double lon) {
+            this.sourceId = sourceId;
+            this.name = name;
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        private Mark create(Map<Integer, Mark> marks) {
+            return marks.computeIfAbsent(sourceId, id -> new Mark(id, name, new Coordinate(lat, lon)));
+        }
+    }
+
+    /**
+     * A compound mark of one or two marks
+     */
+    static final class CompoundMarkTemplate {
+        private final int id;
+        private final String name;
+        private final MarkTemplate mark1;
+        private final MarkTemplate mark2;
+
+        CompoundMarkTemplate(int id, String name, MarkTemplate mark1, MarkTemplate mark2) {
+            this.id = id;
+            this.name = name;
+            this.mark1 = mark1;
+            this.mark2 = mark2;
+        }
+
+        private CompoundMark create(Map<Integer, Mark> marks) {
+            if (mark2 != null) {
+                return new CompoundMark(id, name, mark1.create(marks), mark2.create(marks));
+            }
+            return new CompoundMark(id, name, mark1.create(marks));
+        }
+    }
+
+    /**
+     * A compound mark in the course order, and the side it is rounded on
+     */
+    static final class CornerTemplate {
+        private final int compoundMarkId;
+        private final RoundingSide roundingSide;
+        private final boolean isFirst;
+
+        CornerTemplate(int compoundMarkId, RoundingSide roundingSide, boolean isFirst) {
+            this.compoundMarkId = compoundMarkId;
+            this.roundingSide = roundingSide;
+            this.isFirst = isFirst;
+        }
+    }
+}
@@ -1,28 +1,23 @@
 package seng302.data;
 
 import org.joda.time.DateTime;
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
 import seng302.models.*;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
 /**
  * Created on 6/03/17.
  * Collection of methods for reading in data from files. Files must be located in the DEFAULT_FILE_PATH folder
+ * The XML is read as a stream of StAX events rather than built into a DOM, so a file is read in one pass without
+ * holding a tree of it in memory. Race files are read into a RaceTemplate, which CourseCache keeps for each
+ * course so the default files are only read once.
  */
 
 public class RaceVisionXMLParser {
@@ -30,10 +25,18 @@ public class RaceVisionXMLParser {
     private static final String DEFAULT_COURSE_FILE = "AC35-course.xml";
     public static String courseFile = DEFAULT_COURSE_FILE;
     private static final String BOAT_FILE = "Boat.xml";
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
 
-    private final String DATE_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
-
-    private Document dom;
+    /**
+     * Creates the factory for the XML readers. XML is read from the network by clients, so DTDs and external
+     * entities are not supported.
+     */
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
 
     /**
      * Manages importing the course from the correct place
@@ -43,15 +46,8 @@ public class RaceVisionXMLParser {
      * @return a Course object.
      */
     public Course importCourse(InputStream resourcePath) {
-        try {
-            parseXMLStream(resourcePath);
-            return importCourseFromXML();
-        }  catch (IOException ioe) {
-            System.err.printf("Unable to read %s as a course definition file. " +
-                    "Ensure it is correctly formatted.\n", resourcePath);
-            ioe.printStackTrace();
-            return null;
-        }
+        RaceTemplate template = importRaceTemplate(resourcePath);
+        return template == null ? null : template.createCourse();
     }
 
     /**
@@ -62,15 +58,8 @@ public class RaceVisionXMLParser {
      * @return a Race object.
      */
     public Race importRace(InputStream resourcePath){
-        try {
-            parseXMLStream(resourcePath);
-            return importRaceFromXML();
-        }  catch (IOException ioe) {
-            System.err.printf("Unable to read %s as a course definition file. " +
-                    "Ensure it is correctly formatted.\n", resourcePath);
-            ioe.printStackTrace();
-            return null;
-        }
+        RaceTemplate template = importRaceTemplate(resourcePath);
+        return template == null ? null : template.createRace();
     }
 
     /**
@@ -78,196 +67,170 @@ public class RaceVisionXMLParser {
      * @return a Race object
      */
     public Race importRace(){
-        String resourcePath = "/defaultFiles/" + courseFile;
-        return importRace(RaceVisionXMLParser.class.getResourceAsStream(resourcePath));
-    }
-
-    /**
-     * Sets the race id in the course xml dom
-     * @param root The root tag ("Race") of the dom
-     * @param raceId The desired race id
-     */
-    private void setRaceId(Element root, String raceId){
-        NodeList raceIdList = root.getElementsByTagName(XMLTags.Race.RACE_ID);
-        raceIdList.item(0).setTextContent(raceId);
-    }
-
-    /**
-     * Sets the message creation date and time in the course xml dom
-     * @param root The root tag ("Race") of the dom
-     */
-    private void setCreationTime(Element root){
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
-        NodeList creationTimeList = root.getElementsByTagName(XMLTags.Race.CREATION_TIME);
-
-        LocalDateTime creationTime = LocalDateTime.now(ZoneId.of("UTC"));
-        String formattedCreationTime = creationTime.format(formatter);
-
-        creationTimeList.item(0).setTextContent(formattedCreationTime);
+        return CourseCache.createRace(courseFile);
     }
 
     /**
-     * Sets the race start time in the AC35-course.xml dom
-     * @param root The root tag ("Race") of the dom
-     * @param expectStartTimeEpochMs The expected race start time in epoch milliseconds
+     * Reads a race XML file into a template that races and courses can be built from
+     * @param inputStream the race xml
+     * @return the template, or null if the stream is not well formed XML
+     * @throws IllegalArgumentException if the stream is null
      */
-    private void setStartTime(Element root, Long expectStartTimeEpochMs){
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
-        NodeList startTimeList = root.getElementsByTagName(XMLTags.Race.START_TIME);
-
-        LocalDateTime startTime = LocalDateTime.ofEpochSecond(expectStartTimeEpochMs / 1000, 0, ZoneOffset.UTC);
-        String formattedStartTime = startTime.format(formatter);
-
-        startTimeList.item(0).getAttributes().getNamedItem(XMLTags.Race.START).setTextContent(formattedStartTime);
+    public RaceTemplate importRaceTemplate(InputStream inputStream) {
+        try {
+            return parseRaceTemplate(openReader(inputStream));
+        } catch (XMLStreamException e) {
+            System.err.printf("Unable to read %s as a course definition file. " +
+                    "Ensure it is correctly formatted.\n", inputStream);
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
-     * Injects the correct participants into the raceXML field
-     * @param root The root tag ("Race") of the dom
-     * @param participantIds participant Ids to inject
+     * Updates the race.xml in race id, race creation time, race start time fields and participants fields, with
+     * the creation time set to now.
+     * @param raceXML The InputStream-ed race xml file
+     * @param raceId The race id of the race
+     * @param expectStartTimeEpochMs The expected start time of the race
+     * @return A InputStream with the race xml containing the update fields
      */
-    private void setParticipants(Element root, ArrayList<Integer> participantIds) {
-        NodeList participants = root.getElementsByTagName(XMLTags.Course.PARTICIPANTS);
-        for (Integer id : participantIds) {
-            Element participant = dom.createElement(XMLTags.Boats.YACHT);
-            participant.setAttribute(XMLTags.Boats.SOURCE_ID, id.toString());
-            participants.item(0).appendChild(participant);
-        }
+    InputStream injectRaceXMLFields(InputStream raceXML, String raceId, Long expectStartTimeEpochMs, ArrayList<Integer> participantIds){
+        return injectRaceXMLFields(raceXML, raceId, expectStartTimeEpochMs, participantIds, System.currentTimeMillis());
     }
 
     /**
      * Updates the race.xml in race id, race creation time, race start time fields and participants fields.
+     * The fields are spliced into the bytes of the xml by a RaceXmlTemplate.
      * @param raceXML The InputStream-ed race xml file
      * @param raceId The race id of the race
      * @param expectStartTimeEpochMs The expected start time of the race
+     * @param creationTimeEpochMs The time the message is created
      * @return A InputStream with the race xml containing the update fields
      */
-    InputStream injectRaceXMLFields(InputStream raceXML, String raceId, Long expectStartTimeEpochMs, ArrayList<Integer> participantIds){
+    InputStream injectRaceXMLFields(InputStream raceXML, String raceId, Long expectStartTimeEpochMs, ArrayList<Integer> participantIds,
+                                    long creationTimeEpochMs){
         try {
-            parseXMLStream(raceXML);
-            Element root = dom.getDocumentElement();
-
-            setCreationTime(root);
-            setStartTime(root, expectStartTimeEpochMs);
-            setParticipants(root, participantIds);
-
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            StringWriter writer = new StringWriter();
-            transformer.transform(new DOMSource(dom), new StreamResult(writer));
-
-            String output = writer.getBuffer().toString();
-
-            return new ByteArrayInputStream(output.getBytes());
-        } catch (IOException | TransformerException e) {
+            RaceXmlTemplate template = RaceXmlTemplate.compile(CourseCache.readAll(raceXML));
+            return new ByteArrayInputStream(template.toByteArray(creationTimeEpochMs, expectStartTimeEpochMs, participantIds));
+        } catch (IOException e) {
             e.printStackTrace();
         }
         return null;
     }
 
-
     /**
-     * Attempts to read the desired XML file into the Document parser
-     * @param inputStream - the location of the file to be read, must be XML
-     * @throws IOException if the file is not found
+     * Opens a reader on an XML stream, positioned on its root element
+     * @param inputStream the xml
+     * @return the reader
+     * @throws IllegalArgumentException if the stream is null
+     * @throws XMLStreamException if the stream does not start with an element
      */
-    private void parseXMLStream(InputStream inputStream) throws IOException{
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        try {
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            dom = db.parse(inputStream);
-        } catch(ParserConfigurationException | SAXException pce) {
-            pce.printStackTrace();
+    private XMLStreamReader openReader(InputStream inputStream) throws XMLStreamException {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("InputStream cannot be null");
         }
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+        reader.nextTag();
+        return reader;
     }
 
     /**
-     * Decodes an XML file into a Race object
-     * @return a Race Object
+     * Moves the reader to the next element inside the current one
+     * @param reader the reader, on the start of an element or the end of one of its children
+     * @return true if the reader is on the start of a child element, false if it is on the end of the element
      */
-    private Race importRaceFromXML(){
-        Race race = new Race();
-
-        race.setCourse(importCourseFromXML());
-
-        Element root = dom.getDocumentElement();
-        NodeList raceIdList = root.getElementsByTagName(XMLTags.Race.RACE_ID);
-        String raceId = raceIdList.item(0).getTextContent();
-        race.setId(raceId);
-
-        NodeList startTimeList = root.getElementsByTagName(XMLTags.Race.START_TIME);
-        String startTimeString = startTimeList.item(0).getAttributes().getNamedItem(XMLTags.Race.START).getTextContent();
-        DateTime startTime = new DateTime( startTimeString ) ;
-
-        race.setStartTimeInEpochMs(startTime.getMillis());
-        race.setCompetitorIds(parseCompetitorIds());
+    private boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                return true;
+            } else if (event == END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
 
-        return race;
+    /**
+     * Moves the reader past the end of the element it is on the start of
+     */
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+            }
+        }
     }
 
     /**
-     * Decodes an XML file into a Course object
-     * @return a Course object
+     * Decodes an XML file into a RaceTemplate
+     * @param reader a reader on the root element
+     * @return a RaceTemplate
      */
-    private Course importCourseFromXML() {
-        Course course = new Course();
+    private RaceTemplate parseRaceTemplate(XMLStreamReader reader) throws XMLStreamException {
+        String raceId = null;
+        long startTime = 0;
+        Set<Integer> competitorIds = new HashSet<>();
+        List<RaceTemplate.CompoundMarkTemplate> compoundMarks = new ArrayList<>();
+        Map<Integer, String[]> markOrder = new TreeMap<>();
+        List<Coordinate> boundary = new ArrayList<>();
+        Double windDirection = null;
 
         try {
-            Element root = dom.getDocumentElement();
-            if (root.getTagName() != XMLTags.Course.RACE) {
+            if (!reader.getLocalName().equals(XMLTags.Course.RACE)) {
                 String message = String.format("The root tag must be <%s>.", XMLTags.Course.RACE);
                 throw new XMLParseException(XMLTags.Course.RACE, message);
             }
-
-            NodeList nodes = root.getChildNodes();
-            for (int i = 0; i < nodes.getLength(); i++) {
-                Node node = nodes.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    switch (element.getTagName()) {
-                        case XMLTags.Course.COURSE:
-                            NodeList compoundMarks = element.getElementsByTagName(XMLTags.Course.COMPOUND_MARK);
-                            for (int j = 0; j < compoundMarks.getLength(); j++){
-                                CompoundMark mark = parseCompoundMark((Element) compoundMarks.item(j), course);
-                                course.addNewCompoundMark(mark);
-                            }
-                            break;
-                        case XMLTags.Course.COMPOUND_MARK_SEQUENCE:
-                            NodeList legs = element.getElementsByTagName(XMLTags.Course.CORNER);
-                            Map<Integer, ArrayList<String>> markOrder = new TreeMap<>();
-                            for (int k = 0; k < legs.getLength(); k++) {
-                                Element corner = (Element) legs.item(k);
-                                ArrayList<String> markRounding = new ArrayList<>();
-                                Integer seqNumber = Integer.parseInt(corner.getAttribute(XMLTags.Course.SEQ_ID));
-                                markRounding.add(corner.getAttribute(XMLTags.Course.COMPOUND_MARK_ID));
-                                markRounding.add(corner.getAttribute(XMLTags.Course.ROUNDING));
-                                markOrder.put(seqNumber, markRounding);
-                            }
-                            for(Integer seqNumber : markOrder.keySet()){
-                                int markID = Integer.parseInt(markOrder.get(seqNumber).get(0));
-                                RoundingSide roundingSide = RoundingSide.parseRoundingSide(markOrder.get(seqNumber).get(1));
-                                if (seqNumber == 1) {
-                                    CompoundMark mark = course.getCompoundMarkByID(markID);
-                                    if (!mark.hasTwoMarks()){
-                                        throw new RuntimeException("Race xml file has a incorrectly formatted Start Line");
-                                    }
-                                }
-                                course.addMarkInOrder(markID, roundingSide);
-                            }
-                            break;
-                        case XMLTags.Course.WIND:
-                            course.setWindDirection(Double.parseDouble(element.getTextContent()));
-                            break;
-                        case XMLTags.Course.COURSE_LIMIT:
-                            String nameAttr = element.getAttribute(XMLTags.Course.COURSE_LIMIT_NAME_ATTR);
-                            if (nameAttr.isEmpty() || nameAttr.equals(XMLTags.Course.BOUNDARY)) {
-                                NodeList courseLimits = element.getElementsByTagName(XMLTags.Course.LIMIT);
-                                for (int k = 0; k < courseLimits.getLength(); k++) {
-                                    Coordinate coord = parseCourseLimitCoord((Element) courseLimits.item(k));
-                                    course.addToBoundary(coord);
-                                }
-                            }
-                            break;
-                    }
+            while (nextChild(reader)) {
+                switch (reader.getLocalName()) {
+                    case XMLTags.Race.RACE_ID:
+                        raceId = reader.getElementText();
+                        break;
+                    case XMLTags.Race.START_TIME:
+                        startTime = new DateTime(reader.getAttributeValue(null, XMLTags.Race.START)).getMillis();
+                        skipElement(reader);
+                        break;
+                    case XMLTags.Course.PARTICIPANTS:
+                        while (nextChild(reader)) {
+                            competitorIds.add(Integer.parseInt(reader.getAttributeValue(null, XMLTags.Boats.SOURCE_ID)));
+                            skipElement(reader);
+                        }
+                        break;
+                    case XMLTags.Course.COURSE:
+                        parseDescendants(reader, XMLTags.Course.COMPOUND_MARK,
+                                () -> compoundMarks.add(parseCompoundMark(reader)));
+                        break;
+                    case XMLTags.Course.COMPOUND_MARK_SEQUENCE:
+                        parseDescendants(reader, XMLTags.Course.CORNER, () -> {
+                            Integer seqNumber = Integer.parseInt(reader.getAttributeValue(null, XMLTags.Course.SEQ_ID));
+                            markOrder.put(seqNumber, new String[]{
+                                    reader.getAttributeValue(null, XMLTags.Course.COMPOUND_MARK_ID),
+                                    reader.getAttributeValue(null, XMLTags.Course.ROUNDING)});
+                            skipElement(reader);
+                        });
+                        break;
+                    case XMLTags.Course.WIND:
+                        windDirection = Double.parseDouble(reader.getElementText());
+                        break;
+                    case XMLTags.Course.COURSE_LIMIT:
+                        String nameAttr = reader.getAttributeValue(null, XMLTags.Course.COURSE_LIMIT_NAME_ATTR);
+                        if (nameAttr == null || nameAttr.isEmpty() || nameAttr.equals(XMLTags.Course.BOUNDARY)) {
+                            parseDescendants(reader, XMLTags.Course.LIMIT, () -> {
+                                boundary.add(parseCourseLimitCoord(reader));
+                                skipElement(reader);
+                            });
+                        } else {
+                            skipElement(reader);
+                        }
+                        break;
+                    default:
+                        skipElement(reader);
+                        break;
                 }
             }
         } catch (XMLParseException e) {
@@ -275,105 +238,90 @@ public class RaceVisionXMLParser {
             e.printStackTrace();
         }
 
-
-        if(course.getCourseOrder().size() < 2){
-            throw new InputMismatchException("There must be at least one leg in the course.");
+        List<RaceTemplate.CornerTemplate> corners = new ArrayList<>();
+        for (Map.Entry<Integer, String[]> corner : markOrder.entrySet()) {
+            corners.add(new RaceTemplate.CornerTemplate(Integer.parseInt(corner.getValue()[0]),
+                    RoundingSide.parseRoundingSide(corner.getValue()[1]), corner.getKey() == 1));
         }
+        return new RaceTemplate(raceId, startTime, competitorIds, compoundMarks, corners, boundary, windDirection);
+    }
 
-        setRaceLines(course);
-        return course;
+    /**
+     * Something to do with the reader on the start of an element, which leaves it on the end of that element
+     */
+    private interface ElementParser {
+        void parse() throws XMLStreamException, XMLParseException;
     }
 
     /**
-     * Sets the first and final marks in course order to race lines.
-     * @param course The course that the raceLines will be changed
+     * Runs a parser on every element with a tag inside the current element, however deeply nested
+     * @param reader the reader, on the start of the element to look in, which is left on its end
+     * @param tag the tag of the elements to parse
+     * @param parser the parser for each element
      */
-    private static void setRaceLines(Course course) {
-        CompoundMark startLine;
-        int startLinePos = 0;
-        if(course.getCourseOrder().get(0).hasTwoMarks()){
-            startLine = course.getCourseOrder().get(0);
-        }else {
-            startLine = course.getCourseOrder().get(1);
-            course.setHasEntryMark(true);
-            startLinePos = 1;
-        }
-        course.removeCompoundMark(startLine);
-        RaceLine startRaceLine = CompoundMark.convertToRaceLine(startLine, CompoundMark.MarkType.START);
-        course.setStartLine(startRaceLine);
-        course.getCourseOrder().set(startLinePos, startRaceLine);
-        course.addNewCompoundMark(startRaceLine);
-
-        int lastMarkIndex = course.getCourseOrder().size() - 1;
-        CompoundMark finishLine = course.getCourseOrder().get(lastMarkIndex);
-        if(finishLine.hasTwoMarks()){
-            course.removeCompoundMark(finishLine);
-            RaceLine finishRaceLine = CompoundMark.convertToRaceLine(finishLine, CompoundMark.MarkType.FINISH);
-            course.setFinishLine(finishRaceLine);
-            course.getCourseOrder().set(lastMarkIndex, finishRaceLine);
-            course.addNewCompoundMark(finishRaceLine);
-        } else{
-            throw new InputMismatchException("The finish line must have 2 marks.");
+    private void parseDescendants(XMLStreamReader reader, String tag, ElementParser parser)
+            throws XMLStreamException, XMLParseException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                if (reader.getLocalName().equals(tag)) {
+                    parser.parse();
+                } else {
+                    depth++;
+                }
+            } else if (event == END_ELEMENT) {
+                depth--;
+            }
         }
     }
 
     /**
      * Parses a single Mark in a CompoundMark element
-     * @param markElement A <Mark> element
-     * @return a Mark representing the data given in the Mark element of the XML
+     * @param reader a reader on a <Mark> element
+     * @return a MarkTemplate representing the data given in the Mark element of the XML
      */
-    private Mark parseMark(Element markElement, Course course){
-        String markName = markElement.getAttribute(XMLTags.Course.NAME);
-        Double lat1 = Double.parseDouble(markElement.getAttribute(XMLTags.Course.TARGET_LAT));
-        Double lon1 = Double.parseDouble(markElement.getAttribute(XMLTags.Course.TARGET_LON));
-        Integer sourceId = Integer.parseInt(markElement.getAttribute(XMLTags.Course.SOURCE_ID));
-        if(course.getAllMarks().containsKey(sourceId)){
-            return course.getAllMarks().get(sourceId);
-        } else{
-            return new Mark(sourceId, markName, new Coordinate(lat1, lon1));
-        }
+    private RaceTemplate.MarkTemplate parseMark(XMLStreamReader reader){
+        String markName = reader.getAttributeValue(null, XMLTags.Course.NAME);
+        double lat = Double.parseDouble(reader.getAttributeValue(null, XMLTags.Course.TARGET_LAT));
+        double lon = Double.parseDouble(reader.getAttributeValue(null, XMLTags.Course.TARGET_LON));
+        int sourceId = Integer.parseInt(reader.getAttributeValue(null, XMLTags.Course.SOURCE_ID));
+        return new RaceTemplate.MarkTemplate(sourceId, markName, lat, lon);
     }
 
     /**
-     * Decodes a CompoundMark element into a CompoundMark object
-     * @param compoundMarkElement - an XML <CompoundMark> element
-     * @return a CompoundMark (potentially RaceLine) object
+     * Decodes a CompoundMark element into a CompoundMarkTemplate. A compound mark with two marks is a gate or line,
+     * otherwise only its first mark is used.
+     * @param reader a reader on an XML <CompoundMark> element, which is left on its end
+     * @return a CompoundMarkTemplate
      * @throws XMLParseException when an expected tag is missing or unexpectedly formatted
      */
-    private CompoundMark parseCompoundMark(Element compoundMarkElement, Course course) throws  XMLParseException{
-        CompoundMark compoundMark;
-        Integer compoundMarkID = Integer.parseInt(compoundMarkElement.getAttribute(XMLTags.Course.COMPOUND_MARK_ID));
-        String compoundMarkName = compoundMarkElement.getAttribute(XMLTags.Course.NAME);
-        NodeList markNodes = compoundMarkElement.getElementsByTagName(XMLTags.Course.MARK);
-
-        if (markNodes.getLength() < 1) {
+    private RaceTemplate.CompoundMarkTemplate parseCompoundMark(XMLStreamReader reader)
+            throws XMLStreamException, XMLParseException {
+        int compoundMarkID = Integer.parseInt(reader.getAttributeValue(null, XMLTags.Course.COMPOUND_MARK_ID));
+        String compoundMarkName = reader.getAttributeValue(null, XMLTags.Course.NAME);
+        List<RaceTemplate.MarkTemplate> marks = new ArrayList<>();
+        parseDescendants(reader, XMLTags.Course.MARK, () -> {
+            marks.add(parseMark(reader));
+            skipElement(reader);
+        });
+
+        if (marks.size() < 1) {
             throw new XMLParseException(XMLTags.Course.COMPOUND_MARK, "Required tag was not defined.");
         }
-        int numMarks = markNodes.getLength();
-        if(numMarks == 2){
-            Element mark1Element = (Element) markNodes.item(0);
-            Element mark2Element = (Element) markNodes.item(1);
-            Mark mark1 = parseMark(mark1Element, course);
-            Mark mark2 = parseMark(mark2Element, course);
-            compoundMark = new CompoundMark(compoundMarkID, compoundMarkName, mark1, mark2);
-        }else{
-            Element markElement = (Element) markNodes.item(0);
-            Mark mark = parseMark(markElement, course);
-            compoundMark = new CompoundMark(compoundMarkID, compoundMarkName, mark);
-        }
-        return compoundMark;
+        return new RaceTemplate.CompoundMarkTemplate(compoundMarkID, compoundMarkName, marks.get(0),
+                marks.size() == 2 ? marks.get(1) : null);
     }
 
     /**
      * Parses a boundary limit element from Race xml to determine a single point of the boundary
-     * @param limit - an XML <Limit> element
+     * @param reader a reader on an XML <Limit> element
      * @return a Coordinate denoting where a point on boundary limit is.
      */
-    private Coordinate parseCourseLimitCoord(Element limit){
-        Double lat = Double.parseDouble(limit.getAttribute(XMLTags.Course.LAT));
-        Double lon = Double.parseDouble(limit.getAttribute(XMLTags.Course.LON));
-        Coordinate coord = new Coordinate(lat, lon);
-        return coord;
+    private Coordinate parseCourseLimitCoord(XMLStreamReader reader){
+        double lat = Double.parseDouble(reader.getAttributeValue(null, XMLTags.Course.LAT));
+        double lon = Double.parseDouble(reader.getAttributeValue(null, XMLTags.Course.LON));
+        return new Coordinate(lat, lon);
     }
 
     /**
@@ -385,13 +333,11 @@ public class RaceVisionXMLParser {
      */
     public List<Boat> importStarters(InputStream inputStream) {
         try {
-            parseXMLStream(inputStream);
-            return importStartersFromXML();
-
-        }  catch (IOException ioe) {
+            return importStartersFromXML(openReader(inputStream));
+        }  catch (XMLStreamException e) {
             System.err.printf("Unable to read %s as a boat definition file. " +
                     "Ensure it is correctly formatted.\n", inputStream);
-            ioe.printStackTrace();
+            e.printStackTrace();
             return null;
         }
     }
@@ -405,29 +351,25 @@ public class RaceVisionXMLParser {
      *
      * @return starters - Set of Boat objects defined in file
      */
-    private List<Boat> importStartersFromXML(){
+    private List<Boat> importStartersFromXML(XMLStreamReader reader) throws XMLStreamException {
         List<Boat> starters = new ArrayList<>();
         try {
-            Element root = dom.getDocumentElement();
-            if (!Objects.equals(root.getTagName(), XMLTags.Boats.BOAT_CONFIG)) {
+            if (!reader.getLocalName().equals(XMLTags.Boats.BOAT_CONFIG)) {
                 String message = String.format("The root tag must be <%s>.", XMLTags.Boats.BOAT_CONFIG);
                 throw new XMLParseException(XMLTags.Boats.BOAT_CONFIG, message);
             }
 
-            NodeList nodes = root.getChildNodes();
-            for (int i = 0; i < nodes.getLength(); i++) {
-                Node node = nodes.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    if (element.getTagName().equals(XMLTags.Boats.BOATS)) {
-                        NodeList boats = element.getElementsByTagName(XMLTags.Boats.BOAT);
-                        for (int j = 0; j < boats.getLength(); j++) {
-                            Boat boat = parseBoat((Element) boats.item(j));
-                            if (boat != null) {
-                                starters.add(boat);
-                            }
+            while (nextChild(reader)) {
+                if (reader.getLocalName().equals(XMLTags.Boats.BOATS)) {
+                    parseDescendants(reader, XMLTags.Boats.BOAT, () -> {
+                        Boat boat = parseBoat(reader);
+                        if (boat != null) {
+                            starters.add(boat);
                         }
-                    }
+                        skipElement(reader);
+                    });
+                } else {
+                    skipElement(reader);
                 }
             }
         } catch (XMLParseException e) {
@@ -445,13 +387,13 @@ public class RaceVisionXMLParser {
      *
      *  @return boat
      */
-    private Boat parseBoat(Element boatXML) throws XMLParseException{
+    private Boat parseBoat(XMLStreamReader reader) {
         Boat boat = null;
-        String type = boatXML.getAttribute(XMLTags.Boats.TYPE);
-        if(type.equals("Yacht")){
-            String name = boatXML.getAttribute(XMLTags.Boats.BOAT_NAME);
-            String nickname = boatXML.getAttribute(XMLTags.Boats.NICKNAME);
-            Integer id = Integer.parseInt(boatXML.getAttribute(XMLTags.Boats.SOURCE_ID));
+        String type = reader.getAttributeValue(null, XMLTags.Boats.TYPE);
+        if("Yacht".equals(type)){
+            String name = reader.getAttributeValue(null, XMLTags.Boats.BOAT_NAME);
+            String nickname = reader.getAttributeValue(null, XMLTags.Boats.NICKNAME);
+            Integer id = Integer.parseInt(reader.getAttributeValue(null, XMLTags.Boats.SOURCE_ID));
             boat = new Boat(id, name, nickname, 0);
         }
         return boat;
@@ -466,45 +408,40 @@ public class RaceVisionXMLParser {
      */
     public void importRegatta(InputStream inputStream, Race race) {
         try {
-            parseXMLStream(inputStream);
-            importRegattaFromXML(race);
-
-        }  catch (IOException ioe) {
+            importRegattaFromXML(openReader(inputStream), race);
+        }  catch (XMLStreamException e) {
             System.err.printf("Unable to read %s as a regatta definition file. " +
                     "Ensure it is correctly formatted.\n", inputStream);
-            ioe.printStackTrace();
+            e.printStackTrace();
         }
     }
 
     /**
      * Imports file found at DEFAULT_FILE_PATH/REGATTA_FILE and updates attributes in race
      */
-    private void importRegattaFromXML(Race race) {
+    private void importRegattaFromXML(XMLStreamReader reader, Race race) throws XMLStreamException {
         try {
-            Element root = dom.getDocumentElement();
-            if (!Objects.equals(root.getTagName(), XMLTags.Regatta.REGATTA_CONFIG)) {
+            if (!reader.getLocalName().equals(XMLTags.Regatta.REGATTA_CONFIG)) {
                 String message = String.format("The root tag must be <%s>.", XMLTags.Regatta.REGATTA_CONFIG);
                 throw new XMLParseException(XMLTags.Regatta.REGATTA_CONFIG, message);
             }
 
-            NodeList nodes = root.getChildNodes();
-            for (int i = 0; i < nodes.getLength(); i++) {
-                Node node = nodes.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    switch (element.getTagName()) {
-                        case XMLTags.Regatta.REGATTA_NAME:
-                            race.setRegattaName(String.valueOf(element.getTextContent()));
-                            break;
-                        case XMLTags.Regatta.UTC_OFFSET:
-                            double utcOffset = Double.parseDouble(String.valueOf(element.getTextContent()));
-                            if (utcOffset <= 14 && utcOffset >= -12) {
-                                race.setUTCOffset(utcOffset);
-                            } else {
-                                throw new InputMismatchException("The UTC offset must be greater than or equal to -12 and less than or equal to 14.");
-                            }
-                            break;
-                    }
+            while (nextChild(reader)) {
+                switch (reader.getLocalName()) {
+                    case XMLTags.Regatta.REGATTA_NAME:
+                        race.setRegattaName(reader.getElementText());
+                        break;
+                    case XMLTags.Regatta.UTC_OFFSET:
+                        double utcOffset = Double.parseDouble(reader.getElementText());
+                        if (utcOffset <= 14 && utcOffset >= -12) {
+                            race.setUTCOffset(utcOffset);
+                        } else {
+                            throw new InputMismatchException("The UTC offset must be greater than or equal to -12 and less than or equal to 14.");
+                        }
+                        break;
+                    default:
+                        skipElement(reader);
+                        break;
                 }
             }
         } catch (XMLParseException e) {
@@ -547,46 +484,7 @@ public class RaceVisionXMLParser {
     }
 
     public List<Boat> importDefaultStarters() {
-        try {
-            String resourcePath = "/defaultFiles/" + BOAT_FILE;
-            parseXMLStream(RaceVisionXMLParser.class.getResourceAsStream(resourcePath));
-            return importStartersFromXML();
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
-            return null;
-        }
-    }
-
-    private Set<Integer> parseCompetitorIds() {
-        Set<Integer> competitorIds = null;
-        try {
-            Element root = dom.getDocumentElement();
-            if (root.getTagName() != XMLTags.Course.RACE) {
-                String message = String.format("The root tag must be <%s>.", XMLTags.Course.RACE);
-                throw new XMLParseException(XMLTags.Course.RACE, message);
-            }
-            competitorIds = new HashSet<>();
-            NodeList nodes = root.getChildNodes();
-            for (int i = 0; i < nodes.getLength(); i++) {
-                Node node = nodes.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    Element element = (Element) node;
-                    if(element.getTagName().equals(XMLTags.Course.PARTICIPANTS)){
-                        NodeList competitors = element.getChildNodes();
-                        for (int j = 0; j < competitors.getLength(); j++) {
-                            if (competitors.item(j).getNodeType() == Node.ELEMENT_NODE) {
-                                Element boatNode = (Element) competitors.item(j);
-                                competitorIds.add(Integer.parseInt(boatNode.getAttribute(XMLTags.Boats.SOURCE_ID)));
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (XMLParseException e) {
-            System.err.printf("Error reading course file around tag <%s>.\n", e.getTag());
-            e.printStackTrace();
-        }
-        return competitorIds;
+        return CourseCache.createStarters(BOAT_FILE);
     }
 
     public void setCourseFile(String course) {
@@ -0,0 +1,185 @@
+package seng302.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * The bytes of a race XML file, with splice points where the server fills in the fields that change between race
+ * XML messages: the creation time text, the Start attribute of the race start time and the participants, which are
+ * added to the end of the Participants element. A race XML message is written by copying the bytes between the
+ * splice points straight into the packet and writing the fields in place, so the XML is never parsed or
+ * serialized again after the template is compiled. The fields must appear in the file in that order.
+ */
+final class RaceXmlTemplate {
+
+    private static final byte[] CREATION_TIME_OPEN = ascii("<" + XMLTags.Race.CREATION_TIME + ">");
+    private static final byte[] CREATION_TIME_CLOSE = ascii("</" + XMLTags.Race.CREATION_TIME + ">");
+    private static final byte[] START_TIME_OPEN = ascii("<" + XMLTags.Race.START_TIME);
+    private static final byte[] START_ATTRIBUTE = ascii(XMLTags.Race.START + "=");
+    private static final byte[] TAG_CLOSE = ascii(">");
+    private static final byte[] PARTICIPANTS_CLOSE = ascii("</" + XMLTags.Course.PARTICIPANTS + ">");
+    private static final byte[] YACHT_OPEN = ascii("<" + XMLTags.Boats.YACHT + " " + XMLTags.Boats.SOURCE_ID + "=\"");
+    private static final byte[] YACHT_CLOSE = ascii("\"/>");
+
+    /** The length of a time in the race xml, formatted as yyyy-MM-dd'T'HH:mm:ss'Z' */
+    private static final int TIME_LENGTH = 20;
+
+    private final byte[] xml;
+    private final int creationTimeStart;
+    private final int creationTimeEnd;
+    private final int startTimeStart;
+    private final int startTimeEnd;
+    private final int participantsEnd;
+
+    private RaceXmlTemplate(byte[] xml, int creationTimeStart, int creationTimeEnd, int startTimeStart,
+                            int startTimeEnd, int participantsEnd) {
+        this.xml = xml;
+        this.creationTimeStart = creationTimeStart;
+        this.creationTimeEnd = creationTimeEnd;
+        this.startTimeStart = startTimeStart;
+        this.startTimeEnd = startTimeEnd;
+        this.participantsEnd = participantsEnd;
+    }
+
+    /**
+     * Finds the splice points in a race XML file
+     * @param xml the race xml, which the template keeps and must not be changed
+     * @return the template
+     * @throws IllegalArgumentException if one of the fields is missing or they are out of order
+     */
+    static RaceXmlTemplate compile(byte[] xml) {
+        int creationTimeStart = find(xml, CREATION_TIME_OPEN, 0, XMLTags.Race.CREATION_TIME) + CREATION_TIME_OPEN.length;
+        int creationTimeEnd = find(xml, CREATION_TIME_CLOSE, creationTimeStart, XMLTags.Race.CREATION_TIME);
+        int startTimeTag = find(xml, START_TIME_OPEN, creationTimeEnd, XMLTags.Race.START_TIME);
+        int startTimeTagEnd = find(xml, TAG_CLOSE, startTimeTag, XMLTags.Race.START_TIME);
+        int startAttribute = startTimeTag;
+        do {
+            startAttribute = find(xml, START_ATTRIBUTE, startAttribute + 1, XMLTags.Race.START_TIME);
+        } while (startAttribute < startTimeTagEnd && !isWhitespace(xml[startAttribute - 1]));
+        if (startAttribute > startTimeTagEnd) {
+            throw new IllegalArgumentException(String.format("Race xml <%s> has no %s attribute",
+                    XMLTags.Race.START_TIME, XMLTags.Race.START));
+        }
+        int startTimeStart = startAttribute + START_ATTRIBUTE.length + 1;
+        int startTimeEnd = startTimeStart;
+        while (startTimeEnd < xml.length && xml[startTimeEnd] != xml[startTimeStart - 1]) {
+            startTimeEnd++;
+        }
+        int participantsEnd = find(xml, PARTICIPANTS_CLOSE, startTimeEnd, XMLTags.Course.PARTICIPANTS);
+        return new RaceXmlTemplate(xml, creationTimeStart, creationTimeEnd, startTimeStart, startTimeEnd,
+                participantsEnd);
+    }
+
+    /**
+     * @param participantIds the source ids of the participants
+     * @return the length of the race xml with the fields filled in
+     */
+    int length(List<Integer> participantIds) {
+        int length = xml.length - (creationTimeEnd - creationTimeStart) - (startTimeEnd - startTimeStart)
+                + 2 * TIME_LENGTH;
+        for (Integer id : participantIds) {
+            length += YACHT_OPEN.length + decimalLength(id) + YACHT_CLOSE.length;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the race xml with its fields filled in at the position of a buffer, leaving the position after it
+     * @param buffer the buffer, with at least length(participantIds) bytes remaining
+     * @param creationTimeEpochMs the creation time of the message
+     * @param startTimeEpochMs the expected start time of the race
+     * @param participantIds the source ids of the participants
+     */
+    void write(ByteBuffer buffer, long creationTimeEpochMs, long startTimeEpochMs, List<Integer> participantIds) {
+        buffer.put(xml, 0, creationTimeStart);
+        putTime(buffer, creationTimeEpochMs);
+        buffer.put(xml, creationTimeEnd, startTimeStart - creationTimeEnd);
+        putTime(buffer, startTimeEpochMs);
+        buffer.put(xml, startTimeEnd, participantsEnd - startTimeEnd);
+        for (Integer id : participantIds) {
+            buffer.put(YACHT_OPEN);
+            putDecimal(buffer, id);
+            buffer.put(YACHT_CLOSE);
+        }
+        buffer.put(xml, participantsEnd, xml.length - participantsEnd);
+    }
+
+    /**
+     * @return the race xml with its fields filled in as a new array
+     * @see #write(ByteBuffer, long, long, List)
+     */
+    byte[] toByteArray(long creationTimeEpochMs, long startTimeEpochMs, List<Integer> participantIds) {
+        byte[] bytes = new byte[length(participantIds)];
+        write(ByteBuffer.wrap(bytes), creationTimeEpochMs, startTimeEpochMs, participantIds);
+        return bytes;
+    }
+
+    /**
+     * Formats a time to the second in UTC, without going through a formatter
+     */
+    private static void putTime(ByteBuffer buffer, long epochMs) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(epochMs, 1000), 0, ZoneOffset.UTC);
+        putDigits(buffer, time.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(buffer, time.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(buffer, time.getDayOfMonth(), 2);
+        buffer.put((byte) 'T');
+        putDigits(buffer, time.getHour(), 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, time.getMinute(), 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, time.getSecond(), 2);
+        buffer.put((byte) 'Z');
+    }
+
+    private static void putDecimal(ByteBuffer buffer, int value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        putDigits(buffer, Math.abs((long) value), decimalLength(value) - (value < 0 ? 1 : 0));
+    }
+
+    private static void putDigits(ByteBuffer buffer, long value, int digits) {
+        int end = buffer.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private static int decimalLength(int value) {
+        long remaining = Math.abs((long) value);
+        int length = value < 0 ? 2 : 1;
+        while (remaining >= 10) {
+            remaining /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static int find(byte[] xml, byte[] pattern, int from, String tag) {
+        outer:
+        for (int i = from; i <= xml.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (xml[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalArgumentException(String.format("Race xml is missing <%s> where it was expected", tag));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -4,8 +4,8 @@ import seng302.data.registration.RegistrationResponseStatus;
 import seng302.models.*;
 import seng302.utilities.ConnectionUtils;
 
-import javafx.scene.paint.Color;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static seng302.data.AC35StreamField.*;
@@ -16,36 +16,47 @@ public class ServerPacketBuilder extends PacketBuilder {
 
     private final int ROUNDING_MARK_TYPE = 1;
     private final int GATE_TYPE = 2;
-    private final String DEFAULT_RESOURCES_FOLDER = "/defaultFiles/";
 
     public ServerPacketBuilder() {}
 
     /**
-     * Creates a header byte array for a Race Status Message
-     * @param numBoatsInRace
-     * @return a byte array representing a correctly formed Race Status Message header
+     * @param numBoatsInRace the number of boats in the race
+     * @return the length of the body of a Race Status Message
      */
-    private byte[] createRaceStatusHeader(int numBoatsInRace) {
-        byte[] header = createHeader(RACE_STATUS_MESSAGE);
-        addFieldToByteArray(header, MESSAGE_LENGTH, 24 + 20 * (numBoatsInRace));
-        return header;
+    private int raceStatusBodyLength(int numBoatsInRace) {
+        return 24 + 20 * numBoatsInRace;
+    }
+
+    /**
+     * @param race the race
+     * @return the length of the whole Race Status Message packet for the race
+     */
+    public int getRaceUpdateMessageLength(Race race) {
+        return PacketWriter.packetLength(raceStatusBodyLength(race.getCompetitors().size()));
     }
 
     public byte[] createRaceUpdateMessage(Race race) throws Exception {
+        ByteBuffer packet = ByteBuffer.wrap(new byte[getRaceUpdateMessageLength(race)]);
+        createRaceUpdateMessage(race, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a Race Status Message into a buffer
+     * @param race the race
+     * @param buffer the buffer to write the packet into
+     */
+    public void createRaceUpdateMessage(Race race, ByteBuffer buffer) {
         Collection<Boat> boatsInRace = race.getCompetitors();
-        byte[] raceStatusBody = initialiseRaceStatusMessage(boatsInRace.size(), race);
+        PacketWriter writer = startPacket(buffer, RACE_STATUS_MESSAGE, raceStatusBodyLength(boatsInRace.size()));
+        initialiseRaceStatusMessage(writer, boatsInRace.size(), race);
         int offset = 24;
 
         for (Boat boat : boatsInRace) {
-            byte[] boatStatus = createBoatStatus(boat);
-            for (int i = 0; i < boatStatus.length; i++) {
-                raceStatusBody[i + offset] = boatStatus[i];
-            }
+            addBoatStatus(writer, offset, boat);
             offset += 20;
         }
-
-        byte[] header = createRaceStatusHeader(boatsInRace.size());
-        return generatePacket(header, raceStatusBody);
+        writer.finish();
     }
 
     /**
@@ -55,25 +66,36 @@ public class ServerPacketBuilder extends PacketBuilder {
      * @return byte array of the body of the message
      */
     public byte[] createMarkRoundingMessage(Boat boat, Race race) {
+        ByteBuffer packet = allocatePacket(MARK_ROUNDING_MESSAGE.getLength());
+        createMarkRoundingMessage(boat, race, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a mark rounding message into a buffer
+     * @param boat the boat that rounded
+     * @param race the race
+     * @param buffer the buffer to write the packet into
+     */
+    public void createMarkRoundingMessage(Boat boat, Race race, ByteBuffer buffer) {
         Course course = race.getCourse();
-        byte[] header = createHeader(MARK_ROUNDING_MESSAGE);
         int passedStartLineId = 102;
         int passedFinishLineId = 103;
 
-        byte[] body = new byte[MARK_ROUNDING_MESSAGE.getLength()];
-        body[0] = 1;
-        addFieldToByteArray(body, BOAT_TIMESTAMP, race.getCurrentTimeInEpochMs());
-        addFieldToByteArray(body, MARK_ACK, 0); //todo make proper ack
-        addFieldToByteArray(body, MARK_RACE_ID, Integer.parseInt(race.getId()));
-        addFieldToByteArray(body, ROUNDING_SOURCE_ID, boat.getId());
-        addFieldToByteArray(body, MARK_BOAT_STATUS, boat.getStatus().getValue());
-        addFieldToByteArray(body, ROUNDING_SIDE, 0); //todo present correct side
+        PacketWriter writer = startPacket(buffer, MARK_ROUNDING_MESSAGE, MARK_ROUNDING_MESSAGE.getLength());
+        writer.putByte(0, 1);
+        writer.putField(BOAT_TIMESTAMP, race.getCurrentTimeInEpochMs());
+        writer.putField(MARK_ACK, 0); //todo make proper ack
+        writer.putField(MARK_RACE_ID, Integer.parseInt(race.getId()));
+        writer.putField(ROUNDING_SOURCE_ID, boat.getId());
+        writer.putField(MARK_BOAT_STATUS, boat.getStatus().getValue());
+        writer.putField(ROUNDING_SIDE, 0); //todo present correct side
 
         CompoundMark lastRoundedMark = course.getCourseOrder().get(boat.getLastRoundedMarkIndex());
         if (lastRoundedMark.hasTwoMarks()) {
-            addFieldToByteArray(body, MARK_TYPE, GATE_TYPE);
+            writer.putField(MARK_TYPE, GATE_TYPE);
         } else {
-            addFieldToByteArray(body, MARK_TYPE, ROUNDING_MARK_TYPE);
+            writer.putField(MARK_TYPE, ROUNDING_MARK_TYPE);
         }
         int markId = boat.getLastRoundedMarkIndex();
         if(lastRoundedMark.isStartLine()){
@@ -81,36 +103,92 @@ public class ServerPacketBuilder extends PacketBuilder {
         } else if(lastRoundedMark.isFinishLine()){
             markId = passedFinishLineId;
         }
-        addFieldToByteArray(body, MARK_ID, markId);
-        return generatePacket(header, body);
+        writer.putField(MARK_ID, markId);
+        writer.finish();
     }
 
     public byte[] buildXmlMessage(AC35StreamXMLMessage type, String fileName, int sequenceNo, Race race, String course) {
-        byte[] header = createHeader(XML_MESSAGE);
-        byte[] xmlBody = generateXmlBody(type, fileName, sequenceNo, race, course);
-        addFieldToByteArray(header, MESSAGE_LENGTH, xmlBody.length);
-        return generatePacket(header,xmlBody);
+        try {
+            int bodyLength;
+            if (fileName.equals(course)) {
+                bodyLength = CourseCache.getRaceXmlTemplate(fileName).length(getParticipantIds(race));
+            } else {
+                bodyLength = CourseCache.getXmlFile(fileName).length;
+            }
+            ByteBuffer packet = allocatePacket(XML_BODY.getStartIndex() + bodyLength);
+            buildXmlMessage(type, fileName, sequenceNo, race, course, packet);
+            return packet.array();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Writes an xml message into a buffer. The race xml is filled in from its template, with the creation time,
+     * start time and participants of the race, and other files are copied in as they are.
+     * @param type subtype of the xml message
+     * @param fileName the file which to read the xml from
+     * @param buffer the buffer to write the packet into
+     * @throws IOException if the xml file cannot be read
+     */
+    public void buildXmlMessage(AC35StreamXMLMessage type, String fileName, int sequenceNo, Race race, String course, ByteBuffer buffer) throws IOException {
+        if (fileName.equals(course)) {
+            RaceXmlTemplate template = CourseCache.getRaceXmlTemplate(fileName);
+            List<Integer> participantIds = getParticipantIds(race);
+            PacketWriter writer = startXmlMessage(buffer, type, template.length(participantIds), sequenceNo, race);
+            template.write(writer.bodyAt(XML_BODY.getStartIndex()), getClock().millis(), race.getStartTimeInEpochMs(),
+                    participantIds);
+            writer.finish();
+        } else {
+            byte[] bodyContent = CourseCache.getXmlFile(fileName);
+            PacketWriter writer = startXmlMessage(buffer, type, bodyContent.length, sequenceNo, race);
+            writer.putBytes(XML_BODY.getStartIndex(), bodyContent, bodyContent.length);
+            writer.finish();
+        }
+    }
+
+    /**
+     * Starts an xml message, writing the information about the version, sequence number set to 1, subtype,
+     * timestamp, xml sequence number and length. The xml itself is then written from XML_BODY.
+     * @param subType the integer number of the subtype of the xml message
+     * @param xmlLength the length of the xml
+     * @return the writer of the message
+     */
+    private PacketWriter startXmlMessage(ByteBuffer buffer, AC35StreamXMLMessage subType, int xmlLength, int sequenceNo, Race race) {
+        PacketWriter writer = startPacket(buffer, XML_MESSAGE, XML_BODY.getStartIndex() + xmlLength);
+        writer.putField(XML_VERSION, 1);
+        writer.putField(XML_ACK, 1);
+        writer.putField(XML_TIMESTAMP, race.getCurrentTimeInEpochMs());
+        writer.putField(XML_SUBTYPE, subType.getType());
+        writer.putField(XML_SEQUENCE, sequenceNo);
+        writer.putField(XML_LENGTH, xmlLength);
+        return writer;
+    }
+
+    private List<Integer> getParticipantIds(Race race) {
+        List<Integer> participantIds = new ArrayList<>();
+        for (Boat boat : race.getCompetitors()){
+            participantIds.add(boat.getId());
+        }
+        return participantIds;
     }
 
     /**
      * initialise Race Status Message
      * @param numBoats to send the number
-     * @return byte array of body
      */
-    private byte[] initialiseRaceStatusMessage(int numBoats, Race race) {
-        byte[] body = new byte[24 + (20 * numBoats)];
-        addFieldToByteArray(body, STATUS_MESSAGE_VERSION_NUMBER, 2);
-        addFieldToByteArray(body, BOAT_TIMESTAMP, race.getCurrentTimeInEpochMs());
-        addFieldToByteArray(body, STATUS_RACE_ID, Integer.parseInt(race.getId()));
-        addFieldToByteArray(body, RACE_STATUS, race.getRaceStatus().getValue());
-        addFieldToByteArray(body, EXPECTED_START_TIME, race.getStartTimeInEpochMs());
-        addFieldToByteArray(body, CURRENT_TIME, race.getCurrentTimeInEpochMs());
-        addFieldToByteArray(body, RACE_COURSE_WIND_DIRECTION, convertHeadingToInt(race.getCourse().getWindDirection()));
-        addFieldToByteArray(body, RACE_COURSE_WIND_SPEED, convertKnotsToMmPerSecond(race.getCourse().getTrueWindSpeed()));
-        addFieldToByteArray(body, NUMBER_OF_BOATS_IN_RACE, numBoats);
-        addFieldToByteArray(body, RACE_TYPE, 2); //fleet race
-
-        return body;
+    private void initialiseRaceStatusMessage(PacketWriter writer, int numBoats, Race race) {
+        writer.putField(STATUS_MESSAGE_VERSION_NUMBER, 2);
+        writer.putField(BOAT_TIMESTAMP, race.getCurrentTimeInEpochMs());
+        writer.putField(STATUS_RACE_ID, Integer.parseInt(race.getId()));
+        writer.putField(RACE_STATUS, race.getRaceStatus().getValue());
+        writer.putField(EXPECTED_START_TIME, race.getStartTimeInEpochMs());
+        writer.putField(CURRENT_TIME, race.getCurrentTimeInEpochMs());
+        writer.putField(RACE_COURSE_WIND_DIRECTION, convertHeadingToInt(race.getCourse().getWindDirection()));
+        writer.putField(RACE_COURSE_WIND_SPEED, convertKnotsToMmPerSecond(race.getCourse().getTrueWindSpeed()));
+        writer.putField(NUMBER_OF_BOATS_IN_RACE, numBoats);
+        writer.putField(RACE_TYPE, 2); //fleet race
     }
 
     /**
@@ -124,20 +202,17 @@ public class ServerPacketBuilder extends PacketBuilder {
 
     /**
      * add Boat To Race Status Message
+     * @param offset the offset of the boat's status within the message body
      * @param boat boat to add
-     * @return new boatStatus message
      */
-    private byte[] createBoatStatus(Boat boat){
-        byte[] boatStatus = new byte[20];
-        addFieldToByteArray(boatStatus, STATUS_SOURCE_ID, boat.getId());
-        addFieldToByteArray(boatStatus, BOAT_STATUS, boat.getStatus().getValue());
-        addFieldToByteArray(boatStatus, LEG_NUMBER, boat.getLastRoundedMarkIndex() + 1);
-        addFieldToByteArray(boatStatus, NUMBER_PENALTIES_AWARDED, 0); //todo make penalties a thing
-        addFieldToByteArray(boatStatus, NUMBER_PENALTIES_SERVED, 0);
-        addFieldToByteArray(boatStatus, ESTIMATED_TIME_AT_NEXT_MARK, boat.getTimeAtNextMark());
-        addFieldToByteArray(boatStatus, ESTIMATED_TIME_AT_FINISH, boat.getTimeTillFinish());
-
-        return boatStatus;
+    private void addBoatStatus(PacketWriter writer, int offset, Boat boat){
+        writer.putField(offset, STATUS_SOURCE_ID, boat.getId());
+        writer.putField(offset, BOAT_STATUS, boat.getStatus().getValue());
+        writer.putField(offset, LEG_NUMBER, boat.getLastRoundedMarkIndex() + 1);
+        writer.putField(offset, NUMBER_PENALTIES_AWARDED, 0); //todo make penalties a thing
+        writer.putField(offset, NUMBER_PENALTIES_SERVED, 0);
+        writer.putField(offset, ESTIMATED_TIME_AT_NEXT_MARK, boat.getTimeAtNextMark());
+        writer.putField(offset, ESTIMATED_TIME_AT_FINISH, boat.getTimeTillFinish());
     }
 
     /**
@@ -146,26 +221,34 @@ public class ServerPacketBuilder extends PacketBuilder {
      * @return a byte array representing the boat location message
      */
     public byte[] createBoatLocationMessage(Boat boat, Race race, int sequenceNumber) {
-        byte[] header = createHeader(BOAT_LOCATION_MESSAGE);
-        long windDirection = (long) race.getCourse().getWindDirection();
-        byte[] body = initialiseLocationPacket(windDirection);
+        ByteBuffer packet = allocatePacket(BOAT_LOCATION_MESSAGE.getLength());
+        createBoatLocationMessage(boat, race, sequenceNumber, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a boat location message into a buffer
+     * @param boat the boat that is the subject of the message
+     * @param buffer the buffer to write the packet into
+     */
+    public void createBoatLocationMessage(Boat boat, Race race, int sequenceNumber, ByteBuffer buffer) {
+        PacketWriter writer = startPacket(buffer, BOAT_LOCATION_MESSAGE, BOAT_LOCATION_MESSAGE.getLength());
+        initialiseLocationPacket(writer);
         Coordinate location = boat.getCurrentPosition();
 
         int lat = (int) Math.round(location.getLat() * Math.pow(2, 31) / 180);
         int lon = (int) Math.round(location.getLon() * Math.pow(2, 31) / 180);
-        addFieldToByteArray(body, BOAT_TIMESTAMP, race.getCurrentTimeInEpochMs());
-        addFieldToByteArray(body, BOAT_SOURCE_ID, boat.getId());
-        addFieldToByteArray(body, BOAT_SEQUENCE_NUM, sequenceNumber);
-        addFieldToByteArray(body, LATITUDE, lat);
-        addFieldToByteArray(body, LONGITUDE, lon);
-        addFieldToByteArray(body, HEADING, (int) (boat.getHeading() * Math.pow(2, 16) / 360));
-        addFieldToByteArray(body, SPEED_OVER_GROUND, boat.getSpeedInMMS());
-        addFieldToByteArray(body, TRUE_WIND_DIRECTION, convertHeadingToInt(race.getCourse().getWindDirection() ));
-        addFieldToByteArray(body, TRUE_WIND_ANGLE, (long) (boat.getTWAofBoat() * Math.pow(2, 15) / 180)); //convert decimal to unsigned short binary,
-        addFieldToByteArray(body, SAIL_STATE, boat.isSailsIn() ? 0 : 1); //convert decimal to unsigned short binary,
-
-
-        return generatePacket(header, body);
+        writer.putField(BOAT_TIMESTAMP, race.getCurrentTimeInEpochMs());
+        writer.putField(BOAT_SOURCE_ID, boat.getId());
+        writer.putField(BOAT_SEQUENCE_NUM, sequenceNumber);
+        writer.putField(LATITUDE, lat);
+        writer.putField(LONGITUDE, lon);
+        writer.putField(HEADING, (int) (boat.getHeading() * Math.pow(2, 16) / 360));
+        writer.putField(SPEED_OVER_GROUND, boat.getSpeedInMMS());
+        writer.putField(TRUE_WIND_DIRECTION, convertHeadingToInt(race.getCourse().getWindDirection() ));
+        writer.putField(TRUE_WIND_ANGLE, (long) (boat.getTWAofBoat() * Math.pow(2, 15) / 180)); //convert decimal to unsigned short binary,
+        writer.putField(SAIL_STATE, boat.isSailsIn() ? 0 : 1); //convert decimal to unsigned short binary,
+        writer.finish();
     }
 
     /**
@@ -175,91 +258,36 @@ public class ServerPacketBuilder extends PacketBuilder {
      * @return a byte array representing a Yacht Event message
      */
     public byte[] createYachtEventMessage(Boat boat, Race race, int incidentID, YachtEventCode eventCode){
-        byte[] header = createHeader(YACHT_EVENT_CODE);
-        byte[] body = initialiseYachtEventPacket();
-        addFieldToByteArray(body, EVENT_TIME, race.getCurrentTimeInEpochMs());
-        addFieldToByteArray(body, EVENT_ACK_NUM, 0);
-        addFieldToByteArray(body, RACE_ID, Integer.parseInt(race.getId()));
-        addFieldToByteArray(body, DESTINATION_SOURCE_ID, boat.getId());
-        addFieldToByteArray(body, INCIDENT_ID, incidentID);
-        addFieldToByteArray(body, EVENT_ID, eventCode.code());
-
-        return generatePacket(header, body);
-    }
-
-    /**
-     * Reads a file as bytes and adds the information about the version, sequence number set to 1, subtype, timestamp,
-     * xml sequence number and length then
-     * @param subType the integer number of the subtype of the xml message
-     * @param fileName the file which to read the bytes from
-     * @return a byte array which is the body of the xml message
-     */
-    private byte[] generateXmlBody(AC35StreamXMLMessage subType, String fileName, int sequenceNo, Race race, String course) {
-        try {
-            byte[] bodyContent = readXMLIntoByteArray(DEFAULT_RESOURCES_FOLDER, fileName, race, course);
-            byte[] body = new byte[XML_BODY.getStartIndex() + bodyContent.length];
-            long timestamp = race.getCurrentTimeInEpochMs();
-            addFieldToByteArray(body, XML_VERSION, 1);
-            addFieldToByteArray(body, XML_ACK, 1);
-            addFieldToByteArray(body, XML_TIMESTAMP, timestamp);
-            addFieldToByteArray(body, XML_SUBTYPE, subType.getType());
-            addFieldToByteArray(body, XML_SEQUENCE, sequenceNo);
-            addFieldToByteArray(body, XML_LENGTH, bodyContent.length);
-
-            for (int i = 0; i < bodyContent.length; i++){
-                body[i + XML_BODY.getStartIndex()] = bodyContent[i];
-            }
-            return body;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
+        ByteBuffer packet = allocatePacket(YACHT_EVENT_CODE.getLength());
+        createYachtEventMessage(boat, race, incidentID, eventCode, packet);
+        return packet.array();
     }
 
     /**
-     * Read an XML resource into a byte array
-     * @param fileName the path to the file in the resources folder
-     * @return a byte array containing the data from the file
-     * @throws IOException
+     * Writes a Yacht Event message into a buffer
+     * @param boat the boat involved in the collision
+     * @param race the current race
+     * @param buffer the buffer to write the packet into
      */
-    private byte[] readXMLIntoByteArray(String filePath, String fileName, Race race, String course) throws IOException {
-        InputStream resourceStream = ServerPacketBuilder.class.getResourceAsStream(filePath + fileName);
-        if(fileName.equals(course)){
-            ArrayList<Integer> participantIds = new ArrayList<>();
-            for (Boat boat : race.getCompetitors()){
-                participantIds.add(boat.getId());
-            }
-            RaceVisionXMLParser raceVisionXMLParser = new RaceVisionXMLParser();
-            resourceStream = raceVisionXMLParser.injectRaceXMLFields(resourceStream, race.getId(), race.getStartTimeInEpochMs(), participantIds);
-        }
-        ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
-        int read = resourceStream.read();
-        while (read != -1){
-            byteOutputStream.write(read);
-            read = resourceStream.read();
-        }
-
-        return byteOutputStream.toByteArray();
+    public void createYachtEventMessage(Boat boat, Race race, int incidentID, YachtEventCode eventCode, ByteBuffer buffer){
+        PacketWriter writer = startPacket(buffer, YACHT_EVENT_CODE, YACHT_EVENT_CODE.getLength());
+        writer.putField(EVENT_TIME, race.getCurrentTimeInEpochMs());
+        writer.putField(EVENT_ACK_NUM, 0);
+        writer.putField(RACE_ID, Integer.parseInt(race.getId()));
+        writer.putField(DESTINATION_SOURCE_ID, boat.getId());
+        writer.putField(INCIDENT_ID, incidentID);
+        writer.putField(EVENT_ID, eventCode.code());
+        writer.finish();
     }
 
     /**
      * Initialises the static contents of the location packet body
-     * @return a byte array of the version number, device type, altitude
+     * Sets the version number, device type and altitude
      */
-    private byte[] initialiseLocationPacket(long windDirection) {
-
-        byte[] body = new byte[BOAT_LOCATION_MESSAGE.getLength()];
-        body[0] = (byte) 1;
-        body[15] = (byte) 1;
-        body[24] = (byte) 0;
-        addFieldToByteArray(body, TRUE_WIND_DIRECTION, windDirection);
-
-        return body;
-    }
-
-    private byte[] initialiseYachtEventPacket(){
-        byte[] body = new byte[YACHT_EVENT_CODE.getLength()];
-        return body;
+    private void initialiseLocationPacket(PacketWriter writer) {
+        writer.putByte(0, 1);
+        writer.putByte(15, 1);
+        writer.putByte(24, 0);
     }
 
     /**
@@ -269,11 +297,22 @@ public class ServerPacketBuilder extends PacketBuilder {
      * @return byte array
      */
     public byte[] createRegistrationResponsePacket(Integer sourceID, RegistrationResponseStatus status){
-        byte[] header = createHeader(REGISTRATION_RESPONSE);
-        byte[] body = new byte[REGISTRATION_RESPONSE.getLength()];
-        addFieldToByteArray(body, REGISTRATION_SOURCE_ID, sourceID);
-        addFieldToByteArray(body, REGISTRATION_RESPONSE_STATUS, status.value());
-        return generatePacket(header, body);
+        ByteBuffer packet = allocatePacket(REGISTRATION_RESPONSE.getLength());
+        createRegistrationResponsePacket(sourceID, status, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a registration response packet into a buffer
+     * @param sourceID boatID if player, 0 if spectator, -1 in case of failure
+     * @param status the success or failure status of the registration
+     * @param buffer the buffer to write the packet into
+     */
+    public void createRegistrationResponsePacket(Integer sourceID, RegistrationResponseStatus status, ByteBuffer buffer){
+        PacketWriter writer = startPacket(buffer, REGISTRATION_RESPONSE, REGISTRATION_RESPONSE.getLength());
+        writer.putField(REGISTRATION_SOURCE_ID, sourceID);
+        writer.putField(REGISTRATION_RESPONSE_STATUS, status.value());
+        writer.finish();
     }
 
     /**
@@ -282,11 +321,21 @@ public class ServerPacketBuilder extends PacketBuilder {
      * @return A byte array with the boat state message
      */
     public byte[] createBoatStateMessagePacket(Boat boat){
-        byte[] header = createHeader(BOAT_STATE_MESSAGE);
-        byte[] body = new byte[BOAT_STATE_MESSAGE.getLength()];
-        addFieldToByteArray(body, BOAT_STATE_SOURCE_ID, boat.getId());
-        addFieldToByteArray(body, BOAT_HEALTH, (int)boat.getBoatHealth());
-        return generatePacket(header, body);
+        ByteBuffer packet = allocatePacket(BOAT_STATE_MESSAGE.getLength());
+        createBoatStateMessagePacket(boat, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a Boat State Message packet into a buffer
+     * @param boat The boat the message is about
+     * @param buffer the buffer to write the packet into
+     */
+    public void createBoatStateMessagePacket(Boat boat, ByteBuffer buffer){
+        PacketWriter writer = startPacket(buffer, BOAT_STATE_MESSAGE, BOAT_STATE_MESSAGE.getLength());
+        writer.putField(BOAT_STATE_SOURCE_ID, boat.getId());
+        writer.putField(BOAT_HEALTH, (int)boat.getBoatHealth());
+        writer.finish();
     }
 
     /**
@@ -295,70 +344,117 @@ public class ServerPacketBuilder extends PacketBuilder {
      * @return the packet to send to the VM
      */
     public byte[] createGameCancelPacket(int port) {
-        byte[] header = super.createHeader(GAME_CANCEL);
-        byte[] body = new byte[GAME_CANCEL.getLength()];
+        ByteBuffer packet = allocatePacket(GAME_CANCEL.getLength());
+        createGameCancelPacket(port, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a game cancel packet into a buffer
+     * @param port the port the server being cancelled is run on
+     * @param buffer the buffer to write the packet into
+     */
+    public void createGameCancelPacket(int port, ByteBuffer buffer) {
+        PacketWriter writer = startPacket(buffer, GAME_CANCEL, GAME_CANCEL.getLength());
         long ip = ConnectionUtils.ipStringToLong(ConnectionUtils.getPublicIp());
-        addFieldToByteArray(body, HOST_GAME_IP, ip);
-        addFieldToByteArray(body, HOST_GAME_PORT, port);
-        return generatePacket(header, body);
+        writer.putField(HOST_GAME_IP, ip);
+        writer.putField(HOST_GAME_PORT, port);
+        writer.finish();
     }
 
     /**
      * creates a packet that is sent to the web client containing boat name and boat color
      * @param id the id of the client
      * @param boatName  the boat name
-     * @param boatColour the boat color
+     * @param boatColour the boat color as 0xRRGGBB
      */
-    public byte[] createWebClientInitPacket(Integer id, String boatName, Color boatColour) {
-        byte[] header = super.createHeader(WEB_CLIENT_INIT);
-        byte[] body = new byte[WEB_CLIENT_INIT.getLength()];
-        addFieldToByteArray(body, WEB_CLIENT_ID, id);
-        byte[] nameInBytes = boatName.getBytes();
-        for (int i = 0; i < nameInBytes.length && i < WEB_CLIENT_NAME.getLength(); i++) {
-            body[WEB_CLIENT_NAME.getStartIndex() + i] = nameInBytes[i];
-        }
-        body[WEB_CLIENT_COLOUR.getStartIndex()] = (byte) (boatColour.getRed() * 255);
-        body[WEB_CLIENT_COLOUR.getStartIndex() + 1] = (byte) (boatColour.getGreen() * 255);
-        body[WEB_CLIENT_COLOUR.getStartIndex() + 2] = (byte) (boatColour.getBlue() * 255);
-        return generatePacket(header, body);
+    public byte[] createWebClientInitPacket(Integer id, String boatName, int boatColour) {
+        ByteBuffer packet = allocatePacket(WEB_CLIENT_INIT.getLength());
+        createWebClientInitPacket(id, boatName, boatColour, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a web client init packet into a buffer
+     * @param id the id of the client
+     * @param boatName  the boat name
+     * @param boatColour the boat color as 0xRRGGBB
+     * @param buffer the buffer to write the packet into
+     */
+    public void createWebClientInitPacket(Integer id, String boatName, int boatColour, ByteBuffer buffer) {
+        PacketWriter writer = startPacket(buffer, WEB_CLIENT_INIT, WEB_CLIENT_INIT.getLength());
+        writer.putField(WEB_CLIENT_ID, id);
+        writer.putBytes(WEB_CLIENT_NAME.getStartIndex(), boatName.getBytes(), WEB_CLIENT_NAME.getLength());
+        writer.putByte(WEB_CLIENT_COLOUR.getStartIndex(), boatColour >> 16);
+        writer.putByte(WEB_CLIENT_COLOUR.getStartIndex() + 1, boatColour >> 8);
+        writer.putByte(WEB_CLIENT_COLOUR.getStartIndex() + 2, boatColour);
+        writer.finish();
     }
 
     /**
      * creates a packet to send to the webclient updating it on speed, position, health
      */
     public byte[] createWebClientUpdatePacket(Integer id, Double speed, int placing, int totalCompetitors, int healthPercentage) {
-        byte[] header = super.createHeader(WEB_CLIENT_UPDATE);
-        byte[] body = new byte[WEB_CLIENT_UPDATE.getLength()];
-        addFieldToByteArray(body, WEB_CLIENT_ID, id);
+        ByteBuffer packet = allocatePacket(WEB_CLIENT_UPDATE.getLength());
+        createWebClientUpdatePacket(id, speed, placing, totalCompetitors, healthPercentage, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a packet to send to the webclient updating it on speed, position, health into a buffer
+     */
+    public void createWebClientUpdatePacket(Integer id, Double speed, int placing, int totalCompetitors, int healthPercentage, ByteBuffer buffer) {
+        PacketWriter writer = startPacket(buffer, WEB_CLIENT_UPDATE, WEB_CLIENT_UPDATE.getLength());
+        writer.putField(WEB_CLIENT_ID, id);
         long convertedSpeed = convertKnotsToMmPerSecond(speed);
-        addFieldToByteArray(body, WEB_CLIENT_SPEED, convertedSpeed);
-        addFieldToByteArray(body, WEB_CLIENT_POSITION, placing);
-        addFieldToByteArray(body, WEB_CLIENT_TOTAL_COMPETITORS, totalCompetitors);
-        addFieldToByteArray(body, WEB_CLIENT_HEALTH, healthPercentage);
-        return generatePacket(header, body);
+        writer.putField(WEB_CLIENT_SPEED, convertedSpeed);
+        writer.putField(WEB_CLIENT_POSITION, placing);
+        writer.putField(WEB_CLIENT_TOTAL_COMPETITORS, totalCompetitors);
+        writer.putField(WEB_CLIENT_HEALTH, healthPercentage);
+        writer.finish();
     }
 
     /**
      * creates a packet containing the code for a party game
      */
     public byte[] createPartyModeRoomCodeMessage(Integer code) {
-        byte[] header = super.createHeader(PARTY_MODE_CODE_MESSAGE);
-        byte[] body = new byte[PARTY_MODE_CODE_MESSAGE.getLength()];
-        addFieldToByteArray(body, PARTY_MODE_ROOM_CODE, code);
-        return generatePacket(header, body);
+        ByteBuffer packet = allocatePacket(PARTY_MODE_CODE_MESSAGE.getLength());
+        createPartyModeRoomCodeMessage(code, packet);
+        return packet.array();
+    }
+
+    /**
+     * Writes a packet containing the code for a party game into a buffer
+     */
+    public void createPartyModeRoomCodeMessage(Integer code, ByteBuffer buffer) {
+        PacketWriter writer = startPacket(buffer, PARTY_MODE_CODE_MESSAGE, PARTY_MODE_CODE_MESSAGE.getLength());
+        writer.putField(PARTY_MODE_ROOM_CODE, code);
+        writer.finish();
     }
 
     /**
-     * wraps a packet so that it can be sent to a web client
+     * wraps a packet in a binary WebSocket frame so that it can be sent to a web client.
+     * Packets longer than 125 bytes use the extended 16 or 64 bit payload length.
      * @param sendpacket the packet to be wrapped
      */
     public byte[] wrapPacket(byte[] sendpacket) {
-        byte[] wrappedPacket = new byte[sendpacket.length + 2];
+        int lengthFieldSize = 0;
+        if (sendpacket.length > 0xFFFF) {
+            lengthFieldSize = 8;
+        } else if (sendpacket.length > 125) {
+            lengthFieldSize = 2;
+        }
+        byte[] wrappedPacket = new byte[sendpacket.length + 2 + lengthFieldSize];
         wrappedPacket[0] = (byte) 130;
-        wrappedPacket[1] = (byte) (sendpacket.length);
-        for(int i = 0; i < sendpacket.length; i++){
-            wrappedPacket[i+2] = sendpacket[i];
+        if (lengthFieldSize == 0) {
+            wrappedPacket[1] = (byte) (sendpacket.length);
+        } else {
+            wrappedPacket[1] = (byte) (lengthFieldSize == 2 ? 126 : 127);
+            for (int i = 0; i < lengthFieldSize; i++) {
+                wrappedPacket[1 + lengthFieldSize - i] = (byte) ((long) sendpacket.length >>> (8 * i));
+            }
         }
+        System.arraycopy(sendpacket, 0, wrappedPacket, 2 + lengthFieldSize, sendpacket.length);
         return wrappedPacket;
     }
 }
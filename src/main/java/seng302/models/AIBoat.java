@@ -1,12 +1,11 @@
 package seng302.models;
 
-import javafx.scene.shape.Polygon;
 import seng302.controllers.CollisionManager;
 import seng302.controllers.RoundingMechanics;
 import seng302.data.BoatStatus;
 import seng302.data.RoundingSide;
+import seng302.utilities.Geodesy;
 import seng302.utilities.MathUtils;
-import seng302.utilities.PolarReader;
 
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
@@ -30,15 +29,16 @@ public class AIBoat extends Boat{
     private List<Coordinate> nextCoordinates;
     private Integer targetPositionIndex;
     private Course course;
-    private PolarTable polarTable;
-    private Polygon boundary;
+    private BoundaryPolygon boundary;
     private AIDifficulty difficulty;
     private Boolean currentlyAvoiding;
+    private final Coordinate checkPointEnd = new Coordinate(0, 0);
+    private final Geodesy.Point currentPoint = new Geodesy.Point();
+    private final Geodesy.Point otherPoint = new Geodesy.Point();
 
     public AIBoat(Integer id, String name, String nickName, double speed, Course course, AIDifficulty difficulty) {
         super(id, name, nickName, speed);
         this.difficulty = difficulty;
-        this.polarTable = new PolarTable(PolarReader.getPolarsForAC35Yachts(), course);
         this.course = course;
         nextCoordinates = new ArrayList<>();
         setNextRoundingCoordinates();
@@ -142,11 +142,14 @@ public class AIBoat extends Boat{
      */
     public boolean checkFutureCollision(Mark mark) {
         Coordinate targetPosition = nextCoordinates.get(targetPositionIndex);
-        Coordinate checkPointEnd = getCurrentPosition().coordAt(COLLISION_CHECK_DISTANCE, heading);
-        Double distance = MathUtils.distanceToLineSegment(getCurrentPosition(), checkPointEnd, mark.getPosition());
-
-        return distance <= CollisionManager.MARK_SENSITIVITY &&
-                getCurrentPosition().greaterCircleDistance(targetPosition) > getCurrentPosition().greaterCircleDistance(mark.getPosition());
+        getCurrentPosition().coordAt(COLLISION_CHECK_DISTANCE, getHeading(), checkPointEnd);
+        double distance = MathUtils.distanceToLineSegment(getCurrentPosition(), checkPointEnd, mark.getPosition());
+        if (distance > CollisionManager.MARK_SENSITIVITY) {
+            return false;
+        }
+        currentPoint.set(getCurrentPosition());
+        double distanceToTarget = currentPoint.distanceTo(otherPoint.set(targetPosition));
+        return distanceToTarget > currentPoint.distanceTo(otherPoint.set(mark.getPosition()));
     }
 
     /**
@@ -172,7 +175,7 @@ public class AIBoat extends Boat{
      * @return boolean if boat is current turning
      */
     private boolean currentlyTurning() {
-        return Math.abs(heading - targetHeading) > 1e-6;
+        return Math.abs(getHeading() - targetHeading) > 1e-6;
     }
 
     /**
@@ -184,6 +187,7 @@ public class AIBoat extends Boat{
      */
     private Coordinate coordinateToAvoid(Coordinate collisionPosition) {
         Coordinate targetPosition = nextCoordinates.get(targetPositionIndex);
+        double heading = getHeading();
         Double avoidHeading = (heading + 270) % 360;
         Coordinate coord1 = collisionPosition.coordAt(ROUNDING_DISTANCE, avoidHeading);
 
@@ -205,15 +209,18 @@ public class AIBoat extends Boat{
      */
     public void addTackandGybeMarks(Coordinate lastCoordinate, Coordinate nextCoordinate, Integer headingOption) {
         double TWD = course.getWindDirection();
+        double TWS = course.getTrueWindSpeed();
+        double optimumTackTWA = performanceGrid.getOptimumTWA(TWS, true);
+        double optimumGybeTWA = performanceGrid.getOptimumTWA(TWS, false);
         double headingBetweenMarks = lastCoordinate.headingToCoordinate(nextCoordinate);
 
         double trueWindAngle;
         double optimumAngle;
 
-        if(MathUtils.pointBetweenTwoAngle(TWD, polarTable.getOptimumTWA(true), headingBetweenMarks)){
-            trueWindAngle = polarTable.getOptimumTWA(true);
-        } else if (MathUtils.pointBetweenTwoAngle((TWD + 180) % 360, 180 - polarTable.getOptimumTWA(false), headingBetweenMarks)){
-            trueWindAngle = polarTable.getOptimumTWA(false);
+        if(MathUtils.pointBetweenTwoAngle(TWD, optimumTackTWA, headingBetweenMarks)){
+            trueWindAngle = optimumTackTWA;
+        } else if (MathUtils.pointBetweenTwoAngle((TWD + 180) % 360, 180 - optimumGybeTWA, headingBetweenMarks)){
+            trueWindAngle = optimumGybeTWA;
         } else{
             //Don't need to tack/gybe
             return;
@@ -222,8 +229,8 @@ public class AIBoat extends Boat{
         double optimumHeadingA = (TWD - trueWindAngle + 360) % 360;
         double optimumHeadingB = (TWD + trueWindAngle + 360) % 360;
 
-        double angleToOptimumA = MathUtils.getAngleBetweenTwoHeadings(heading, optimumHeadingA);
-        double angleToOptimumB = MathUtils.getAngleBetweenTwoHeadings(heading, optimumHeadingB);
+        double angleToOptimumA = MathUtils.getAngleBetweenTwoHeadings(getHeading(), optimumHeadingA);
+        double angleToOptimumB = MathUtils.getAngleBetweenTwoHeadings(getHeading(), optimumHeadingB);
         if(headingOption == 1){
             optimumAngle = optimumHeadingA;
         } else if(headingOption == -1){
@@ -296,8 +303,7 @@ public class AIBoat extends Boat{
         double distanceGained = timePassed * getCurrentSpeed() / (60 * 60);
         Coordinate targetPosition = nextCoordinates.get(targetPositionIndex);
         distanceGained = Math.min(distanceGained, currentPosition.greaterCircleDistance(targetPosition));
-        Coordinate newPos = currentPosition.coordAt(distanceGained, heading);
-        setPosition(new Coordinate(newPos.getLat(), newPos.getLon()));
+        moveForward(distanceGained);
         setCurrentVMG(calculateVMGToMark(course));
     }
 
@@ -321,6 +327,7 @@ public class AIBoat extends Boat{
      */
     public void updateBoatHeading(double raceSecondsPassed){
         Double defaultTurnAngle = TURN_SPEED * raceSecondsPassed;
+        double heading = getHeading();
         Double upDiff = (targetHeading - heading + 360) % 360;
         Double downDiff = (heading - targetHeading + 360) % 360;
         if(upDiff < downDiff){
@@ -330,6 +337,7 @@ public class AIBoat extends Boat{
             Double angleOfRotation = Math.min(defaultTurnAngle, downDiff);
             heading = (heading - angleOfRotation + 360) % 360;
         }
+        setHeading(heading);
     }
 
     /**
@@ -1,7 +1,6 @@
 package seng302.models;
 
 
-import javafx.beans.property.*;
 import org.joda.time.DateTime;
 import seng302.data.StartTimingStatus;
 
@@ -29,24 +28,23 @@ public class Boat extends Observable implements Comparable<Boat>{
 
     private String name;
     private String nickName;
-    private DoubleProperty currentSpeed = new SimpleDoubleProperty();
     private double currentVMG;
 
-    protected Coordinate currentPosition;
-    protected Coordinate previousPosition;
-    private PolarTable polarTable;
+    private FleetState fleet = new FleetState(1);
+    private int slot = fleet.addSlot();
+    protected final Coordinate currentPosition = new FleetPosition(false);
+    protected final Coordinate previousPosition = new FleetPosition(true);
+    protected final PolarPerformanceGrid performanceGrid = PolarReader.getPerformanceGridForAC35Yachts();
 
     private int lastRoundedMarkIndex;
     private long lastRoundedMarkTime;
     private int lastTackMarkPassed;
-    private IntegerProperty currPlacing = new SimpleIntegerProperty();
+    private int currPlacing;
     private int leg;
     private int lastGybeMarkPassed;
     private boolean finished;
-    protected double heading;
     protected double targetHeading;
     private double maxSpeed;
-    private double boatHealth = 100;
     private double damageSpeed;
     private boolean boatCheck = false;
     private double boatPenalty;
@@ -67,10 +65,7 @@ public class Boat extends Observable implements Comparable<Boat>{
     private boolean outOfBoundsSound = false;
 
 
-    private BoatStatus status = BoatStatus.UNDEFINED;
-    private StringProperty statusProperty = new SimpleStringProperty();
-    private DoubleProperty headingProperty = new SimpleDoubleProperty();
-    private DoubleProperty healthProperty = new SimpleDoubleProperty();
+    private volatile BoatDisplayListener displayListener;
     private StartTimingStatus timeStatus = StartTimingStatus.ONTIME;
 
     private List<Coordinate> pathCoords;
@@ -82,7 +77,6 @@ public class Boat extends Observable implements Comparable<Boat>{
     private boolean inGate = false;
 
 
-    private double TWAofBoat;
     protected boolean rotate;
     private boolean tackOrGybe;
     private double totalRotatedAmount;
@@ -98,9 +92,36 @@ public class Boat extends Observable implements Comparable<Boat>{
         this.finished = false;
         this.lastRoundedMarkIndex = -1;
         this.pathCoords = new ArrayList<>();
-        this.currentPosition = new Coordinate(0,0);
-        this.previousPosition = new Coordinate(0,0);
-        this.healthProperty.set(1.0);
+    }
+
+    /**
+     * Moves the boat's state into a slot of a fleet, usually the fleet of the race it has joined. The boat should
+     * not be updated by another thread while it moves.
+     * @param newFleet the fleet to move to
+     */
+    void moveToFleet(FleetState newFleet) {
+        if (newFleet != fleet) {
+            int newSlot = newFleet.copySlot(fleet, slot);
+            fleet = newFleet;
+            slot = newSlot;
+        }
+    }
+
+    /**
+     * Moves the boat's state out of a fleet it is leaving, such as the fleet of a race it has been replaced in, into
+     * a fleet of its own, and frees its slot in that fleet. The boat should not be updated by another thread while
+     * it moves.
+     * @param oldFleet the fleet the boat is leaving
+     */
+    void leaveFleet(FleetState oldFleet) {
+        if (oldFleet == fleet) {
+            FleetState ownFleet = new FleetState(1);
+            int newSlot = ownFleet.copySlot(fleet, slot);
+            int oldSlot = slot;
+            fleet = ownFleet;
+            slot = newSlot;
+            oldFleet.freeSlot(oldSlot);
+        }
     }
 
     /**
@@ -109,9 +130,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @param lon the longitude of the boat
      */
     public void setPosition(double lat, double lon){
-        previousPosition = new Coordinate(currentPosition.getLat(), currentPosition.getLon());
-        currentPosition.setLat(lat);
-        currentPosition.setLon(lon);
+        fleet.setPosition(slot, lat, lon);
     }
 
     /**
@@ -119,14 +138,15 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @param coord a Coordinate object to copy position from
      */
     public void setPosition(Coordinate coord) {
-        previousPosition = new Coordinate(currentPosition.getLat(), currentPosition.getLon());
-        currentPosition.setLat(coord.getLat());
-        currentPosition.setLon(coord.getLon());
+        fleet.setPosition(slot, coord.getLat(), coord.getLon());
     }
 
     public void setStatus(BoatStatus status) {
-        this.status = status;
-        this.statusProperty.setValue(status.getText());
+        fleet.setStatus(slot, status);
+        BoatDisplayListener listener = displayListener;
+        if (listener != null) {
+            listener.statusChanged(status);
+        }
     }
 
     public Coordinate getCurrentPosition() {
@@ -160,30 +180,28 @@ public class Boat extends Observable implements Comparable<Boat>{
         return this.name;
     }
 
-    public StringProperty getNameProperty(){return new SimpleStringProperty(name);}
-
     public String getNickName() {
         return nickName;
     }
 
-    public DoubleProperty getSpeedProperty(){ return currentSpeed; }
-
-    public StringProperty getStatusProperty() { return statusProperty; }
-
-    public IntegerProperty getCurrPlacingProperty(){ return currPlacing;}
-
-    public DoubleProperty getHeadingProperty(){
-        return headingProperty;
+    public BoatDisplayListener getDisplayListener() {
+        return displayListener;
     }
 
-    public DoubleProperty getHealthProperty(){ return healthProperty; }
+    /**
+     * Sets the listener told when the values a client displays for this boat change
+     * @param displayListener the listener, or null for none
+     */
+    public void setDisplayListener(BoatDisplayListener displayListener) {
+        this.displayListener = displayListener;
+    }
 
     public double getCurrentSpeed() {
-        return currentSpeed.get();
+        return fleet.getSpeed(slot);
     }
 
     private void checkPenaltySpeed() {
-        double boatPenalty = 100 - boatHealth;
+        double boatPenalty = 100 - getBoatHealth();
         if(boatPenalty > 0 && boatPenalty < 100) {
             damageSpeed = boatPenalty / 10;
         } else if(boatPenalty == 0) {
@@ -192,19 +210,19 @@ public class Boat extends Observable implements Comparable<Boat>{
     }
 
     public void addDamage(int damage) {
+        double boatHealth = getBoatHealth();
         if((boatHealth - damage) > 0) {
-            healthProperty.set((boatHealth -= damage)/100);
-            boatHealth -= damage;
+            fleet.setHealth(slot, boatHealth - 2 * damage);
         } else {
-            boatHealth = 0;
-            healthProperty.set(0);
-            status = BoatStatus.DNF;
+            fleet.setHealth(slot, 0);
+            fleet.setStatus(slot, BoatStatus.DNF);
         }
+        healthChanged();
         checkPenaltySpeed();
     }
 
     public double getBoatHealth() {
-        return boatHealth;
+        return fleet.getHealth(slot);
     }
 
     public void addPenalty(double penalty) {
@@ -216,7 +234,7 @@ public class Boat extends Observable implements Comparable<Boat>{
     }
 
     public int getSpeedInMMS(){
-        return (int) (this.currentSpeed.get() * KNOTS_TO_MMS_MULTIPLIER);
+        return (int) (getCurrentSpeed() * KNOTS_TO_MMS_MULTIPLIER);
     }
 
     public int getLastRoundedMarkIndex() {
@@ -236,25 +254,29 @@ public class Boat extends Observable implements Comparable<Boat>{
     }
 
     public double getCurrentLat() {
-        return currentPosition.getLat();
+        return fleet.getLat(slot);
     }
 
     public double getCurrentLon() {
-        return currentPosition.getLon();
+        return fleet.getLon(slot);
     }
 
     public boolean isFinished() {
-        return status.equals(BoatStatus.FINISHED);
+        return getStatus() == BoatStatus.FINISHED;
     }
 
     public double getHeading() {
-        return heading;
+        return fleet.getHeading(slot);
     }
 
-    public int getCurrPlacing(){return currPlacing.get();}
+    public int getCurrPlacing(){return currPlacing;}
 
     public void setCurrPlacing(int placing){
-        this.currPlacing.setValue(placing);
+        this.currPlacing = placing;
+        BoatDisplayListener listener = displayListener;
+        if (listener != null) {
+            listener.placingChanged(placing);
+        }
         setChanged();
         notifyObservers();
     }
@@ -265,8 +287,12 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @param heading the new heading
      * */
     public void setHeading(double heading) {
-        this.headingProperty.set(((heading + 360)%360));
-        this.heading = ((heading + 360)%360);
+        heading = (heading + 360) % 360;
+        fleet.setHeading(slot, heading);
+        BoatDisplayListener listener = displayListener;
+        if (listener != null) {
+            listener.headingChanged(heading);
+        }
     }
 
     public List getPathCoords() {
@@ -282,15 +308,20 @@ public class Boat extends Observable implements Comparable<Boat>{
     }
 
     public void setTWAofBoat(double TWAofBoat) {
-        this.TWAofBoat = TWAofBoat;
+        fleet.setTrueWindAngle(slot, TWAofBoat);
     }
 
     public double getTWAofBoat() {
-        return TWAofBoat;
+        return fleet.getTrueWindAngle(slot);
     }
 
     public void setCurrentSpeed(double speed) {
-        this.currentSpeed.set(max(0.0, speed));
+        double currentSpeed = max(0.0, speed);
+        fleet.setSpeed(slot, currentSpeed);
+        BoatDisplayListener listener = displayListener;
+        if (listener != null) {
+            listener.speedChanged(currentSpeed);
+        }
     }
 
     public long getTimeAtNextMark() {
@@ -306,7 +337,7 @@ public class Boat extends Observable implements Comparable<Boat>{
     }
 
     public BoatStatus getStatus() {
-        return status;
+        return fleet.getStatus(slot);
     }
 
     public void setMaxSpeed(double maxSpeed) {
@@ -327,8 +358,8 @@ public class Boat extends Observable implements Comparable<Boat>{
 
     public void setMarkColliding(boolean colliding) {markColliding = colliding;}
 
-    public PolarTable getPolarTable() {
-        return polarTable;
+    public PolarPerformanceGrid getPerformanceGrid() {
+        return performanceGrid;
     }
 
     public void setBoatColliding(boolean colliding) {boatColliding = colliding;}
@@ -379,7 +410,7 @@ public class Boat extends Observable implements Comparable<Boat>{
 
     public void setLeg(int leg){
         if(lastRoundedMarkIndex == -1){
-            if(status.equals(BoatStatus.FINISHED)){
+            if(getStatus() == BoatStatus.FINISHED){
                 lastRoundedMarkIndex = leg;
             } else {
                 lastRoundedMarkIndex = leg - 1;
@@ -406,9 +437,9 @@ public class Boat extends Observable implements Comparable<Boat>{
         }
 
         double lineBearing = currentPosition.headingToCoordinate(markLocation);
-        double angle = Math.abs(heading - lineBearing);
+        double angle = Math.abs(getHeading() - lineBearing);
 
-        double VMG = Math.cos(Math.toRadians(angle)) * currentSpeed.get();
+        double VMG = Math.cos(Math.toRadians(angle)) * getCurrentSpeed();
 
         if(angle > 90) {
             VMG = 0;
@@ -426,6 +457,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @return OptimumHeadings
      */
     public OptimumHeadings getOptimumHeadings(Course course, PolarTable polarTable) {
+        double heading = getHeading();
         double TWA = Math.abs(((course.getWindDirection() - heading)));
         double TWD = course.getWindDirection();
         double optimumTWA;
@@ -454,9 +486,17 @@ public class Boat extends Observable implements Comparable<Boat>{
     }
 
     public void setBoatHealth(double boatHealth) {
-        this.healthProperty.set(boatHealth / 100.0);
-        this.boatHealth = boatHealth;
+        fleet.setHealth(slot, boatHealth);
+        healthChanged();
+    }
+
+    private void healthChanged() {
+        BoatDisplayListener listener = displayListener;
+        if (listener != null) {
+            listener.healthChanged(getBoatHealth() / 100.0);
+        }
     }
+
     public void setMarkCollideSound(boolean markCollideSound) {
         this.markCollideSound = markCollideSound;
     }
@@ -487,14 +527,14 @@ public class Boat extends Observable implements Comparable<Boat>{
      * modifies players direction 3 degrees clockwise
      */
     public void clockwise() {
-        heading = (heading + 360 + 9) % 360;
+        fleet.setHeading(slot, (getHeading() + 360 + 9) % 360);
     }
 
     /**
      * modifies players direction 3 degrees anti-clockwise
      */
     public void antiClockwise() {
-        heading = (heading + 360 - 9) % 360;
+        fleet.setHeading(slot, (getHeading() + 360 - 9) % 360);
 
     }
 
@@ -532,6 +572,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      */
     public double getVMGHeading(Course course, PolarTable polarTable) {
         OptimumHeadings optimumHeadings = getOptimumHeadings(course, polarTable);
+        double heading = getHeading();
         double TWA = Math.abs(((course.getWindDirection() - heading)));
         if(isTacking(TWA)) {
             if(inRange(optimumHeadings.headingA, optimumHeadings.headingB, heading)) {
@@ -554,7 +595,7 @@ public class Boat extends Observable implements Comparable<Boat>{
     public void VMG(Course course, PolarTable polarTable){
         targetHeading = getVMGHeading(course, polarTable);
         if (targetHeading == -1){
-            targetHeading = heading;
+            targetHeading = getHeading();
         }
         rotate = true;
     }
@@ -568,6 +609,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      */
     public void tackOrGybe(Course course, PolarTable polarTable) {
         targetHeading = getTackOrGybeHeading(course, polarTable);
+        double heading = getHeading();
         if (targetHeading == -1){
             targetHeading = heading;
         }
@@ -585,6 +627,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @return new tack/gybe heading
      */
     public double getTackOrGybeHeading(Course course, PolarTable polarTable) {
+        double heading = getHeading();
         double TWA = Math.abs(course.getWindDirection() - heading);
         int tackOrGybeScale = isTacking(TWA) ? 1 : -1;
 
@@ -654,7 +697,7 @@ public class Boat extends Observable implements Comparable<Boat>{
     public void headingChange(double windAngle) {
 
         double DELTA = 0.00001;
-        heading += 360;
+        double heading = getHeading() + 360;
         double windAngleCheck = windAngle + 360;
 
         if(heading <= windAngleCheck && heading >= windAngleCheck-2) {
@@ -688,6 +731,7 @@ public class Boat extends Observable implements Comparable<Boat>{
         } else if (heading >= 360) {
             heading -= 360;
         }
+        fleet.setHeading(slot, heading);
     }
 
 
@@ -723,28 +767,11 @@ public class Boat extends Observable implements Comparable<Boat>{
     public double updateBoatSpeed(Course course){
         double TWS = course.getTrueWindSpeed();
         double windDirection = course.getWindDirection();
-        double TWA = Math.abs(((windDirection - heading)));
+        double TWA = Math.abs(((windDirection - getHeading())));
         if(TWA > 180) {
             TWA = 360 - TWA;
         }
-        this.polarTable = new PolarTable(PolarReader.getPolarsForAC35Yachts(), course);
-        ArrayList<Polar> interpPolars = polarTable.TWSForInterp((int) course.getTrueWindSpeed(), PolarReader.getPolarsForAC35Yachts());
-
-        Polar polar1 = interpPolars.get(0);
-        Polar polar3 = interpPolars.get(2);
-        ArrayList<WindAngleAndSpeed> windAngleAndSpeeds1 = polarTable.TWAForInterp((int) TWA, polar1);
-        ArrayList<WindAngleAndSpeed> windAngleAndSpeeds2 = polarTable.TWAForInterp((int) TWA, polar3);
-
-        double TWS0 = polar1.getTWS();
-        double TWS1 = polar3.getTWS();
-        double TWA0 = windAngleAndSpeeds1.get(0).getWindAngle();
-        double TWA1 = windAngleAndSpeeds2.get(2).getWindAngle();
-        double z00 = windAngleAndSpeeds1.get(0).getSpeed();
-        double z10 = windAngleAndSpeeds1.get(2).getSpeed();
-        double z01 = windAngleAndSpeeds2.get(0).getSpeed();
-        double z11 = windAngleAndSpeeds2.get(2).getSpeed();
-
-        return MathUtils.bilinearInterpolation(TWS0,TWS1,TWA0,TWA1,z00,z01,z10,z11,TWS,TWA);
+        return performanceGrid.getBoatSpeed(TWS, TWA);
     }
 
     /**
@@ -753,6 +780,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @return angle of the sail
      */
     public synchronized double getSailAngle(double windDirection){
+        double heading = getHeading();
         double sailAngle;
         if(!sailsIn){
             sailAngle = windDirection;
@@ -821,6 +849,7 @@ public class Boat extends Observable implements Comparable<Boat>{
      */
     public void updateBoatHeading(double time){
         double angleOfRotation = 3 * time;
+        double heading = getHeading();
         double headingDiff = (targetHeading - heading) % 360;
         if (rotate) {
             if (headingDiff > 0 && headingDiff < 180) {
@@ -850,6 +879,7 @@ public class Boat extends Observable implements Comparable<Boat>{
                 tackOrGybe = false;
             }
         }
+        fleet.setHeading(slot, heading);
     }
 
     /**
@@ -858,12 +888,18 @@ public class Boat extends Observable implements Comparable<Boat>{
      * @param course the course the boat is racing on
      */
     public void updateLocation(Double timePassed, Course course) {
-        Double distanceGained = timePassed * getCurrentSpeed() / (60 * 60);
-        Coordinate newPos = currentPosition.coordAt(distanceGained, heading);
-        setPosition(new Coordinate(newPos.getLat(), newPos.getLon()));
+        moveForward(timePassed * getCurrentSpeed() / (60 * 60));
         currentVMG = calculateVMGToMark(course);
     }
 
+    /**
+     * Moves the boat along its heading, keeping its current position as its previous one
+     * @param distance the distance to move in nautical miles
+     */
+    protected void moveForward(double distance) {
+        fleet.advance(slot, distance);
+    }
+
 
     public boolean isOutOfBounds() {
         return outOfBounds;
@@ -892,4 +928,46 @@ public class Boat extends Observable implements Comparable<Boat>{
     public void setTargetHeading(double targetHeading) {
         this.targetHeading = targetHeading;
     }
+
+    /**
+     * A position of the boat that reads and writes the boat's slot in its fleet, so it follows the boat as it
+     * moves without a new coordinate being made
+     */
+    private class FleetPosition extends Coordinate {
+
+        private final boolean previous;
+
+        FleetPosition(boolean previous) {
+            super(0, 0);
+            this.previous = previous;
+        }
+
+        @Override
+        public double getLat() {
+            return previous ? fleet.getPreviousLat(slot) : fleet.getLat(slot);
+        }
+
+        @Override
+        public double getLon() {
+            return previous ? fleet.getPreviousLon(slot) : fleet.getLon(slot);
+        }
+
+        @Override
+        public void setLat(double lat) {
+            if (previous) {
+                fleet.setPreviousLat(slot, lat);
+            } else {
+                fleet.setLat(slot, lat);
+            }
+        }
+
+        @Override
+        public void setLon(double lon) {
+            if (previous) {
+                fleet.setPreviousLon(slot, lon);
+            } else {
+                fleet.setLon(slot, lon);
+            }
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package seng302.models;
+
+import seng302.data.BoatStatus;
+
+/**
+ * Receives changes to the values of a boat that a client displays, so the model itself holds only plain fields
+ */
+public interface BoatDisplayListener {
+
+    void speedChanged(double speed);
+
+    void placingChanged(int placing);
+
+    void statusChanged(BoatStatus status);
+
+    void headingChanged(double heading);
+
+    /**
+     * @param health the boat's health from 0 to 1
+     */
+    void healthChanged(double health);
+}
@@ -0,0 +1,40 @@
+package seng302.models;
+
+import java.util.List;
+
+/**
+ * A course boundary as a polygon of latitude/longitude points.
+ * Containment is tested by casting a ray from the point and counting the edges it crosses, so the boundary can be
+ * checked by the server without any UI toolkit.
+ */
+public class BoundaryPolygon {
+
+    private final double[] lats;
+    private final double[] lons;
+
+    public BoundaryPolygon(List<Coordinate> boundaryCoordinates) {
+        int size = boundaryCoordinates.size();
+        lats = new double[size];
+        lons = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = boundaryCoordinates.get(i).getLat();
+            lons[i] = boundaryCoordinates.get(i).getLon();
+        }
+    }
+
+    /**
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return true if the point is inside the boundary
+     */
+    public boolean contains(double lat, double lon) {
+        boolean inside = false;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            if ((lons[i] > lon) != (lons[j] > lon)
+                    && lat < (lats[j] - lats[i]) * (lon - lons[i]) / (lons[j] - lons[i]) + lats[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
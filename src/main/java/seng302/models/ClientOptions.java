@@ -16,6 +16,7 @@ public class ClientOptions {
     private GameMode gameMode;
     private Boolean isParticipant;
     private Boolean isHost;
+    private boolean requestsLocationDeltas = false;
 
     /** Default constructor */
     public ClientOptions() {
@@ -38,13 +39,17 @@ public class ClientOptions {
         gameMode = mode;
     }
 
-    /** Constructor with full option setting */
+    /**
+     * Constructor with full option setting, for joining a server on another machine. The server is asked for boat
+     * location deltas to save bandwidth.
+     */
     public ClientOptions(String address, Integer port, GameMode gameMode, Boolean isParticipant, Boolean isHost) {
         this.serverAddress = address;
         this.serverPort = port;
         this.gameMode = gameMode;
         this.isParticipant = isParticipant;
         this.isHost = isHost;
+        this.requestsLocationDeltas = true;
     }
 
     public String getServerAddress() {
@@ -85,4 +90,15 @@ public class ClientOptions {
     public GameMode getGameMode() {
         return gameMode;
     }
+
+    /**
+     * @return true if the client asks the server for boat location deltas when it registers
+     */
+    public boolean requestsLocationDeltas() {
+        return requestsLocationDeltas;
+    }
+
+    public void setRequestsLocationDeltas(boolean requestsLocationDeltas) {
+        this.requestsLocationDeltas = requestsLocationDeltas;
+    }
 }
@@ -1,13 +1,13 @@
 package seng302.models;
 
+import seng302.utilities.Geodesy;
+
 /**
  * Coordinate class to encapsulates the latitude longitude coordinates.
  */
 public class Coordinate {
     protected double lat, lon;
 
-    private static final double EARTH_RADIUS_IN_NAUTICAL_MILES = 3437.74677;
-
     public Coordinate(double lat, double lon){
         this.lat = lat;
         this.lon = lon;
@@ -45,13 +45,7 @@ public class Coordinate {
      * @return distance from this to other in nautical miles
      */
     public double greaterCircleDistance(Coordinate other){
-        double lat1 = Math.toRadians(lat);
-        double lat2 = Math.toRadians(other.getLat());
-        double lon1 = Math.toRadians(lon);
-        double lon2 = Math.toRadians(other.getLon());
-
-        return EARTH_RADIUS_IN_NAUTICAL_MILES * Math.acos(Math.sin(lat1) * Math.sin(lat2) +
-                Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon2 - lon1));
+        return Geodesy.distance(getLat(), getLon(), other.getLat(), other.getLon());
     }
 
     /**
@@ -60,35 +54,27 @@ public class Coordinate {
      * @return the heading from this to other
      */
     public double headingToCoordinate(Coordinate other){
-        double Ldelta = Math.toRadians(other.getLon()) - Math.toRadians(getLon());
-        double X = Math.cos(Math.toRadians(other.getLat())) * Math.sin(Ldelta);
-        double Y = Math.cos(Math.toRadians(getLat())) * Math.sin(Math.toRadians(other.getLat()))
-                - Math.sin(Math.toRadians(getLat())) * Math.cos(Math.toRadians(other.getLat())) * Math.cos(Ldelta);
-        double heading = Math.toDegrees(Math.atan2(X, Y));
-        if(heading < 0){
-            heading += 360;
-        }
-        return heading;
+        return Geodesy.heading(getLat(), getLon(), other.getLat(), other.getLon());
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Coordinate)) return false;
 
         Coordinate that = (Coordinate) o;
 
-        if (Double.compare(that.lat, lat) != 0) return false;
-        return Double.compare(that.lon, lon) == 0;
+        if (Double.compare(that.getLat(), getLat()) != 0) return false;
+        return Double.compare(that.getLon(), getLon()) == 0;
     }
 
     @Override
     public int hashCode() {
         int result;
         long temp;
-        temp = Double.doubleToLongBits(lat);
+        temp = Double.doubleToLongBits(getLat());
         result = (int) (temp ^ (temp >>> 32));
-        temp = Double.doubleToLongBits(lon);
+        temp = Double.doubleToLongBits(getLon());
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         return result;
     }
@@ -101,21 +87,23 @@ public class Coordinate {
      * @return the new coordinate
      */
     public Coordinate coordAt(double distance, double bearing, double radius){
-        bearing = Math.toRadians(bearing);
-        double lat1 = Math.toRadians(lat);
-        double long1 = Math.toRadians(lon);
-
-        double lat2 = Math.asin( Math.sin(lat1)*Math.cos(distance/radius) + Math.cos(lat1)*Math.sin(distance/radius)*Math.cos(bearing));
-
-        double long2 = long1 + Math.atan2(Math.sin(bearing)*Math.sin(distance/radius)*Math.cos(lat1), Math.cos(distance/radius)-Math.sin(lat1)*Math.sin(lat2));
-
-        lat2 = Math.toDegrees(lat2);
-        long2 = Math.toDegrees(long2);
-        return new Coordinate(lat2,long2);
+        return Geodesy.destination(getLat(), getLon(), distance, bearing, radius, new Coordinate(0, 0));
     }
 
     public Coordinate coordAt(double distance, double bearing){
-        return coordAt(distance, bearing, EARTH_RADIUS_IN_NAUTICAL_MILES);
+        return coordAt(distance, bearing, Geodesy.EARTH_RADIUS_IN_NAUTICAL_MILES);
+    }
+
+    /**
+     * Calculates the lat and long based on given distance and bearing from current lat,long without making a new
+     * coordinate
+     * @param distance the distance between the two coordinates in nautical miles
+     * @param bearing the bearing to the next coordinate in degrees
+     * @param result the coordinate to set to the new lat and long, which may be this coordinate
+     * @return result
+     */
+    public Coordinate coordAt(double distance, double bearing, Coordinate result){
+        return Geodesy.destination(getLat(), getLon(), distance, bearing, Geodesy.EARTH_RADIUS_IN_NAUTICAL_MILES, result);
     }
 
     /**
@@ -141,8 +129,8 @@ public class Coordinate {
     @Override
     public String toString() {
         return "Coordinate{" +
-                "lat=" + lat +
-                ", lon=" + lon +
+                "lat=" + getLat() +
+                ", lon=" + getLon() +
                 '}';
     }
 }
@@ -0,0 +1,235 @@
+package seng302.models;
+
+import seng302.data.BoatStatus;
+import seng302.utilities.Geodesy;
+
+import java.util.Arrays;
+
+/**
+ * Holds the state of a fleet of boats that changes every race tick in primitive arrays, one slot per boat, so
+ * that updating the fleet reads and writes a few contiguous arrays and allocates nothing.
+ * Every Boat keeps its position, heading, speed, true wind angle, health and status in a slot of a fleet. A new
+ * boat has a fleet of its own, and is moved into the race's fleet when it joins a race.
+ * Adding a slot can replace every array, so a write made to the fleet by another thread while a slot is being added
+ * can be lost. Slots must only be added while nothing else is updating the fleet, which the RaceUpdater ensures by
+ * adding competitors under the same lock as its ticks.
+ * The slot of a boat that leaves the fleet is freed and given to the next boat to join, so a race that replaces its
+ * boats does not keep growing its fleet.
+ */
+public class FleetState {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final BoatStatus[] STATUSES = BoatStatus.values();
+
+    private int size = 0;
+    private int[] freeSlots = new int[0];
+    private int freeCount = 0;
+    private double[] lat;
+    private double[] lon;
+    private double[] previousLat;
+    private double[] previousLon;
+    private double[] heading;
+    private double[] speed;
+    private double[] trueWindAngle;
+    private double[] health;
+    private byte[] status;
+
+    public FleetState() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of boats to make room for before the arrays need to grow
+     */
+    public FleetState(int capacity) {
+        capacity = Math.max(1, capacity);
+        lat = new double[capacity];
+        lon = new double[capacity];
+        previousLat = new double[capacity];
+        previousLon = new double[capacity];
+        heading = new double[capacity];
+        speed = new double[capacity];
+        trueWindAngle = new double[capacity];
+        health = new double[capacity];
+        status = new byte[capacity];
+    }
+
+    /**
+     * Adds a slot for a new boat, at 0,0 with full health and an undefined status. A freed slot is reused if there
+     * is one.
+     * @return the index of the slot
+     */
+    int addSlot() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (size == lat.length) {
+                grow();
+            }
+            slot = size++;
+        }
+        lat[slot] = 0;
+        lon[slot] = 0;
+        previousLat[slot] = 0;
+        previousLon[slot] = 0;
+        heading[slot] = 0;
+        speed[slot] = 0;
+        trueWindAngle[slot] = 0;
+        health[slot] = 100;
+        status[slot] = (byte) BoatStatus.UNDEFINED.ordinal();
+        return slot;
+    }
+
+    /**
+     * Frees the slot of a boat that has left the fleet, to be reused by the next boat added
+     * @param slot the slot to free
+     */
+    void freeSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(4, freeSlots.length * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Adds a slot holding a copy of a slot of another fleet
+     * @param other the fleet to copy from
+     * @param otherSlot the slot to copy
+     * @return the index of the new slot
+     */
+    int copySlot(FleetState other, int otherSlot) {
+        int slot = addSlot();
+        lat[slot] = other.lat[otherSlot];
+        lon[slot] = other.lon[otherSlot];
+        previousLat[slot] = other.previousLat[otherSlot];
+        previousLon[slot] = other.previousLon[otherSlot];
+        heading[slot] = other.heading[otherSlot];
+        speed[slot] = other.speed[otherSlot];
+        trueWindAngle[slot] = other.trueWindAngle[otherSlot];
+        health[slot] = other.health[otherSlot];
+        status[slot] = other.status[otherSlot];
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = lat.length * 2;
+        lat = Arrays.copyOf(lat, capacity);
+        lon = Arrays.copyOf(lon, capacity);
+        previousLat = Arrays.copyOf(previousLat, capacity);
+        previousLon = Arrays.copyOf(previousLon, capacity);
+        heading = Arrays.copyOf(heading, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        trueWindAngle = Arrays.copyOf(trueWindAngle, capacity);
+        health = Arrays.copyOf(health, capacity);
+        status = Arrays.copyOf(status, capacity);
+    }
+
+    /**
+     * @return the number of slots, including freed slots waiting to be reused
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of slots held by boats
+     */
+    public int slotsInUse() {
+        return size - freeCount;
+    }
+
+    /**
+     * Moves a boat to a new position, keeping its current position as its previous one
+     */
+    void setPosition(int slot, double newLat, double newLon) {
+        previousLat[slot] = lat[slot];
+        previousLon[slot] = lon[slot];
+        lat[slot] = newLat;
+        lon[slot] = newLon;
+    }
+
+    /**
+     * Moves a boat along the great circle of its heading, keeping its current position as its previous one.
+     * @param slot the boat's slot
+     * @param distance the distance to move in nautical miles
+     */
+    void advance(int slot, double distance) {
+        double newLat = Geodesy.destinationLat(lat[slot], distance, heading[slot], Geodesy.EARTH_RADIUS_IN_NAUTICAL_MILES);
+        double newLon = Geodesy.destinationLon(lat[slot], lon[slot], newLat, distance, heading[slot],
+                Geodesy.EARTH_RADIUS_IN_NAUTICAL_MILES);
+        setPosition(slot, newLat, newLon);
+    }
+
+    public double getLat(int slot) {
+        return lat[slot];
+    }
+
+    public double getLon(int slot) {
+        return lon[slot];
+    }
+
+    public double getPreviousLat(int slot) {
+        return previousLat[slot];
+    }
+
+    public double getPreviousLon(int slot) {
+        return previousLon[slot];
+    }
+
+    void setLat(int slot, double value) {
+        lat[slot] = value;
+    }
+
+    void setLon(int slot, double value) {
+        lon[slot] = value;
+    }
+
+    void setPreviousLat(int slot, double value) {
+        previousLat[slot] = value;
+    }
+
+    void setPreviousLon(int slot, double value) {
+        previousLon[slot] = value;
+    }
+
+    public double getHeading(int slot) {
+        return heading[slot];
+    }
+
+    void setHeading(int slot, double value) {
+        heading[slot] = value;
+    }
+
+    public double getSpeed(int slot) {
+        return speed[slot];
+    }
+
+    void setSpeed(int slot, double value) {
+        speed[slot] = value;
+    }
+
+    public double getTrueWindAngle(int slot) {
+        return trueWindAngle[slot];
+    }
+
+    void setTrueWindAngle(int slot, double value) {
+        trueWindAngle[slot] = value;
+    }
+
+    public double getHealth(int slot) {
+        return health[slot];
+    }
+
+    void setHealth(int slot, double value) {
+        health[slot] = value;
+    }
+
+    public BoatStatus getStatus(int slot) {
+        return STATUSES[status[slot]];
+    }
+
+    void setStatus(int slot, BoatStatus value) {
+        status[slot] = (byte) value.ordinal();
+    }
+}
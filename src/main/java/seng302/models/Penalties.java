@@ -1,5 +1,6 @@
 package seng302.models;
 
+import java.time.Clock;
 
 /**
  * Created by cjd137 on 21/07/17.
@@ -7,16 +8,29 @@ package seng302.models;
  */
 public class Penalties {
 
+    private final Clock clock;
+
+    public Penalties() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * @param clock the clock the time between penalties is measured by
+     */
+    public Penalties(Clock clock) {
+        this.clock = clock;
+    }
+
     /**
      * When a boat collides with another boat, both get damaged (collider more than collidee)
      * @param boatCollider The boat in the wrong
      * @param boatCollidee The boat that was hit
      */
     public void boatCollision(Boat boatCollider, Boat boatCollidee) {
-        if (System.currentTimeMillis() - boatCollider.getTimeSinceLastCollision() > 2500) {
+        if (clock.millis() - boatCollider.getTimeSinceLastCollision() > 2500) {
             boatCollider.addDamage(20);
             boatCollidee.addDamage(5);
-            boatCollider.setTimeSinceLastCollision(System.currentTimeMillis());
+            boatCollider.setTimeSinceLastCollision(clock.millis());
 
         }
     }
@@ -35,9 +49,9 @@ public class Penalties {
      * @param boat the boat out of bounds
      */
     public void boatOutOfBounds(Boat boat){
-        if (System.currentTimeMillis() - boat.getTimeSinceLastCollision() > 250) {
+        if (clock.millis() - boat.getTimeSinceLastCollision() > 250) {
             boat.addDamage(1);
-            boat.setTimeSinceLastCollision(System.currentTimeMillis());
+            boat.setTimeSinceLastCollision(clock.millis());
         }
     }
 
@@ -46,9 +60,9 @@ public class Penalties {
      * @param boatCollider the boat which hit the mark
      */
     public void markCollision(Boat boatCollider) {
-        if (System.currentTimeMillis() - boatCollider.getTimeSinceLastCollision() > 2500) {
+        if (clock.millis() - boatCollider.getTimeSinceLastCollision() > 2500) {
             boatCollider.addDamage(5);
-            boatCollider.setTimeSinceLastCollision(System.currentTimeMillis());
+            boatCollider.setTimeSinceLastCollision(clock.millis());
         }
     }
 
@@ -1,6 +1,5 @@
 package seng302.models;
 
-import javafx.util.Pair;
 
 import java.util.ArrayList;
 
@@ -0,0 +1,103 @@
+package seng302.models;
+
+import java.util.ArrayList;
+
+/**
+ * Boat performance for a boat class, precomputed once from its polars.
+ * Boat speeds are sampled every knot of true wind speed and every degree of true wind angle into a single dense
+ * array so that a lookup is a bilinear read between the four surrounding samples. The optimum tack and gybe
+ * VMG and TWA are precomputed for every whole knot of true wind speed.
+ * Instances are immutable and can be shared between all boats and threads.
+ */
+public class PolarPerformanceGrid {
+
+    private static final int MAX_TWA = 180;
+    private static final int TWA_COLUMNS = MAX_TWA + 1;
+
+    private final int maxTWS;
+    private final double[] boatSpeeds;
+    private final double[] tackVMGs;
+    private final double[] tackTWAs;
+    private final double[] gybeVMGs;
+    private final double[] gybeTWAs;
+
+    /**
+     * Builds the grid by sampling the polar interpolation at every whole knot and degree
+     * @param polars polar table for a specific boat class, ordered by true wind speed
+     */
+    public PolarPerformanceGrid(ArrayList<Polar> polars) {
+        int highestTWS = 0;
+        for (Polar polar : polars) {
+            highestTWS = Math.max(highestTWS, polar.getTWS());
+        }
+        maxTWS = highestTWS;
+        boatSpeeds = new double[(maxTWS + 1) * TWA_COLUMNS];
+        tackVMGs = new double[maxTWS + 1];
+        tackTWAs = new double[maxTWS + 1];
+        gybeVMGs = new double[maxTWS + 1];
+        gybeTWAs = new double[maxTWS + 1];
+
+        PolarTable polarTable = new PolarTable(polars);
+        for (int TWS = 0; TWS <= maxTWS; TWS++) {
+            for (int TWA = 0; TWA <= MAX_TWA; TWA++) {
+                boatSpeeds[TWS * TWA_COLUMNS + TWA] = polarTable.calculateBoatSpeed(TWS, TWA);
+            }
+            WindAngleAndSpeed tackingInfo = polarTable.calculateOptimumTack(TWS);
+            WindAngleAndSpeed gybingInfo = polarTable.calculateOptimumGybe(TWS);
+            tackVMGs[TWS] = tackingInfo.getWindAngle();
+            tackTWAs[TWS] = tackingInfo.getSpeed();
+            gybeVMGs[TWS] = gybingInfo.getWindAngle();
+            gybeTWAs[TWS] = gybingInfo.getSpeed();
+        }
+    }
+
+    /**
+     * Looks up the boat speed at a given true wind speed and true wind angle by bilinear interpolation
+     * between the surrounding samples. Values outside the sampled range are clamped to its edges.
+     * @param TWS true wind speed
+     * @param TWA true wind angle, between 0 and 180
+     * @return the boat speed
+     */
+    public double getBoatSpeed(double TWS, double TWA) {
+        double clampedTWS = clamp(TWS, maxTWS);
+        double clampedTWA = clamp(TWA, MAX_TWA);
+        int row = Math.min((int) clampedTWS, maxTWS - 1);
+        int column = Math.min((int) clampedTWA, MAX_TWA - 1);
+        double rowFraction = clampedTWS - row;
+        double columnFraction = clampedTWA - column;
+
+        int index = row * TWA_COLUMNS + column;
+        double z00 = boatSpeeds[index];
+        double z01 = boatSpeeds[index + 1];
+        double z10 = boatSpeeds[index + TWA_COLUMNS];
+        double z11 = boatSpeeds[index + TWA_COLUMNS + 1];
+
+        double lowerRow = (1 - columnFraction) * z00 + columnFraction * z01;
+        double upperRow = (1 - columnFraction) * z10 + columnFraction * z11;
+        return (1 - rowFraction) * lowerRow + rowFraction * upperRow;
+    }
+
+    /**
+     * @param TWS true wind speed, truncated to a whole knot as the optimums are calculated per knot
+     * @param onTack true for the optimum tack, false for the optimum gybe
+     * @return the optimum VMG
+     */
+    public double getOptimumVMG(double TWS, boolean onTack) {
+        int index = (int) clamp(TWS, maxTWS);
+        return onTack ? tackVMGs[index] : gybeVMGs[index];
+    }
+
+    /**
+     * @param TWS true wind speed, truncated to a whole knot as the optimums are calculated per knot
+     * @param onTack true for the optimum tack, false for the optimum gybe
+     * @return the optimum TWA
+     */
+    public double getOptimumTWA(double TWS, boolean onTack) {
+        int index = (int) clamp(TWS, maxTWS);
+        return onTack ? tackTWAs[index] : gybeTWAs[index];
+    }
+
+    private static double clamp(double value, double max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
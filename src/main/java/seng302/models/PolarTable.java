@@ -27,6 +27,29 @@ public class PolarTable {
         tackTWAofBoat = tackingInfo.getSpeed();
     }
 
+    /**
+     * Creates a polar table using the optimum tack and gybe values precomputed by a performance grid,
+     * rather than rerunning the optimum calculations
+     * @param grid the precomputed performance grid for the boat class
+     * @param course the course whose true wind speed the optimums are taken at
+     */
+    public PolarTable(PolarPerformanceGrid grid, Course course) {
+        double TWS = course.getTrueWindSpeed();
+        gybeVMGofBoat = grid.getOptimumVMG(TWS, false);
+        gybeTWAofBoat = grid.getOptimumTWA(TWS, false);
+        tackVMGofBoat = grid.getOptimumVMG(TWS, true);
+        tackTWAofBoat = grid.getOptimumTWA(TWS, true);
+    }
+
+    /**
+     * Creates a polar table without calculating any optimums. Used when building a performance grid, which
+     * calculates the optimums for every wind speed itself.
+     * @param polars polar table for a specific boat
+     */
+    PolarTable(ArrayList<Polar> polars) {
+        this.polars = polars;
+    }
+
     /**
      * Finds the 3 values closest to the tws.
      * @param TWS Given true wind speed that is used in the calculations
@@ -216,6 +239,32 @@ public class PolarTable {
         return boatsTack;
     }
 
+    /**
+     * Interpolates the boat speed from the polars at a given true wind speed and true wind angle
+     * @param TWS true wind speed
+     * @param TWA true wind angle, between 0 and 180
+     * @return the interpolated boat speed
+     */
+    public double calculateBoatSpeed(double TWS, double TWA) {
+        ArrayList<Polar> interpPolars = TWSForInterp((int) TWS, polars);
+
+        Polar polar1 = interpPolars.get(0);
+        Polar polar3 = interpPolars.get(2);
+        ArrayList<WindAngleAndSpeed> windAngleAndSpeeds1 = TWAForInterp((int) TWA, polar1);
+        ArrayList<WindAngleAndSpeed> windAngleAndSpeeds2 = TWAForInterp((int) TWA, polar3);
+
+        double TWS0 = polar1.getTWS();
+        double TWS1 = polar3.getTWS();
+        double TWA0 = windAngleAndSpeeds1.get(0).getWindAngle();
+        double TWA1 = windAngleAndSpeeds2.get(2).getWindAngle();
+        double z00 = windAngleAndSpeeds1.get(0).getSpeed();
+        double z10 = windAngleAndSpeeds1.get(2).getSpeed();
+        double z01 = windAngleAndSpeeds2.get(0).getSpeed();
+        double z11 = windAngleAndSpeeds2.get(2).getSpeed();
+
+        return MathUtils.bilinearInterpolation(TWS0,TWS1,TWA0,TWA1,z00,z01,z10,z11,TWS,TWA);
+    }
+
     public double getOptimumVMG(boolean onTack) {
         return onTack ? tackVMGofBoat : gybeVMGofBoat;
     }
@@ -2,13 +2,12 @@ package seng302.models;
 
 import static seng302.data.RaceStatus.*;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import seng302.data.BoatStatus;
 import seng302.data.RaceStatus;
 import seng302.utilities.TimeUtils;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -23,8 +22,10 @@ public class Race extends Observable{
     private String id;
     private String regattaName;
     private Course course;
-    private List<Boat> competitors = Collections.synchronizedList(new ArrayList<>());
-    private ObservableList observableCompetitorsList  = FXCollections.observableArrayList();
+    private List<Boat> competitors = new CopyOnWriteArrayList<>();
+    private List<Boat> competitorsView = Collections.unmodifiableList(competitors);
+    private final FleetState fleet = new FleetState();
+    private List<Boat> addedCompetitors = new ArrayList<>();
     private List<Boat> raceOrder = new ArrayList<>();
     private Map<Integer, Boat> boatIdMap = new HashMap<>();
     private double totalRaceTime;
@@ -38,7 +39,7 @@ public class Race extends Observable{
     public Race(String name, Course course, List<Boat> competitors) {
         this.regattaName = name;
         this.course = course;
-        this.competitors = competitors;
+        replaceCompetitors(competitors);
         raceOrder.addAll(competitors);
         for(Boat competitor : competitors){
             boatIdMap.put(competitor.getId(), competitor);
@@ -76,8 +77,36 @@ public class Race extends Observable{
         }
     }
 
+    /**
+     * @return a read only view of the competitors. Boats can be added while the view is iterated, and an iteration
+     * sees the competitors as they were when it began.
+     */
     public List<Boat> getCompetitors() {
-        return new ArrayList<>(this.competitors);
+        return competitorsView;
+    }
+
+    /**
+     * @return the fleet holding the per tick state of every competitor
+     */
+    public FleetState getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Replaces the competitors, moving each boat's state into the race's fleet. Boats that are no longer
+     * competitors give up their slots in the fleet.
+     */
+    private void replaceCompetitors(List<Boat> newCompetitors) {
+        for (Boat competitor : competitors) {
+            if (!newCompetitors.contains(competitor)) {
+                competitor.leaveFleet(fleet);
+            }
+        }
+        for (Boat competitor : newCompetitors) {
+            competitor.moveToFleet(fleet);
+        }
+        competitors = new CopyOnWriteArrayList<>(newCompetitors);
+        competitorsView = Collections.unmodifiableList(competitors);
     }
 
     public String getRegattaName() {
@@ -230,14 +259,14 @@ public class Race extends Observable{
 
     public void setCompetitors(List<Boat> competitors) {
         List<Boat> actualCompetitors = filterNonCompetitors(competitors);
-        this.competitors = actualCompetitors;
+        replaceCompetitors(actualCompetitors);
 
         raceOrder.addAll(actualCompetitors);
         boatIdMap = new HashMap<>();
         for (Boat competitor : actualCompetitors) {
             boatIdMap.put(competitor.getId(), competitor);
-            if(!observableCompetitorsList.contains(competitor)){
-                this.observableCompetitorsList.add(competitor);
+            if(!addedCompetitors.contains(competitor)){
+                this.addedCompetitors.add(competitor);
             }
         }
     }
@@ -250,11 +279,21 @@ public class Race extends Observable{
         return id;
     }
 
+    /**
+     * Adds a boat to the race, replacing any other boat with the same id
+     * @param newCompetitor the boat to add
+     */
     public void addCompetitor(Boat newCompetitor) {
         this.competitorIds.add(newCompetitor.getId());
-        this.boatIdMap.put(newCompetitor.getId(), newCompetitor);
+        Boat replaced = this.boatIdMap.put(newCompetitor.getId(), newCompetitor);
+        if (replaced != null && replaced != newCompetitor && competitors.remove(replaced)) {
+            addedCompetitors.remove(replaced);
+            raceOrder.remove(replaced);
+            replaced.leaveFleet(fleet);
+        }
+        newCompetitor.moveToFleet(fleet);
         this.competitors.add(newCompetitor);
-        this.observableCompetitorsList.add(newCompetitor);
+        this.addedCompetitors.add(newCompetitor);
         this.raceOrder.add(newCompetitor);
         newCompetitor.setSpawnTime(currentTimeInEpochMs);
         setChanged();
@@ -276,8 +315,11 @@ public class Race extends Observable{
         return this.raceStatus.equals(RaceStatus.STARTED);
     }
 
-    public ObservableList<Boat> getObservableCompetitors(){
-        return observableCompetitorsList;
+    /**
+     * @return every boat that has been a competitor in this race, including any no longer competing
+     */
+    public List<Boat> getAddedCompetitors(){
+        return addedCompetitors;
     }
 
     public void setAbruptEnd(boolean abruptEnd) {
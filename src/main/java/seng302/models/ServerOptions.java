@@ -20,6 +20,9 @@ public class ServerOptions {
     private String raceXML;
     private boolean isTutorial;
     private Integer numRacesToRun;
+    private int updateThreads = 1;
+    private Long seed;
+    private String recordingDirectory;
     private AIDifficulty aiDifficulty = AIDifficulty.NO_AI;
     private GameMode gameMode = GameMode.MULTIPLAYER;
 
@@ -134,6 +137,52 @@ public class ServerOptions {
         return numRacesToRun == -1;
     }
 
+    public int getUpdateThreads() {
+        return updateThreads;
+    }
+
+    /**
+     * @param updateThreads the number of threads that update the boats each tick, where 1 updates them on the
+     *                      race's own thread
+     */
+    public void setUpdateThreads(int updateThreads) throws IllegalArgumentException {
+        if (updateThreads > 0) {
+            this.updateThreads = updateThreads;
+        } else {
+            throw new IllegalArgumentException("Number of update threads must be at least 1");
+        }
+    }
+
+    /**
+     * @return the seed the races are run from in deterministic mode, or null if they run in real time
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seed the seed to run the races from, so that races given the same inputs play out the same way and
+     *             send the same stream, or null to run them in real time
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isDeterministic() {
+        return seed != null;
+    }
+
+    /**
+     * @return the directory each race's stream is recorded into, or null if races are not recorded
+     */
+    public String getRecordingDirectory() {
+        return recordingDirectory;
+    }
+
+    public void setRecordingDirectory(String recordingDirectory) {
+        this.recordingDirectory = recordingDirectory;
+    }
+
     public void setAiDifficulty(AIDifficulty AIDifficulty) {
         this.aiDifficulty = AIDifficulty;
     }
@@ -0,0 +1,165 @@
+package seng302.models;
+
+import seng302.utilities.Geodesy;
+
+import java.util.*;
+
+/**
+ * Uniform grid over the water that buckets objects by their position, so that objects near a point can be found
+ * without checking every object. Positions are projected onto a flat plane in nautical miles around the first
+ * position added, which is accurate over the few miles a course covers.
+ * Objects are moved between cells as their positions are updated, so the grid can be kept up to date each race
+ * tick without being rebuilt.
+ */
+public class SpatialHash<T> {
+
+    private final double cellSize;
+    private Geodesy.TangentPlane plane;
+
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private final Map<T, Long> itemCells = new HashMap<>();
+
+    /**
+     * @param cellSize width of each cell in nautical miles. Objects within this distance of each other are
+     *                 always in the same or neighbouring cells.
+     */
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an object to the grid, or moves it to the cell of its new position if it is already in the grid
+     * @param item the object to add or move
+     * @param position the current position of the object
+     */
+    public void update(T item, Coordinate position) {
+        if (plane == null) {
+            plane = new Geodesy.TangentPlane(position.getLat(), position.getLon());
+        }
+        long key = cellKey(cellX(position.getLon()), cellY(position.getLat()));
+        Long currentKey = itemCells.get(item);
+        if (currentKey != null) {
+            if (currentKey == key) {
+                return;
+            }
+            removeFromCell(item, currentKey);
+        }
+        itemCells.put(item, key);
+        cells.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+    }
+
+    /**
+     * Removes an object from the grid
+     * @param item the object to remove
+     */
+    public void remove(T item) {
+        Long key = itemCells.remove(item);
+        if (key != null) {
+            removeFromCell(item, key);
+        }
+    }
+
+    /**
+     * Removes every object from the grid that is not in the given collection
+     * @param items the objects to keep
+     */
+    public void retainAll(Collection<T> items) {
+        List<T> staleItems = new ArrayList<>();
+        for (T item : itemCells.keySet()) {
+            if (!items.contains(item)) {
+                staleItems.add(item);
+            }
+        }
+        for (T item : staleItems) {
+            remove(item);
+        }
+    }
+
+    /**
+     * @return the number of objects in the grid
+     */
+    public int size() {
+        return itemCells.size();
+    }
+
+    /**
+     * Finds the objects in the cell containing a position and its eight neighbouring cells.
+     * These are the only objects that can be within one cell width of the position.
+     * @param position the position to search around
+     * @param nearby list the nearby objects are added to, it is cleared first so it can be reused
+     */
+    public void findNearby(Coordinate position, List<T> nearby) {
+        nearby.clear();
+        if (plane == null) {
+            return;
+        }
+        int x = cellX(position.getLon());
+        int y = cellY(position.getLat());
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                List<T> cell = cells.get(cellKey(x + dx, y + dy));
+                if (cell != null) {
+                    nearby.addAll(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the objects in every cell that overlaps an area. This is every object inside the area, along with some
+     * that are up to a cell width outside of it.
+     * @param minLat the latitude of the bottom edge of the area
+     * @param minLon the longitude of the left edge of the area
+     * @param maxLat the latitude of the top edge of the area
+     * @param maxLon the longitude of the right edge of the area
+     * @param found list the objects are added to, it is cleared first so it can be reused
+     */
+    public void findWithin(double minLat, double minLon, double maxLat, double maxLon, List<T> found) {
+        found.clear();
+        if (plane == null) {
+            return;
+        }
+        int minX = cellX(minLon);
+        int maxX = cellX(maxLon);
+        int minY = cellY(minLat);
+        int maxY = cellY(maxLat);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+            for (Map.Entry<Long, List<T>> cell : cells.entrySet()) {
+                int x = (int) (cell.getKey() >> 32);
+                int y = (int) cell.getKey().longValue();
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    found.addAll(cell.getValue());
+                }
+            }
+            return;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                List<T> cell = cells.get(cellKey(x, y));
+                if (cell != null) {
+                    found.addAll(cell);
+                }
+            }
+        }
+    }
+
+    private void removeFromCell(T item, long key) {
+        List<T> cell = cells.get(key);
+        cell.remove(item);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private int cellX(double lon) {
+        return (int) Math.floor(plane.x(lon) / cellSize);
+    }
+
+    private int cellY(double lat) {
+        return (int) Math.floor(plane.y(lat) / cellSize);
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
@@ -0,0 +1,29 @@
+package seng302.utilities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each boat a colour from the party colours, as 0xRRGGBB values so the server can send them to web
+ * clients without a UI toolkit. The first colour, white, is skipped until every other colour has been used.
+ */
+public class BoatColours {
+
+    private static final int[] PARTY_COLOURS = {0xffffff, 0x54ca95, 0xff7387, 0xfad97b, 0xffd6c0, 0xa79be5, 0x33414c};
+    private static final Map<Integer, Integer> assignedColours = new HashMap<>();
+    private static int nextColourToBeUsed = 1;
+
+    /**
+     * @param id the id of the boat
+     * @return the colour assigned to the boat as 0xRRGGBB, assigning it the next colour if it has none yet
+     */
+    public static synchronized int getBoatColour(Integer id) {
+        Integer colour = assignedColours.get(id);
+        if (colour == null) {
+            colour = PARTY_COLOURS[nextColourToBeUsed];
+            assignedColours.put(id, colour);
+            nextColourToBeUsed = (nextColourToBeUsed + 1) % PARTY_COLOURS.length;
+        }
+        return colour;
+    }
+}
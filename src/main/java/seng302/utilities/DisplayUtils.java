@@ -13,9 +13,6 @@ import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 
 import static java.lang.Math.abs;
 
@@ -42,10 +39,6 @@ public class DisplayUtils {
     private static int offsetX=0;
     private static int offsetY=0;
 
-    private static int nextColorToBeUsed = 1;
-    private static HashMap<Integer, Color> assignedColors = new HashMap<>();
-    private static final ArrayList<Color> PARTY_COLORS = new ArrayList<>((Arrays.asList(Color.WHITE, Color.web("#54ca95"), Color.web("#ff7387"),
-            Color.web("#fad97b"), Color.web("#ffd6c0"), Color.web("#a79be5"), Color.web("#33414c"))));
 
 
     /**
@@ -90,6 +83,45 @@ public class DisplayUtils {
         return new CanvasCoordinate(xCoord, yCoord);
     }
 
+    /**
+     * Takes a point on the canvas and returns the latitude and longitude shown there, at the current zoom and offsets.
+     * This is the reverse of convertFromLatLon.
+     * @param x the X coordinate on the canvas
+     * @param y the Y coordinate on the canvas
+     * @return the Coordinate shown at the point
+     */
+    public static Coordinate convertToLatLon(double x, double y) {
+        double canvasY;
+        double canvasX;
+        if(isRaceView){
+            canvasY = Controller.getCanvasHeight();
+            canvasX = Controller.getCanvasWidth();
+        }else{
+            canvasY = MainMenuController.getCanvasHeight();
+            canvasX = MainMenuController.getCanvasWidth();
+        }
+
+        double changeInLat = max.getLat() - min.getLat();
+        double changeInLon = max.getLon() - min.getLon();
+        double perDegree = Math.min(canvasX/changeInLon, canvasY/changeInLat);
+
+        double unzoomedX = (x - offsetX) / zoomLevel;
+        double unzoomedY = (y - offsetY) / zoomLevel;
+
+        double lon = (unzoomedX - (canvasX - changeInLon * perDegree) / 2) / perDegree + min.getLon();
+        double lat = (canvasY - unzoomedY - (canvasY - changeInLat * perDegree) / 2) / perDegree + min.getLat();
+        return new Coordinate(lat, lon);
+    }
+
+    /**
+     * @return the latitudes and longitudes of the bottom left and top right corners of the area shown on the canvas
+     */
+    public static Coordinate[] getVisibleArea() {
+        double canvasY = isRaceView ? Controller.getCanvasHeight() : MainMenuController.getCanvasHeight();
+        double canvasX = isRaceView ? Controller.getCanvasWidth() : MainMenuController.getCanvasWidth();
+        return new Coordinate[]{convertToLatLon(0, canvasY), convertToLatLon(canvasX, 0)};
+    }
+
     public static void resetZoom(){
         zoomLevel=1;
         offsetY=0;
@@ -420,11 +452,7 @@ public class DisplayUtils {
      * @param id of the boat to assign a color to
      */
     static public Color getBoatColor(Integer id) {
-        if (!assignedColors.keySet().contains(id)) {
-            assignedColors.put(id, PARTY_COLORS.get(nextColorToBeUsed));
-            nextColorToBeUsed++;
-            nextColorToBeUsed %= PARTY_COLORS.size();
-        }
-        return assignedColors.get(id);
+        int colour = BoatColours.getBoatColour(id);
+        return Color.rgb(colour >> 16 & 0xFF, colour >> 8 & 0xFF, colour & 0xFF);
     }
 }
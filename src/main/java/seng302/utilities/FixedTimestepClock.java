@@ -0,0 +1,85 @@
+package seng302.utilities;
+
+/**
+ * Counts the fixed length steps that are due as real time passes, so a simulation advanced by one step per due
+ * step keeps to wall time however long each step takes to run.
+ * If the caller falls so far behind that more than a bounded number of steps are due at once, the excess steps are
+ * dropped and counted as an overrun rather than run back to back, which would only put the caller further behind.
+ */
+public class FixedTimestepClock {
+
+    private final long stepNanos;
+    private final int maxStepsPerAdvance;
+    private long lastNanos;
+    private long accumulatedNanos = 0;
+    private long steps = 0;
+    private long overruns = 0;
+    private long droppedSteps = 0;
+
+    /**
+     * @param stepNanos the length of a step
+     * @param maxStepsPerAdvance the most steps to catch up on in one advance
+     * @param startNanos the time the clock starts, from System.nanoTime()
+     */
+    public FixedTimestepClock(long stepNanos, int maxStepsPerAdvance, long startNanos) {
+        if (stepNanos <= 0 || maxStepsPerAdvance <= 0) {
+            throw new IllegalArgumentException("The step length and steps per advance must be positive");
+        }
+        this.stepNanos = stepNanos;
+        this.maxStepsPerAdvance = maxStepsPerAdvance;
+        this.lastNanos = startNanos;
+    }
+
+    /**
+     * Moves the clock on to the given time
+     * @param nowNanos the current time, from System.nanoTime()
+     * @return the number of steps to run now, at most the maximum steps per advance
+     */
+    public int advance(long nowNanos) {
+        accumulatedNanos += nowNanos - lastNanos;
+        lastNanos = nowNanos;
+        long due = accumulatedNanos / stepNanos;
+        if (due > maxStepsPerAdvance) {
+            long dropped = due - maxStepsPerAdvance;
+            overruns++;
+            droppedSteps += dropped;
+            accumulatedNanos -= dropped * stepNanos;
+            due = maxStepsPerAdvance;
+        }
+        accumulatedNanos -= due * stepNanos;
+        steps += due;
+        return (int) due;
+    }
+
+    /**
+     * @return the time from the last advance until the next step is due
+     */
+    public long nanosUntilNextStep() {
+        return stepNanos - accumulatedNanos;
+    }
+
+    /**
+     * @return the number of steps returned by all advances
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return the number of advances that had to drop steps
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * @return the total number of steps dropped
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
@@ -0,0 +1,206 @@
+package seng302.utilities;
+
+import seng302.models.Coordinate;
+
+/**
+ * Great circle calculations on latitudes and longitudes held in primitive doubles, so they can be done every race
+ * tick without making coordinates. All distances are in nautical miles and all angles are in degrees, with
+ * headings clockwise from north.
+ * A Point caches the radians and trig values of a position for repeated calculations from it, and a TangentPlane
+ * gives a faster flat approximation for short distances such as collision checks.
+ */
+public class Geodesy {
+
+    public static final double EARTH_RADIUS_IN_NAUTICAL_MILES = 3437.74677;
+
+    /**
+     * @return the great circle distance between two positions
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Radians = Math.toRadians(lat1);
+        double lat2Radians = Math.toRadians(lat2);
+        return distance(Math.sin(lat1Radians), Math.cos(lat1Radians), Math.sin(lat2Radians), Math.cos(lat2Radians),
+                Math.toRadians(lon2) - Math.toRadians(lon1));
+    }
+
+    private static double distance(double sinLat1, double cosLat1, double sinLat2, double cosLat2, double lonDelta) {
+        return EARTH_RADIUS_IN_NAUTICAL_MILES * Math.acos(sinLat1 * sinLat2 + cosLat1 * cosLat2 * Math.cos(lonDelta));
+    }
+
+    /**
+     * @return the initial heading of the great circle from the first position to the second, between 0 and 360
+     */
+    public static double heading(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Radians = Math.toRadians(lat1);
+        double lat2Radians = Math.toRadians(lat2);
+        return heading(Math.sin(lat1Radians), Math.cos(lat1Radians), Math.sin(lat2Radians), Math.cos(lat2Radians),
+                Math.toRadians(lon2) - Math.toRadians(lon1));
+    }
+
+    private static double heading(double sinLat1, double cosLat1, double sinLat2, double cosLat2, double lonDelta) {
+        double x = cosLat2 * Math.sin(lonDelta);
+        double y = cosLat1 * sinLat2 - sinLat1 * cosLat2 * Math.cos(lonDelta);
+        double heading = Math.toDegrees(Math.atan2(x, y));
+        if (heading < 0) {
+            heading += 360;
+        }
+        return heading;
+    }
+
+    /**
+     * @return the latitude reached by travelling a distance along a bearing from a position on a sphere
+     */
+    public static double destinationLat(double lat, double distance, double bearing, double radius) {
+        double latRadians = Math.toRadians(lat);
+        double angularDistance = distance / radius;
+        return Math.toDegrees(Math.asin(Math.sin(latRadians) * Math.cos(angularDistance)
+                + Math.cos(latRadians) * Math.sin(angularDistance) * Math.cos(Math.toRadians(bearing))));
+    }
+
+    /**
+     * @param destinationLat the latitude reached, from destinationLat
+     * @return the longitude reached by travelling a distance along a bearing from a position on a sphere
+     */
+    public static double destinationLon(double lat, double lon, double destinationLat, double distance,
+                                        double bearing, double radius) {
+        double latRadians = Math.toRadians(lat);
+        double angularDistance = distance / radius;
+        double bearingRadians = Math.toRadians(bearing);
+        return Math.toDegrees(Math.toRadians(lon) + Math.atan2(
+                Math.sin(bearingRadians) * Math.sin(angularDistance) * Math.cos(latRadians),
+                Math.cos(angularDistance) - Math.sin(latRadians) * Math.sin(Math.toRadians(destinationLat))));
+    }
+
+    /**
+     * Finds the position reached by travelling a distance along a bearing from a position on a sphere
+     * @param result the coordinate to set to the position reached, which may be the coordinate of the start
+     * @return result
+     */
+    public static Coordinate destination(double lat, double lon, double distance, double bearing, double radius,
+                                         Coordinate result) {
+        double newLat = destinationLat(lat, distance, bearing, radius);
+        result.update(newLat, destinationLon(lat, lon, newLat, distance, bearing, radius));
+        return result;
+    }
+
+    /**
+     * A position with its radians and trig values worked out once when it is set, for finding the distances and
+     * headings from one position to many. A Point is meant to be kept and set again rather than made for each
+     * calculation, and is not safe to share between threads.
+     */
+    public static class Point {
+
+        private double lat;
+        private double lon;
+        private double lonRadians;
+        private double sinLat;
+        private double cosLat;
+
+        public Point() {
+            set(0, 0);
+        }
+
+        public Point(double lat, double lon) {
+            set(lat, lon);
+        }
+
+        public Point set(double lat, double lon) {
+            this.lat = lat;
+            this.lon = lon;
+            double latRadians = Math.toRadians(lat);
+            lonRadians = Math.toRadians(lon);
+            sinLat = Math.sin(latRadians);
+            cosLat = Math.cos(latRadians);
+            return this;
+        }
+
+        public Point set(Coordinate coordinate) {
+            return set(coordinate.getLat(), coordinate.getLon());
+        }
+
+        public double getLat() {
+            return lat;
+        }
+
+        public double getLon() {
+            return lon;
+        }
+
+        /**
+         * @return the great circle distance from this point to another
+         */
+        public double distanceTo(Point other) {
+            return distance(sinLat, cosLat, other.sinLat, other.cosLat, other.lonRadians - lonRadians);
+        }
+
+        /**
+         * @return the initial heading of the great circle from this point to another, between 0 and 360
+         */
+        public double headingTo(Point other) {
+            return heading(sinLat, cosLat, other.sinLat, other.cosLat, other.lonRadians - lonRadians);
+        }
+    }
+
+    /**
+     * An equirectangular projection of the water around an origin onto a flat plane measured in nautical miles,
+     * with x to the east and y to the north. Distances and headings on the plane are within a fraction of a percent
+     * of the great circle ones over the few miles a course covers, and take no trig to work out.
+     */
+    public static class TangentPlane {
+
+        private static final double NAUTICAL_MILES_PER_DEGREE = Math.toRadians(EARTH_RADIUS_IN_NAUTICAL_MILES);
+
+        private final double originLat;
+        private final double originLon;
+        private final double lonScale;
+
+        public TangentPlane(double originLat, double originLon) {
+            this.originLat = originLat;
+            this.originLon = originLon;
+            this.lonScale = Math.cos(Math.toRadians(originLat)) * NAUTICAL_MILES_PER_DEGREE;
+        }
+
+        /**
+         * @return the distance east of the origin of a longitude
+         */
+        public double x(double lon) {
+            return (lon - originLon) * lonScale;
+        }
+
+        /**
+         * @return the distance north of the origin of a latitude
+         */
+        public double y(double lat) {
+            return (lat - originLat) * NAUTICAL_MILES_PER_DEGREE;
+        }
+
+        /**
+         * @return the square of the distance between two positions on the plane, for comparing against a squared
+         * range without taking a square root
+         */
+        public double distanceSquared(double lat1, double lon1, double lat2, double lon2) {
+            double dx = (lon2 - lon1) * lonScale;
+            double dy = (lat2 - lat1) * NAUTICAL_MILES_PER_DEGREE;
+            return dx * dx + dy * dy;
+        }
+
+        /**
+         * @return the distance between two positions on the plane
+         */
+        public double distance(double lat1, double lon1, double lat2, double lon2) {
+            return Math.sqrt(distanceSquared(lat1, lon1, lat2, lon2));
+        }
+
+        /**
+         * @return the heading from the first position to the second on the plane, between 0 and 360
+         */
+        public double heading(double lat1, double lon1, double lat2, double lon2) {
+            double heading = Math.toDegrees(Math.atan2((lon2 - lon1) * lonScale,
+                    (lat2 - lat1) * NAUTICAL_MILES_PER_DEGREE));
+            if (heading < 0) {
+                heading += 360;
+            }
+            return heading;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package seng302.utilities;
-import javafx.util.Pair;
 import seng302.models.Polar;
+import seng302.models.PolarPerformanceGrid;
 import seng302.models.WindAngleAndSpeed;
 
 import java.io.*;
@@ -22,6 +22,19 @@ public class PolarReader {
 
     private static ArrayList<Polar> polars = null;
 
+    /**
+     * @return the performance grid for AC35 yachts, built from their polars the first time it is requested and
+     * shared between all boats afterwards
+     */
+    public static synchronized PolarPerformanceGrid getPerformanceGridForAC35Yachts() {
+        if (performanceGrid == null) {
+            performanceGrid = new PolarPerformanceGrid(getPolarsForAC35Yachts());
+        }
+        return performanceGrid;
+    }
+
+    private static PolarPerformanceGrid performanceGrid = null;
+
     private static void readPolars() {
         polars = new ArrayList<>();
         String thisLine;
@@ -0,0 +1,60 @@
+package seng302.utilities;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when it is told to, for running a race in simulated time. A server in deterministic mode
+ * gives one to everything that would read the wall clock and advances it by one step of wall time for each race
+ * step, so the same race always sees the same times however fast it actually runs.
+ */
+public class SteppedClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+
+    /**
+     * @param startMillis the time the clock starts at, in epoch milliseconds
+     */
+    public SteppedClock(long startMillis) {
+        this(startMillis, ZoneOffset.UTC);
+    }
+
+    private SteppedClock(long startMillis, ZoneId zone) {
+        this.millis = startMillis;
+        this.zone = zone;
+    }
+
+    /**
+     * Moves the clock on
+     * @param stepMillis the time to move on by, in milliseconds
+     */
+    public void advance(long stepMillis) {
+        millis += stepMillis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return a clock at the same time in another zone, which does not move with this clock
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SteppedClock(millis, zone);
+    }
+}
@@ -0,0 +1,102 @@
+package seng302.utilities.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with power of two buckets from 1 microsecond up to about 16 seconds.
+ * Recording is lock free and does not allocate, so it can be used on every tick of a race.
+ */
+public class LatencyHistogram {
+
+    static final int BUCKETS = 25;
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a duration
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Records the time since a start time
+     * @param startNanos the start time, from System.nanoTime()
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int bucketIndex(long nanos) {
+        long micros = nanos / NANOS_PER_MICRO + (nanos % NANOS_PER_MICRO == 0 ? 0 : 1);
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS, 64 - Long.numberOfLeadingZeros(micros - 1));
+    }
+
+    /**
+     * @param bucket a bucket index, the last bucket holding everything longer than the other buckets
+     * @return the longest duration in the bucket in nanoseconds, or Long.MAX_VALUE for the last bucket
+     */
+    static long bucketUpperBoundNanos(int bucket) {
+        return bucket < BUCKETS ? (1L << bucket) * NANOS_PER_MICRO : Long.MAX_VALUE;
+    }
+
+    long getBucketCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Estimates a percentile from the buckets
+     * @param quantile the percentile as a fraction between 0 and 1
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, or the largest recorded duration
+     * if that is smaller
+     */
+    public long getPercentileNanos(double quantile) {
+        long total = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(bucketUpperBoundNanos(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+}
@@ -0,0 +1,48 @@
+package seng302.utilities.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics registry as plain text at /metrics, for scraping by a monitoring system or reading with curl
+ */
+public class MetricsEndpoint {
+
+    private final HttpServer server;
+
+    /**
+     * Starts serving the metrics
+     * @param port the port to serve on
+     * @param registry the registry to serve
+     * @throws IOException if the port cannot be bound
+     */
+    public MetricsEndpoint(int port, MetricsRegistry registry) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> serveMetrics(exchange, registry));
+        server.start();
+        System.out.printf("Server: Serving metrics on port %d\n", port);
+    }
+
+    private void serveMetrics(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(text, StandardCharsets.UTF_8);
+        registry.writeText(writer);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, text.size());
+        try (OutputStream body = exchange.getResponseBody()) {
+            text.writeTo(body);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,282 @@
+package seng302.utilities.metrics;
+
+import javax.management.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds the server's counters, gauges and latency histograms, and exposes them over JMX and as plain text in the
+ * Prometheus exposition format.
+ * Metrics are identified by a name and optional label pairs. Looking a metric up allocates, so code on a hot path
+ * should look its metrics up once and keep them.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final String OBJECT_NAME = "seng302:type=Metrics";
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    MetricsRegistry() {
+        for (GarbageCollectorMXBean collector : garbageCollectors) {
+            gauge("jvm_gc_collection_seconds_total", () -> collector.getCollectionTime() / 1000.0, "gc", collector.getName());
+            gauge("jvm_gc_collections_total", collector::getCollectionCount, "gc", collector.getName());
+        }
+    }
+
+    /**
+     * Gets or creates a counter
+     * @param name the name of the counter
+     * @param labels pairs of label names and values
+     * @return the counter
+     */
+    public LongAdder counter(String name, String... labels) {
+        return (LongAdder) metrics.computeIfAbsent(key(name, labels),
+                k -> new Metric(name, labelText(labels), MetricType.COUNTER, new LongAdder())).value;
+    }
+
+    /**
+     * Gets or creates a latency histogram
+     * @param name the name of the histogram
+     * @param labels pairs of label names and values
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name, String... labels) {
+        return (LatencyHistogram) metrics.computeIfAbsent(key(name, labels),
+                k -> new Metric(name, labelText(labels), MetricType.HISTOGRAM, new LatencyHistogram())).value;
+    }
+
+    /**
+     * Adds a gauge, replacing any gauge with the same name and labels
+     * @param name the name of the gauge
+     * @param value reads the current value of the gauge
+     * @param labels pairs of label names and values
+     */
+    public void gauge(String name, DoubleSupplier value, String... labels) {
+        metrics.put(key(name, labels), new Metric(name, labelText(labels), MetricType.GAUGE, value));
+    }
+
+    /**
+     * Removes a metric, such as the gauge of a client that has disconnected
+     * @param name the name of the metric
+     * @param labels pairs of label names and values
+     */
+    public void remove(String name, String... labels) {
+        metrics.remove(key(name, labels));
+    }
+
+    /**
+     * @return the total time spent in garbage collection since the JVM started, in milliseconds
+     */
+    public long getTotalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : garbageCollectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static String key(String name, String[] labels) {
+        return name + labelText(labels);
+    }
+
+    private static String labelText(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) text.append(',');
+            text.append(labels[i]).append("=\"").append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format
+     * @param out where to write the metrics
+     * @throws IOException if the writer fails
+     */
+    public void writeText(Writer out) throws IOException {
+        Map<String, List<Metric>> metricsByName = new TreeMap<>();
+        for (Metric metric : metrics.values()) {
+            metricsByName.computeIfAbsent(metric.name, name -> new ArrayList<>()).add(metric);
+        }
+        for (Map.Entry<String, List<Metric>> entry : metricsByName.entrySet()) {
+            String name = entry.getKey();
+            List<Metric> family = entry.getValue();
+            family.sort(Comparator.comparing(metric -> metric.labels));
+            out.write("# TYPE " + name + " " + family.get(0).type.name().toLowerCase() + "\n");
+            for (Metric metric : family) {
+                switch (metric.type) {
+                    case COUNTER:
+                        writeSample(out, name, metric.labels, ((LongAdder) metric.value).sum());
+                        break;
+                    case GAUGE:
+                        writeSample(out, name, metric.labels, ((DoubleSupplier) metric.value).getAsDouble());
+                        break;
+                    case HISTOGRAM:
+                        writeHistogram(out, name, metric.labels, (LatencyHistogram) metric.value);
+                        break;
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private void writeHistogram(Writer out, String name, String labels, LatencyHistogram histogram) throws IOException {
+        long cumulative = 0;
+        for (int i = 0; i <= LatencyHistogram.BUCKETS; i++) {
+            cumulative += histogram.getBucketCount(i);
+            String bound = i < LatencyHistogram.BUCKETS
+                    ? Double.toString(LatencyHistogram.bucketUpperBoundNanos(i) / NANOS_PER_SECOND)
+                    : "+Inf";
+            writeSample(out, name + "_bucket", withLabel(labels, "le", bound), cumulative);
+        }
+        writeSample(out, name + "_sum", labels, histogram.getTotalNanos() / NANOS_PER_SECOND);
+        writeSample(out, name + "_count", labels, histogram.getCount());
+    }
+
+    private static String withLabel(String labels, String label, String value) {
+        String extra = label + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + extra + "}" : labels.substring(0, labels.length() - 1) + "," + extra + "}";
+    }
+
+    private static void writeSample(Writer out, String name, String labels, double value) throws IOException {
+        out.write(name);
+        out.write(labels);
+        out.write(' ');
+        out.write(value == Math.rint(value) && !Double.isInfinite(value) ? Long.toString((long) value) : Double.toString(value));
+        out.write('\n');
+    }
+
+    /**
+     * Flattens every metric into named values, with each histogram giving its count and its median, 99th
+     * percentile and maximum in milliseconds
+     * @return the values by name
+     */
+    public SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> values = new TreeMap<>();
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            Metric metric = entry.getValue();
+            switch (metric.type) {
+                case COUNTER:
+                    values.put(entry.getKey(), ((LongAdder) metric.value).sum());
+                    break;
+                case GAUGE:
+                    values.put(entry.getKey(), ((DoubleSupplier) metric.value).getAsDouble());
+                    break;
+                case HISTOGRAM:
+                    LatencyHistogram histogram = (LatencyHistogram) metric.value;
+                    values.put(entry.getKey() + ".count", histogram.getCount());
+                    values.put(entry.getKey() + ".p50Millis", histogram.getPercentileNanos(0.5) / 1e6);
+                    values.put(entry.getKey() + ".p99Millis", histogram.getPercentileNanos(0.99) / 1e6);
+                    values.put(entry.getKey() + ".maxMillis", histogram.getMaxNanos() / 1e6);
+                    break;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as read only attributes of seng302:type=Metrics.
+     * Does nothing if they are already registered.
+     */
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private enum MetricType {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static class Metric {
+        private final String name;
+        private final String labels;
+        private final MetricType type;
+        private final Object value;
+
+        Metric(String name, String labels, MetricType type, Object value) {
+            this.name = name;
+            this.labels = labels;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Exposes a snapshot of the registry as JMX attributes, one per flattened value
+     */
+    private class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value.doubleValue();
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            SortedMap<String, Number> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Number value = values.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value.doubleValue()));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : snapshot().keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "double", name, true, false, false));
+            }
+            return new MBeanInfo(MetricsMBean.class.getName(), "Race server metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package seng302.views;
+
+import javafx.beans.property.*;
+import seng302.data.BoatStatus;
+import seng302.models.Boat;
+import seng302.models.BoatDisplayListener;
+
+/**
+ * JavaFX properties for the values of a boat the client displays, kept up to date by the boat as they change.
+ * The properties are only created for boats a client shows, so the server's boats hold plain values.
+ */
+public class BoatProperties implements BoatDisplayListener {
+
+    private final StringProperty name;
+    private final DoubleProperty speed = new SimpleDoubleProperty();
+    private final IntegerProperty placing = new SimpleIntegerProperty();
+    private final StringProperty status = new SimpleStringProperty();
+    private final DoubleProperty heading = new SimpleDoubleProperty();
+    private final DoubleProperty health = new SimpleDoubleProperty();
+
+    private BoatProperties(Boat boat) {
+        name = new SimpleStringProperty(boat.getName());
+        speed.set(boat.getCurrentSpeed());
+        placing.set(boat.getCurrPlacing());
+        if (boat.getStatus() != BoatStatus.UNDEFINED) {
+            status.set(boat.getStatus().getText());
+        }
+        heading.set(boat.getHeading());
+        health.set(boat.getBoatHealth() / 100.0);
+    }
+
+    /**
+     * Gets the properties of a boat, creating them the first time they are needed
+     * @param boat the boat
+     * @return the boat's properties
+     */
+    public static synchronized BoatProperties of(Boat boat) {
+        if (boat.getDisplayListener() instanceof BoatProperties) {
+            return (BoatProperties) boat.getDisplayListener();
+        }
+        BoatProperties properties = new BoatProperties(boat);
+        boat.setDisplayListener(properties);
+        return properties;
+    }
+
+    public StringProperty nameProperty() {
+        return name;
+    }
+
+    public DoubleProperty speedProperty() {
+        return speed;
+    }
+
+    public IntegerProperty placingProperty() {
+        return placing;
+    }
+
+    public StringProperty statusProperty() {
+        return status;
+    }
+
+    public DoubleProperty headingProperty() {
+        return heading;
+    }
+
+    public DoubleProperty healthProperty() {
+        return health;
+    }
+
+    @Override
+    public void speedChanged(double speed) {
+        this.speed.set(speed);
+    }
+
+    @Override
+    public void placingChanged(int placing) {
+        this.placing.set(placing);
+    }
+
+    @Override
+    public void statusChanged(BoatStatus status) {
+        this.status.set(status.getText());
+    }
+
+    @Override
+    public void headingChanged(double heading) {
+        this.heading.set(heading);
+    }
+
+    @Override
+    public void healthChanged(double health) {
+        this.health.set(health);
+    }
+}
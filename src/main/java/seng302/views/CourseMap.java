@@ -4,7 +4,7 @@ import javafx.scene.Parent;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
-import seng302.data.RaceVisionXMLParser;
+import seng302.data.CourseCache;
 import seng302.models.Course;
 import seng302.models.Mark;
 import seng302.utilities.DisplayUtils;
@@ -39,8 +39,7 @@ public class CourseMap {
     }
 
     private void loadCourse(){
-        RaceVisionXMLParser parser = new RaceVisionXMLParser();
-        this.course = parser.importCourse(CourseMap.class.getResourceAsStream("/defaultFiles/" + getXML()));
+        this.course = CourseCache.createCourse(getXML());
         course.initCourseLatLon();
     }
 
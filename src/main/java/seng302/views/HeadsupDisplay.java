@@ -83,7 +83,7 @@ public class HeadsupDisplay {
 
         Label speedLabel = new Label();
         speedLabel.setId("speedLabel");
-        boat.getBoat().getSpeedProperty().addListener((obs, oldStatus, newStatus) ->
+        BoatProperties.of(boat.getBoat()).speedProperty().addListener((obs, oldStatus, newStatus) ->
                 Platform.runLater(() -> speedLabel.setText(String.format("%.2f kn", newStatus))));
 
         display.getChildren().add(speedTitleLabel);
@@ -97,9 +97,9 @@ public class HeadsupDisplay {
         Label healthLabel = new Label("Health");
         healthLabel.setId("healthLabel");
 
-        healthBar = new ProgressBar(boat.getBoat().getHealthProperty().doubleValue());
+        healthBar = new ProgressBar(BoatProperties.of(boat.getBoat()).healthProperty().doubleValue());
         healthBar.setMinWidth(140);
-        boat.getBoat().getHealthProperty().addListener((obs, oldStatus, newStatus) ->
+        BoatProperties.of(boat.getBoat()).healthProperty().addListener((obs, oldStatus, newStatus) ->
                 Platform.runLater(() -> updateHealth((Double)newStatus)));
         healthBar.setId("boatHealth");
 
@@ -117,7 +117,7 @@ public class HeadsupDisplay {
         positionLabel = new Label("...");
         positionLabel.setId("positionLabel");
         updatePlacing(1);
-        boat.getBoat().getCurrPlacingProperty().addListener((obs, oldStatus, newStatus) ->
+        BoatProperties.of(boat.getBoat()).placingProperty().addListener((obs, oldStatus, newStatus) ->
                 Platform.runLater(() -> updatePlacing((int)newStatus)));
 
         display.getChildren().add(positionTitleLabel);
@@ -144,6 +144,6 @@ public class HeadsupDisplay {
     }
 
     public void competitorAdded(){
-        positionLabel.setText(String.format("%d / %d", boat.getBoat().getCurrPlacingProperty().get(), race.getCompetitors().size()));
+        positionLabel.setText(String.format("%d / %d", boat.getBoat().getCurrPlacing(), race.getCompetitors().size()));
     }
 }
@@ -0,0 +1,66 @@
+package seng302.controllers;
+
+import org.junit.Test;
+import seng302.data.ServerPacketBuilder;
+import seng302.models.AIDifficulty;
+import seng302.models.Boat;
+import seng302.models.Race;
+import seng302.utilities.SteppedClock;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that races run from the same seed on a stepped clock send the same stream
+ */
+public class DeterministicRaceTest {
+
+    private static final String COURSE = "AC35-course.xml";
+    private static final long START_MILLIS = 1498867200000L;
+    private static final int TICKS = 300;
+
+    /**
+     * Runs a race with an AI boat and as many player boats as the course has, and records a race status and a boat
+     * location for every boat after each tick
+     */
+    private byte[] runRace(long seed, int updateThreads) throws Exception {
+        SteppedClock clock = new SteppedClock(START_MILLIS);
+        RaceUpdater updater = new RaceUpdater(COURSE, clock, new Random(seed));
+        updater.setUpdateThreads(updateThreads);
+        updater.addAICompetitor(AIDifficulty.HARD);
+        while (updater.addCompetitor() != -1) {
+        }
+        updater.skipPrerace();
+        updater.start();
+        Race race = updater.getRace();
+        ServerPacketBuilder packetBuilder = new ServerPacketBuilder();
+        packetBuilder.setClock(clock);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < TICKS && updater.isRunning(); i++) {
+            clock.advance(updater.getMillisPerUpdate());
+            updater.tick();
+            stream.write(packetBuilder.createRaceUpdateMessage(race));
+            for (Boat boat : race.getCompetitors()) {
+                stream.write(packetBuilder.createBoatLocationMessage(boat, race, i));
+            }
+        }
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void sameSeedSendsSameStreamTest() throws Exception {
+        byte[] first = runRace(42, 1);
+        byte[] second = runRace(42, 1);
+        assertEquals(first.length, second.length);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void sameStreamOnMoreUpdateThreadsTest() throws Exception {
+        assertArrayEquals(runRace(7, 1), runRace(7, 4));
+    }
+}
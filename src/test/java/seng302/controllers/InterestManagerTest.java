@@ -0,0 +1,103 @@
+package seng302.controllers;
+
+import org.junit.Before;
+import org.junit.Test;
+import seng302.data.ClientInterest;
+import seng302.models.Boat;
+import seng302.models.Coordinate;
+import seng302.models.Course;
+import seng302.models.Race;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests choosing the boats each client is sent by what it is viewing
+ */
+public class InterestManagerTest {
+
+    private static final int SPECTATOR_ID = 1;
+    private static final double VIEW = 0.005;
+
+    private InterestManager interestManager;
+    private Race race;
+    private Coordinate origin = new Coordinate(57.67, 11.83);
+
+    @Before
+    public void before() {
+        interestManager = new InterestManager();
+        List<Boat> boats = new ArrayList<>();
+        boats.add(boatAt(101, origin));
+        boats.add(boatAt(102, origin.coordAt(0.05, 90)));
+        boats.add(boatAt(103, origin.coordAt(2, 0)));
+        race = new Race("Test Race", new Course(), boats);
+    }
+
+    private static Boat boatAt(int id, Coordinate position) {
+        Boat boat = new Boat(id, "Boat " + id, "B" + id, 10);
+        boat.setPosition(position);
+        return boat;
+    }
+
+    /**
+     * Skips the broadcast every boat is sent in
+     */
+    private Map<Integer, Set<Integer>> selectAfterFullBroadcast(Map<Integer, ClientInterest> interests) {
+        assertTrue(interestManager.selectBoats(race, interests).isEmpty());
+        return interestManager.selectBoats(race, interests);
+    }
+
+    @Test
+    public void clientsWithoutInterestAreSentEveryBoatTest() {
+        for (int i = 0; i < InterestManager.DISTANT_BOAT_INTERVAL; i++) {
+            assertTrue(interestManager.selectBoats(race, Collections.emptyMap()).isEmpty());
+        }
+    }
+
+    @Test
+    public void viewedAreaSelectsNearbyBoatsTest() {
+        Map<Integer, ClientInterest> interests = new HashMap<>();
+        interests.put(SPECTATOR_ID, new ClientInterest(ClientInterest.NO_TRACKED_BOAT, origin.getLat() - VIEW,
+                origin.getLon() - VIEW, origin.getLat() + VIEW, origin.getLon() + VIEW));
+
+        Set<Integer> boats = selectAfterFullBroadcast(interests).get(SPECTATOR_ID);
+        assertTrue(boats.contains(101));
+        assertTrue(boats.contains(102));
+        assertFalse(boats.contains(103));
+    }
+
+    @Test
+    public void trackedBoatViewMovesWithBoatTest() {
+        Map<Integer, ClientInterest> interests = new HashMap<>();
+        interests.put(SPECTATOR_ID, new ClientInterest(103, -VIEW, -VIEW, VIEW, VIEW));
+
+        Set<Integer> boats = selectAfterFullBroadcast(interests).get(SPECTATOR_ID);
+        assertEquals(Collections.singleton(103), boats);
+    }
+
+    @Test
+    public void playerIsAlwaysSentOwnBoatTest() {
+        Map<Integer, ClientInterest> interests = new HashMap<>();
+        interests.put(103, new ClientInterest(ClientInterest.NO_TRACKED_BOAT, origin.getLat() - VIEW,
+                origin.getLon() - VIEW, origin.getLat() + VIEW, origin.getLon() + VIEW));
+
+        Set<Integer> boats = selectAfterFullBroadcast(interests).get(103);
+        assertTrue(boats.contains(101));
+        assertTrue(boats.contains(103));
+    }
+
+    @Test
+    public void distantBoatsAreSentPeriodicallyTest() {
+        Map<Integer, ClientInterest> interests = new HashMap<>();
+        interests.put(SPECTATOR_ID, new ClientInterest(101, -VIEW, -VIEW, VIEW, VIEW));
+        int broadcastsWithDistantBoat = 0;
+        for (int i = 0; i < 3 * InterestManager.DISTANT_BOAT_INTERVAL; i++) {
+            Set<Integer> boats = interestManager.selectBoats(race, interests).get(SPECTATOR_ID);
+            if (boats == null || boats.contains(103)) {
+                broadcastsWithDistantBoat++;
+            }
+        }
+        assertEquals(3, broadcastsWithDistantBoat);
+    }
+}
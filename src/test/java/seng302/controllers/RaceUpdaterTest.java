@@ -4,9 +4,13 @@ import org.junit.Test;
 import seng302.data.RaceStatus;
 import seng302.models.*;
 import seng302.utilities.PolarReader;
+import seng302.utilities.SteppedClock;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -15,6 +19,97 @@ import static org.junit.Assert.*;
  *
  */
 public class RaceUpdaterTest {
+
+    /**
+     * Fills a race's fleet to its initial capacity of 8, then adds every competitor the course has while another
+     * thread keeps ticking the race on several update threads, so the fleet grows while the race is running.
+     * One of the boats pauses while it is moved to give a competitor the chance to be added part way through a tick.
+     * No boat may be added part way through a tick, and every boat must end up in the race's fleet.
+     */
+    @Test
+    public void addsBoatsWhileFleetIsUpdatedTest() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            addBoatsWhileTicking(round);
+        }
+    }
+
+    @Test
+    public void updatePoolHasRequestedThreadsTest() {
+        RaceUpdater first = new RaceUpdater("AC35-course.xml", new SteppedClock(1498867200000L), new Random(0));
+        RaceUpdater second = new RaceUpdater("AC35-course.xml", new SteppedClock(1498867200000L), new Random(0));
+        first.setUpdateThreads(2);
+        second.setUpdateThreads(3);
+        assertEquals(2, first.getUpdateThreads());
+        assertEquals(3, second.getUpdateThreads());
+        second.setUpdateThreads(1);
+        assertEquals(1, second.getUpdateThreads());
+    }
+
+    private void addBoatsWhileTicking(long seed) throws Exception {
+        RaceUpdater updater = new RaceUpdater("AC35-course.xml", new SteppedClock(1498867200000L), new Random(seed));
+        updater.setUpdateThreads(4);
+        updater.addAICompetitor(AIDifficulty.HARD);
+        updater.skipPrerace();
+        updater.start();
+        Race race = updater.getRace();
+        Coordinate start = race.getCompetitors().get(0).getCurrentPosition();
+        AtomicBoolean addedDuringTick = new AtomicBoolean(false);
+        Boat slowBoat = new Boat(race.getCompetitors().size(), "Slow", "SL", 10) {
+            @Override
+            public void move(Double raceSecondsPassed, Course course) {
+                int before = race.getCompetitors().size();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (race.getCompetitors().size() != before) {
+                    addedDuringTick.set(true);
+                }
+                super.move(raceSecondsPassed, course);
+            }
+        };
+        slowBoat.setPosition(start);
+        race.addCompetitor(slowBoat);
+        while (race.getCompetitors().size() < 8) {
+            Boat boat = new Boat(race.getCompetitors().size(), "Filler", "FL", 10);
+            boat.setPosition(start);
+            race.addCompetitor(boat);
+        }
+
+        AtomicBoolean adding = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread ticker = new Thread(() -> {
+            try {
+                while (adding.get()) {
+                    updater.tick();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        ticker.start();
+        while (updater.addCompetitor() != -1) {
+            Thread.yield();
+        }
+        adding.set(false);
+        ticker.join();
+
+        assertNull(failure.get());
+        assertFalse("A boat was added part way through a tick", addedDuringTick.get());
+        assertTrue(race.getCompetitors().size() > 8);
+        FleetState fleet = race.getFleet();
+        assertEquals(race.getCompetitors().size(), fleet.size());
+        List<Coordinate> fleetPositions = new ArrayList<>();
+        for (int slot = 0; slot < fleet.size(); slot++) {
+            fleetPositions.add(new Coordinate(fleet.getLat(slot), fleet.getLon(slot)));
+        }
+        for (Boat boat : race.getCompetitors()) {
+            Coordinate position = boat.getCurrentPosition();
+            assertNotEquals(0.0, position.getLat(), 0.0);
+            assertTrue(fleetPositions.stream().anyMatch(p -> p.getLat() == position.getLat() && p.getLon() == position.getLon()));
+        }
+    }
 /*
     private double DELTA = 1e-6;
 
@@ -2,6 +2,7 @@ package seng302.data;
 
 import javafx.scene.input.KeyCode;
 import org.junit.Test;
+import seng302.controllers.KeyInputController;
 
 import static org.junit.Assert.assertEquals;
 
@@ -13,7 +14,7 @@ public class BoatActionEnumTest {
 
     @Test
     public void getTypeFromKeyCodeTest(){
-        int type = BoatAction.getTypeFromKeyCode(KeyCode.PAGE_UP);
+        int type = KeyInputController.getTypeFromKeyCode(KeyCode.PAGE_UP);
         assertEquals(type, 5);
     }
 
@@ -25,7 +26,7 @@ public class BoatActionEnumTest {
 
     @Test
     public void getTypeFromRandomKeyCodeTest(){
-        int type = BoatAction.getTypeFromKeyCode(KeyCode.P);
+        int type = KeyInputController.getTypeFromKeyCode(KeyCode.P);
         assertEquals(-1, type);
     }
 }
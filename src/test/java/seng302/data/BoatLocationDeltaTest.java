@@ -0,0 +1,154 @@
+package seng302.data;
+
+import org.junit.Before;
+import org.junit.Test;
+import seng302.models.Boat;
+import seng302.models.Course;
+import seng302.models.Race;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static seng302.data.AC35StreamField.*;
+
+/**
+ * Tests encoding boat location messages as deltas and decoding them again
+ */
+public class BoatLocationDeltaTest {
+
+    private ServerPacketBuilder builder;
+    private Race race;
+    private Boat moving;
+    private Boat finished;
+    private BoatLocationDeltaEncoder encoder;
+    private BoatLocationDeltaDecoder decoder;
+    private int sequenceNumber = 0;
+
+    @Before
+    public void before() {
+        builder = new ServerPacketBuilder();
+        moving = new Boat(101, "Moving", "MV", 10);
+        moving.setPosition(57.67, 11.83);
+        moving.setHeading(45);
+        finished = new Boat(102, "Finished", "FN", 10);
+        finished.setPosition(57.68, 11.84);
+        List<Boat> boats = new ArrayList<>();
+        boats.add(moving);
+        boats.add(finished);
+        Course course = new Course();
+        course.setWindDirection(10);
+        race = new Race("Test Race", course, boats);
+        race.setId("1");
+        encoder = new BoatLocationDeltaEncoder();
+        decoder = new BoatLocationDeltaDecoder();
+    }
+
+    /**
+     * Builds the boat location messages of one tick for both boats, after moving one of them
+     */
+    private byte[] tick(double latChange) {
+        moving.setPosition(moving.getCurrentPosition().getLat() + latChange, moving.getCurrentPosition().getLon());
+        byte[] first = builder.createBoatLocationMessage(moving, race, sequenceNumber);
+        byte[] second = builder.createBoatLocationMessage(finished, race, sequenceNumber++);
+        byte[] packets = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, packets, first.length, second.length);
+        return packets;
+    }
+
+    /**
+     * Decodes a stream of packets as the client does
+     * @return the boat location message bodies, with deltas turned back into full messages
+     */
+    private List<ByteBuffer> decode(byte[] packets) throws IOException {
+        FrameDecoder frames = new FrameDecoder(Channels.newChannel(new ByteArrayInputStream(packets)));
+        List<ByteBuffer> locations = new ArrayList<>();
+        try {
+            while (true) {
+                frames.nextMessage();
+                ByteBuffer body = frames.getBody();
+                if (frames.getMessageType() == AC35StreamMessage.BOAT_LOCATION_MESSAGE.getValue()) {
+                    decoder.keyframe(body);
+                    locations.add(copy(body));
+                } else if (frames.getMessageType() == AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE.getValue()) {
+                    ByteBuffer location = decoder.decode(body);
+                    assertNotNull(location);
+                    locations.add(location);
+                }
+            }
+        } catch (EOFException e) {
+            return locations;
+        }
+    }
+
+    private static ByteBuffer copy(ByteBuffer body) {
+        byte[] bytes = new byte[body.remaining()];
+        body.duplicate().get(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static int read(ByteBuffer body, AC35StreamField field) {
+        int total = 0;
+        for (int i = field.getEndIndex() - 1; i >= field.getStartIndex(); i--) {
+            total = (total << 8) + (body.get(i) & 0xFF);
+        }
+        return total;
+    }
+
+    @Test
+    public void deltasDecodeToFullMessagesTest() throws IOException {
+        byte[] keyframes = tick(0);
+        assertArrayEquals(keyframes, encoder.encode(keyframes));
+        decode(keyframes);
+
+        byte[] full = tick(0.0001);
+        byte[] encoded = encoder.encode(full);
+        int deltaLength = PacketWriter.packetLength(AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE.getLength());
+        assertEquals(deltaLength, encoded.length);
+
+        List<ByteBuffer> locations = decode(encoded);
+        assertEquals(1, locations.size());
+        ByteBuffer expected = ByteBuffer.wrap(full, PacketWriter.HEADER_LENGTH, AC35StreamMessage.BOAT_LOCATION_MESSAGE.getLength()).slice();
+        for (AC35StreamField field : new AC35StreamField[]{BOAT_SOURCE_ID, BOAT_TIMESTAMP, LATITUDE, LONGITUDE, HEADING,
+                SPEED_OVER_GROUND, TRUE_WIND_DIRECTION, TRUE_WIND_ANGLE, SAIL_STATE}) {
+            assertEquals(field.name(), read(expected, field), read(locations.get(0), field));
+        }
+    }
+
+    @Test
+    public void keyframesAreSentPeriodicallyTest() throws IOException {
+        int keyframes = 0;
+        for (int i = 0; i < 3 * BoatLocationDeltaEncoder.KEYFRAME_INTERVAL; i++) {
+            byte[] encoded = encoder.encode(tick(0.0001));
+            for (ByteBuffer location : decode(encoded)) {
+                if (read(location, BOAT_SOURCE_ID) == finished.getId()) {
+                    keyframes++;
+                }
+            }
+        }
+        assertEquals(3, keyframes);
+    }
+
+    @Test
+    public void largeMoveSendsKeyframeTest() {
+        encoder.encode(tick(0));
+        byte[] full = tick(0.01);
+        byte[] encoded = encoder.encode(full);
+        assertEquals(AC35StreamMessage.BOAT_LOCATION_MESSAGE.getValue(), encoded[MESSAGE_TYPE.getStartIndex()]);
+    }
+
+    @Test
+    public void deltaWithoutKeyframeIsDroppedTest() {
+        encoder.encode(tick(0));
+        byte[] encoded = encoder.encode(tick(0.0001));
+        ByteBuffer body = ByteBuffer.wrap(encoded, PacketWriter.HEADER_LENGTH,
+                AC35StreamMessage.BOAT_LOCATION_DELTA_MESSAGE.getLength()).slice();
+        assertNull(decoder.decode(body));
+    }
+}
@@ -62,4 +62,22 @@ public class ClientPacketTest {
         RegistrationType request = RegistrationType.getTypeFromByte(requestType);
         assertEquals(RegistrationType.SPECTATOR, request);
     }
+
+    @Test
+    public void testRegistrationRequestForRoom() {
+        byte[] packet = clientPacketBuilder.createRegistrationRequestPacket(RegistrationType.PLAYER, 300);
+        byte[] body = Arrays.copyOfRange(packet, HEADER_LENGTH, packet.length - CRC_LENGTH); //extract body
+
+        byte requestType = (byte)byteArrayRangeToInt(body, REGISTRATION_REQUEST_TYPE.getStartIndex(), REGISTRATION_REQUEST_TYPE.getEndIndex());
+        assertEquals(RegistrationType.PLAYER, RegistrationType.getTypeFromByte(requestType));
+        assertEquals(300, byteArrayRangeToInt(body, REGISTRATION_ROOM_ID.getStartIndex(), REGISTRATION_ROOM_ID.getEndIndex()));
+    }
+
+    @Test
+    public void testRegistrationRequestDefaultsToFirstRoom() {
+        byte[] packet = clientPacketBuilder.createRegistrationRequestPacket(RegistrationType.SPECTATOR);
+        byte[] body = Arrays.copyOfRange(packet, HEADER_LENGTH, packet.length - CRC_LENGTH); //extract body
+
+        assertEquals(0, byteArrayRangeToInt(body, REGISTRATION_ROOM_ID.getStartIndex(), REGISTRATION_ROOM_ID.getEndIndex()));
+    }
 }
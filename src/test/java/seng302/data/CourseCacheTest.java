@@ -0,0 +1,163 @@
+package seng302.data;
+
+import org.junit.Test;
+import seng302.models.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that cached courses are parsed once but never shared between races, and that they match their course files
+ */
+public class CourseCacheTest {
+
+    private static final String COURSE_FILE = "AC35-course.xml";
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void templateParsedOnceTest() {
+        assertSame(CourseCache.getRaceTemplate(COURSE_FILE), CourseCache.getRaceTemplate(COURSE_FILE));
+    }
+
+    @Test
+    public void racesDoNotShareCourseTest() {
+        Race first = CourseCache.createRace(COURSE_FILE);
+        Race second = CourseCache.createRace(COURSE_FILE);
+        assertNotSame(first.getCourse(), second.getCourse());
+        for (Integer sourceId : first.getCourse().getAllMarks().keySet()) {
+            assertNotSame(first.getCourse().getAllMarks().get(sourceId), second.getCourse().getAllMarks().get(sourceId));
+        }
+    }
+
+    @Test
+    public void cachedRaceMatchesCourseFileTest() {
+        Race race = CourseCache.createRace(COURSE_FILE);
+        assertEquals("222222", race.getId());
+        assertEquals(1505408600000L, race.getStartTimeInEpochMs());
+        assertTrue(race.getCompetitorIds().isEmpty());
+
+        Course course = race.getCourse();
+        assertFalse(course.hasEntryMark());
+        assertEquals(9, course.getAllMarks().size());
+        assertMark(course.getAllMarks().get(122), 122, "Start Line 1", 32.296577, -64.854304);
+        assertMark(course.getAllMarks().get(123), 123, "Start Line 2", 32.293771, -64.855242);
+        assertMark(course.getAllMarks().get(131), 131, "Mark1", 32.293039, -64.845045);
+        assertMark(course.getAllMarks().get(124), 124, "Lee Gate 1", 32.284680, -64.850045);
+        assertMark(course.getAllMarks().get(125), 125, "Lee Gate 2", 32.280164, -64.847591);
+        assertMark(course.getAllMarks().get(126), 126, "Wind Gate 1", 32.309693, -64.835249);
+        assertMark(course.getAllMarks().get(127), 127, "Wind Gate 2", 32.308046, -64.831785);
+        assertMark(course.getAllMarks().get(128), 128, "Finish Line 1", 32.317379, -64.839291);
+        assertMark(course.getAllMarks().get(129), 129, "Finish Line 2", 32.317257, -64.836260);
+
+        assertCourseOrder(course, new int[]{1, 2, 4, 3, 4, 5},
+                new String[]{"Start", "Mark", "Windward Gate", "Leeward Gate", "Windward Gate", "Finish"});
+        assertEquals(Arrays.asList(RoundingSide.PORT_STBD, RoundingSide.PORT, RoundingSide.PORT_STBD,
+                RoundingSide.STBD_PORT, RoundingSide.PORT_STBD, RoundingSide.PORT_STBD), course.getRoundingOrder());
+        assertSame(course.getCourseOrder().get(2), course.getCourseOrder().get(4));
+
+        assertSame(course.getStartLine(), course.getCourseOrder().get(0));
+        assertTrue(course.getStartLine().isStartLine());
+        assertFalse(course.getStartLine().isFinishLine());
+        assertSame(course.getAllMarks().get(122), course.getStartLine().getMark1());
+        assertSame(course.getAllMarks().get(123), course.getStartLine().getMark2());
+        assertSame(course.getFinishLine(), course.getCourseOrder().get(5));
+        assertTrue(course.getFinishLine().isFinishLine());
+        assertFalse(course.getFinishLine().isStartLine());
+        assertSame(course.getAllMarks().get(128), course.getFinishLine().getMark1());
+        assertSame(course.getAllMarks().get(129), course.getFinishLine().getMark2());
+        for (int i = 1; i < 5; i++) {
+            assertFalse(course.getCourseOrder().get(i).isStartLine());
+            assertFalse(course.getCourseOrder().get(i).isFinishLine());
+        }
+
+        assertEquals(Arrays.asList(new Coordinate(32.318879, -64.840290), new Coordinate(32.312077, -64.840904),
+                new Coordinate(32.298771, -64.850045), new Coordinate(32.299771, -64.860304),
+                new Coordinate(32.289771, -64.865304), new Coordinate(32.288771, -64.855045),
+                new Coordinate(32.275680, -64.853045), new Coordinate(32.275680, -64.844045),
+                new Coordinate(32.302680, -64.820504), new Coordinate(32.318879, -64.835291)), course.getBoundary());
+    }
+
+    @Test
+    public void entryMarkCourseTest() {
+        Race race = new RaceVisionXMLParser().importRaceTemplate(
+                CourseCacheTest.class.getResourceAsStream("/data/testFiles/testEntryMarkRace.xml")).createRace();
+        assertEquals("333333", race.getId());
+        assertEquals(new HashSet<>(Arrays.asList(101, 102)), race.getCompetitorIds());
+
+        Course course = race.getCourse();
+        assertTrue(course.hasEntryMark());
+        assertCourseOrder(course, new int[]{1, 2, 3, 4}, new String[]{"Entry", "Start", "Mark", "Finish"});
+        assertEquals(Arrays.asList(RoundingSide.PORT, RoundingSide.PORT_STBD, RoundingSide.PORT,
+                RoundingSide.STBD_PORT), course.getRoundingOrder());
+
+        CompoundMark entry = course.getCourseOrder().get(0);
+        assertFalse(entry.hasTwoMarks());
+        assertFalse(entry.isStartLine());
+        assertMark(entry.getMark1(), 121, "Entry Mark", 32.3, -64.86);
+        assertSame(course.getStartLine(), course.getCourseOrder().get(1));
+        assertTrue(course.getStartLine().isStartLine());
+        assertMark(course.getStartLine().getMark1(), 122, "Start Line 1", 32.296577, -64.854304);
+        assertMark(course.getStartLine().getMark2(), 123, "Start Line 2", 32.293771, -64.855242);
+        assertSame(course.getFinishLine(), course.getCourseOrder().get(3));
+        assertTrue(course.getFinishLine().isFinishLine());
+        assertFalse(course.getCourseOrder().get(2).isStartLine());
+        assertFalse(course.getCourseOrder().get(2).isFinishLine());
+        assertEquals(Arrays.asList(new Coordinate(32.318879, -64.840290), new Coordinate(32.299771, -64.865304),
+                new Coordinate(32.275680, -64.844045)), course.getBoundary());
+    }
+
+    @Test
+    public void sharedMarksAreOneMarkTest() {
+        Course course = CourseCache.createCourse("Athens-course.xml");
+        assertEquals(8, course.getAllMarks().size());
+        Mark windwardMark = course.getAllMarks().get(124);
+        assertMark(windwardMark, 124, "Wind Gate 1", 37.908291, 23.642971);
+        assertSame(windwardMark, course.getCompoundMarkByID(3).getMark1());
+        assertSame(windwardMark, course.getCompoundMarkByID(5).getMark1());
+
+        Mark leewardMark1 = course.getAllMarks().get(125);
+        Mark leewardMark2 = course.getAllMarks().get(126);
+        assertMark(leewardMark1, 125, "Mark1", 37.900972, 23.639763);
+        assertMark(leewardMark2, 126, "Mark2", 37.901090, 23.645847);
+        assertSame(leewardMark1, course.getCompoundMarkByID(4).getMark1());
+        assertSame(leewardMark2, course.getCompoundMarkByID(4).getMark2());
+        assertSame(leewardMark1, course.getCompoundMarkByID(6).getMark1());
+        assertSame(leewardMark2, course.getCompoundMarkByID(6).getMark2());
+        assertNotSame(course.getCompoundMarkByID(4), course.getCompoundMarkByID(6));
+
+        course.updateMark(124, 37.91, 23.64);
+        assertEquals(37.91, course.getCompoundMarkByID(3).getMark1().getPosition().getLat(), DELTA);
+        assertEquals(37.91, course.getCompoundMarkByID(5).getMark1().getPosition().getLat(), DELTA);
+    }
+
+    private static void assertMark(Mark mark, int sourceId, String name, double lat, double lon) {
+        assertNotNull(mark);
+        assertEquals(Integer.valueOf(sourceId), mark.getSourceID());
+        assertEquals(name, mark.getName());
+        assertEquals(lat, mark.getPosition().getLat(), DELTA);
+        assertEquals(lon, mark.getPosition().getLon(), DELTA);
+    }
+
+    private static void assertCourseOrder(Course course, int[] compoundMarkIds, String[] names) {
+        assertEquals(compoundMarkIds.length, course.getCourseOrder().size());
+        for (int i = 0; i < compoundMarkIds.length; i++) {
+            assertEquals(Integer.valueOf(compoundMarkIds[i]), course.getCourseOrder().get(i).getCompoundMarkID());
+            assertEquals(names[i], course.getCourseOrder().get(i).getName());
+        }
+    }
+
+    @Test
+    public void startersAreNewBoatsTest() {
+        List<Boat> first = CourseCache.createStarters("Boat.xml");
+        List<Boat> second = CourseCache.createStarters("Boat.xml");
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertNotSame(first.get(i), second.get(i));
+            assertEquals(first.get(i).getId(), second.get(i).getId());
+            assertEquals(first.get(i).getName(), second.get(i).getName());
+        }
+    }
+}
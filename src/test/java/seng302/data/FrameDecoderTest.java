@@ -0,0 +1,115 @@
+package seng302.data;
+
+import org.junit.Before;
+import org.junit.Test;
+import seng302.data.registration.RegistrationResponseStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static seng302.controllers.listeners.Listener.bufferRangeToInt;
+import static seng302.data.AC35StreamField.*;
+
+/**
+ * Tests for decoding messages from a stream
+ */
+public class FrameDecoderTest {
+
+    private ServerPacketBuilder builder;
+    private ByteArrayOutputStream stream;
+
+    @Before
+    public void before() {
+        builder = new ServerPacketBuilder();
+        stream = new ByteArrayOutputStream();
+    }
+
+    private FrameDecoder decoderForStream() {
+        return new FrameDecoder(Channels.newChannel(new ByteArrayInputStream(stream.toByteArray())));
+    }
+
+    private void assertRoomCodeMessage(FrameDecoder decoder, int code) throws IOException {
+        decoder.nextMessage();
+        ByteBuffer body = decoder.getBody();
+        assertEquals(AC35StreamMessage.PARTY_MODE_CODE_MESSAGE.getValue(), decoder.getMessageType());
+        assertEquals(code, bufferRangeToInt(body, PARTY_MODE_ROOM_CODE.getStartIndex(), PARTY_MODE_ROOM_CODE.getEndIndex()));
+    }
+
+    @Test
+    public void decodesConsecutiveMessagesTest() throws IOException {
+        stream.write(builder.createRegistrationResponsePacket(101, RegistrationResponseStatus.PLAYER_SUCCESS));
+        stream.write(builder.createPartyModeRoomCodeMessage(1234));
+        FrameDecoder decoder = decoderForStream();
+
+        decoder.nextMessage();
+        ByteBuffer body = decoder.getBody();
+        assertEquals(AC35StreamMessage.REGISTRATION_RESPONSE.getValue(), decoder.getMessageType());
+        assertEquals(AC35StreamMessage.REGISTRATION_RESPONSE.getLength(), body.remaining());
+        assertEquals(101, bufferRangeToInt(body, REGISTRATION_SOURCE_ID.getStartIndex(), REGISTRATION_SOURCE_ID.getEndIndex()));
+        assertTrue(body.isReadOnly());
+        assertRoomCodeMessage(decoder, 1234);
+    }
+
+    @Test
+    public void skipsBytesBeforeSyncBytesTest() throws IOException {
+        stream.write(new byte[]{1, 2, 0x47, 3});
+        stream.write(builder.createPartyModeRoomCodeMessage(1234));
+        FrameDecoder decoder = decoderForStream();
+
+        assertRoomCodeMessage(decoder, 1234);
+    }
+
+    @Test
+    public void resyncsAfterIncorrectCRCTest() throws IOException {
+        byte[] corrupt = builder.createPartyModeRoomCodeMessage(1111);
+        corrupt[corrupt.length - 1]++;
+        stream.write(corrupt);
+        stream.write(builder.createPartyModeRoomCodeMessage(2222));
+        FrameDecoder decoder = decoderForStream();
+
+        assertRoomCodeMessage(decoder, 2222);
+        assertEquals(1, decoder.getCorruptMessages());
+    }
+
+    @Test
+    public void resyncsAfterIncorrectLengthTest() throws IOException {
+        byte[] corrupt = builder.createPartyModeRoomCodeMessage(1111);
+        corrupt[MESSAGE_LENGTH.getStartIndex() + 1] = 0x7f;
+        stream.write(corrupt);
+        stream.write(builder.createPartyModeRoomCodeMessage(2222));
+        FrameDecoder decoder = decoderForStream();
+
+        assertRoomCodeMessage(decoder, 2222);
+        assertEquals(1, decoder.getCorruptMessages());
+    }
+
+    @Test
+    public void decodesMessagesLargerThanBufferTest() throws IOException {
+        byte[] body = new byte[20000];
+        body[body.length - 1] = 9;
+        ByteBuffer packet = ByteBuffer.allocate(PacketWriter.packetLength(body.length));
+        PacketWriter writer = new PacketWriter();
+        writer.begin(packet, AC35StreamMessage.XML_MESSAGE, -1, body.length, 0);
+        writer.putBytes(0, body, body.length);
+        writer.finish();
+        stream.write(packet.array());
+        FrameDecoder decoder = decoderForStream();
+
+        decoder.nextMessage();
+        assertEquals(body.length, decoder.getBody().remaining());
+        assertEquals(9, decoder.getBody().get(body.length - 1));
+    }
+
+    @Test(expected = EOFException.class)
+    public void endOfStreamTest() throws IOException {
+        byte[] packet = builder.createPartyModeRoomCodeMessage(1234);
+        stream.write(packet, 0, packet.length - 1);
+        decoderForStream().nextMessage();
+    }
+}
@@ -0,0 +1,53 @@
+package seng302.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for dispatching messages to handlers by their type
+ */
+public class MessageDispatcherTest {
+
+    private MessageDispatcher<List<String>, String> dispatcher;
+    private List<String> handled;
+
+    @Before
+    public void before() {
+        handled = new ArrayList<>();
+        dispatcher = new MessageDispatcher<List<String>, String>()
+                .register(AC35StreamMessage.BOAT_ACTION_MESSAGE, (listener, sourceId, body) -> listener.add("action " + body))
+                .register(AC35StreamMessage.XML_MESSAGE, (listener, sourceId, body) -> listener.add("xml " + sourceId));
+    }
+
+    @Test
+    public void dispatchesToHandlerForTypeTest() throws IOException {
+        assertTrue(dispatcher.dispatch(handled, AC35StreamMessage.BOAT_ACTION_MESSAGE.getValue(), 101, "tack"));
+        assertTrue(dispatcher.dispatch(handled, AC35StreamMessage.XML_MESSAGE.getValue(), 101, ""));
+        assertEquals(2, handled.size());
+        assertEquals("action tack", handled.get(0));
+        assertEquals("xml 101", handled.get(1));
+    }
+
+    @Test
+    public void unhandledTypesIgnoredTest() throws IOException {
+        assertFalse(dispatcher.dispatch(handled, AC35StreamMessage.RACE_STATUS_MESSAGE.getValue(), 101, ""));
+        assertFalse(dispatcher.dispatch(handled, 300, 101, ""));
+        assertFalse(dispatcher.dispatch(handled, -1, 101, ""));
+        assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    public void messageTypeLookupTest() {
+        for (AC35StreamMessage messageType : AC35StreamMessage.values()) {
+            assertEquals(messageType, AC35StreamMessage.fromInteger(messageType.getValue()));
+        }
+        assertNull(AC35StreamMessage.fromInteger(255));
+        assertNull(AC35StreamMessage.fromInteger(256));
+    }
+}
@@ -0,0 +1,66 @@
+package seng302.data;
+
+import org.junit.Before;
+import org.junit.Test;
+import seng302.data.registration.RegistrationResponseStatus;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static seng302.controllers.listeners.Listener.byteArrayRangeToInt;
+import static seng302.data.AC35StreamField.*;
+import static seng302.data.PacketWriter.CRC_LENGTH;
+import static seng302.data.PacketWriter.HEADER_LENGTH;
+
+/**
+ * Tests for writing packets into buffers
+ */
+public class PacketWriterTest {
+
+    private ServerPacketBuilder builder;
+    private ByteBuffer buffer;
+
+    @Before
+    public void before() {
+        builder = new ServerPacketBuilder();
+        buffer = ByteBuffer.allocate(256);
+    }
+
+    @Test
+    public void writtenPacketMatchesGeneratedPacketTest() {
+        builder.createRegistrationResponsePacket(100, RegistrationResponseStatus.PLAYER_SUCCESS, buffer);
+        byte[] packet = Arrays.copyOf(buffer.array(), buffer.position());
+        byte[] header = Arrays.copyOfRange(packet, 0, HEADER_LENGTH);
+        byte[] body = Arrays.copyOfRange(packet, HEADER_LENGTH, packet.length - CRC_LENGTH);
+
+        assertEquals(PacketWriter.packetLength(AC35StreamMessage.REGISTRATION_RESPONSE.getLength()), packet.length);
+        assertArrayEquals(builder.generatePacket(header, body), packet);
+    }
+
+    @Test
+    public void packetsWrittenConsecutivelyTest() {
+        builder.createRegistrationResponsePacket(100, RegistrationResponseStatus.PLAYER_SUCCESS, buffer);
+        int firstLength = buffer.position();
+        builder.createPartyModeRoomCodeMessage(4321, buffer);
+
+        byte[] second = Arrays.copyOfRange(buffer.array(), firstLength, buffer.position());
+        byte[] body = Arrays.copyOfRange(second, HEADER_LENGTH, second.length - CRC_LENGTH);
+        assertEquals(AC35StreamMessage.PARTY_MODE_CODE_MESSAGE.getValue(), byteArrayRangeToInt(second, MESSAGE_TYPE.getStartIndex(), MESSAGE_TYPE.getEndIndex()));
+        assertEquals(4321, byteArrayRangeToInt(body, PARTY_MODE_ROOM_CODE.getStartIndex(), PARTY_MODE_ROOM_CODE.getEndIndex()));
+    }
+
+    @Test
+    public void packetTooLargeForBufferTest() {
+        ByteBuffer smallBuffer = ByteBuffer.allocate(10);
+        try {
+            builder.createRegistrationResponsePacket(100, RegistrationResponseStatus.PLAYER_SUCCESS, smallBuffer);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, smallBuffer.position());
+        }
+    }
+}
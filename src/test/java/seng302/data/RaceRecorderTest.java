@@ -0,0 +1,108 @@
+package seng302.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import seng302.models.Boat;
+import seng302.utilities.SteppedClock;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for recording a race stream and seeking in it by its index
+ */
+public class RaceRecorderTest {
+
+    private static final long START_MILLIS = 1498867200000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Records a boat state message every second for 20 seconds
+     * @return the length of each message
+     */
+    private int recordRace(Path directory, long indexIntervalMillis) throws InterruptedException, IOException {
+        SteppedClock clock = new SteppedClock(START_MILLIS);
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        builder.setClock(clock);
+        RaceRecorder recorder = new RaceRecorder(directory, "race", indexIntervalMillis);
+        Boat boat = new Boat(101, "Team Test", "TT", 20);
+        int packetLength = 0;
+        for (int second = 0; second < 20; second++) {
+            byte[] packet = builder.createBoatStateMessagePacket(boat);
+            packetLength = packet.length;
+            recorder.record(packet);
+            clock.advance(1000);
+        }
+        recorder.close();
+        recorder.awaitClose();
+        return packetLength;
+    }
+
+    private int countMessages(FileChannel channel) throws IOException {
+        FrameDecoder decoder = new FrameDecoder(channel);
+        int messages = 0;
+        try {
+            while (true) {
+                decoder.nextMessage();
+                assertEquals(AC35StreamMessage.BOAT_STATE_MESSAGE.getValue(), decoder.getMessageType());
+                messages++;
+            }
+        } catch (EOFException e) {
+            return messages;
+        }
+    }
+
+    @Test
+    public void recordingReadsBackAsStreamTest() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        recordRace(directory, 5000);
+        try (FileChannel channel = FileChannel.open(directory.resolve("race" + RaceRecorder.STREAM_EXTENSION),
+                StandardOpenOption.READ)) {
+            assertEquals(20, countMessages(channel));
+        }
+    }
+
+    @Test
+    public void indexSeeksToTimeTest() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        int packetLength = recordRace(directory, 5000);
+        RaceRecordingIndex index = RaceRecordingIndex.read(directory.resolve("race" + RaceRecorder.INDEX_EXTENSION));
+
+        assertEquals(4, index.size());
+        assertEquals(START_MILLIS + 15000, index.getTime(3));
+        assertEquals(0, index.offsetAt(START_MILLIS - 1));
+        assertEquals(0, index.offsetAt(START_MILLIS + 4999));
+        assertEquals(5 * packetLength, index.offsetAt(START_MILLIS + 5000));
+        assertEquals(10 * packetLength, index.offsetAt(START_MILLIS + 12000));
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("race" + RaceRecorder.STREAM_EXTENSION),
+                StandardOpenOption.READ)) {
+            channel.position(index.offsetAt(START_MILLIS + 12000));
+            assertEquals(10, countMessages(channel));
+        }
+    }
+
+    @Test
+    public void existingRecordingNotOverwrittenTest() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        recordRace(directory, 5000);
+        try {
+            new RaceRecorder(directory, "race", 5000);
+            fail("A second recording with the same name should not be started");
+        } catch (IOException e) {
+            try (FileChannel channel = FileChannel.open(directory.resolve("race" + RaceRecorder.STREAM_EXTENSION),
+                    StandardOpenOption.READ)) {
+                assertEquals(20, countMessages(channel));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package seng302.data;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import seng302.models.Boat;
+import seng302.models.Race;
+import seng302.utilities.SteppedClock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for reading a memory-mapped race recording
+ */
+public class RaceRecordingTest {
+
+    private static final long START_MILLIS = 1498867200000L;
+    private static final int MESSAGES = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path streamFile;
+    private int packetLength;
+
+    /**
+     * Records a boat state message every second
+     */
+    @Before
+    public void before() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        SteppedClock clock = new SteppedClock(START_MILLIS);
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        builder.setClock(clock);
+        RaceRecorder recorder = new RaceRecorder(directory, "race", 5000);
+        Boat boat = new Boat(101, "Team Test", "TT", 20);
+        for (int second = 0; second < MESSAGES; second++) {
+            byte[] packet = builder.createBoatStateMessagePacket(boat);
+            packetLength = packet.length;
+            recorder.record(packet);
+            clock.advance(1000);
+        }
+        recorder.close();
+        recorder.awaitClose();
+        streamFile = directory.resolve("race" + RaceRecorder.STREAM_EXTENSION);
+    }
+
+    @Test
+    public void framesReadInPlaceTest() throws IOException {
+        RaceRecording recording = RaceRecording.open(streamFile);
+        assertEquals(MESSAGES * packetLength, recording.getEnd());
+        assertEquals(START_MILLIS, recording.getStartTime());
+        assertEquals(START_MILLIS + (MESSAGES - 1) * 1000, recording.getEndTime());
+        assertEquals(AC35StreamMessage.BOAT_STATE_MESSAGE.getValue(), recording.getType(packetLength));
+        assertEquals(2 * packetLength, recording.nextFrame(packetLength));
+
+        ByteBuffer slice = recording.slice(packetLength, 3 * packetLength);
+        assertTrue(slice.isReadOnly());
+        assertEquals(2 * packetLength, slice.remaining());
+        byte[] frame = new byte[packetLength];
+        slice.get(frame);
+        assertArrayEquals(recording.copyFrame(packetLength), frame);
+    }
+
+    @Test
+    public void seeksToFirstFrameAtTimeTest() throws IOException {
+        RaceRecording recording = RaceRecording.open(streamFile);
+        assertEquals(0, recording.offsetAt(START_MILLIS - 1000));
+        assertEquals(7 * packetLength, recording.offsetAt(START_MILLIS + 7000));
+        assertEquals(8 * packetLength, recording.offsetAt(START_MILLIS + 7500));
+        assertEquals(recording.getEnd(), recording.offsetAt(START_MILLIS + MESSAGES * 1000));
+    }
+
+    @Test
+    public void seeksWithoutIndexTest() throws IOException {
+        Files.delete(folder.getRoot().toPath().resolve("race" + RaceRecorder.INDEX_EXTENSION));
+        RaceRecording recording = RaceRecording.open(streamFile);
+        assertEquals(12 * packetLength, recording.offsetAt(START_MILLIS + 12000));
+    }
+
+    @Test
+    public void findsLatestXmlMessagesTest() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("xml");
+        Files.createDirectory(directory);
+        SteppedClock clock = new SteppedClock(START_MILLIS);
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        builder.setClock(clock);
+        Race race = new Race();
+        Boat boat = new Boat(101, "Team Test", "TT", 20);
+        RaceRecorder recorder = new RaceRecorder(directory, "race", 5000);
+        int[] offsets = new int[5];
+        int offset = 0;
+        byte[][] packets = {
+                builder.buildXmlMessage(AC35StreamXMLMessage.REGATTA_XML_MESSAGE, "Regatta.xml", 0, race, ""),
+                builder.buildXmlMessage(AC35StreamXMLMessage.BOAT_XML_MESSAGE, "Boat.xml", 0, race, ""),
+                builder.createBoatStateMessagePacket(boat),
+                builder.buildXmlMessage(AC35StreamXMLMessage.BOAT_XML_MESSAGE, "Boat.xml", 1, race, ""),
+                builder.createBoatStateMessagePacket(boat)};
+        for (int i = 0; i < packets.length; i++) {
+            offsets[i] = offset;
+            offset += packets[i].length;
+            recorder.record(packets[i]);
+            clock.advance(1000);
+        }
+        recorder.close();
+        recorder.awaitClose();
+        RaceRecording recording = RaceRecording.open(directory.resolve("race" + RaceRecorder.STREAM_EXTENSION));
+
+        assertArrayEquals(new int[0], recording.latestXmlFramesBefore(0));
+        assertArrayEquals(new int[]{offsets[0]}, recording.latestXmlFramesBefore(offsets[1]));
+        assertArrayEquals(new int[]{offsets[0], offsets[1]}, recording.latestXmlFramesBefore(offsets[3]));
+        assertArrayEquals(new int[]{offsets[0], offsets[3]}, recording.latestXmlFramesBefore(offsets[4]));
+        assertArrayEquals(new int[]{offsets[0], offsets[3]}, recording.latestXmlFramesBefore(recording.getEnd()));
+    }
+
+    @Test
+    public void cutShortRecordingReadsWholeFramesTest() throws IOException {
+        try (FileChannel channel = FileChannel.open(streamFile, StandardOpenOption.WRITE)) {
+            channel.truncate(MESSAGES * packetLength - 3);
+        }
+        RaceRecording recording = RaceRecording.open(streamFile);
+        assertEquals((MESSAGES - 1) * packetLength, recording.getEnd());
+        assertEquals(START_MILLIS + (MESSAGES - 2) * 1000, recording.getEndTime());
+    }
+}
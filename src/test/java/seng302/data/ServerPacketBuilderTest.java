@@ -1,6 +1,5 @@
 package seng302.data;
 
-import javafx.scene.paint.Color;
 import org.junit.Test;
 import seng302.controllers.listeners.Listener;
 import seng302.data.registration.RegistrationResponseStatus;
@@ -9,9 +8,12 @@ import seng302.models.CompoundMark;
 import seng302.models.Course;
 import seng302.models.Race;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.zip.CRC32;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
@@ -33,8 +35,7 @@ public class ServerPacketBuilderTest {
     @Test
     public void createWebClientInitPacket() {
         ServerPacketBuilder builder = new ServerPacketBuilder();
-        Color color = Color.web("#EE4326");
-        byte[] fullPacket = builder.createWebClientInitPacket(101, "Emirates Team New Zealand", color);
+        byte[] fullPacket = builder.createWebClientInitPacket(101, "Emirates Team New Zealand", 0xEE4326);
         byte[] body = Arrays.copyOfRange(fullPacket, HEADER_LENGTH, fullPacket.length - CRC_LENGTH); //extract body
         int id = byteArrayRangeToInt(body, WEB_CLIENT_ID.getStartIndex(), WEB_CLIENT_ID.getEndIndex());
         assertEquals(101, id);
@@ -52,9 +53,9 @@ public class ServerPacketBuilderTest {
         int r = byteArrayRangeToInt(body, colStart, colStart + 1);
         int g = byteArrayRangeToInt(body, colStart + 1, colStart + 2);
         int b = byteArrayRangeToInt(body, colStart + 2, colStart + 3);
-        assertEquals(color.getRed() * 255, r, 0.01);
-        assertEquals(color.getGreen() * 255, g, 0.01);
-        assertEquals(color.getBlue() * 255, b, 0.01);
+        assertEquals(0xEE, r);
+        assertEquals(0x43, g);
+        assertEquals(0x26, b);
     }
 
     @Test
@@ -140,6 +141,29 @@ public class ServerPacketBuilderTest {
 
     @Test
     public void buildXmlMessage() {
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        List<Boat> boats = new ArrayList<>();
+        boats.add(new Boat(100, "Test Boat 1", "TB1", 10));
+        boats.add(new Boat(101, "Test Boat 2", "TB2", 10));
+        Race race = new Race("Test Race", new Course(), boats);
+        race.setId("1");
+        race.setStartTimeInEpochMs(1498867212345L);
+
+        byte[] fullPacket = builder.buildXmlMessage(AC35StreamXMLMessage.RACE_XML_MESSAGE, "AC35-course.xml", 3, race, "AC35-course.xml");
+        byte[] body = Arrays.copyOfRange(fullPacket, HEADER_LENGTH, fullPacket.length - CRC_LENGTH); //extract body
+        int xmlLength = byteArrayRangeToInt(body, XML_LENGTH.getStartIndex(), XML_LENGTH.getEndIndex());
+        int sequence = byteArrayRangeToInt(body, XML_SEQUENCE.getStartIndex(), XML_SEQUENCE.getEndIndex());
+        assertEquals(body.length - XML_BODY.getStartIndex(), xmlLength);
+        assertEquals(3, sequence);
+
+        CRC32 crc = new CRC32();
+        crc.update(fullPacket, 0, fullPacket.length - CRC_LENGTH);
+        assertEquals(crc.getValue(), byteArrayRangeToLong(fullPacket, fullPacket.length - CRC_LENGTH, fullPacket.length));
+
+        Race parsed = new RaceVisionXMLParser().importRace(
+                new ByteArrayInputStream(body, XML_BODY.getStartIndex(), xmlLength));
+        assertEquals(new HashSet<>(Arrays.asList(100, 101)), parsed.getCompetitorIds());
+        assertEquals(1498867212000L, parsed.getStartTimeInEpochMs());
     }
 
     @Test
@@ -206,4 +230,30 @@ public class ServerPacketBuilderTest {
         assertEquals(RegistrationResponseStatus.OUT_OF_SLOTS.value(), status);
     }
 
+    @Test
+    public void wrapShortPacket() {
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        byte[] packet = new byte[100];
+        packet[99] = 7;
+        byte[] wrapped = builder.wrapPacket(packet);
+
+        assertEquals(102, wrapped.length);
+        assertEquals(130, wrapped[0] & 0xFF);
+        assertEquals(100, wrapped[1]);
+        assertEquals(7, wrapped[101]);
+    }
+
+    @Test
+    public void wrapLongPacket() {
+        ServerPacketBuilder builder = new ServerPacketBuilder();
+        byte[] packet = new byte[300];
+        packet[299] = 7;
+        byte[] wrapped = builder.wrapPacket(packet);
+
+        assertEquals(304, wrapped.length);
+        assertEquals(126, wrapped[1]);
+        assertEquals(300, (wrapped[2] & 0xFF) << 8 | (wrapped[3] & 0xFF));
+        assertEquals(7, wrapped[303]);
+    }
+
 }
@@ -0,0 +1,40 @@
+package seng302.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for checking points against a course boundary
+ */
+public class BoundaryPolygonTest {
+
+    private BoundaryPolygon boundary;
+
+    @Before
+    public void before() {
+        // An L shaped boundary, so one corner of its bounding box is outside it
+        boundary = new BoundaryPolygon(Arrays.asList(
+                new Coordinate(0, 0), new Coordinate(0, 2), new Coordinate(1, 2),
+                new Coordinate(1, 1), new Coordinate(2, 1), new Coordinate(2, 0)));
+    }
+
+    @Test
+    public void pointsInsideBoundaryTest() {
+        assertTrue(boundary.contains(0.5, 0.5));
+        assertTrue(boundary.contains(0.5, 1.5));
+        assertTrue(boundary.contains(1.5, 0.5));
+    }
+
+    @Test
+    public void pointsOutsideBoundaryTest() {
+        assertFalse(boundary.contains(1.5, 1.5));
+        assertFalse(boundary.contains(-0.5, 0.5));
+        assertFalse(boundary.contains(0.5, 2.5));
+        assertFalse(boundary.contains(3, 3));
+    }
+}
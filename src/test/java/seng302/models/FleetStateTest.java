@@ -0,0 +1,119 @@
+package seng302.models;
+
+import org.junit.Test;
+import seng302.data.BoatStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the FleetState class
+ */
+public class FleetStateTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void growsPastInitialCapacityTest() {
+        FleetState fleet = new FleetState(2);
+        for (int i = 0; i < 10; i++) {
+            int slot = fleet.addSlot();
+            fleet.setPosition(slot, i, -i);
+        }
+        assertEquals(10, fleet.size());
+        assertEquals(7, fleet.getLat(7), DELTA);
+        assertEquals(-7, fleet.getLon(7), DELTA);
+        assertEquals(100, fleet.getHealth(9), DELTA);
+        assertSame(BoatStatus.UNDEFINED, fleet.getStatus(9));
+    }
+
+    @Test
+    public void advanceMatchesCoordAtTest() {
+        FleetState fleet = new FleetState();
+        int slot = fleet.addSlot();
+        fleet.setPosition(slot, 57.67, 11.83);
+        fleet.setHeading(slot, 135);
+        fleet.advance(slot, 0.4);
+
+        Coordinate expected = new Coordinate(57.67, 11.83).coordAt(0.4, 135);
+        assertEquals(expected.getLat(), fleet.getLat(slot), DELTA);
+        assertEquals(expected.getLon(), fleet.getLon(slot), DELTA);
+        assertEquals(57.67, fleet.getPreviousLat(slot), DELTA);
+        assertEquals(11.83, fleet.getPreviousLon(slot), DELTA);
+    }
+
+    @Test
+    public void boatKeepsStateWhenJoiningRaceTest() {
+        Boat boat = new Boat(101, "Team Test", "TT", 20);
+        boat.setPosition(32.29, -64.85);
+        boat.setHeading(45);
+        boat.setBoatHealth(60);
+        boat.setStatus(BoatStatus.RACING);
+
+        Race race = new Race("Test Race", null, new ArrayList<>());
+        race.addCompetitor(boat);
+        boat.setPosition(32.30, -64.84);
+
+        assertEquals(32.30, boat.getCurrentLat(), DELTA);
+        assertEquals(32.29, boat.getPreviousPosition().getLat(), DELTA);
+        assertEquals(45, boat.getHeading(), DELTA);
+        assertEquals(60, boat.getBoatHealth(), DELTA);
+        assertSame(BoatStatus.RACING, boat.getStatus());
+        assertEquals(32.30, race.getFleet().getLat(0), DELTA);
+    }
+
+    @Test
+    public void freedSlotIsReusedTest() {
+        FleetState fleet = new FleetState();
+        int first = fleet.addSlot();
+        int second = fleet.addSlot();
+        fleet.setPosition(first, 32.29, -64.85);
+        fleet.setHealth(first, 40);
+        fleet.freeSlot(first);
+        assertEquals(1, fleet.slotsInUse());
+
+        assertEquals(first, fleet.addSlot());
+        assertEquals(2, fleet.size());
+        assertEquals(0, fleet.getLat(first), DELTA);
+        assertEquals(100, fleet.getHealth(first), DELTA);
+        assertEquals(2, fleet.addSlot());
+        assertEquals(1, second);
+    }
+
+    @Test
+    public void replacingCompetitorsKeepsFleetBoundedTest() {
+        Race race = new Race("Test Race", null, new ArrayList<>());
+        race.setCompetitorIds(new HashSet<>(Arrays.asList(101, 102, 103)));
+        List<Boat> oldBoats = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            List<Boat> boats = new ArrayList<>();
+            for (int id = 101; id <= 103; id++) {
+                Boat boat = new Boat(id, "Team " + id, "T" + id, 20);
+                boat.setPosition(round, id);
+                boats.add(boat);
+            }
+            race.setCompetitors(boats);
+            oldBoats.addAll(boats);
+        }
+        for (int round = 0; round < 50; round++) {
+            Boat boat = new Boat(101, "Team 101", "T101", 20);
+            boat.setPosition(-round, 101);
+            race.addCompetitor(boat);
+        }
+
+        assertEquals(3, race.getCompetitors().size());
+        assertEquals(3, race.getFleet().slotsInUse());
+        assertEquals(3, race.getFleet().size());
+        assertEquals(-49, race.getBoatById(101).getCurrentLat(), DELTA);
+        assertEquals(49, race.getBoatById(102).getCurrentLat(), DELTA);
+        Boat replaced = oldBoats.get(0);
+        replaced.setPosition(1, 1);
+        assertEquals(1, replaced.getCurrentLat(), DELTA);
+        assertEquals(-49, race.getBoatById(101).getCurrentLat(), DELTA);
+    }
+}
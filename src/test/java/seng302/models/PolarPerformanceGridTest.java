@@ -0,0 +1,63 @@
+package seng302.models;
+
+import org.junit.Before;
+import org.junit.Test;
+import seng302.utilities.PolarReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the precomputed performance grid agrees with the polar table calculations
+ */
+public class PolarPerformanceGridTest {
+
+    private PolarPerformanceGrid grid;
+    private PolarTable polarTable;
+    private final double DELTA = 1e-6;
+
+    @Before
+    public void before() {
+        grid = PolarReader.getPerformanceGridForAC35Yachts();
+        polarTable = new PolarTable(PolarReader.getPolarsForAC35Yachts());
+    }
+
+    @Test
+    public void gridIsSharedTest() {
+        assertSame(grid, PolarReader.getPerformanceGridForAC35Yachts());
+    }
+
+    @Test
+    public void boatSpeedAtSamplesMatchesPolarTableTest() {
+        for (int TWS = 6; TWS <= 24; TWS += 3) {
+            for (int TWA = 0; TWA <= 180; TWA += 15) {
+                assertEquals(polarTable.calculateBoatSpeed(TWS, TWA), grid.getBoatSpeed(TWS, TWA), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void boatSpeedBetweenSamplesTest() {
+        double speed = grid.getBoatSpeed(10.5, 40.5);
+        double lower = grid.getBoatSpeed(10, 40);
+        double upper = grid.getBoatSpeed(11, 41);
+        assertTrue(speed >= Math.min(lower, upper) && speed <= Math.max(lower, upper));
+    }
+
+    @Test
+    public void boatSpeedClampedOutsideGridTest() {
+        assertEquals(grid.getBoatSpeed(30, 180), grid.getBoatSpeed(45, 200), DELTA);
+        assertEquals(grid.getBoatSpeed(0, 0), grid.getBoatSpeed(-5, -10), DELTA);
+    }
+
+    @Test
+    public void optimumsMatchPolarTableTest() {
+        WindAngleAndSpeed tack = polarTable.calculateOptimumTack(20);
+        WindAngleAndSpeed gybe = polarTable.calculateOptimumGybe(20);
+        assertEquals(tack.getWindAngle(), grid.getOptimumVMG(20.7, true), DELTA);
+        assertEquals(tack.getSpeed(), grid.getOptimumTWA(20.7, true), DELTA);
+        assertEquals(gybe.getWindAngle(), grid.getOptimumVMG(20.7, false), DELTA);
+        assertEquals(gybe.getSpeed(), grid.getOptimumTWA(20.7, false), DELTA);
+    }
+}
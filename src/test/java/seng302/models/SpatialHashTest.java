@@ -0,0 +1,90 @@
+package seng302.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the spatial hash used by collision detection
+ */
+public class SpatialHashTest {
+
+    private SpatialHash<String> grid;
+    private List<String> nearby;
+    private Coordinate origin = new Coordinate(-43.5, 172.6);
+
+    @Before
+    public void before() {
+        grid = new SpatialHash<>(0.05);
+        nearby = new ArrayList<>();
+    }
+
+    @Test
+    public void findsCloseObjectsTest() {
+        grid.update("boat", origin);
+        grid.update("close", origin.coordAt(0.04, 135));
+        grid.update("far", origin.coordAt(1, 45));
+
+        grid.findNearby(origin, nearby);
+        assertTrue(nearby.contains("boat"));
+        assertTrue(nearby.contains("close"));
+        assertFalse(nearby.contains("far"));
+    }
+
+    @Test
+    public void movedObjectChangesCellTest() {
+        grid.update("boat", origin);
+        grid.update("other", origin.coordAt(1, 90));
+
+        grid.findNearby(origin, nearby);
+        assertFalse(nearby.contains("other"));
+
+        grid.update("other", origin.coordAt(0.01, 90));
+        grid.findNearby(origin, nearby);
+        assertTrue(nearby.contains("other"));
+        assertEquals(2, grid.size());
+    }
+
+    @Test
+    public void removeAndRetainTest() {
+        grid.update("a", origin);
+        grid.update("b", origin);
+        grid.update("c", origin);
+
+        grid.remove("a");
+        grid.retainAll(Arrays.asList("b"));
+
+        grid.findNearby(origin, nearby);
+        assertEquals(Arrays.asList("b"), nearby);
+        assertEquals(1, grid.size());
+    }
+
+    @Test
+    public void findsObjectsWithinAreaTest() {
+        grid.update("inside", origin);
+        grid.update("edge", origin.coordAt(0.1, 90));
+        grid.update("outside", origin.coordAt(1, 90));
+
+        Coordinate corner = origin.coordAt(0.2, 45);
+        grid.findWithin(origin.getLat() - 0.001, origin.getLon() - 0.001, corner.getLat(), corner.getLon(), nearby);
+        assertTrue(nearby.contains("inside"));
+        assertTrue(nearby.contains("edge"));
+        assertFalse(nearby.contains("outside"));
+    }
+
+    @Test
+    public void largeAreaFindsEveryObjectTest() {
+        grid.update("a", origin);
+        grid.update("b", origin.coordAt(3, 0));
+
+        grid.findWithin(-90, -180, 90, 180, nearby);
+        assertEquals(2, nearby.size());
+    }
+}
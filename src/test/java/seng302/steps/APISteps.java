@@ -7,6 +7,7 @@ import javafx.scene.input.KeyCode;
 import seng302.controllers.listeners.AbstractServerListener;
 import seng302.controllers.RaceUpdater;
 import seng302.controllers.GameServer;
+import seng302.controllers.KeyInputController;
 import seng302.controllers.listeners.ServerListener;
 import seng302.data.*;
 import seng302.models.Boat;
@@ -79,7 +80,7 @@ public class APISteps {
         listener.setClientId(102);
         listener.setRace(race);
         KeyCode keyCode = KeyCode.valueOf(key.toUpperCase());
-        byte[] packet = packetBuilder.createBoatCommandPacket(BoatAction.getTypeFromKeyCode(keyCode), 102);
+        byte[] packet = packetBuilder.createBoatCommandPacket(KeyInputController.getTypeFromKeyCode(keyCode), 102);
         when(serverSocket.getInputStream()).thenReturn(new ByteArrayInputStream(packet));
         Thread serverListenerThread = new Thread(listener);
         serverListenerThread.start();
@@ -4,6 +4,7 @@ import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 import javafx.scene.input.KeyCode;
+import seng302.controllers.KeyInputController;
 import seng302.data.BoatAction;
 import seng302.data.ClientPacketBuilder;
 
@@ -33,7 +34,7 @@ public class ReceivingCorrectButtonPressTest {
 
     @Given("^the user has pressed a button$")
     public void the_user_has_pressed_a_button() throws Throwable {
-        commandInt = BoatAction.getTypeFromKeyCode(KeyCode.PAGE_DOWN);
+        commandInt = KeyInputController.getTypeFromKeyCode(KeyCode.PAGE_DOWN);
     }
 
     @Given("^this has been sent to the receiver$")
@@ -75,7 +76,7 @@ public class ReceivingCorrectButtonPressTest {
     @Given("^the user has pressed an incorrect button$")
     public void theUserHasPressedAnIncorrectButton() throws Throwable {
 
-        commandInt = BoatAction.getTypeFromKeyCode(KeyCode.H);
+        commandInt = KeyInputController.getTypeFromKeyCode(KeyCode.H);
     }
 
     @Then("^the receiver will know that it is an incorrect button$")
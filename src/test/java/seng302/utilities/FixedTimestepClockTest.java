@@ -0,0 +1,47 @@
+package seng302.utilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the steps counted by the fixed timestep clock
+ */
+public class FixedTimestepClockTest {
+
+    private static final long STEP = 20;
+    private FixedTimestepClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new FixedTimestepClock(STEP, 5, 1000);
+    }
+
+    @Test
+    public void noStepsDueBeforeAStepHasPassed() {
+        assertEquals(0, clock.advance(1019));
+        assertEquals(1, clock.nanosUntilNextStep());
+    }
+
+    @Test
+    public void slowStepsDoNotDrift() {
+        int steps = 0;
+        // each advance comes 27 units after the last, as if every step took 7 units of work plus a 20 unit sleep
+        for (long now = 1000 + 27; now <= 1000 + 27 * 100; now += 27) {
+            steps += clock.advance(now);
+        }
+        assertEquals(27 * 100 / STEP, steps);
+        assertEquals(0, clock.getOverruns());
+    }
+
+    @Test
+    public void catchUpIsBounded() {
+        assertEquals(5, clock.advance(1000 + STEP * 12 + 3));
+        assertEquals(1, clock.getOverruns());
+        assertEquals(7, clock.getDroppedSteps());
+        assertEquals(STEP - 3, clock.nanosUntilNextStep());
+        assertEquals(1, clock.advance(1000 + STEP * 13));
+        assertEquals(6, clock.getSteps());
+    }
+}
@@ -0,0 +1,45 @@
+package seng302.utilities;
+
+import org.junit.Test;
+import seng302.models.Coordinate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the Geodesy class
+ */
+public class GeodesyTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void pointMatchesGreatCircleTest() {
+        Geodesy.Point start = new Geodesy.Point(32.293039, -64.843983);
+        Geodesy.Point end = new Geodesy.Point(32.280164, -64.847591);
+        assertEquals(Geodesy.distance(32.293039, -64.843983, 32.280164, -64.847591), start.distanceTo(end), DELTA);
+        assertEquals(193, Math.round(start.headingTo(end)));
+        assertEquals(1179, Math.round(new Geodesy.Point(50, 30).distanceTo(new Geodesy.Point(60, 60))));
+    }
+
+    @Test
+    public void destinationIntoGivenCoordinateTest() {
+        Coordinate start = new Coordinate(57.67, 11.83);
+        Coordinate expected = start.coordAt(0.8, 250);
+        Coordinate result = start.coordAt(0.8, 250, start);
+        assertSame(start, result);
+        assertEquals(expected.getLat(), result.getLat(), DELTA);
+        assertEquals(expected.getLon(), result.getLon(), DELTA);
+    }
+
+    @Test
+    public void tangentPlaneCloseToGreatCircleTest() {
+        Geodesy.TangentPlane plane = new Geodesy.TangentPlane(32.29, -64.84);
+        double greatCircle = Geodesy.distance(32.293039, -64.843983, 32.280164, -64.847591);
+        double flat = plane.distance(32.293039, -64.843983, 32.280164, -64.847591);
+        assertEquals(greatCircle, flat, greatCircle * 0.001);
+        assertEquals(Geodesy.heading(32.29, -64.84, 32.30, -64.83),
+                plane.heading(32.29, -64.84, 32.30, -64.83), 0.1);
+        assertEquals(flat * flat, plane.distanceSquared(32.293039, -64.843983, 32.280164, -64.847591), DELTA);
+    }
+}
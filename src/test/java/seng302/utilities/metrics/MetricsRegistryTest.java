@@ -0,0 +1,78 @@
+package seng302.utilities.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the metrics kept by the registry and the text they are served as
+ */
+public class MetricsRegistryTest {
+
+    private MetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new MetricsRegistry();
+    }
+
+    @Test
+    public void histogramBucketsArePowersOfTwoMicroseconds() {
+        assertEquals(0, LatencyHistogram.bucketIndex(0));
+        assertEquals(0, LatencyHistogram.bucketIndex(1000));
+        assertEquals(1, LatencyHistogram.bucketIndex(1001));
+        assertEquals(2, LatencyHistogram.bucketIndex(3000));
+        assertEquals(2, LatencyHistogram.bucketIndex(4000));
+        assertEquals(LatencyHistogram.BUCKETS, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = registry.histogram("tick_seconds");
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(5_000_000);
+        assertEquals(100, histogram.getCount());
+        assertEquals(1000, histogram.getPercentileNanos(0.5));
+        assertEquals(1000, histogram.getPercentileNanos(0.99));
+        assertEquals(5_000_000, histogram.getPercentileNanos(1));
+    }
+
+    @Test
+    public void sameNameAndLabelsGiveSameCounter() {
+        registry.counter("packets_total", "type", "boat").increment();
+        registry.counter("packets_total", "type", "boat").increment();
+        registry.counter("packets_total", "type", "race").increment();
+        assertEquals(2, registry.counter("packets_total", "type", "boat").sum());
+    }
+
+    @Test
+    public void writesTextFormat() throws Exception {
+        registry.counter("packets_total", "type", "boat").add(3);
+        registry.gauge("queued_bytes", () -> 12, "client", "a");
+        registry.histogram("tick_seconds", "phase", "wind").record(1500);
+        StringWriter text = new StringWriter();
+        registry.writeText(text);
+        String output = text.toString();
+        assertTrue(output.contains("# TYPE packets_total counter\npackets_total{type=\"boat\"} 3\n"));
+        assertTrue(output.contains("queued_bytes{client=\"a\"} 12\n"));
+        assertTrue(output.contains("tick_seconds_bucket{phase=\"wind\",le=\"1.0E-6\"} 0\n"));
+        assertTrue(output.contains("tick_seconds_bucket{phase=\"wind\",le=\"2.0E-6\"} 1\n"));
+        assertTrue(output.contains("tick_seconds_bucket{phase=\"wind\",le=\"+Inf\"} 1\n"));
+        assertTrue(output.contains("tick_seconds_count{phase=\"wind\"} 1\n"));
+    }
+
+    @Test
+    public void removedGaugeIsNotWritten() throws Exception {
+        registry.gauge("queued_bytes", () -> 12, "client", "a");
+        registry.remove("queued_bytes", "client", "a");
+        StringWriter text = new StringWriter();
+        registry.writeText(text);
+        assertTrue(!text.toString().contains("queued_bytes"));
+    }
+}